@@ -0,0 +1,103 @@
+package org.slinkyframework.environment.docker;
+
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.slinkyframework.environment.builder.definition.AbstractBuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+import org.slinkyframework.environment.docker.readiness.ReadinessProbe;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A service run in a Docker container of its own, e.g. a message broker or a mock of another system. The container
+ * is named after the build definition and waits for the build definitions it depends on, so that containers that do
+ * not depend on each other start at the same time.
+ *
+ * Ports published without an external port publish the same port outside the container, or a free port in a
+ * namespace, unless set by the ENV_DOCKER_PORT_&lt;port&gt; environment variable.
+ *
+ * As the definition is configured fluently, only its name, priority and image make it equal to another.
+ */
+public class DockerBuildDefinition extends AbstractBuildDefinition {
+
+    private static final long serialVersionUID = 1L;
+    private static final long THIRTY_SECONDS = 30000;
+
+    private final String imageName;
+    private final Map<Integer, Integer> ports = new TreeMap<>();
+    private final Map<String, String> environment = new TreeMap<>();
+    // Probes are code rather than configuration, so are left out of the fingerprint
+    private transient ReadinessProbe readinessProbe;
+    private long readinessTimeout = THIRTY_SECONDS;
+
+    public DockerBuildDefinition(String name, String imageName) {
+        super(name);
+        this.imageName = imageName;
+    }
+
+    public DockerBuildDefinition(BuildPriority priority, String name, String imageName) {
+        super(priority, name);
+        this.imageName = imageName;
+    }
+
+    public String getImageName() {
+        return imageName;
+    }
+
+    /**
+     * @return the ports published by the container, mapped to the external port or 0 when it is to be selected
+     */
+    public Map<Integer, Integer> getPorts() {
+        return Collections.unmodifiableMap(ports);
+    }
+
+    public Map<String, String> getEnvironment() {
+        return Collections.unmodifiableMap(environment);
+    }
+
+    /**
+     * @return how to tell that the container is ready, or null when every port it publishes has to accept connections
+     */
+    public ReadinessProbe getReadinessProbe() {
+        return readinessProbe;
+    }
+
+    public long getReadinessTimeout() {
+        return readinessTimeout;
+    }
+
+    public DockerBuildDefinition addPort(int internalPort) {
+        return addPort(internalPort, 0);
+    }
+
+    public DockerBuildDefinition addPort(int internalPort, int externalPort) {
+        ports.put(internalPort, externalPort);
+        return this;
+    }
+
+    public DockerBuildDefinition addEnvironmentVariable(String name, String value) {
+        environment.put(name, value);
+        return this;
+    }
+
+    /**
+     * @param timeoutMillis how long to wait for the probe to be ready
+     */
+    public DockerBuildDefinition setReadinessProbe(ReadinessProbe readinessProbe, long timeoutMillis) {
+        this.readinessProbe = readinessProbe;
+        this.readinessTimeout = timeoutMillis;
+        return this;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return EqualsBuilder.reflectionEquals(this, o, "dependencies", "ports", "environment", "readinessTimeout");
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this, "dependencies", "ports", "environment", "readinessTimeout");
+    }
+}
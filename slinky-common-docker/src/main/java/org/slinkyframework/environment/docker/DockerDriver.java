@@ -2,25 +2,35 @@ package org.slinkyframework.environment.docker;
 
 import com.spotify.docker.client.DefaultDockerClient;
 import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.ContainerNotFoundException;
 import com.spotify.docker.client.exceptions.DockerCertificateException;
 import com.spotify.docker.client.exceptions.DockerException;
 import com.spotify.docker.client.messages.*;
-import org.apache.commons.compress.utils.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.Timer;
+import org.slinkyframework.environment.builder.state.Fingerprint;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+import org.slinkyframework.environment.docker.readiness.ProbeTarget;
+import org.slinkyframework.environment.docker.readiness.ReadinessCheck;
+import org.slinkyframework.environment.docker.readiness.ReadinessProbe;
+import org.slinkyframework.environment.docker.readiness.TcpProbe;
 import org.springframework.retry.backoff.FixedBackOffPolicy;
 import org.springframework.retry.policy.TimeoutRetryPolicy;
 import org.springframework.retry.support.RetryTemplate;
 
-import java.io.IOException;
-import java.net.Socket;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
-
-import static java.lang.String.format;
+import java.util.stream.Collectors;
 
 public class DockerDriver {
+    public static final String JOURNAL_CONTAINER = "container";
+    public static final String LABEL_NAMESPACE = "org.slinkyframework.namespace";
+    public static final String LABEL_CONFIG_HASH = "org.slinkyframework.config-hash";
+
     private static final String ENVIRONMENT_DOCKER_MACHINE_NAME = "DOCKER_MACHINE_NAME";
     private static final String DEFAULT_DOCKER_HOSTNAME = "localhost";
 
@@ -28,27 +38,121 @@ public class DockerDriver {
 
     private static final int ONE_SECOND = 1000;
     private static final long THIRTY_SECONDS = 30000;
+    private static final long REUSE_HEALTH_CHECK_TIMEOUT = 10000;
 
     private final String containerName;
-    private final String imageName;
+    private String imageName;
     // Map of internal Docker ports to external ports
     private final Map<Integer, Integer> ports;
+    private final Map<String, String> labels;
+    private Map<String, String> environment = Collections.emptyMap();
+    private final ProvisioningJournal journal;
+    private final MetricsRegistry metrics = MetricsRegistry.global();
     private String dockerHostname;
+    private ReadinessProbe readinessProbe;
+    private long readinessTimeout = THIRTY_SECONDS;
+    private boolean reuseContainer;
+    private boolean containerReused;
 
     private DockerClient dockerClient;
+    private DockerMetadataCache metadata;
+    private DockerImageCache imageCache;
     private String containerId;
 
     public DockerDriver(String containerName, String imageName, Map<Integer, Integer> ports) {
+        this(containerName, imageName, ports, Collections.emptyMap());
+    }
+
+    /**
+     * @param labels added to the container, e.g. the namespace it belongs to
+     */
+    public DockerDriver(String containerName, String imageName, Map<Integer, Integer> ports, Map<String, String> labels) {
+        this(containerName, imageName, ports, labels, ProvisioningJournal.open(ProvisioningJournal.DEFAULT_DIRECTORY, "docker-" + containerName));
+    }
+
+    /**
+     * @param journal records the id of each container created, so that tear down removes exactly those containers
+     */
+    public DockerDriver(String containerName, String imageName, Map<Integer, Integer> ports, ProvisioningJournal journal) {
+        this(containerName, imageName, ports, Collections.emptyMap(), journal);
+    }
+
+    public DockerDriver(String containerName, String imageName, Map<Integer, Integer> ports, Map<String, String> labels, ProvisioningJournal journal) {
         this.containerName = containerName;
         this.imageName = imageName;
         this.ports = ports;
+        this.labels = labels;
+        this.journal = journal;
 
         dockerHostname = System.getenv(ENVIRONMENT_DOCKER_MACHINE_NAME);
 
         if (dockerHostname == null) {
             dockerHostname = DEFAULT_DOCKER_HOSTNAME;
         }
-        connectToDocker();
+    }
+
+    /**
+     * Used for testing
+     */
+    public DockerDriver(String containerName, String imageName, Map<Integer, Integer> ports, ProvisioningJournal journal, DockerClient dockerClient) {
+        this(containerName, imageName, ports, journal);
+        this.dockerClient = dockerClient;
+    }
+
+    /**
+     * Sets how to tell that the container is ready to be used once it has started. Without a probe, every port the
+     * container publishes has to accept connections.
+     *
+     * @param timeoutMillis how long to wait for the probe to be ready
+     */
+    public void setReadinessProbe(ReadinessProbe readinessProbe, long timeoutMillis) {
+        this.readinessProbe = readinessProbe;
+        this.readinessTimeout = timeoutMillis;
+    }
+
+    /**
+     * Sets the environment variables of the container, e.g. the password of the database in it.
+     */
+    public void setEnvironment(Map<String, String> environment) {
+        this.environment = new TreeMap<>(environment);
+    }
+
+    /**
+     * Sets the image to create the container from, e.g. one from the {@link DockerImageCache}, rather than the image
+     * the driver was created with.
+     */
+    public void setImageName(String imageName) {
+        this.imageName = imageName;
+    }
+
+    public String getImageName() {
+        return imageName;
+    }
+
+    /**
+     * @return the id of the container set up last
+     */
+    public String getContainerId() {
+        return containerId;
+    }
+
+    /**
+     * Sets whether a running container created with the same configuration is reused rather than replaced, see
+     * {@link #getConfigHash()}.
+     */
+    public void setReuseContainer(boolean reuseContainer) {
+        this.reuseContainer = reuseContainer;
+    }
+
+    public boolean isReuseContainer() {
+        return reuseContainer;
+    }
+
+    /**
+     * @return whether the last set up reused a running container, which may still hold what earlier builds left
+     */
+    public boolean isContainerReused() {
+        return containerReused;
     }
 
     private boolean isEnvironmentVariableSet(String name) {
@@ -57,14 +161,57 @@ public class DockerDriver {
         return value != null && !value.trim().equals("");
     }
 
-    private void connectToDocker() {
+    /**
+     * Connects to Docker the first time it is needed so that creating a driver is cheap.
+     */
+    private synchronized DockerClient getDockerClient() {
+        if (dockerClient == null) {
+            dockerClient = connectToDocker();
+        }
+        return dockerClient;
+    }
+
+    private synchronized DockerMetadataCache getMetadata() {
+        if (metadata == null) {
+            metadata = DockerMetadataCache.forClient(getDockerClient());
+        }
+        return metadata;
+    }
+
+    public synchronized DockerImageCache getImageCache() {
+        if (imageCache == null) {
+            imageCache = new DockerImageCache(getDockerClient(), DockerImageCache.DEFAULT_INDEX);
+        }
+        return imageCache;
+    }
+
+    /**
+     * Invalidates what has been cached about the Docker host after changing it, without waiting for its events.
+     */
+    private void invalidateImages() {
+        if (dockerClient != null) {
+            getMetadata().invalidateImages();
+        }
+    }
+
+    private void invalidateContainers() {
+        if (dockerClient != null) {
+            getMetadata().invalidateContainers();
+        }
+    }
+
+    private DockerClient connectToDocker() {
         try {
             LOG.debug("Connecting to Docker");
 
-            dockerClient = DefaultDockerClient.fromEnv().build();
-            dockerClient.ping();
+            DockerClient client;
+            try (Timer.Context ignored = metrics.timer("docker.connect").start()) {
+                client = DefaultDockerClient.fromEnv().build();
+                client.ping();
+            }
 
             LOG.debug("Connection to Docker established");
+            return client;
 
         } catch (DockerException | DockerCertificateException | InterruptedException e) {
             throw new EnvironmentBuilderException("Unable to connect to Docker", e);
@@ -75,54 +222,120 @@ public class DockerDriver {
 
         LOG.info("Setting up Docker container '{}'", containerName);
 
-        pullContainer();
-
+        containerReused = false;
         Optional<Container> existingContainer = findExistingContainer();
 
+        if (existingContainer.isPresent() && reuseContainer && canReuse(existingContainer.get())) {
+            LOG.info("Reusing Docker container '{}'", containerName);
+            containerId = existingContainer.get().id();
+            containerReused = true;
+
+            if (journal.getEntries(JOURNAL_CONTAINER).stream().noneMatch(entry -> containerId.equals(entry.getTarget()))) {
+                journal.record(JOURNAL_CONTAINER, containerId);
+            }
+            metrics.counter("docker.container.reused").increment();
+            return;
+        }
+
+        pullContainer();
+
         if (existingContainer.isPresent()) {
             LOG.warn("Container '{}' already exists", containerName);
             killAndRemoveContainer(existingContainer.get());
         }
         ContainerCreation container = createContainer();
         containerId = container.id();
+        journal.record(JOURNAL_CONTAINER, containerId);
 
-        waitFor(this::startContainer);
-        waitForContainerToStart();
+        metrics.timer("docker.container.start").time(() -> waitFor(this::startContainer));
+        metrics.timer("docker.ready.wait").time(this::waitForContainerToBeReady);
     }
 
-    private void pullContainer() {
+    /**
+     * A container can be reused when it is running, was created with the same configuration and is still healthy.
+     */
+    private boolean canReuse(Container container) {
+        if (!container.status().startsWith("Up")) {
+            LOG.info("Container '{}' is not running, so replacing it", containerName);
+            return false;
+        }
+
+        String configHash = container.labels() == null ? null : container.labels().get(LABEL_CONFIG_HASH);
+        if (!getConfigHash().equals(configHash)) {
+            LOG.info("Container '{}' was created with a different configuration, so replacing it", containerName);
+            return false;
+        }
+
         try {
-            if (!findImage().isPresent()) {
-                dockerClient.pull(imageName);
-            }
-        } catch (DockerException | InterruptedException e) {
-            throw new EnvironmentBuilderException("Unable to pull container: " + imageName, e);
+            new ReadinessCheck(getReadinessProbe(), REUSE_HEALTH_CHECK_TIMEOUT)
+                    .await(new ProbeTarget(getDockerClient(), container.id(), containerName, dockerHostname, ports));
+            return true;
+        } catch (EnvironmentBuilderException e) {
+            LOG.warn("Container '{}' failed its health check, so replacing it: {}", containerName, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Every container is labelled with this hash of its image, published ports, environment, labels and host
+     * settings, so that a container can only be reused by a driver that would create exactly the same one.
+     */
+    public String getConfigHash() {
+        ContainerConfig config = getContainerConfig();
+
+        return Fingerprint.create()
+                .add(config.image())
+                .add(new TreeSet<>(config.env()).toString())
+                .add(new TreeMap<>(config.labels()).toString())
+                // Port bindings are sorted, and resource limits are included should any be set
+                .add(config.hostConfig().toString())
+                .toHex();
+    }
+
+    /**
+     * Starts pulling the image in the background, unless the Docker host already has it, and returns straight away.
+     */
+    public CompletableFuture<Void> prefetchImage() {
+        return ImagePrefetcher.global().prefetch(this::getDockerClient, imageName);
+    }
+
+    private void pullContainer() {
+        if (!findImage().isPresent()) {
+            // Waits only for this image, which may already be being pulled by a prefetch
+            metrics.timer("docker.image.wait").time(() -> ImagePrefetcher.global().await(this::getDockerClient, imageName));
         }
     }
 
     public Optional<Container> findExistingContainer() {
         try {
-            List<Container> containers = dockerClient.listContainers(DockerClient.ListContainersParam.allContainers(true));
-
-            for (Container container : containers) {
-                for (String name : container.names()) {
-                    if (name.contains(containerName)) {
-                        return Optional.of(container);
-                    }
-                }
-            }
-
-        } catch (DockerException | InterruptedException e) {
+            return getMetadata().findContainer(containerName);
+        } catch (EnvironmentBuilderException e) {
             LOG.error("Unable to retrieve a list of Docker containers", e);
+            return Optional.empty();
         }
-        return Optional.empty();
     }
 
+    public boolean isContainerRunning() {
+        return findExistingContainer()
+                .map(container -> container.status().startsWith("Up"))
+                .orElse(false);
+    }
+
+    /**
+     * Kills and removes the containers recorded in the journal. If nothing has been recorded, the container is
+     * found by name instead.
+     */
     public void killAndRemoveContainer() {
+        if (!journal.isEmpty()) {
+            metrics.timer("docker.container.remove").time(() -> journal.replayInReverse(entry -> killAndRemoveContainer(entry.getTarget())));
+            LOG.info("Docker container '{}' killed and removed", containerName);
+            return;
+        }
+
         Optional<Container> existingContainer = findExistingContainer();
 
         if (existingContainer.isPresent()) {
-            killAndRemoveContainer(existingContainer.get());
+            metrics.timer("docker.container.remove").time(() -> killAndRemoveContainer(existingContainer.get()));
             LOG.info("Docker container '{}' killed and removed", containerName);
         } else {
             LOG.warn("Container '{}' was not running", containerName);
@@ -133,12 +346,33 @@ public class DockerDriver {
         try {
             if (container.status().startsWith("Up")) {
                 LOG.debug("Killing Docker container '{}'", containerName);
-                dockerClient.killContainer(container.id());
+                getDockerClient().killContainer(container.id());
             }
             LOG.debug("Removing Docker container '{}'", containerName);
-            dockerClient.removeContainer(container.id());
+            getDockerClient().removeContainer(container.id());
+        } catch (DockerException | InterruptedException e) {
+            throw new EnvironmentBuilderException("Unable to kill and remove a container", e);
+        } finally {
+            invalidateContainers();
+        }
+    }
+
+    private void killAndRemoveContainer(String id) {
+        try {
+            ContainerInfo container = getDockerClient().inspectContainer(id);
+
+            if (Boolean.TRUE.equals(container.state().running())) {
+                LOG.debug("Killing Docker container '{}'", id);
+                getDockerClient().killContainer(id);
+            }
+            LOG.debug("Removing Docker container '{}'", id);
+            getDockerClient().removeContainer(id);
+        } catch (ContainerNotFoundException e) {
+            LOG.debug("Docker container '{}' has already been removed", id);
         } catch (DockerException | InterruptedException e) {
             throw new EnvironmentBuilderException("Unable to kill and remove a container", e);
+        } finally {
+            invalidateContainers();
         }
     }
 
@@ -146,7 +380,29 @@ public class DockerDriver {
 
         LOG.debug("Creating Docker container '{}'", containerName);
 
-        final Map<String, List<PortBinding>> portBindings = new HashMap<>();
+        ContainerConfig containerConfig = getContainerConfig();
+
+        Map<String, String> containerLabels = new HashMap<>(containerConfig.labels());
+        containerLabels.put(LABEL_CONFIG_HASH, getConfigHash());
+
+        ContainerConfig config = containerConfig.toBuilder()
+                .labels(containerLabels)
+                .build();
+
+        try (Timer.Context ignored = metrics.timer("docker.container.create").start()) {
+            ContainerCreation container = getDockerClient().createContainer(config, containerName);
+
+            LOG.debug("Docker container '{}' created", containerName);
+            return container;
+        } catch (DockerException | InterruptedException e) {
+            throw new EnvironmentBuilderException("Unable to create Docker container. Is one already running with the same name?", e);
+        } finally {
+            invalidateContainers();
+        }
+    }
+
+    private ContainerConfig getContainerConfig() {
+        final Map<String, List<PortBinding>> portBindings = new TreeMap<>();
         for (int dockerPort : ports.keySet()) {
             List<PortBinding> hostPorts = new ArrayList<>();
             hostPorts.add(PortBinding.of("0.0.0.0", ports.get(dockerPort)));
@@ -157,21 +413,14 @@ public class DockerDriver {
                 .portBindings(portBindings)
                 .build();
 
-        // Create container
-        ContainerConfig config = ContainerConfig.builder()
+        return ContainerConfig.builder()
                 .image(imageName)
-                .env("ORACLE_PASSWORD=oracle")
+                .env(environment.entrySet().stream()
+                        .map(variable -> variable.getKey() + "=" + variable.getValue())
+                        .collect(Collectors.toList()))
+                .labels(labels)
                 .hostConfig(hostConfig)
                 .build();
-
-        try {
-            ContainerCreation container = dockerClient.createContainer(config, containerName);
-
-            LOG.debug("Docker container '{}' created", containerName);
-            return container;
-        } catch (DockerException | InterruptedException e) {
-            throw new EnvironmentBuilderException("Unable to create Docker container. Is one already running with the same name?", e);
-        }
     }
 
     private void startContainer(DockerClient docker, String containerId) {
@@ -185,61 +434,32 @@ public class DockerDriver {
         } catch (DockerException  | InterruptedException e) {
             LOG.error("Unable to start container '{}'. Is there something running on the same ports?", containerName);
             throw new EnvironmentBuilderException("Unable to start container", e);
+        } finally {
+            invalidateContainers();
         }
     }
 
-    private void waitForContainerToStart() {
-        TimeoutRetryPolicy retryPolicy = new TimeoutRetryPolicy();
-        retryPolicy.setTimeout(THIRTY_SECONDS);
-
-        FixedBackOffPolicy backOffPolicy = new FixedBackOffPolicy();
-        backOffPolicy.setBackOffPeriod(ONE_SECOND);
-
-        RetryTemplate retryTemplate = new RetryTemplate();
-        retryTemplate.setRetryPolicy(retryPolicy);
-        retryTemplate.setThrowLastExceptionOnExhausted(true);
-        retryTemplate.setBackOffPolicy(backOffPolicy);
-
-        retryTemplate.execute(rc -> portInUse(dockerHostname, firstExternalPort()));
+    private void waitForContainerToBeReady() {
+        new ReadinessCheck(getReadinessProbe(), readinessTimeout).await(new ProbeTarget(getDockerClient(), containerId, containerName, dockerHostname, ports));
     }
 
-    private Integer firstExternalPort() {
-        return ports.values().toArray(new Integer[] {})[0];
+    private ReadinessProbe getReadinessProbe() {
+        return readinessProbe == null ? allPortsOpen() : readinessProbe;
     }
 
-    private boolean portInUse(String host, int port) {
-        LOG.debug("Check whether {}:{} is ready", host, port);
-        Socket s = null;
-        try {
-            s = new Socket(host, port);
-            LOG.debug("{}:{} is ready", host, port);
-            return true;
-        } catch (IOException e) {
-            LOG.debug("{}:{} is not ready", host, port);
-            throw new EnvironmentBuilderException(format("Container '%s' has failed to start. Port %s:%s not available", containerName, host, port), e);
-        } finally {
-            IOUtils.closeQuietly(s);
-        }
+    private ReadinessProbe allPortsOpen() {
+        return ReadinessProbe.all(new TreeSet<>(ports.keySet()).stream()
+                .map(TcpProbe::new)
+                .toArray(ReadinessProbe[]::new));
     }
 
     public Optional<Image> findImage() {
         try {
-            List<Image> images = dockerClient.listImages(DockerClient.ListImagesParam.allImages());
-
-            for (Image image : images) {
-                if (image.repoTags() != null) {
-                    for (String tag : image.repoTags()) {
-                        if (tag.equals(imageName)) {
-                            return Optional.of(image);
-                        }
-                    }
-                }
-            }
-
-        } catch (DockerException | InterruptedException e) {
+            return getMetadata().findImage(imageName);
+        } catch (EnvironmentBuilderException e) {
             LOG.error("Unable to retrieve a list of Docker images", e);
+            return Optional.empty();
         }
-        return Optional.empty();
     }
 
     public void waitFor(BiConsumer<DockerClient, String> function) {
@@ -254,6 +474,6 @@ public class DockerDriver {
         retryTemplate.setThrowLastExceptionOnExhausted(true);
         retryTemplate.setBackOffPolicy(backOffPolicy);
 
-        retryTemplate.execute(rc -> { function.accept(dockerClient, containerId); return null; });
+        retryTemplate.execute(rc -> { function.accept(getDockerClient(), containerId); return null; });
     }
 }
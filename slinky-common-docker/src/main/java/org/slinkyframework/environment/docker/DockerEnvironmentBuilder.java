@@ -0,0 +1,103 @@
+package org.slinkyframework.environment.docker;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.Namespace;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Runs each {@link DockerBuildDefinition} in a container of its own, set up by one {@link DockerGroupDriver} so
+ * that the containers of definitions that do not depend on each other start at the same time.
+ *
+ * In a namespace the containers are named and labelled after the namespace, and publish free ports, so that
+ * concurrent builds on one host each get their own containers.
+ */
+public class DockerEnvironmentBuilder implements EnvironmentBuilder<DockerBuildDefinition> {
+
+    private final DockerGroupDriver groupDriver;
+    private final Function<DockerBuildDefinition, DockerDriver> driverFactory;
+
+    public DockerEnvironmentBuilder(Namespace namespace, boolean reuseContainers) {
+        this(new DockerGroupDriver(), definition -> createDriver(definition, namespace, reuseContainers));
+    }
+
+    /**
+     * Used for testing
+     */
+    public DockerEnvironmentBuilder(DockerGroupDriver groupDriver, Function<DockerBuildDefinition, DockerDriver> driverFactory) {
+        this.groupDriver = groupDriver;
+        this.driverFactory = driverFactory;
+    }
+
+    private static DockerDriver createDriver(DockerBuildDefinition definition, Namespace namespace, boolean reuseContainers) {
+        Map<Integer, Integer> ports = new HashMap<>();
+        definition.getPorts().forEach((internalPort, externalPort) -> ports.put(internalPort,
+                externalPort == 0 ? PortSelector.selectPort(internalPort, !namespace.isNone()) : externalPort));
+
+        Map<String, String> labels = namespace.isNone()
+                ? Collections.emptyMap()
+                : Collections.singletonMap(DockerDriver.LABEL_NAMESPACE, namespace.getName());
+
+        DockerDriver driver = new DockerDriver(namespace.qualify(definition.getName()), definition.getImageName(), ports, labels);
+        driver.setEnvironment(definition.getEnvironment());
+        driver.setReuseContainer(reuseContainers);
+
+        if (definition.getReadinessProbe() != null) {
+            driver.setReadinessProbe(definition.getReadinessProbe(), definition.getReadinessTimeout());
+        }
+        return driver;
+    }
+
+    @Override
+    public void prefetch(Set<DockerBuildDefinition> buildDefinitions) {
+        groupDriver.prefetchImages(addToGroup(buildDefinitions));
+    }
+
+    /**
+     * Starts every container, those that do not depend on each other at the same time.
+     */
+    @Override
+    public void prepare(Set<DockerBuildDefinition> buildDefinitions) {
+        groupDriver.setUp(addToGroup(buildDefinitions));
+    }
+
+    @Override
+    public void setUp(Set<DockerBuildDefinition> buildDefinitions) {
+        groupDriver.setUp(addToGroup(buildDefinitions));
+    }
+
+    @Override
+    public void tearDown(Set<DockerBuildDefinition> buildDefinitions) {
+        groupDriver.tearDown(addToGroup(buildDefinitions));
+    }
+
+    @Override
+    public boolean isHealthy(Set<DockerBuildDefinition> buildDefinitions) {
+        return addToGroup(buildDefinitions).stream()
+                .allMatch(name -> groupDriver.getDriver(name).isContainerRunning());
+    }
+
+    @Override
+    public void cleanUp() {
+    }
+
+    /**
+     * @return the names of the build definitions, each of which names a container in the group
+     */
+    private synchronized List<String> addToGroup(Set<DockerBuildDefinition> buildDefinitions) {
+        for (DockerBuildDefinition definition : buildDefinitions) {
+            if (!groupDriver.contains(definition.getName())) {
+                groupDriver.add(definition.getName(), driverFactory.apply(definition), definition.getDependencies());
+            }
+        }
+        return buildDefinitions.stream()
+                .map(DockerBuildDefinition::getName)
+                .collect(Collectors.toList());
+    }
+}
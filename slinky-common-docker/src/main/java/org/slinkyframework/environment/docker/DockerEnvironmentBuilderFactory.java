@@ -0,0 +1,31 @@
+package org.slinkyframework.environment.docker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class DockerEnvironmentBuilderFactory implements EnvironmentBuilderFactory {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DockerEnvironmentBuilderFactory.class);
+
+    @Override
+    public boolean forClass(Class buildDefinitionClass) {
+        return buildDefinitionClass.equals(DockerBuildDefinition.class);
+    }
+
+    /**
+     * @return null when not using Docker, as the services are then expected to be running on the target host already
+     */
+    @Override
+    public EnvironmentBuilder getInstance(EnvironmentBuilderContext environmentBuilderContext) {
+        if (!environmentBuilderContext.isUseDocker()) {
+            LOG.debug("Not using Docker, so expecting services to be running on '{}' already", environmentBuilderContext.getTargetHost());
+            return null;
+        }
+        return new DockerEnvironmentBuilder(environmentBuilderContext.getNamespace(), environmentBuilderContext.isReuseContainers());
+    }
+}
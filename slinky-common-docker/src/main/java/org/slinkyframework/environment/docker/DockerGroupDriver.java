@@ -0,0 +1,155 @@
+package org.slinkyframework.environment.docker;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.scheduler.BuildScope;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Sets up a group of containers, each with its own {@link DockerDriver}. Containers that do not depend on each
+ * other are created, started and probed at the same time, and a container is only created once the containers it
+ * depends on are ready.
+ *
+ * A container only waits for the containers it depends on that are being set up with it, or that are still being
+ * set up. Those set up earlier are assumed to still be running.
+ *
+ * Within a build on virtual threads the containers are set up in its {@link BuildScope} rather than on the threads
+ * of the group.
+ */
+public class DockerGroupDriver {
+
+    private final Map<String, DockerDriver> drivers = new LinkedHashMap<>();
+    private final Map<String, Set<String>> dependencies = new HashMap<>();
+    private final Map<String, CompletableFuture<Void>> setUps = new HashMap<>();
+    private final ExecutorService executor;
+    private final MetricsRegistry metrics = MetricsRegistry.global();
+
+    public DockerGroupDriver() {
+        AtomicInteger count = new AtomicInteger();
+
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "docker-group-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @param dependencies the names of the containers in the group to wait for, others are ignored
+     */
+    public synchronized void add(String name, DockerDriver driver, Set<String> dependencies) {
+        drivers.put(name, driver);
+        this.dependencies.put(name, new LinkedHashSet<>(dependencies));
+    }
+
+    public synchronized boolean contains(String name) {
+        return drivers.containsKey(name);
+    }
+
+    public synchronized DockerDriver getDriver(String name) {
+        DockerDriver driver = drivers.get(name);
+
+        if (driver == null) {
+            throw new EnvironmentBuilderException(format("There is no container '%s' in the group", name));
+        }
+        return driver;
+    }
+
+    /**
+     * Starts pulling the images of the containers in the background.
+     */
+    public void prefetchImages(Collection<String> names) {
+        names.forEach(name -> getDriver(name).prefetchImage());
+    }
+
+    /**
+     * Sets up the containers, waiting until all of them are ready. Containers already set up, or being set up, are
+     * not set up again.
+     */
+    public void setUp(Collection<String> names) {
+        metrics.timer("docker.group.setUp").time(() -> join(setUpAsync(names)));
+    }
+
+    /**
+     * @see #setUp(Collection)
+     */
+    public synchronized CompletableFuture<Void> setUpAsync(Collection<String> names) {
+        Set<String> toSetUp = new LinkedHashSet<>(names);
+        MetricTags tags = MetricTags.current();
+
+        return CompletableFuture.allOf(toSetUp.stream()
+                .map(name -> setUpAsync(name, toSetUp, new LinkedHashSet<>(), tags))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    private CompletableFuture<Void> setUpAsync(String name, Set<String> toSetUp, Set<String> path, MetricTags tags) {
+        CompletableFuture<Void> existing = setUps.get(name);
+
+        if (existing != null && !existing.isCompletedExceptionally()) {
+            return existing;
+        }
+        DockerDriver driver = getDriver(name);
+
+        if (!path.add(name)) {
+            throw new EnvironmentBuilderException(format("Containers depend on each other in a cycle: %s -> %s", String.join(" -> ", path), name));
+        }
+
+        List<CompletableFuture<Void>> dependencySetUps = dependencies.get(name).stream()
+                .filter(drivers::containsKey)
+                .filter(dependency -> toSetUp.contains(dependency) || setUps.containsKey(dependency))
+                .map(dependency -> toSetUp.contains(dependency) ? setUpAsync(dependency, toSetUp, path, tags) : setUps.get(dependency))
+                .collect(Collectors.toList());
+        path.remove(name);
+
+        CompletableFuture<Void> setUp = CompletableFuture.allOf(dependencySetUps.toArray(new CompletableFuture[0]))
+                .thenRunAsync(() -> tags.runWith(driver::setUpDocker), BuildScope.current().executorOr(executor));
+        setUps.put(name, setUp);
+        return setUp;
+    }
+
+    /**
+     * Kills and removes the containers at the same time, waiting until all of them have gone.
+     */
+    public void tearDown(Collection<String> names) {
+        List<CompletableFuture<Void>> tearDowns;
+        MetricTags tags = MetricTags.current();
+        Executor tearDownExecutor = BuildScope.current().executorOr(executor);
+
+        synchronized (this) {
+            tearDowns = names.stream()
+                    .map(this::getDriver)
+                    .map(driver -> CompletableFuture.runAsync(() -> tags.runWith(driver::killAndRemoveContainer), tearDownExecutor))
+                    .collect(Collectors.toList());
+            names.forEach(setUps::remove);
+        }
+        join(CompletableFuture.allOf(tearDowns.toArray(new CompletableFuture[0])));
+    }
+
+    private void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EnvironmentBuilderException) {
+                throw (EnvironmentBuilderException) e.getCause();
+            }
+            throw new EnvironmentBuilderException("Unable to set up or tear down a group of containers", e.getCause());
+        }
+    }
+}
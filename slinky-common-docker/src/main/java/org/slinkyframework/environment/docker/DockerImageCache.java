@@ -0,0 +1,252 @@
+package org.slinkyframework.environment.docker;
+
+import com.google.common.collect.ImmutableMap;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.messages.ContainerConfig;
+import com.spotify.docker.client.messages.ContainerCreation;
+import com.spotify.docker.client.messages.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.Timer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Images committed from containers once they have been set up, so that later builds can start from them rather than
+ * set everything up again.
+ *
+ * Each image is tagged with a key, a hash of everything set up in it, and labelled with a lineage, a hash of what
+ * was set up but not of its content. When there is no image for a key, the most recently used image of the same
+ * lineage is the next best place to start from.
+ *
+ * Once the images take up more than the disk budget, the least recently used are removed. Each image counts the
+ * size it adds to the image it was committed from. Docker does not record when an image was last used, so that is
+ * kept in a properties file.
+ */
+public class DockerImageCache {
+
+    public static final String LABEL_KEY = "org.slinkyframework.cache.key";
+    public static final String LABEL_LINEAGE = "org.slinkyframework.cache.lineage";
+    public static final File DEFAULT_INDEX = new File(System.getProperty("user.home"), ".slinky/image-cache.properties");
+
+    private static final Logger LOG = LoggerFactory.getLogger(DockerImageCache.class);
+
+    private final DockerClient dockerClient;
+    private final File index;
+    private final MetricsRegistry metrics = MetricsRegistry.global();
+
+    /**
+     * @param index the properties file recording when each image was last used
+     */
+    public DockerImageCache(DockerClient dockerClient, File index) {
+        this.dockerClient = dockerClient;
+        this.index = index;
+    }
+
+    /**
+     * @return the image to start from: the image for the key, or else the most recently used image of the lineage
+     */
+    public synchronized Optional<String> find(String repository, String key, String lineage) {
+        String imageName = imageName(repository, key);
+        Optional<Image> image = DockerMetadataCache.forClient(dockerClient).findImage(imageName);
+
+        if (image.isPresent()) {
+            LOG.debug("Found cached image '{}'", imageName);
+            touch(image.get().id());
+            return Optional.of(imageName);
+        }
+
+        Properties lastUsed = readIndex();
+        Optional<Image> latest = listImages(DockerClient.ListImagesParam.withLabel(LABEL_LINEAGE, lineage)).stream()
+                .filter(candidate -> candidate.labels() != null && lineage.equals(candidate.labels().get(LABEL_LINEAGE)))
+                .filter(candidate -> tagIn(candidate, repository).isPresent())
+                .max(Comparator.comparingLong(candidate -> lastUsed(lastUsed, candidate)));
+
+        if (latest.isPresent()) {
+            LOG.debug("No cached image '{}', so starting from '{}'", imageName, tagIn(latest.get(), repository).get());
+            touch(latest.get().id());
+            return tagIn(latest.get(), repository);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Commits the container as the image for the key, replacing any image there was for it.
+     *
+     * @return the name of the image
+     */
+    public synchronized String commit(String containerId, String repository, String key, String lineage) {
+        String imageName = imageName(repository, key);
+        ContainerConfig config = ContainerConfig.builder()
+                .labels(ImmutableMap.of(LABEL_KEY, key, LABEL_LINEAGE, lineage))
+                .build();
+
+        try (Timer.Context ignored = metrics.timer("docker.image.commit").start()) {
+            ContainerCreation image = dockerClient.commitContainer(containerId, repository, key, config, "Cached by Slinky Environment Builder", null);
+
+            LOG.info("Container committed as image '{}'", imageName);
+            touch(image.id());
+            return imageName;
+        } catch (DockerException | InterruptedException e) {
+            throw new EnvironmentBuilderException(format("Unable to commit container as image '%s'", imageName), e);
+        } finally {
+            DockerMetadataCache.forClient(dockerClient).invalidateImages();
+        }
+    }
+
+    /**
+     * Removes the least recently used images until the rest fit in the budget. Images in use by a container, or that
+     * other images were committed from, cannot be removed and are skipped.
+     *
+     * @param keep the name of an image not to remove, e.g. the one just committed
+     */
+    public synchronized void evict(long budgetBytes, String keep) {
+        List<Image> images = listImages(DockerClient.ListImagesParam.withLabel(LABEL_KEY));
+        Map<String, Long> sizes = new HashMap<>();
+        images.forEach(image -> sizes.put(image.id(), ownSize(image, images)));
+
+        long total = sizes.values().stream().mapToLong(Long::longValue).sum();
+        if (total <= budgetBytes) {
+            return;
+        }
+
+        Properties lastUsed = readIndex();
+        List<Image> leastRecentlyUsedFirst = images.stream()
+                .filter(image -> image.repoTags() == null || !image.repoTags().contains(keep))
+                .sorted(Comparator.comparingLong(image -> lastUsed(lastUsed, image)))
+                .collect(Collectors.toList());
+
+        for (Image image : leastRecentlyUsedFirst) {
+            if (total <= budgetBytes) {
+                break;
+            }
+            try {
+                dockerClient.removeImage(image.id());
+                LOG.info("Removed cached image '{}' to keep the cache within {} bytes", image.id(), budgetBytes);
+                metrics.counter("docker.image.evicted").increment();
+                total -= sizes.get(image.id());
+                lastUsed.remove(image.id());
+            } catch (DockerException e) {
+                LOG.debug("Unable to remove cached image '{}': {}", image.id(), e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        writeIndex(lastUsed);
+        DockerMetadataCache.forClient(dockerClient).invalidateImages();
+    }
+
+    private String imageName(String repository, String key) {
+        return repository + ":" + key;
+    }
+
+    private Optional<String> tagIn(Image image, String repository) {
+        if (image.repoTags() == null) {
+            return Optional.empty();
+        }
+        return image.repoTags().stream()
+                .filter(tag -> tag.startsWith(repository + ":"))
+                .findFirst();
+    }
+
+    /**
+     * The size the image adds to the image it was committed from.
+     */
+    private long ownSize(Image image, List<Image> images) {
+        long size = image.size() == null ? 0 : image.size();
+
+        if (image.parentId() == null || image.parentId().isEmpty()) {
+            return size;
+        }
+
+        Optional<Long> parentSize = images.stream()
+                .filter(candidate -> candidate.id().equals(image.parentId()))
+                .map(Image::size)
+                .findFirst();
+        try {
+            if (!parentSize.isPresent()) {
+                parentSize = Optional.ofNullable(dockerClient.inspectImage(image.parentId()).size());
+            }
+        } catch (DockerException | InterruptedException e) {
+            LOG.debug("Unable to find the size of image '{}'", image.parentId(), e);
+        }
+        return Math.max(0, size - parentSize.orElse(0L));
+    }
+
+    private List<Image> listImages(DockerClient.ListImagesParam param) {
+        try {
+            return dockerClient.listImages(param);
+        } catch (DockerException | InterruptedException e) {
+            throw new EnvironmentBuilderException("Unable to retrieve a list of cached Docker images", e);
+        }
+    }
+
+    /**
+     * Images that have not been used since the index was lost count as last used when they were created.
+     */
+    private long lastUsed(Properties lastUsed, Image image) {
+        String millis = lastUsed.getProperty(image.id());
+
+        if (millis != null) {
+            return Long.parseLong(millis);
+        }
+        return image.created() == null ? 0 : Long.parseLong(image.created()) * 1000;
+    }
+
+    private void touch(String imageId) {
+        Properties lastUsed = readIndex();
+        lastUsed.setProperty(imageId, Long.toString(System.currentTimeMillis()));
+        writeIndex(lastUsed);
+    }
+
+    private Properties readIndex() {
+        Properties properties = new Properties();
+
+        if (index.exists()) {
+            try (InputStream in = new FileInputStream(index)) {
+                properties.load(in);
+            } catch (IOException e) {
+                LOG.warn("Unable to read image cache index '{}'", index, e);
+            }
+        }
+        return properties;
+    }
+
+    private void writeIndex(Properties properties) {
+        File parent = index.getAbsoluteFile().getParentFile();
+        parent.mkdirs();
+
+        // Written to a temporary file first so that concurrent builds never read half an index
+        try {
+            File tempFile = File.createTempFile(index.getName(), ".tmp", parent);
+
+            try (OutputStream out = new FileOutputStream(tempFile)) {
+                properties.store(out, "When each cached image was last used");
+            }
+            Files.move(tempFile.toPath(), index.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOG.warn("Unable to write image cache index '{}'", index, e);
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.slinkyframework.environment.docker;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.EventStream;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.exceptions.DockerRequestException;
+import com.spotify.docker.client.messages.Container;
+import com.spotify.docker.client.messages.Event;
+import com.spotify.docker.client.messages.Image;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Finds images and containers with server side filters, rather than listing everything on the Docker host, and
+ * keeps what was found for a short time indexed by image name, image id, container name and label.
+ *
+ * Entries are invalidated by the Docker events stream as soon as something changes on the host, and by the
+ * {@link DockerDriver} whenever it changes something itself. Should the events stream not be available, entries
+ * simply expire.
+ */
+public class DockerMetadataCache implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DockerMetadataCache.class);
+
+    private static final long DEFAULT_TTL_MILLIS = 2000;
+    private static final long RESUBSCRIBE_MILLIS = 1000;
+    private static final int MAX_RESUBSCRIBE_FAILURES = 5;
+    private static final Map<Object, DockerMetadataCache> CACHES = new ConcurrentHashMap<>();
+
+    private final DockerClient dockerClient;
+    private final long ttlNanos;
+    private final Map<String, Entry<Optional<Image>>> imagesByName = new ConcurrentHashMap<>();
+    private final Map<String, Image> imagesById = new ConcurrentHashMap<>();
+    private final Map<String, Entry<Optional<Container>>> containersByName = new ConcurrentHashMap<>();
+    private final Map<String, Entry<List<Container>>> containersByLabel = new ConcurrentHashMap<>();
+    // Counts invalidations, so that what was found by a query that overlapped one is not kept
+    private final AtomicLong invalidations = new AtomicLong();
+    private Thread eventsThread;
+    private volatile EventStream events;
+    private volatile boolean closed;
+
+    /**
+     * Used for testing
+     */
+    public DockerMetadataCache(DockerClient dockerClient, long ttlMillis) {
+        this.dockerClient = dockerClient;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * @return the cache shared by every driver talking to the same Docker host, following its events
+     */
+    public static DockerMetadataCache forClient(DockerClient dockerClient) {
+        Object host = dockerClient.getHost() == null ? dockerClient : dockerClient.getHost();
+
+        return CACHES.computeIfAbsent(host, key -> {
+            DockerMetadataCache cache = new DockerMetadataCache(dockerClient, DEFAULT_TTL_MILLIS);
+            cache.followEvents(key);
+            return cache;
+        });
+    }
+
+    /**
+     * @param imageName the name and tag of the image, e.g. {@code gvenzl/oracle-xe:18-slim}
+     */
+    public Optional<Image> findImage(String imageName) {
+        return cached(imagesByName, imageName, () -> {
+            List<Image> images = query(() -> dockerClient.listImages(DockerClient.ListImagesParam.byName(imageName)), "images");
+
+            images.forEach(image -> imagesById.put(image.id(), image));
+
+            // Older engines ignore the filter
+            return images.stream()
+                    .filter(image -> image.repoTags() != null && image.repoTags().contains(imageName))
+                    .findFirst();
+        });
+    }
+
+    /**
+     * @param id the content digest of the image, e.g. {@code sha256:...}, of an image found earlier
+     */
+    public Optional<Image> findImageById(String id) {
+        return Optional.ofNullable(imagesById.get(id));
+    }
+
+    public Optional<Container> findContainer(String containerName) {
+        return cached(containersByName, containerName, () -> {
+            // Names are matched as regular expressions, so anchor them to skip containers in other namespaces
+            String nameFilter = "^/" + Pattern.quote(containerName) + "$";
+            List<Container> containers = query(() -> dockerClient.listContainers(DockerClient.ListContainersParam.allContainers(true),
+                    DockerClient.ListContainersParam.filter("name", nameFilter)), "containers");
+
+            // Older engines ignore the filter
+            return containers.stream()
+                    .filter(container -> container.names() != null)
+                    .filter(container -> container.names().contains("/" + containerName) || container.names().contains(containerName))
+                    .findFirst();
+        });
+    }
+
+    public List<Container> findContainersWithLabel(String key, String value) {
+        return cached(containersByLabel, key + "=" + value, () -> {
+            List<Container> containers = query(() -> dockerClient.listContainers(DockerClient.ListContainersParam.allContainers(true),
+                    DockerClient.ListContainersParam.withLabel(key, value)), "containers");
+
+            return Collections.unmodifiableList(containers.stream()
+                    .filter(container -> container.labels() != null && value.equals(container.labels().get(key)))
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    public void invalidateImages() {
+        invalidations.incrementAndGet();
+        imagesByName.clear();
+        imagesById.clear();
+    }
+
+    public void invalidateContainers() {
+        invalidations.incrementAndGet();
+        containersByName.clear();
+        containersByLabel.clear();
+    }
+
+    /**
+     * Invalidates what an event from the Docker host may have changed.
+     */
+    public void onEvent(Event event) {
+        if (event.type() == Event.Type.CONTAINER) {
+            invalidateContainers();
+        } else if (event.type() == Event.Type.IMAGE) {
+            invalidateImages();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+
+        EventStream stream = events;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private synchronized void followEvents(Object host) {
+        if (eventsThread == null) {
+            eventsThread = new Thread(() -> readEvents(host), "docker-events");
+            eventsThread.setDaemon(true);
+            eventsThread.start();
+        }
+    }
+
+    /**
+     * Follows the events until closed, subscribing again whenever the stream ends. Should the Docker host have gone,
+     * the cache stops following it and is no longer shared.
+     */
+    private void readEvents(Object host) {
+        int failures = 0;
+
+        while (!closed) {
+            try (EventStream stream = dockerClient.events()) {
+                events = stream;
+                failures = 0;
+                // Anything may have changed while not subscribed
+                invalidateImages();
+                invalidateContainers();
+
+                while (stream.hasNext()) {
+                    onEvent(stream.next());
+                }
+            } catch (DockerRequestException e) {
+                LOG.debug("Docker events are not available, so cached metadata will expire instead: {}", e.getMessage());
+                return;
+            } catch (DockerException | RuntimeException e) {
+                LOG.debug("Docker events stream ended: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (++failures >= MAX_RESUBSCRIBE_FAILURES) {
+                LOG.debug("Unable to follow Docker events on {}, so cached metadata will expire instead", host);
+                CACHES.remove(host, this);
+                return;
+            }
+
+            try {
+                Thread.sleep(RESUBSCRIBE_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private <T> T cached(Map<String, Entry<T>> index, String key, Supplier<T> query) {
+        long now = System.nanoTime();
+        Entry<T> entry = index.get(key);
+
+        if (entry == null || now - entry.expiresNanos >= 0) {
+            long invalidationsBefore = invalidations.get();
+            T value = query.get();
+
+            if (invalidations.get() == invalidationsBefore) {
+                index.put(key, new Entry<>(value, now + ttlNanos));
+            }
+            return value;
+        }
+        return entry.value;
+    }
+
+    private <T> T query(DockerQuery<T> query, String what) {
+        try {
+            return query.get();
+        } catch (DockerException | InterruptedException e) {
+            throw new EnvironmentBuilderException(format("Unable to retrieve a list of Docker %s", what), e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface DockerQuery<T> {
+        T get() throws DockerException, InterruptedException;
+    }
+
+    private static class Entry<T> {
+
+        private final T value;
+        private final long expiresNanos;
+
+        Entry(T value, long expiresNanos) {
+            this.value = value;
+            this.expiresNanos = expiresNanos;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package org.slinkyframework.environment.docker;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.DockerException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.Timer;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Pulls images in the background, a few at a time, so that they are at hand by the time containers are created from
+ * them. Progress is logged by {@link PullProgress}.
+ *
+ * A pull that is already under way for an image is shared rather than started again. The Docker host itself shares
+ * the download of layers that concurrent pulls have in common.
+ */
+public class ImagePrefetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ImagePrefetcher.class);
+
+    private static final int MAX_CONCURRENT_PULLS = 3;
+
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<Void>> pulls = new ConcurrentHashMap<>();
+    private final MetricsRegistry metrics = MetricsRegistry.global();
+
+    public ImagePrefetcher(int maxConcurrentPulls) {
+        AtomicInteger count = new AtomicInteger();
+
+        executor = Executors.newFixedThreadPool(maxConcurrentPulls, runnable -> {
+            Thread thread = new Thread(runnable, "image-prefetch-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return the prefetcher shared by every {@link DockerDriver}
+     */
+    public static ImagePrefetcher global() {
+        return Global.INSTANCE;
+    }
+
+    /**
+     * Starts pulling the image, unless the Docker host already has it, and returns straight away.
+     *
+     * @param dockerClient connects to the Docker host, which is done in the background too
+     * @return completes once the Docker host has the image, or fails with an {@link EnvironmentBuilderException} as
+     * its cause
+     */
+    public CompletableFuture<Void> prefetch(Supplier<DockerClient> dockerClient, String imageName) {
+        return pulls.compute(imageName, (name, pull) -> pull != null && !pull.isDone()
+                ? pull
+                : CompletableFuture.runAsync(() -> pull(dockerClient.get(), name), executor));
+    }
+
+    /**
+     * Waits for the Docker host to have the image, pulling it unless it is already being pulled.
+     */
+    public void await(Supplier<DockerClient> dockerClient, String imageName) {
+        try {
+            prefetch(dockerClient, imageName).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EnvironmentBuilderException) {
+                throw (EnvironmentBuilderException) e.getCause();
+            }
+            throw new EnvironmentBuilderException("Unable to pull container: " + imageName, e.getCause());
+        }
+    }
+
+    private void pull(DockerClient dockerClient, String imageName) {
+        if (DockerMetadataCache.forClient(dockerClient).findImage(imageName).isPresent()) {
+            return;
+        }
+
+        LOG.info("Pulling image '{}'", imageName);
+
+        try (Timer.Context ignored = metrics.timer("docker.image.pull").start()) {
+            dockerClient.pull(imageName, new PullProgress(imageName));
+
+            LOG.info("Image '{}' pulled", imageName);
+        } catch (DockerException | InterruptedException e) {
+            throw new EnvironmentBuilderException("Unable to pull container: " + imageName, e);
+        } finally {
+            DockerMetadataCache.forClient(dockerClient).invalidateImages();
+        }
+    }
+
+    private static class Global {
+        private static final ImagePrefetcher INSTANCE = new ImagePrefetcher(MAX_CONCURRENT_PULLS);
+    }
+}
@@ -13,8 +13,7 @@ public class PortSelector {
     private static final String ENVIRONMENT_DOCKER_PORT = "ENV_DOCKER_PORT_%s";
 
     public static int selectFreePort() {
-        try {
-            ServerSocket s = new ServerSocket(0);
+        try (ServerSocket s = new ServerSocket(0)) {
             return s.getLocalPort();
         } catch (IOException e) {
             throw new EnvironmentBuilderException("Unable to find a free port", e);
@@ -22,7 +21,18 @@ public class PortSelector {
     }
 
     public static int selectPort(int internalPort) {
-        int externalPort = internalPort;
+        return selectPort(internalPort, false);
+    }
+
+    /**
+     * Selects the external port from the ENV_DOCKER_PORT_&lt;internalPort&gt; environment variable, a free port if it
+     * is blank, or otherwise the internal port.
+     *
+     * @param preferFreePort select a free port rather than the internal port when the environment variable is not
+     *                       set, e.g. so that containers for concurrent builds do not clash
+     */
+    public static int selectPort(int internalPort, boolean preferFreePort) {
+        int externalPort = preferFreePort ? selectFreePort() : internalPort;
 
         Optional<String> specifiedPort = getPortFromEnvironment(internalPort);
 
@@ -0,0 +1,87 @@
+package org.slinkyframework.environment.docker;
+
+import com.spotify.docker.client.ProgressHandler;
+import com.spotify.docker.client.exceptions.DockerException;
+import com.spotify.docker.client.exceptions.ImagePullFailedException;
+import com.spotify.docker.client.messages.ProgressMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Logs how far the pull of an image has got, at most every few seconds, as the layers done and the megabytes
+ * downloaded across all of them. Layers the Docker host already has are counted as done without being downloaded.
+ */
+public class PullProgress implements ProgressHandler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PullProgress.class);
+
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(2);
+    private static final double ONE_MB = 1024 * 1024;
+
+    private final String imageName;
+    private final Map<String, Layer> layers = new LinkedHashMap<>();
+    private long lastReportNanos = System.nanoTime();
+
+    public PullProgress(String imageName) {
+        this.imageName = imageName;
+    }
+
+    @Override
+    public synchronized void progress(ProgressMessage message) throws DockerException {
+        if (message.error() != null) {
+            throw new ImagePullFailedException(imageName, message.error());
+        }
+
+        if (message.id() != null && message.status() != null && !message.status().startsWith("Pulling from")) {
+            update(layers.computeIfAbsent(message.id(), id -> new Layer()), message);
+        }
+
+        long now = System.nanoTime();
+        if (now - lastReportNanos >= REPORT_INTERVAL_NANOS) {
+            lastReportNanos = now;
+            LOG.info("Pulling image '{}': {}", imageName, this);
+        }
+    }
+
+    private void update(Layer layer, ProgressMessage message) {
+        switch (message.status()) {
+            case "Downloading":
+                if (message.progressDetail() != null && message.progressDetail().current() != null) {
+                    layer.downloaded = message.progressDetail().current();
+                    layer.size = message.progressDetail().total() == null ? layer.size : message.progressDetail().total();
+                }
+                break;
+            case "Download complete":
+                layer.downloaded = layer.size;
+                break;
+            case "Pull complete":
+            case "Already exists":
+                layer.done = true;
+                break;
+            default:
+                // Waiting, verifying and extracting do not change what has been downloaded
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        long done = layers.values().stream().filter(layer -> layer.done).count();
+        long downloaded = layers.values().stream().mapToLong(layer -> layer.downloaded).sum();
+        long size = layers.values().stream().mapToLong(layer -> layer.size).sum();
+
+        return format("%d of %d layers done, %.1f of %.1f MB downloaded", done, layers.size(), downloaded / ONE_MB, size / ONE_MB);
+    }
+
+    private static class Layer {
+
+        private long downloaded;
+        private long size;
+        private boolean done;
+    }
+}
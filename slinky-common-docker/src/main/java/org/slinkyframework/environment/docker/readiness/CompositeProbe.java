@@ -0,0 +1,120 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Combines probes with all or any semantics. Probes that have become ready are not asked again.
+ *
+ * With all semantics the probes are taken in order, and a probe that has to be asked is not asked while one before it
+ * is waiting for an event, e.g. a database is not queried until it has logged that it is open.
+ */
+class CompositeProbe implements ReadinessProbe {
+
+    private final boolean all;
+    private final List<ReadinessProbe> probes;
+    private final List<ReadinessProbe> waitingFor;
+    private final List<EnvironmentBuilderException> failures = new ArrayList<>();
+
+    CompositeProbe(boolean all, List<ReadinessProbe> probes) {
+        this.all = all;
+        this.probes = probes;
+        this.waitingFor = new ArrayList<>(probes);
+    }
+
+    @Override
+    public synchronized boolean isReady(ProbeTarget target) {
+        boolean waitingForEvent = false;
+
+        for (ReadinessProbe probe : new ArrayList<>(waitingFor)) {
+            CompletableFuture<Void> whenReady = probe.whenReady(target);
+
+            if (all && waitingForEvent && whenReady == null) {
+                continue;
+            }
+
+            boolean ready;
+            try {
+                ready = probe.isReady(target);
+            } catch (EnvironmentBuilderException e) {
+                if (all) {
+                    throw e;
+                }
+                // Any of the others may still become ready
+                waitingFor.remove(probe);
+                failures.add(e);
+                continue;
+            }
+
+            if (ready) {
+                if (!all) {
+                    return true;
+                }
+                waitingFor.remove(probe);
+            } else if (whenReady != null) {
+                waitingForEvent = true;
+            }
+        }
+
+        if (!all && waitingFor.isEmpty()) {
+            throw failures.get(failures.size() - 1);
+        }
+        return all && waitingFor.isEmpty();
+    }
+
+    /**
+     * @return completes once every event waited for has happened, or one has failed, when each probe waits for an
+     * event; otherwise completes as soon as one of the events happens, or null while a probe that has to be asked may
+     * become ready
+     */
+    @Override
+    public synchronized CompletableFuture<Void> whenReady(ProbeTarget target) {
+        List<CompletableFuture<Void>> events = new ArrayList<>();
+        boolean everyProbeWaitsForEvent = true;
+
+        for (ReadinessProbe probe : waitingFor) {
+            CompletableFuture<Void> whenReady = probe.whenReady(target);
+
+            if (whenReady != null) {
+                events.add(whenReady);
+            } else if (!all || events.isEmpty()) {
+                return null;
+            } else {
+                everyProbeWaitsForEvent = false;
+            }
+        }
+
+        if (events.isEmpty()) {
+            return null;
+        }
+        CompletableFuture<Void> anyEvent = CompletableFuture.anyOf(events.toArray(new CompletableFuture[0])).thenRun(() -> { });
+        return all && everyProbeWaitsForEvent ? allEvents(events) : anyEvent;
+    }
+
+    private static CompletableFuture<Void> allEvents(List<CompletableFuture<Void>> events) {
+        CompletableFuture<Void> allEvents = CompletableFuture.allOf(events.toArray(new CompletableFuture[0]));
+        events.forEach(event -> event.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                allEvents.completeExceptionally(failure);
+            }
+        }));
+        return allEvents;
+    }
+
+    @Override
+    public synchronized void close() {
+        probes.forEach(ReadinessProbe::close);
+        waitingFor.clear();
+        waitingFor.addAll(probes);
+        failures.clear();
+    }
+
+    @Override
+    public String toString() {
+        return probes.stream().map(Object::toString).collect(Collectors.joining(all ? " and " : " or ", "(", ")"));
+    }
+}
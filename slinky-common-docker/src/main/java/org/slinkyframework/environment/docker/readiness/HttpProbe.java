@@ -0,0 +1,49 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import static java.lang.String.format;
+
+/**
+ * Ready once a GET of a path on a port of the container returns a 2xx or 3xx status, e.g. a health endpoint.
+ */
+public class HttpProbe implements ReadinessProbe {
+
+    private static final int TIMEOUT_MILLIS = 1000;
+
+    private final int internalPort;
+    private final String path;
+
+    public HttpProbe(int internalPort, String path) {
+        this.internalPort = internalPort;
+        this.path = path.startsWith("/") ? path : "/" + path;
+    }
+
+    @Override
+    public boolean isReady(ProbeTarget target) {
+        HttpURLConnection connection = null;
+        try {
+            URL url = new URL("http", target.getHost(), target.getExternalPort(internalPort), path);
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(TIMEOUT_MILLIS);
+            connection.setReadTimeout(TIMEOUT_MILLIS);
+            connection.setInstanceFollowRedirects(false);
+
+            int status = connection.getResponseCode();
+            return status >= 200 && status < 400;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format("GET %s on port %s", path, internalPort);
+    }
+}
@@ -0,0 +1,68 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Ready once a database in the container answers a validation query. Unlike a {@link TcpProbe} this waits for the
+ * database to be open, rather than just its listener.
+ *
+ * Connecting is given up after a couple of seconds by drivers that take a login timeout property, such as Oracle's
+ * and PostgreSQL's. Combined with a {@link LogProbe} in {@link ReadinessProbe#all(ReadinessProbe...)}, put the log
+ * probe first so that the database is only queried once it has logged that it is open.
+ */
+public class JdbcProbe implements ReadinessProbe {
+
+    private static final int QUERY_TIMEOUT_SECONDS = 5;
+    private static final int LOGIN_TIMEOUT_SECONDS = 2;
+
+    private final int internalPort;
+    private final String urlFormat;
+    private final String username;
+    private final String password;
+    private final String validationQuery;
+
+    /**
+     * @param urlFormat the JDBC URL, with placeholders for the host then the external port, e.g.
+     *                  {@code jdbc:oracle:thin:@%s:%s/XEPDB1}
+     * @param validationQuery e.g. {@code SELECT 1 FROM DUAL}
+     */
+    public JdbcProbe(int internalPort, String urlFormat, String username, String password, String validationQuery) {
+        this.internalPort = internalPort;
+        this.urlFormat = urlFormat;
+        this.username = username;
+        this.password = password;
+        this.validationQuery = validationQuery;
+    }
+
+    @Override
+    public boolean isReady(ProbeTarget target) {
+        String url = format(urlFormat, target.getHost(), target.getExternalPort(internalPort));
+
+        Properties properties = new Properties();
+        properties.setProperty("user", username);
+        properties.setProperty("password", password);
+        properties.setProperty("oracle.net.CONNECT_TIMEOUT", String.valueOf(TimeUnit.SECONDS.toMillis(LOGIN_TIMEOUT_SECONDS)));
+        properties.setProperty("loginTimeout", String.valueOf(LOGIN_TIMEOUT_SECONDS));
+
+        try (Connection connection = DriverManager.getConnection(url, properties);
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(QUERY_TIMEOUT_SECONDS);
+            statement.execute(validationQuery);
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return format("'%s' answered on port %s", validationQuery, internalPort);
+    }
+}
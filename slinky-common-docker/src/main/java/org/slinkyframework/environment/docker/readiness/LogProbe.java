@@ -0,0 +1,89 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.LogStream;
+import com.spotify.docker.client.exceptions.DockerException;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.scheduler.BuildScope;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.lang.String.format;
+
+/**
+ * Ready once the container writes a line matching a pattern to its log, which can be waited for. The log is followed
+ * in the background from the first time the probe is asked, see {@link LogReadiness}, in the {@link BuildScope} of the build.
+ */
+public class LogProbe implements ReadinessProbe {
+
+    private static final ExecutorService FOLLOWERS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "docker-log-follower");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LogReadiness readiness;
+    private LogStream logs;
+    private CompletableFuture<String> line;
+
+    /**
+     * @param regex e.g. {@code DATABASE IS READY TO USE}
+     */
+    public LogProbe(String regex) {
+        this.readiness = new LogReadiness(regex);
+    }
+
+    @Override
+    public synchronized boolean isReady(ProbeTarget target) {
+        whenReady(target);
+
+        if (!line.isDone()) {
+            return false;
+        }
+
+        try {
+            line.join();
+            return true;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof EnvironmentBuilderException) {
+                throw (EnvironmentBuilderException) e.getCause();
+            }
+            throw new EnvironmentBuilderException(format("Unable to follow the log of container '%s'", target.getContainerName()), e.getCause());
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> whenReady(ProbeTarget target) {
+        if (line == null) {
+            logs = follow(target);
+            line = CompletableFuture.supplyAsync(() -> readiness.await(logs), BuildScope.current().executorOr(FOLLOWERS));
+        }
+        return line.thenRun(() -> { });
+    }
+
+    private LogStream follow(ProbeTarget target) {
+        try {
+            return target.getDockerClient().logs(target.getContainerId(),
+                    DockerClient.LogsParam.follow(), DockerClient.LogsParam.stdout(), DockerClient.LogsParam.stderr());
+        } catch (DockerException | InterruptedException e) {
+            throw new EnvironmentBuilderException(format("Unable to follow the log of container '%s'", target.getContainerName()), e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (logs != null) {
+            logs.close();
+        }
+        logs = null;
+        line = null;
+    }
+
+    @Override
+    public String toString() {
+        return format("'%s' logged", readiness.getPattern());
+    }
+}
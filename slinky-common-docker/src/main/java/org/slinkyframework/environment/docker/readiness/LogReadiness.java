@@ -0,0 +1,86 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import com.spotify.docker.client.LogMessage;
+import com.spotify.docker.client.LogStream;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.nio.CharBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Waits for a container to write a line matching a pattern to its log, e.g. {@code DATABASE IS READY TO USE}.
+ *
+ * The log is followed, so the wait ends as soon as the line is written rather than on the next poll. The log ends
+ * when the container exits, so a container that dies before it is ready fails the wait straight away.
+ */
+public class LogReadiness {
+
+    private static final int LAST_LINES = 10;
+
+    private final Pattern pattern;
+
+    public LogReadiness(String regex) {
+        this.pattern = Pattern.compile(regex);
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+
+    /**
+     * Reads the log until a line matches.
+     *
+     * @return the line that matched
+     * @throws EnvironmentBuilderException if the log ends first, with the last lines written
+     */
+    public String await(LogStream logs) {
+        StringBuilder line = new StringBuilder();
+        Deque<String> lastLines = new ArrayDeque<>();
+
+        while (logs.hasNext()) {
+            LogMessage message = logs.next();
+            CharBuffer text = UTF_8.decode(message.content());
+
+            while (text.hasRemaining()) {
+                char c = text.get();
+
+                if (c == '\n') {
+                    if (matches(line)) {
+                        return line.toString();
+                    }
+                    remember(lastLines, line.toString());
+                    line.setLength(0);
+                } else if (c != '\r') {
+                    line.append(c);
+                }
+            }
+
+            // The line may not have been finished with a new line yet
+            if (matches(line)) {
+                return line.toString();
+            }
+        }
+        if (line.length() > 0) {
+            remember(lastLines, line.toString());
+        }
+
+        throw new EnvironmentBuilderException(format("Container log ended before a line matching '%s' was written. Last lines:%n%s",
+                pattern, String.join(System.lineSeparator(), lastLines)));
+    }
+
+    private boolean matches(CharSequence line) {
+        return line.length() > 0 && pattern.matcher(line).find();
+    }
+
+    private static void remember(Deque<String> lastLines, String line) {
+        lastLines.addLast(line);
+        if (lastLines.size() > LAST_LINES) {
+            lastLines.removeFirst();
+        }
+    }
+}
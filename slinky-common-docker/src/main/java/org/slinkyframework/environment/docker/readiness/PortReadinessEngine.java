@@ -0,0 +1,274 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for ports to accept connections using non-blocking connects on a single {@link Selector}, so that the ports
+ * of hundreds of containers can be waited for by one thread.
+ *
+ * A refused connect is tried again after a back off that starts at a few milliseconds and doubles, and one that has
+ * not connected within a second is abandoned and tried again. The future for a port completes as soon as it accepts
+ * a connection. Cancelling the future stops trying.
+ */
+public class PortReadinessEngine implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PortReadinessEngine.class);
+
+    private static final long INITIAL_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long MAX_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final long CONNECT_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final Selector selector;
+    private final Thread thread;
+    private final Queue<Attempt> submitted = new ConcurrentLinkedQueue<>();
+    // Only used by the selector thread
+    private final PriorityQueue<Attempt> scheduled = new PriorityQueue<>(Comparator.comparingLong(attempt -> attempt.dueNanos));
+    private volatile boolean closed;
+
+    public PortReadinessEngine() {
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException("Unable to open a selector to wait for ports", e);
+        }
+
+        thread = new Thread(this::run, "port-readiness");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return the engine shared by every {@link TcpProbe}
+     */
+    public static PortReadinessEngine global() {
+        return Global.INSTANCE;
+    }
+
+    /**
+     * @return completes as soon as the port accepts a connection
+     */
+    public CompletableFuture<Void> whenAccepting(InetSocketAddress address) {
+        CompletableFuture<Void> accepting = new CompletableFuture<>();
+
+        if (closed) {
+            accepting.completeExceptionally(new EnvironmentBuilderException("Port readiness engine has been closed"));
+            return accepting;
+        }
+
+        submitted.add(new Attempt(address, accepting));
+        // Wake up the selector to stop trying promptly once cancelled
+        accepting.whenComplete((result, failure) -> selector.wakeup());
+        selector.wakeup();
+
+        return accepting;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        selector.wakeup();
+
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            while (!closed) {
+                long now = System.nanoTime();
+
+                scheduleSubmitted(now);
+                connectWhenDue(now);
+                abandonTimedOutConnects(now);
+
+                long timeoutMillis = millisUntilNextDue(now);
+                if (timeoutMillis < 0) {
+                    selector.selectNow();
+                } else {
+                    selector.select(timeoutMillis);
+                }
+                finishConnects();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            LOG.error("Port readiness engine stopped", e);
+        } finally {
+            failRemaining();
+        }
+    }
+
+    private void scheduleSubmitted(long now) {
+        for (Attempt attempt = submitted.poll(); attempt != null; attempt = submitted.poll()) {
+            attempt.dueNanos = now;
+            scheduled.add(attempt);
+        }
+    }
+
+    private void connectWhenDue(long now) {
+        while (!scheduled.isEmpty() && scheduled.peek().dueNanos <= now) {
+            Attempt attempt = scheduled.poll();
+
+            if (!attempt.accepting.isDone()) {
+                connect(attempt, now);
+            }
+        }
+    }
+
+    private void connect(Attempt attempt, long now) {
+        try {
+            SocketChannel channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            attempt.channel = channel;
+            attempt.connectDeadlineNanos = now + CONNECT_TIMEOUT_NANOS;
+
+            if (channel.connect(attempt.address)) {
+                accepted(attempt);
+            } else {
+                channel.register(selector, SelectionKey.OP_CONNECT, attempt);
+            }
+        } catch (IOException e) {
+            retryLater(attempt, now);
+        }
+    }
+
+    private void finishConnects() {
+        long now = System.nanoTime();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            Attempt attempt = (Attempt) key.attachment();
+
+            try {
+                if (attempt.channel.finishConnect()) {
+                    accepted(attempt);
+                }
+            } catch (IOException e) {
+                retryLater(attempt, now);
+            }
+        }
+    }
+
+    /**
+     * Abandons connects that have not finished in time, e.g. because the packets are being dropped, and cleans up
+     * those that have been cancelled.
+     */
+    private void abandonTimedOutConnects(long now) {
+        for (SelectionKey key : selector.keys()) {
+            if (!key.isValid()) {
+                continue;
+            }
+            Attempt attempt = (Attempt) key.attachment();
+
+            if (attempt.accepting.isDone()) {
+                closeChannel(attempt);
+            } else if (now - attempt.connectDeadlineNanos >= 0) {
+                retryLater(attempt, now);
+            }
+        }
+    }
+
+    private long millisUntilNextDue(long now) {
+        long nextDue = Long.MAX_VALUE;
+
+        if (!scheduled.isEmpty()) {
+            nextDue = scheduled.peek().dueNanos;
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid()) {
+                nextDue = Math.min(nextDue, ((Attempt) key.attachment()).connectDeadlineNanos);
+            }
+        }
+
+        if (nextDue == Long.MAX_VALUE) {
+            // Nothing to do until something is submitted
+            return 0;
+        }
+        long nanos = nextDue - now;
+        return nanos <= 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(nanos + TimeUnit.MILLISECONDS.toNanos(1) - 1);
+    }
+
+    private void accepted(Attempt attempt) {
+        closeChannel(attempt);
+        attempt.accepting.complete(null);
+    }
+
+    private void retryLater(Attempt attempt, long now) {
+        closeChannel(attempt);
+        attempt.dueNanos = now + attempt.nextInterval();
+        scheduled.add(attempt);
+    }
+
+    private void closeChannel(Attempt attempt) {
+        if (attempt.channel != null) {
+            try {
+                attempt.channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            attempt.channel = null;
+        }
+    }
+
+    private void failRemaining() {
+        EnvironmentBuilderException failure = new EnvironmentBuilderException("Port readiness engine has been closed");
+
+        for (SelectionKey key : selector.keys()) {
+            Attempt attempt = (Attempt) key.attachment();
+            closeChannel(attempt);
+            attempt.accepting.completeExceptionally(failure);
+        }
+        scheduled.forEach(attempt -> attempt.accepting.completeExceptionally(failure));
+        submitted.forEach(attempt -> attempt.accepting.completeExceptionally(failure));
+
+        try {
+            selector.close();
+        } catch (IOException e) {
+            // Ignore
+        }
+    }
+
+    private static class Attempt {
+
+        private final InetSocketAddress address;
+        private final CompletableFuture<Void> accepting;
+        private long interval = INITIAL_INTERVAL_NANOS;
+        private long dueNanos;
+        private long connectDeadlineNanos;
+        private SocketChannel channel;
+
+        Attempt(InetSocketAddress address, CompletableFuture<Void> accepting) {
+            this.address = address;
+            this.accepting = accepting;
+        }
+
+        long nextInterval() {
+            long next = interval;
+            interval = Math.min(interval * 2, MAX_INTERVAL_NANOS);
+            return next;
+        }
+    }
+
+    private static class Global {
+        private static final PortReadinessEngine INSTANCE = new PortReadinessEngine();
+    }
+}
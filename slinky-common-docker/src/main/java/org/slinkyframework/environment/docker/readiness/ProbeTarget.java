@@ -0,0 +1,57 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import com.spotify.docker.client.DockerClient;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.util.Map;
+
+import static java.lang.String.format;
+
+/**
+ * The container being probed, and where to reach it.
+ */
+public class ProbeTarget {
+
+    private final DockerClient dockerClient;
+    private final String containerId;
+    private final String containerName;
+    private final String host;
+    // Map of internal Docker ports to external ports
+    private final Map<Integer, Integer> ports;
+
+    public ProbeTarget(DockerClient dockerClient, String containerId, String containerName, String host, Map<Integer, Integer> ports) {
+        this.dockerClient = dockerClient;
+        this.containerId = containerId;
+        this.containerName = containerName;
+        this.host = host;
+        this.ports = ports;
+    }
+
+    public DockerClient getDockerClient() {
+        return dockerClient;
+    }
+
+    public String getContainerId() {
+        return containerId;
+    }
+
+    public String getContainerName() {
+        return containerName;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return the port on the host that the port inside the container is published on
+     */
+    public int getExternalPort(int internalPort) {
+        Integer externalPort = ports.get(internalPort);
+
+        if (externalPort == null) {
+            throw new EnvironmentBuilderException(format("Container '%s' does not publish port %s", containerName, internalPort));
+        }
+        return externalPort;
+    }
+}
@@ -0,0 +1,110 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.springframework.retry.RetryPolicy;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.retry.policy.CompositeRetryPolicy;
+import org.springframework.retry.policy.SimpleRetryPolicy;
+import org.springframework.retry.policy.TimeoutRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static java.lang.String.format;
+
+/**
+ * Asks a probe whether the container is ready until it is, or until the timeout. The back off between attempts
+ * starts at a few milliseconds and grows exponentially, with jitter, so a container that is quick to start is
+ * noticed straight away without a slow one being asked too often.
+ *
+ * Instead of backing off, a probe waiting for an event is waited on until the event happens, see
+ * {@link ReadinessProbe#whenReady(ProbeTarget)}.
+ */
+public class ReadinessCheck {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReadinessCheck.class);
+
+    private static final long INITIAL_INTERVAL_MILLIS = 5;
+    private static final double MULTIPLIER = 2;
+    private static final long MAX_INTERVAL_MILLIS = 250;
+
+    private final ReadinessProbe probe;
+    private final long timeoutMillis;
+
+    public ReadinessCheck(ReadinessProbe probe, long timeoutMillis) {
+        this.probe = probe;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Waits for the container to be ready, then closes the probe.
+     *
+     * @throws EnvironmentBuilderException if the container is not ready in time, or can never become ready
+     */
+    public void await(ProbeTarget target) {
+        LOG.debug("Waiting for container '{}' to be ready: {}", target.getContainerName(), probe);
+
+        TimeoutRetryPolicy timeoutPolicy = new TimeoutRetryPolicy();
+        timeoutPolicy.setTimeout(timeoutMillis);
+
+        // Only retry while not ready, not once the probe knows it never will be
+        SimpleRetryPolicy notReadyPolicy = new SimpleRetryPolicy(Integer.MAX_VALUE, Collections.singletonMap(NotReadyException.class, true));
+
+        CompositeRetryPolicy retryPolicy = new CompositeRetryPolicy();
+        retryPolicy.setPolicies(new RetryPolicy[] { timeoutPolicy, notReadyPolicy });
+
+        ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
+        backOffPolicy.setInitialInterval(INITIAL_INTERVAL_MILLIS);
+        backOffPolicy.setMultiplier(MULTIPLIER);
+        backOffPolicy.setMaxInterval(MAX_INTERVAL_MILLIS);
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        backOffPolicy.setSleeper(backOffPeriod -> waitForEvent(target, backOffPeriod, deadline));
+
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(retryPolicy);
+        retryTemplate.setThrowLastExceptionOnExhausted(true);
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+
+        try {
+            retryTemplate.execute(rc -> {
+                if (!probe.isReady(target)) {
+                    throw new NotReadyException(format("Container '%s' has failed to start. Not ready within %sms: %s",
+                            target.getContainerName(), timeoutMillis, probe));
+                }
+                return null;
+            });
+            LOG.debug("Container '{}' is ready", target.getContainerName());
+        } finally {
+            probe.close();
+        }
+    }
+
+    private void waitForEvent(ProbeTarget target, long backOffPeriod, long deadline) throws InterruptedException {
+        CompletableFuture<Void> whenReady = probe.whenReady(target);
+
+        if (whenReady == null) {
+            Thread.sleep(backOffPeriod);
+            return;
+        }
+
+        try {
+            whenReady.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            // Asking the probe again tells whether it failed or timed out
+        }
+    }
+
+    private static class NotReadyException extends EnvironmentBuilderException {
+
+        NotReadyException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Checks whether a container is ready to be used, e.g. that its port accepts connections or its database answers a
+ * query. A {@link ReadinessCheck} asks the probe repeatedly, backing off between attempts, until it is ready. A probe
+ * that learns it is ready from an event, such as a line in the log, is waited on instead.
+ *
+ * A probe returns false while the container is still starting, and throws an
+ * {@link org.slinkyframework.environment.builder.EnvironmentBuilderException} once it can never become ready, e.g.
+ * because the container has exited.
+ */
+@FunctionalInterface
+public interface ReadinessProbe extends AutoCloseable {
+
+    boolean isReady(ProbeTarget target);
+
+    /**
+     * @return completes as soon as asking the probe again may find it ready, or null when it can only be asked again
+     * after a back off
+     */
+    default CompletableFuture<Void> whenReady(ProbeTarget target) {
+        return null;
+    }
+
+    /**
+     * Releases anything held while probing, such as a followed log, so that the probe can be used again for the next
+     * container.
+     */
+    @Override
+    default void close() {
+    }
+
+    /**
+     * @return a probe that is ready once every one of the probes is ready
+     */
+    static ReadinessProbe all(ReadinessProbe... probes) {
+        return new CompositeProbe(true, Arrays.asList(probes));
+    }
+
+    /**
+     * @return a probe that is ready as soon as one of the probes is ready
+     */
+    static ReadinessProbe any(ReadinessProbe... probes) {
+        return new CompositeProbe(false, Arrays.asList(probes));
+    }
+}
@@ -0,0 +1,67 @@
+package org.slinkyframework.environment.docker.readiness;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static java.lang.String.format;
+
+/**
+ * Ready once a port of the container accepts connections. The port is waited for by a {@link PortReadinessEngine}
+ * from the first time the probe is asked, so asking never blocks, and a {@link ReadinessCheck} waits on the engine
+ * rather than asking again.
+ */
+public class TcpProbe implements ReadinessProbe {
+
+    private final int internalPort;
+    private final PortReadinessEngine engine;
+    private CompletableFuture<Void> accepting;
+
+    public TcpProbe(int internalPort) {
+        this(internalPort, PortReadinessEngine.global());
+    }
+
+    public TcpProbe(int internalPort, PortReadinessEngine engine) {
+        this.internalPort = internalPort;
+        this.engine = engine;
+    }
+
+    @Override
+    public synchronized boolean isReady(ProbeTarget target) {
+        whenReady(target);
+
+        if (!accepting.isDone()) {
+            return false;
+        }
+
+        try {
+            accepting.join();
+            return true;
+        } catch (CompletionException e) {
+            throw new EnvironmentBuilderException(format("Unable to wait for port %s of container '%s'", internalPort, target.getContainerName()), e.getCause());
+        }
+    }
+
+    @Override
+    public synchronized CompletableFuture<Void> whenReady(ProbeTarget target) {
+        if (accepting == null) {
+            accepting = engine.whenAccepting(new InetSocketAddress(target.getHost(), target.getExternalPort(internalPort)));
+        }
+        return accepting;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (accepting != null) {
+            accepting.cancel(false);
+        }
+        accepting = null;
+    }
+
+    @Override
+    public String toString() {
+        return format("port %s open", internalPort);
+    }
+}
@@ -0,0 +1,40 @@
+package org.slinkyframework.environment.docker.test;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+import org.slinkyframework.environment.docker.DockerBuildDefinition;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class DockerBuildDefinitionTest {
+
+    private static final String TEST_NAME = "Broker";
+    private static final String TEST_IMAGE_NAME = "example/broker:latest";
+
+    @Test
+    public void shouldStillBeFoundOnceConfigured() {
+        DockerBuildDefinition definition = new DockerBuildDefinition(TEST_NAME, TEST_IMAGE_NAME);
+        Set<BuildDefinition> buildDefinitions = new HashSet<>();
+        buildDefinitions.add(definition);
+
+        definition.addPort(8080)
+                .addEnvironmentVariable("MODE", "test")
+                .setReadinessProbe(null, 1000);
+
+        assertThat("Contains", buildDefinitions.contains(definition), is(true));
+    }
+
+    @Test
+    public void shouldNotBeEqualWithADifferentImage() {
+        DockerBuildDefinition definition1 = new DockerBuildDefinition(TEST_NAME, TEST_IMAGE_NAME);
+        DockerBuildDefinition definition2 = new DockerBuildDefinition(TEST_NAME, "example/broker:1.0");
+
+        assertThat("BuildDefinition", definition1, is(not(equalTo(definition2))));
+    }
+}
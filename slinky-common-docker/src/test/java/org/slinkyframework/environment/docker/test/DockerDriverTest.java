@@ -0,0 +1,152 @@
+package org.slinkyframework.environment.docker.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.messages.Container;
+import com.spotify.docker.client.messages.ContainerConfig;
+import com.spotify.docker.client.messages.ContainerCreation;
+import com.spotify.docker.client.messages.Image;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+import org.slinkyframework.environment.docker.DockerDriver;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DockerDriverTest {
+
+    private static final String TEST_CONTAINER_NAME = "oracle-xe-test";
+    private static final String TEST_IMAGE_NAME = "gvenzl/oracle-xe:18-slim";
+    private static final String EXISTING_CONTAINER_ID = "existing";
+    private static final String NEW_CONTAINER_ID = "new";
+    private static final long ONE_SECOND = 1000;
+
+    @Mock private DockerClient mockDockerClient;
+
+    private ProvisioningJournal journal;
+    private DockerDriver testee;
+
+    @Before
+    public void setUp() {
+        journal = ProvisioningJournal.inMemory();
+        testee = new DockerDriver(TEST_CONTAINER_NAME, TEST_IMAGE_NAME, Collections.singletonMap(1521, 1521), journal, mockDockerClient);
+        testee.setReadinessProbe(target -> true, ONE_SECOND);
+        testee.setReuseContainer(true);
+    }
+
+    @Test
+    public void shouldLabelNewContainerWithConfigHash() throws Exception {
+        when(mockDockerClient.listContainers(any(), any())).thenReturn(Collections.emptyList());
+        expectNewContainer();
+
+        testee.setUpDocker();
+
+        ArgumentCaptor<ContainerConfig> config = ArgumentCaptor.forClass(ContainerConfig.class);
+        verify(mockDockerClient).createContainer(config.capture(), eq(TEST_CONTAINER_NAME));
+        assertThat("Labels", config.getValue().labels(), hasEntry(DockerDriver.LABEL_CONFIG_HASH, testee.getConfigHash()));
+        assertThat("Reused", testee.isContainerReused(), is(false));
+    }
+
+    @Test
+    public void shouldReuseRunningContainerWithSameConfigHash() throws Exception {
+        existingContainer("Up 5 minutes", testee.getConfigHash());
+
+        testee.setUpDocker();
+
+        verify(mockDockerClient, never()).createContainer(any(), anyString());
+        verify(mockDockerClient, never()).killContainer(anyString());
+        assertThat("Reused", testee.isContainerReused(), is(true));
+        assertThat("Journalled container", journal.getEntries(DockerDriver.JOURNAL_CONTAINER).get(0).getTarget(), equalTo(EXISTING_CONTAINER_ID));
+    }
+
+    @Test
+    public void shouldReplaceContainerWithDifferentConfigHash() throws Exception {
+        existingContainer("Up 5 minutes", "stale");
+        expectNewContainer();
+
+        testee.setUpDocker();
+
+        verify(mockDockerClient).killContainer(EXISTING_CONTAINER_ID);
+        verify(mockDockerClient).removeContainer(EXISTING_CONTAINER_ID);
+        assertThat("Reused", testee.isContainerReused(), is(false));
+    }
+
+    @Test
+    public void shouldReplaceContainerThatFailsHealthCheck() throws Exception {
+        AtomicBoolean checked = new AtomicBoolean();
+        testee.setReadinessProbe(target -> {
+            if (checked.compareAndSet(false, true)) {
+                throw new EnvironmentBuilderException("Database is down");
+            }
+            return true;
+        }, ONE_SECOND);
+        existingContainer("Up 5 minutes", testee.getConfigHash());
+        expectNewContainer();
+
+        testee.setUpDocker();
+
+        verify(mockDockerClient).removeContainer(EXISTING_CONTAINER_ID);
+        assertThat("Reused", testee.isContainerReused(), is(false));
+    }
+
+    @Test
+    public void shouldReplaceContainerWhenNotReusing() throws Exception {
+        testee.setReuseContainer(false);
+        existingContainer("Up 5 minutes", testee.getConfigHash());
+        expectNewContainer();
+
+        testee.setUpDocker();
+
+        verify(mockDockerClient).removeContainer(EXISTING_CONTAINER_ID);
+        assertThat("Reused", testee.isContainerReused(), is(false));
+    }
+
+    @Test
+    public void shouldHashPublishedPorts() {
+        DockerDriver otherPorts = new DockerDriver(TEST_CONTAINER_NAME, TEST_IMAGE_NAME, Collections.singletonMap(1521, 49152),
+                ProvisioningJournal.inMemory(), mockDockerClient);
+
+        assertThat("Config hash", otherPorts.getConfigHash(), not(equalTo(testee.getConfigHash())));
+    }
+
+    private void existingContainer(String status, String configHash) throws Exception {
+        Container container = mock(Container.class);
+        when(container.id()).thenReturn(EXISTING_CONTAINER_ID);
+        when(container.names()).thenReturn(ImmutableList.of("/" + TEST_CONTAINER_NAME));
+        when(container.status()).thenReturn(status);
+        when(container.labels()).thenReturn(ImmutableMap.of(DockerDriver.LABEL_CONFIG_HASH, configHash));
+        when(mockDockerClient.listContainers(any(), any())).thenReturn(Collections.singletonList(container));
+    }
+
+    private void expectNewContainer() throws Exception {
+        Image image = mock(Image.class);
+        when(image.id()).thenReturn("sha256:1");
+        when(image.repoTags()).thenReturn(ImmutableList.of(TEST_IMAGE_NAME));
+        when(mockDockerClient.listImages(any())).thenReturn(Collections.singletonList(image));
+
+        ContainerCreation creation = mock(ContainerCreation.class);
+        when(creation.id()).thenReturn(NEW_CONTAINER_ID);
+        when(mockDockerClient.createContainer(any(), eq(TEST_CONTAINER_NAME))).thenReturn(creation);
+    }
+}
@@ -0,0 +1,92 @@
+package org.slinkyframework.environment.docker.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.docker.DockerBuildDefinition;
+import org.slinkyframework.environment.docker.DockerDriver;
+import org.slinkyframework.environment.docker.DockerEnvironmentBuilder;
+import org.slinkyframework.environment.docker.DockerGroupDriver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DockerEnvironmentBuilderTest {
+
+    @Mock private DockerDriver mockBrokerDriver;
+    @Mock private DockerDriver mockServiceDriver;
+
+    private DockerBuildDefinition broker = new DockerBuildDefinition("broker", "rabbitmq:3").addPort(5672);
+    private DockerBuildDefinition service = new DockerBuildDefinition("service", "wiremock/wiremock:2.35.0")
+            .addPort(8080)
+            .addEnvironmentVariable("BROKER_PORT", "5672");
+
+    private DockerEnvironmentBuilder testee;
+    private Map<String, DockerDriver> drivers = new HashMap<>();
+
+    @Before
+    public void setUp() {
+        service.addDependency(broker.getName());
+        drivers.put(broker.getName(), mockBrokerDriver);
+        drivers.put(service.getName(), mockServiceDriver);
+
+        testee = new DockerEnvironmentBuilder(new DockerGroupDriver(), definition -> drivers.get(definition.getName()));
+    }
+
+    @Test
+    public void shouldStartEveryContainerWhenPrepared() {
+        testee.prepare(new HashSet<>(Arrays.asList(broker, service)));
+
+        verify(mockBrokerDriver).setUpDocker();
+        verify(mockServiceDriver).setUpDocker();
+    }
+
+    @Test
+    public void shouldNotStartContainerAgainWhenSettingUpPreparedDefinition() {
+        testee.prepare(new HashSet<>(Arrays.asList(broker, service)));
+
+        testee.setUp(Collections.singleton(service));
+
+        verify(mockServiceDriver).setUpDocker();
+    }
+
+    @Test
+    public void shouldRemoveContainerOnTearDown() {
+        testee.setUp(Collections.singleton(broker));
+
+        testee.tearDown(Collections.singleton(broker));
+
+        verify(mockBrokerDriver).killAndRemoveContainer();
+    }
+
+    @Test
+    public void shouldBeHealthyWhileEveryContainerIsRunning() {
+        when(mockBrokerDriver.isContainerRunning()).thenReturn(true);
+        when(mockServiceDriver.isContainerRunning()).thenReturn(false);
+
+        assertThat("Broker healthy", testee.isHealthy(Collections.singleton(broker)), is(true));
+        assertThat("Both healthy", testee.isHealthy(new HashSet<>(Arrays.asList(broker, service))), is(false));
+    }
+
+    @Test
+    public void shouldLeaveReadinessProbeOutOfFingerprint() {
+        DockerBuildDefinition probed = new DockerBuildDefinition("broker", "rabbitmq:3").addPort(5672)
+                .setReadinessProbe(target -> true, 30000);
+
+        assertThat("Fingerprint", probed.getFingerprint(), equalTo(broker.getFingerprint()));
+        assertThat("Fingerprint", service.getFingerprint(), not(equalTo(broker.getFingerprint())));
+    }
+}
@@ -0,0 +1,133 @@
+package org.slinkyframework.environment.docker.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.docker.DockerDriver;
+import org.slinkyframework.environment.docker.DockerGroupDriver;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DockerGroupDriverTest {
+
+    private static final String BROKER = "broker";
+    private static final String CACHE = "cache";
+    private static final String SERVICE = "service";
+
+    @Mock private DockerDriver mockBrokerDriver;
+    @Mock private DockerDriver mockCacheDriver;
+    @Mock private DockerDriver mockServiceDriver;
+
+    private DockerGroupDriver testee;
+    private List<String> started = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        testee = new DockerGroupDriver();
+        testee.add(BROKER, mockBrokerDriver, Collections.emptySet());
+        testee.add(CACHE, mockCacheDriver, Collections.emptySet());
+        testee.add(SERVICE, mockServiceDriver, new TreeSet<>(Arrays.asList(BROKER, CACHE)));
+    }
+
+    @Test
+    public void shouldStartIndependentContainersAtTheSameTime() {
+        CountDownLatch bothStarting = new CountDownLatch(2);
+        doAnswer(invocation -> awaitOther(bothStarting)).when(mockBrokerDriver).setUpDocker();
+        doAnswer(invocation -> awaitOther(bothStarting)).when(mockCacheDriver).setUpDocker();
+
+        testee.setUp(Arrays.asList(BROKER, CACHE));
+
+        verify(mockBrokerDriver).setUpDocker();
+        verify(mockCacheDriver).setUpDocker();
+    }
+
+    @Test
+    public void shouldStartContainerOnceContainersItDependsOnAreReady() {
+        record(mockBrokerDriver, BROKER);
+        record(mockCacheDriver, CACHE);
+        record(mockServiceDriver, SERVICE);
+
+        testee.setUp(Arrays.asList(SERVICE, BROKER, CACHE));
+
+        assertThat("Last started", started.get(2), equalTo(SERVICE));
+    }
+
+    @Test
+    public void shouldNotWaitForContainersThatAreNotBeingSetUp() {
+        testee.setUp(Collections.singleton(SERVICE));
+
+        verify(mockServiceDriver).setUpDocker();
+        verify(mockBrokerDriver, never()).setUpDocker();
+    }
+
+    @Test
+    public void shouldNotSetUpContainerAgainUntilTornDown() {
+        testee.setUp(Collections.singleton(BROKER));
+        testee.setUp(Collections.singleton(BROKER));
+        testee.tearDown(Collections.singleton(BROKER));
+        testee.setUp(Collections.singleton(BROKER));
+
+        verify(mockBrokerDriver, times(2)).setUpDocker();
+        verify(mockBrokerDriver).killAndRemoveContainer();
+    }
+
+    @Test
+    public void shouldNotStartContainerWhenContainerItDependsOnFails() {
+        doThrow(new EnvironmentBuilderException("Unable to start container")).when(mockBrokerDriver).setUpDocker();
+
+        try {
+            testee.setUp(Arrays.asList(BROKER, CACHE, SERVICE));
+            fail("Expected set up to fail");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Message", e.getMessage(), equalTo("Unable to start container"));
+        }
+        verify(mockServiceDriver, never()).setUpDocker();
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldRejectContainersThatDependOnEachOther() {
+        testee.add(BROKER, mockBrokerDriver, Collections.singleton(SERVICE));
+
+        testee.setUp(Arrays.asList(BROKER, SERVICE));
+    }
+
+    @Test
+    public void shouldTearDownEveryContainer() {
+        testee.tearDown(Arrays.asList(BROKER, CACHE, SERVICE));
+
+        verify(mockBrokerDriver).killAndRemoveContainer();
+        verify(mockCacheDriver).killAndRemoveContainer();
+        verify(mockServiceDriver).killAndRemoveContainer();
+    }
+
+    private Object awaitOther(CountDownLatch bothStarting) throws InterruptedException {
+        bothStarting.countDown();
+        if (!bothStarting.await(5, TimeUnit.SECONDS)) {
+            throw new EnvironmentBuilderException("Containers were started one after another");
+        }
+        return null;
+    }
+
+    private void record(DockerDriver driver, String name) {
+        doAnswer(invocation -> started.add(name)).when(driver).setUpDocker();
+    }
+}
@@ -0,0 +1,144 @@
+package org.slinkyframework.environment.docker.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.exceptions.ConflictException;
+import com.spotify.docker.client.messages.ContainerConfig;
+import com.spotify.docker.client.messages.ContainerCreation;
+import com.spotify.docker.client.messages.Image;
+import com.spotify.docker.client.messages.ImageInfo;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.docker.DockerImageCache;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class DockerImageCacheTest {
+
+    private static final String TEST_REPOSITORY = "slinky-cache/oracle-xe";
+    private static final String TEST_KEY = "key";
+    private static final String TEST_LINEAGE = "lineage";
+    private static final long BUDGET = 150;
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private DockerClient mockDockerClient;
+
+    private DockerImageCache testee;
+
+    @Before
+    public void setUp() {
+        testee = new DockerImageCache(mockDockerClient, new File(temporaryFolder.getRoot(), "image-cache.properties"));
+    }
+
+    @Test
+    public void shouldFindImageCachedForKey() throws Exception {
+        Image cached = image("sha256:1", TEST_KEY, 1, 100);
+        when(mockDockerClient.listImages(any())).thenReturn(Collections.singletonList(cached));
+
+        assertThat("Image", testee.find(TEST_REPOSITORY, TEST_KEY, TEST_LINEAGE), equalTo(Optional.of(TEST_REPOSITORY + ":" + TEST_KEY)));
+    }
+
+    @Test
+    public void shouldStartFromMostRecentlyUsedImageOfLineageWhenKeyNotCached() throws Exception {
+        Image older = image("sha256:1", "older", 1, 100);
+        Image newer = image("sha256:2", "newer", 2, 100);
+        when(mockDockerClient.listImages(any())).thenReturn(Arrays.asList(newer, older));
+
+        assertThat("Image", testee.find(TEST_REPOSITORY, TEST_KEY, TEST_LINEAGE), equalTo(Optional.of(TEST_REPOSITORY + ":newer")));
+    }
+
+    @Test
+    public void shouldNotFindImageOfAnotherLineage() throws Exception {
+        when(mockDockerClient.listImages(any())).thenReturn(Collections.emptyList());
+
+        assertThat("Image", testee.find(TEST_REPOSITORY, TEST_KEY, TEST_LINEAGE), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldCommitContainerTaggedWithKeyAndLabelledWithLineage() throws Exception {
+        ContainerCreation creation = mock(ContainerCreation.class);
+        when(creation.id()).thenReturn("sha256:1");
+        when(mockDockerClient.commitContainer(eq("container"), eq(TEST_REPOSITORY), eq(TEST_KEY), any(), anyString(), isNull())).thenReturn(creation);
+
+        String imageName = testee.commit("container", TEST_REPOSITORY, TEST_KEY, TEST_LINEAGE);
+
+        ArgumentCaptor<ContainerConfig> config = ArgumentCaptor.forClass(ContainerConfig.class);
+        verify(mockDockerClient).commitContainer(eq("container"), eq(TEST_REPOSITORY), eq(TEST_KEY), config.capture(), anyString(), isNull());
+        assertThat("Image", imageName, equalTo(TEST_REPOSITORY + ":" + TEST_KEY));
+        assertThat("Labels", config.getValue().labels(), hasEntry(DockerImageCache.LABEL_LINEAGE, TEST_LINEAGE));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedImagesUntilWithinBudget() throws Exception {
+        Image oldest = image("sha256:1", "oldest", 1, 100);
+        Image older = image("sha256:2", "older", 2, 100);
+        Image latest = image("sha256:3", "latest", 3, 100);
+        when(mockDockerClient.listImages(any())).thenReturn(Arrays.asList(latest, oldest, older));
+
+        testee.evict(BUDGET, TEST_REPOSITORY + ":latest");
+
+        verify(mockDockerClient).removeImage("sha256:1");
+        verify(mockDockerClient).removeImage("sha256:2");
+        verify(mockDockerClient, never()).removeImage("sha256:3");
+    }
+
+    @Test
+    public void shouldSkipImagesThatCannotBeRemoved() throws Exception {
+        Image inUse = image("sha256:1", "inUse", 1, 100);
+        Image older = image("sha256:2", "older", 2, 100);
+        when(mockDockerClient.listImages(any())).thenReturn(Arrays.asList(inUse, older));
+        when(mockDockerClient.removeImage("sha256:1")).thenThrow(new ConflictException("image is being used by running container"));
+
+        testee.evict(BUDGET, "none");
+
+        verify(mockDockerClient).removeImage("sha256:2");
+    }
+
+    @Test
+    public void shouldOnlyCountWhatImageAddsToImageItWasCommittedFrom() throws Exception {
+        Image cached = image("sha256:1", TEST_KEY, 1, 1100);
+        when(cached.parentId()).thenReturn("sha256:base");
+        ImageInfo base = mock(ImageInfo.class);
+        when(base.size()).thenReturn(1000L);
+        when(mockDockerClient.listImages(any())).thenReturn(Collections.singletonList(cached));
+        when(mockDockerClient.inspectImage("sha256:base")).thenReturn(base);
+
+        testee.evict(BUDGET, "none");
+
+        verify(mockDockerClient, never()).removeImage(anyString());
+    }
+
+    private Image image(String id, String tag, long createdSeconds, long size) {
+        Image image = mock(Image.class);
+        when(image.id()).thenReturn(id);
+        when(image.repoTags()).thenReturn(ImmutableList.of(TEST_REPOSITORY + ":" + tag));
+        when(image.labels()).thenReturn(ImmutableMap.of(DockerImageCache.LABEL_KEY, tag, DockerImageCache.LABEL_LINEAGE, TEST_LINEAGE));
+        when(image.created()).thenReturn(Long.toString(createdSeconds));
+        when(image.size()).thenReturn(size);
+        return image;
+    }
+}
@@ -0,0 +1,109 @@
+package org.slinkyframework.environment.docker.test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.messages.Container;
+import com.spotify.docker.client.messages.Event;
+import com.spotify.docker.client.messages.Image;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.docker.DockerMetadataCache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DockerMetadataCacheTest {
+
+    private static final long ONE_MINUTE = 60000;
+    private static final String TEST_CONTAINER_NAME = "oracle-xe_build_42";
+    private static final String TEST_IMAGE_NAME = "gvenzl/oracle-xe:18-slim";
+
+    @Mock private DockerClient mockDockerClient;
+    @Mock private Event mockEvent;
+
+    @Test
+    public void shouldFindContainerByExactNameAndKeepIt() throws Exception {
+        Container container = container("/" + TEST_CONTAINER_NAME);
+        Container otherNamespace = container("/" + TEST_CONTAINER_NAME + "_retry");
+        when(mockDockerClient.listContainers(any(), any())).thenReturn(Arrays.asList(otherNamespace, container));
+
+        DockerMetadataCache testee = new DockerMetadataCache(mockDockerClient, ONE_MINUTE);
+
+        assertThat("Container", testee.findContainer(TEST_CONTAINER_NAME), equalTo(Optional.of(container)));
+        assertThat("Container", testee.findContainer(TEST_CONTAINER_NAME), equalTo(Optional.of(container)));
+
+        verify(mockDockerClient, times(1)).listContainers(any(), any());
+    }
+
+    @Test
+    public void shouldFindContainerAgainAfterContainerEvent() throws Exception {
+        when(mockDockerClient.listContainers(any(), any())).thenReturn(Collections.emptyList());
+        when(mockEvent.type()).thenReturn(Event.Type.CONTAINER);
+
+        DockerMetadataCache testee = new DockerMetadataCache(mockDockerClient, ONE_MINUTE);
+        testee.findContainer(TEST_CONTAINER_NAME);
+        testee.onEvent(mockEvent);
+        testee.findContainer(TEST_CONTAINER_NAME);
+
+        verify(mockDockerClient, times(2)).listContainers(any(), any());
+    }
+
+    @Test
+    public void shouldFindContainerAgainOnceExpired() throws Exception {
+        when(mockDockerClient.listContainers(any(), any())).thenReturn(Collections.emptyList());
+
+        DockerMetadataCache testee = new DockerMetadataCache(mockDockerClient, 0);
+        testee.findContainer(TEST_CONTAINER_NAME);
+        testee.findContainer(TEST_CONTAINER_NAME);
+
+        verify(mockDockerClient, times(2)).listContainers(any(), any());
+    }
+
+    @Test
+    public void shouldFindContainersWithLabel() throws Exception {
+        Container labelled = container("/" + TEST_CONTAINER_NAME);
+        when(labelled.labels()).thenReturn(ImmutableMap.of("org.slinkyframework.namespace", "build_42"));
+        when(mockDockerClient.listContainers(any(), any())).thenReturn(Collections.singletonList(labelled));
+
+        DockerMetadataCache testee = new DockerMetadataCache(mockDockerClient, ONE_MINUTE);
+
+        assertThat("Containers", testee.findContainersWithLabel("org.slinkyframework.namespace", "build_42"), contains(labelled));
+    }
+
+    @Test
+    public void shouldFindImageByTagAndIndexItById() throws Exception {
+        Image image = mock(Image.class);
+        when(image.id()).thenReturn("sha256:1234");
+        when(image.repoTags()).thenReturn(ImmutableList.of(TEST_IMAGE_NAME));
+        when(mockDockerClient.listImages(any())).thenReturn(Collections.singletonList(image));
+
+        DockerMetadataCache testee = new DockerMetadataCache(mockDockerClient, ONE_MINUTE);
+
+        assertThat("Image", testee.findImage(TEST_IMAGE_NAME), equalTo(Optional.of(image)));
+        assertThat("Image", testee.findImageById("sha256:1234"), equalTo(Optional.of(image)));
+
+        testee.invalidateImages();
+        assertThat("Image", testee.findImageById("sha256:1234").isPresent(), is(false));
+    }
+
+    private Container container(String name) {
+        Container container = mock(Container.class);
+        when(container.names()).thenReturn(ImmutableList.of(name));
+        return container;
+    }
+}
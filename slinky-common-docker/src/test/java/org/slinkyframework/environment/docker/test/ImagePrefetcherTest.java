@@ -0,0 +1,121 @@
+package org.slinkyframework.environment.docker.test;
+
+import com.google.common.collect.ImmutableList;
+import com.spotify.docker.client.DockerClient;
+import com.spotify.docker.client.ProgressHandler;
+import com.spotify.docker.client.exceptions.ImagePullFailedException;
+import com.spotify.docker.client.messages.Image;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.docker.ImagePrefetcher;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ImagePrefetcherTest {
+
+    private static final String TEST_IMAGE_NAME = "gvenzl/oracle-xe:18-slim";
+    private static final String OTHER_IMAGE_NAME = "postgres:10";
+
+    @Mock private DockerClient mockDockerClient;
+
+    private ImagePrefetcher testee;
+
+    @Before
+    public void setUp() throws Exception {
+        testee = new ImagePrefetcher(2);
+
+        when(mockDockerClient.listImages(any())).thenReturn(Collections.emptyList());
+    }
+
+    @Test
+    public void shouldShareAPullAlreadyUnderWay() throws Exception {
+        CountDownLatch pulled = new CountDownLatch(1);
+        doAnswer(invocation -> pulled.await(5, TimeUnit.SECONDS)).when(mockDockerClient).pull(eq(TEST_IMAGE_NAME), any(ProgressHandler.class));
+
+        CompletableFuture<Void> first = testee.prefetch(() -> mockDockerClient, TEST_IMAGE_NAME);
+        CompletableFuture<Void> second = testee.prefetch(() -> mockDockerClient, TEST_IMAGE_NAME);
+        pulled.countDown();
+        first.join();
+
+        assertThat("Shared", second, is(sameInstance(first)));
+        verify(mockDockerClient, times(1)).pull(eq(TEST_IMAGE_NAME), any(ProgressHandler.class));
+    }
+
+    @Test
+    public void shouldPullDifferentImagesConcurrently() throws Exception {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        doAnswer(invocation -> {
+            bothStarted.countDown();
+            if (!bothStarted.await(5, TimeUnit.SECONDS)) {
+                throw new ImagePullFailedException(invocation.getArgument(0), "Pulled one at a time");
+            }
+            return null;
+        }).when(mockDockerClient).pull(anyString(), any(ProgressHandler.class));
+
+        testee.prefetch(() -> mockDockerClient, TEST_IMAGE_NAME);
+        testee.prefetch(() -> mockDockerClient, OTHER_IMAGE_NAME);
+
+        testee.await(() -> mockDockerClient, TEST_IMAGE_NAME);
+        testee.await(() -> mockDockerClient, OTHER_IMAGE_NAME);
+    }
+
+    @Test
+    public void shouldNotPullImageTheDockerHostAlreadyHas() throws Exception {
+        Image image = mock(Image.class);
+        when(image.id()).thenReturn("sha256:1");
+        when(image.repoTags()).thenReturn(ImmutableList.of(TEST_IMAGE_NAME));
+        when(mockDockerClient.listImages(any())).thenReturn(Collections.singletonList(image));
+
+        testee.prefetch(() -> mockDockerClient, TEST_IMAGE_NAME).get(5, TimeUnit.SECONDS);
+
+        verify(mockDockerClient, never()).pull(anyString(), any(ProgressHandler.class));
+    }
+
+    @Test
+    public void shouldFailWaitingForImageThatCouldNotBePulled() throws Exception {
+        doThrow(new ImagePullFailedException(TEST_IMAGE_NAME, "manifest unknown"))
+                .when(mockDockerClient).pull(eq(TEST_IMAGE_NAME), any(ProgressHandler.class));
+
+        try {
+            testee.await(() -> mockDockerClient, TEST_IMAGE_NAME);
+            fail("Expected pull to fail");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Cause", e.getCause() instanceof ImagePullFailedException, is(true));
+        }
+    }
+
+    @Test
+    public void shouldPullAgainAfterPullHasFinished() throws Exception {
+        doThrow(new ImagePullFailedException(TEST_IMAGE_NAME, "connection reset"))
+                .doNothing()
+                .when(mockDockerClient).pull(eq(TEST_IMAGE_NAME), any(ProgressHandler.class));
+
+        testee.prefetch(() -> mockDockerClient, TEST_IMAGE_NAME).exceptionally(e -> null).get(5, TimeUnit.SECONDS);
+        testee.await(() -> mockDockerClient, TEST_IMAGE_NAME);
+
+        verify(mockDockerClient, times(2)).pull(eq(TEST_IMAGE_NAME), any(ProgressHandler.class));
+    }
+}
@@ -32,6 +32,15 @@ public class PortSelectorTest {
         assertThat("Port", selectedPort, is(internalPort));
     }
 
+    @Test
+    public void shouldSelectFreePortWhenPreferred() {
+        int internalPort = 8083;
+
+        int selectedPort = PortSelector.selectPort(internalPort, true);
+
+        assertThat("Port", selectedPort, is(not(internalPort)));
+    }
+
     @Test
     public void shouldSelectExternalPortFromEnvironmentVariable() throws Exception {
         int internalPort = 8081;
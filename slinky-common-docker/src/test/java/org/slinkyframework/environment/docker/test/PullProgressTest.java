@@ -0,0 +1,62 @@
+package org.slinkyframework.environment.docker.test;
+
+import com.spotify.docker.client.ObjectMapperProvider;
+import com.spotify.docker.client.exceptions.ImagePullFailedException;
+import com.spotify.docker.client.messages.ProgressMessage;
+import org.junit.Before;
+import org.junit.Test;
+import org.slinkyframework.environment.docker.PullProgress;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class PullProgressTest {
+
+    private static final String TEST_IMAGE_NAME = "gvenzl/oracle-xe:18-slim";
+    private static final long ONE_MB = 1024 * 1024;
+
+    private PullProgress testee;
+
+    @Before
+    public void setUp() {
+        testee = new PullProgress(TEST_IMAGE_NAME);
+    }
+
+    @Test
+    public void shouldAddUpDownloadsAcrossLayers() throws Exception {
+        testee.progress(message("18-slim", "Pulling from gvenzl/oracle-xe"));
+        testee.progress(downloading("layer1", 10 * ONE_MB, 20 * ONE_MB));
+        testee.progress(downloading("layer2", 5 * ONE_MB, 30 * ONE_MB));
+
+        assertThat("Progress", testee.toString(), equalTo("0 of 2 layers done, 15.0 of 50.0 MB downloaded"));
+    }
+
+    @Test
+    public void shouldCountLayersDoneWithoutDownloadingThoseTheDockerHostHas() throws Exception {
+        testee.progress(message("layer1", "Already exists"));
+        testee.progress(downloading("layer2", 5 * ONE_MB, 30 * ONE_MB));
+        testee.progress(message("layer2", "Download complete"));
+        testee.progress(message("layer2", "Pull complete"));
+
+        assertThat("Progress", testee.toString(), equalTo("2 of 2 layers done, 30.0 of 30.0 MB downloaded"));
+    }
+
+    @Test(expected = ImagePullFailedException.class)
+    public void shouldFailPullOnError() throws Exception {
+        testee.progress(parse("{\"error\":\"manifest unknown\"}"));
+    }
+
+    private ProgressMessage message(String id, String status) throws IOException {
+        return parse(String.format("{\"id\":\"%s\",\"status\":\"%s\"}", id, status));
+    }
+
+    private ProgressMessage downloading(String id, long current, long total) throws IOException {
+        return parse(String.format("{\"id\":\"%s\",\"status\":\"Downloading\",\"progressDetail\":{\"current\":%d,\"total\":%d}}", id, current, total));
+    }
+
+    private ProgressMessage parse(String json) throws IOException {
+        return ObjectMapperProvider.objectMapper().readValue(json, ProgressMessage.class);
+    }
+}
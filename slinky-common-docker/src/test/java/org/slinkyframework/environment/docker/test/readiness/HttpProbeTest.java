@@ -0,0 +1,54 @@
+package org.slinkyframework.environment.docker.test.readiness;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slinkyframework.environment.docker.readiness.HttpProbe;
+import org.slinkyframework.environment.docker.readiness.ProbeTarget;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class HttpProbeTest {
+
+    private static final int INTERNAL_PORT = 8080;
+
+    private HttpServer server;
+    private ProbeTarget target;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/health", exchange -> {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.createContext("/starting", exchange -> {
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+        });
+        server.start();
+
+        target = new ProbeTarget(null, "1234", "test-container", "localhost", Collections.singletonMap(INTERNAL_PORT, server.getAddress().getPort()));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    public void shouldBeReadyWhenPathReturnsSuccess() {
+        assertThat("Ready", new HttpProbe(INTERNAL_PORT, "/health").isReady(target), is(true));
+    }
+
+    @Test
+    public void shouldNotBeReadyWhenPathReturnsError() {
+        assertThat("Ready", new HttpProbe(INTERNAL_PORT, "starting").isReady(target), is(false));
+    }
+}
@@ -0,0 +1,64 @@
+package org.slinkyframework.environment.docker.test.readiness;
+
+import com.spotify.docker.client.LogMessage;
+import com.spotify.docker.client.LogStream;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.docker.readiness.LogReadiness;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LogReadinessTest {
+
+    private static final String READY_PATTERN = "DATABASE IS READY TO USE";
+
+    @Mock private LogStream mockLogStream;
+
+    private LogReadiness testee = new LogReadiness(READY_PATTERN);
+
+    @Test
+    public void shouldReturnLineMatchingPattern() {
+        givenLog("CONTAINER: starting up...\n", "#########################\nDATABASE IS READY TO USE!\n", "Completed\n");
+
+        assertThat("Line", testee.await(mockLogStream), equalTo("DATABASE IS READY TO USE!"));
+    }
+
+    @Test
+    public void shouldMatchLineSplitAcrossFrames() {
+        givenLog("DATABASE IS ", "READY TO USE!\r\n");
+
+        assertThat("Line", testee.await(mockLogStream), equalTo("DATABASE IS READY TO USE!"));
+    }
+
+    @Test
+    public void shouldFailWithLastLinesWhenLogEndsFirst() {
+        givenLog("CONTAINER: starting up...\n", "ORA-01034: ORACLE not available");
+
+        try {
+            testee.await(mockLogStream);
+            fail("Expected the wait to fail");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Message", e.getMessage(), containsString("ORA-01034: ORACLE not available"));
+        }
+    }
+
+    private void givenLog(String... frames) {
+        Iterator<String> iterator = Arrays.asList(frames).iterator();
+
+        when(mockLogStream.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(mockLogStream.next()).thenAnswer(invocation -> new LogMessage(LogMessage.Stream.STDOUT, ByteBuffer.wrap(iterator.next().getBytes(UTF_8))));
+    }
+}
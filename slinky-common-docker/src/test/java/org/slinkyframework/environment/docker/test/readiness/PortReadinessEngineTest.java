@@ -0,0 +1,81 @@
+package org.slinkyframework.environment.docker.test.readiness;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.docker.PortSelector;
+import org.slinkyframework.environment.docker.readiness.PortReadinessEngine;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class PortReadinessEngineTest {
+
+    private PortReadinessEngine testee = new PortReadinessEngine();
+    private List<ServerSocket> listeners = new ArrayList<>();
+
+    @After
+    public void tearDown() throws Exception {
+        testee.close();
+        for (ServerSocket listener : listeners) {
+            listener.close();
+        }
+    }
+
+    @Test
+    public void shouldCompleteOncePortStartsAccepting() throws Exception {
+        int port = PortSelector.selectFreePort();
+        CompletableFuture<Void> accepting = testee.whenAccepting(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+
+        Thread.sleep(100);
+        assertThat("Accepting", accepting.isDone(), is(false));
+
+        listen(port);
+        accepting.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldWaitForManyPortsAtOnce() throws Exception {
+        List<CompletableFuture<Void>> accepting = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            int port = listen(0);
+            accepting.add(testee.whenAccepting(new InetSocketAddress(InetAddress.getLoopbackAddress(), port)));
+        }
+
+        CompletableFuture.allOf(accepting.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldFailPortsStillWaitedForWhenClosed() throws Exception {
+        CompletableFuture<Void> accepting = testee.whenAccepting(new InetSocketAddress(InetAddress.getLoopbackAddress(), PortSelector.selectFreePort()));
+
+        testee.close();
+
+        try {
+            accepting.get(5, TimeUnit.SECONDS);
+            fail("Expected waiting to fail");
+        } catch (ExecutionException e) {
+            assertThat("Cause", e.getCause(), instanceOf(EnvironmentBuilderException.class));
+        }
+    }
+
+    private int listen(int port) throws Exception {
+        ServerSocket listener = new ServerSocket();
+        listener.setReuseAddress(true);
+        listener.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        listeners.add(listener);
+        return listener.getLocalPort();
+    }
+}
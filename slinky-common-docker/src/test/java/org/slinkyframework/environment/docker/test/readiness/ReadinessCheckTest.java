@@ -0,0 +1,120 @@
+package org.slinkyframework.environment.docker.test.readiness;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.docker.readiness.ProbeTarget;
+import org.slinkyframework.environment.docker.readiness.ReadinessCheck;
+import org.slinkyframework.environment.docker.readiness.ReadinessProbe;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ReadinessCheckTest {
+
+    private static final ProbeTarget TEST_TARGET = new ProbeTarget(null, "1234", "test-container", "localhost", Collections.emptyMap());
+
+    @Test
+    public void shouldBackOffInMillisecondsWhileNotReady() {
+        AtomicInteger attempts = new AtomicInteger();
+        ReadinessCheck testee = new ReadinessCheck(target -> attempts.incrementAndGet() >= 4, 10000);
+
+        long start = System.nanoTime();
+        testee.await(TEST_TARGET);
+
+        assertThat("Attempts", attempts.get(), equalTo(4));
+        assertThat("Waited", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), lessThan(1000L));
+    }
+
+    @Test
+    public void shouldFailOnceTimedOut() {
+        ReadinessCheck testee = new ReadinessCheck(target -> false, 100);
+
+        try {
+            testee.await(TEST_TARGET);
+            fail("Expected the check to time out");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Message", e.getMessage(), containsString("Not ready within 100ms"));
+        }
+    }
+
+    @Test
+    public void shouldFailStraightAwayWhenProbeCanNeverBeReady() {
+        AtomicInteger attempts = new AtomicInteger();
+        ReadinessCheck testee = new ReadinessCheck(target -> {
+            attempts.incrementAndGet();
+            throw new EnvironmentBuilderException("Container exited");
+        }, 10000);
+
+        try {
+            testee.await(TEST_TARGET);
+            fail("Expected the check to fail");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Message", e.getMessage(), equalTo("Container exited"));
+        }
+        assertThat("Attempts", attempts.get(), equalTo(1));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldWaitForProbeThatCompletesRatherThanAskAgain() {
+        AtomicInteger attempts = new AtomicInteger();
+        CompletableFuture<Void> logged = new CompletableFuture<>();
+        ReadinessProbe probe = new ReadinessProbe() {
+            @Override
+            public boolean isReady(ProbeTarget target) {
+                attempts.incrementAndGet();
+                return logged.isDone();
+            }
+
+            @Override
+            public CompletableFuture<Void> whenReady(ProbeTarget target) {
+                return logged;
+            }
+        };
+        CompletableFuture.runAsync(() -> {
+            sleepQuietly(500);
+            logged.complete(null);
+        });
+
+        new ReadinessCheck(probe, 10000).await(TEST_TARGET);
+
+        assertThat("Attempts", attempts.get(), equalTo(2));
+    }
+
+    @Test
+    public void shouldCloseProbe() {
+        AtomicBoolean closed = new AtomicBoolean();
+        ReadinessProbe probe = new ReadinessProbe() {
+            @Override
+            public boolean isReady(ProbeTarget target) {
+                return true;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        new ReadinessCheck(probe, 1000).await(TEST_TARGET);
+
+        assertThat("Closed", closed.get(), is(true));
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.slinkyframework.environment.docker.test.readiness;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.docker.readiness.ProbeTarget;
+import org.slinkyframework.environment.docker.readiness.ReadinessProbe;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ReadinessProbeTest {
+
+    private static final ProbeTarget TEST_TARGET = new ProbeTarget(null, "1234", "test-container", "localhost", Collections.emptyMap());
+
+    private static final ReadinessProbe READY = target -> true;
+    private static final ReadinessProbe NOT_READY = target -> false;
+    private static final ReadinessProbe FAILED = target -> {
+        throw new EnvironmentBuilderException("Container exited");
+    };
+
+    @Test
+    public void shouldBeReadyWhenAllProbesReady() {
+        assertThat("Ready", ReadinessProbe.all(READY, READY).isReady(TEST_TARGET), is(true));
+        assertThat("Ready", ReadinessProbe.all(READY, NOT_READY).isReady(TEST_TARGET), is(false));
+    }
+
+    @Test
+    public void shouldBeReadyWhenAnyProbeReady() {
+        assertThat("Ready", ReadinessProbe.any(NOT_READY, READY).isReady(TEST_TARGET), is(true));
+        assertThat("Ready", ReadinessProbe.any(NOT_READY, NOT_READY).isReady(TEST_TARGET), is(false));
+    }
+
+    @Test
+    public void shouldNotAskProbeAgainOnceReady() {
+        AtomicInteger asked = new AtomicInteger();
+        ReadinessProbe counting = target -> asked.incrementAndGet() > 0;
+        AtomicInteger attempts = new AtomicInteger();
+        ReadinessProbe readyOnThirdAttempt = target -> attempts.incrementAndGet() >= 3;
+
+        ReadinessProbe testee = ReadinessProbe.all(counting, readyOnThirdAttempt);
+
+        assertThat("Ready", testee.isReady(TEST_TARGET), is(false));
+        assertThat("Ready", testee.isReady(TEST_TARGET), is(false));
+        assertThat("Ready", testee.isReady(TEST_TARGET), is(true));
+        assertThat("Asked", asked.get(), equalTo(1));
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldFailAllWhenOneProbeFails() {
+        ReadinessProbe.all(NOT_READY, FAILED).isReady(TEST_TARGET);
+    }
+
+    @Test
+    public void shouldKeepWaitingForAnyWhileOtherProbesMayBeReady() {
+        assertThat("Ready", ReadinessProbe.any(FAILED, NOT_READY).isReady(TEST_TARGET), is(false));
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldFailAnyWhenEveryProbeFails() {
+        ReadinessProbe.any(FAILED, FAILED).isReady(TEST_TARGET);
+    }
+
+    @Test
+    public void shouldNotAskProbeAfterAnEventUntilItHappens() {
+        AtomicInteger asked = new AtomicInteger();
+        ReadinessProbe query = target -> asked.incrementAndGet() > 0;
+        EventProbe logged = new EventProbe();
+
+        ReadinessProbe testee = ReadinessProbe.all(logged, query);
+
+        assertThat("Ready", testee.isReady(TEST_TARGET), is(false));
+        assertThat("Asked", asked.get(), equalTo(0));
+        assertThat("Waiting for event", testee.whenReady(TEST_TARGET), is(notNullValue()));
+
+        logged.event.complete(null);
+
+        assertThat("Ready", testee.isReady(TEST_TARGET), is(true));
+        assertThat("Asked", asked.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldOnlyWaitForEventsWhenEveryProbeWaitsForOne() {
+        assertThat("Waiting for event", ReadinessProbe.all(new EventProbe(), new EventProbe()).whenReady(TEST_TARGET), is(notNullValue()));
+        assertThat("Waiting for event", ReadinessProbe.all(NOT_READY, new EventProbe()).whenReady(TEST_TARGET), is(nullValue()));
+        assertThat("Waiting for event", ReadinessProbe.any(new EventProbe(), NOT_READY).whenReady(TEST_TARGET), is(nullValue()));
+    }
+
+    @Test
+    public void shouldWaitForEveryEventOfAll() {
+        EventProbe first = new EventProbe();
+        EventProbe second = new EventProbe();
+
+        CompletableFuture<Void> whenReady = ReadinessProbe.all(first, second).whenReady(TEST_TARGET);
+        first.event.complete(null);
+
+        assertThat("Completed", whenReady.isDone(), is(false));
+
+        second.event.complete(null);
+
+        assertThat("Completed", whenReady.isDone(), is(true));
+    }
+
+    @Test
+    public void shouldAskEveryProbeAgainOnceClosed() {
+        AtomicInteger asked = new AtomicInteger();
+        ReadinessProbe testee = ReadinessProbe.all(target -> asked.incrementAndGet() > 0);
+
+        testee.isReady(TEST_TARGET);
+        testee.close();
+        testee.isReady(TEST_TARGET);
+
+        assertThat("Asked", asked.get(), equalTo(2));
+    }
+
+    private static class EventProbe implements ReadinessProbe {
+
+        private final CompletableFuture<Void> event = new CompletableFuture<>();
+
+        @Override
+        public boolean isReady(ProbeTarget target) {
+            return event.isDone();
+        }
+
+        @Override
+        public CompletableFuture<Void> whenReady(ProbeTarget target) {
+            return event;
+        }
+    }
+}
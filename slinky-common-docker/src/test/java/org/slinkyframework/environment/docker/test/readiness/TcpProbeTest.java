@@ -0,0 +1,55 @@
+package org.slinkyframework.environment.docker.test.readiness;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.docker.PortSelector;
+import org.slinkyframework.environment.docker.readiness.ProbeTarget;
+import org.slinkyframework.environment.docker.readiness.ReadinessCheck;
+import org.slinkyframework.environment.docker.readiness.TcpProbe;
+
+import java.net.ServerSocket;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TcpProbeTest {
+
+    private static final int INTERNAL_PORT = 1521;
+
+    private TcpProbe testee = new TcpProbe(INTERNAL_PORT);
+
+    @Test
+    public void shouldBeReadyWhenPortAcceptsConnections() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            new ReadinessCheck(testee, 5000).await(targetOn(listener.getLocalPort()));
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void shouldCompleteOncePortAcceptsConnections() throws Exception {
+        try (ServerSocket listener = new ServerSocket(0)) {
+            testee.whenReady(targetOn(listener.getLocalPort())).get(5, TimeUnit.SECONDS);
+
+            assertThat("Ready", testee.isReady(targetOn(listener.getLocalPort())), is(true));
+        } finally {
+            testee.close();
+        }
+    }
+
+    @Test
+    public void shouldNotBlockWhenAsked() {
+        assertThat("Ready", testee.isReady(targetOn(PortSelector.selectFreePort())), is(false));
+        testee.close();
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldNotBeReadyWhenNothingListening() {
+        new ReadinessCheck(testee, 200).await(targetOn(PortSelector.selectFreePort()));
+    }
+
+    private ProbeTarget targetOn(int externalPort) {
+        return new ProbeTarget(null, "1234", "test-container", "localhost", Collections.singletonMap(INTERNAL_PORT, externalPort));
+    }
+}
@@ -0,0 +1,29 @@
+package environment;
+
+import org.slinkyframework.environment.builder.benchmarks.SyntheticBuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Build definitions found by the discovery benchmarks, by index or by scanning the classpath.
+ */
+@Configuration
+public class BenchmarkSetUpConfiguration {
+
+    @Bean
+    public BuildDefinition tablespacesBuildDefinition() {
+        return new SyntheticBuildDefinition(BuildPriority.HIGH, "Tablespaces");
+    }
+
+    @Bean
+    public BuildDefinition usersBuildDefinition() {
+        return new SyntheticBuildDefinition(BuildPriority.NORMAL, "Users");
+    }
+
+    @Bean
+    public BuildDefinition referenceDataBuildDefinition() {
+        return new SyntheticBuildDefinition(BuildPriority.LOW, "Reference Data");
+    }
+}
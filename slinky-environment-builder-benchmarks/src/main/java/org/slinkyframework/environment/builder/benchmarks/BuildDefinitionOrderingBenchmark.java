@@ -0,0 +1,57 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of collecting build definitions into sets, which compare them with {@code CompareToBuilder} and test them
+ * for equality with the reflection based {@code EqualsBuilder} and {@code HashCodeBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BuildDefinitionOrderingBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int definitions;
+
+    private List<BuildDefinition> shuffled;
+
+    @Setup
+    public void createDefinitions() {
+        shuffled = new ArrayList<>(SyntheticBuildDefinition.create(definitions));
+        Collections.shuffle(shuffled, new Random(definitions));
+    }
+
+    @Benchmark
+    public Set<BuildDefinition> treeSetInsertion() {
+        return new TreeSet<>(shuffled);
+    }
+
+    @Benchmark
+    public Set<BuildDefinition> hashSetInsertion() {
+        return new HashSet<>(shuffled);
+    }
+}
@@ -0,0 +1,48 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildDefinitionCollector;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactoryCollector;
+import org.slinkyframework.environment.builder.index.DiscoveryMode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start up cost of finding the build definitions and environment builder factories, from the discovery index
+ * generated when this module is compiled or by scanning the classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DiscoveryBenchmark {
+
+    @Param({"INDEX", "SCAN"})
+    private DiscoveryMode discoveryMode;
+
+    @Benchmark
+    public Map<Class, Set<BuildDefinition>> findBuildDefinitions() {
+        return new BuildDefinitionCollector(discoveryMode).findBuildDefinitions();
+    }
+
+    @Benchmark
+    public List<EnvironmentBuilderFactory> findEnvironmentBuilderFactories() {
+        return new EnvironmentBuilderFactoryCollector(discoveryMode).findEnvironmentBuilderFactories();
+    }
+}
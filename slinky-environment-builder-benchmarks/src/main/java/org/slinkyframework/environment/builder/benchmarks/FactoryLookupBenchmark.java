@@ -0,0 +1,71 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of finding the environment builder for a type of build definition, as done by the
+ * {@link org.slinkyframework.environment.builder.EnvironmentManagerImpl} before every set up and tear down. The
+ * matching factory is registered last, so a search has to ask every other factory first.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoryLookupBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int factories;
+
+    private final EnvironmentBuilderContext context = new EnvironmentBuilderContext("localhost", false);
+
+    private List<EnvironmentBuilderFactory> registeredFactories;
+    private EnvironmentBuilderRegistry registry;
+
+    @Setup
+    public void createRegistry() {
+        registeredFactories = new ArrayList<>();
+        for (int i = 1; i < factories; i++) {
+            registeredFactories.add(new SyntheticEnvironmentBuilderFactory(Void.class));
+        }
+        registeredFactories.add(new SyntheticEnvironmentBuilderFactory());
+
+        registry = new EnvironmentBuilderRegistry(registeredFactories);
+        registry.getEnvironmentBuilder(context, SyntheticBuildDefinition.class);
+    }
+
+    @Benchmark
+    public Optional<EnvironmentBuilderFactory> findFactoryFirstTime() {
+        return new EnvironmentBuilderRegistry(registeredFactories).findFactory(SyntheticBuildDefinition.class);
+    }
+
+    @Benchmark
+    public Optional<EnvironmentBuilderFactory> findFactory() {
+        return registry.findFactory(SyntheticBuildDefinition.class);
+    }
+
+    @Benchmark
+    public Optional<EnvironmentBuilder> getEnvironmentBuilder() {
+        return registry.getEnvironmentBuilder(context, SyntheticBuildDefinition.class);
+    }
+}
@@ -0,0 +1,32 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildDefinitionCollector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Finds the given build definitions rather than discovering them, so that discovery is not measured along with
+ * the builds.
+ */
+public class FixedBuildDefinitionCollector extends BuildDefinitionCollector {
+
+    private final List<BuildDefinition> buildDefinitions;
+
+    public FixedBuildDefinitionCollector(Collection<? extends BuildDefinition> buildDefinitions) {
+        this.buildDefinitions = new ArrayList<>(buildDefinitions);
+    }
+
+    @Override
+    public Map<Class, Set<BuildDefinition>> findBuildDefinitions() {
+        Map<Class, Set<BuildDefinition>> found = new HashMap<>();
+        buildDefinitions.forEach(definition -> found.computeIfAbsent(definition.getClass(), clazz -> new TreeSet<>()).add(definition));
+        return found;
+    }
+}
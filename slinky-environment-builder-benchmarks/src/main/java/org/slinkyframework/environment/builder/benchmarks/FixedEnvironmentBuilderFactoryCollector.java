@@ -0,0 +1,25 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactoryCollector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds the given environment builder factories rather than discovering them.
+ */
+public class FixedEnvironmentBuilderFactoryCollector extends EnvironmentBuilderFactoryCollector {
+
+    private final List<EnvironmentBuilderFactory> factories;
+
+    public FixedEnvironmentBuilderFactoryCollector(EnvironmentBuilderFactory... factories) {
+        this.factories = Arrays.asList(factories);
+    }
+
+    @Override
+    public List<EnvironmentBuilderFactory> findEnvironmentBuilderFactories() {
+        return new ArrayList<>(factories);
+    }
+}
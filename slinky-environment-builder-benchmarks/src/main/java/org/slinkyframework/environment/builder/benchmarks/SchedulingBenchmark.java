@@ -0,0 +1,78 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.EnvironmentManagerImpl;
+import org.slinkyframework.environment.builder.scheduler.BuildDurations;
+import org.slinkyframework.environment.builder.scheduler.BuildPlan;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of planning and scheduling builds that do nothing, from a handful of build definitions to thousands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchedulingBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    private int definitions;
+
+    private final EnvironmentBuilderContext context = new EnvironmentBuilderContext("localhost", false);
+
+    private List<SyntheticBuildDefinition> buildDefinitions;
+    private BuildPlan plan;
+    private BuildScheduler buildScheduler;
+    private EnvironmentManager environmentManager;
+
+    @Setup
+    public void createDefinitions() {
+        buildDefinitions = SyntheticBuildDefinition.create(definitions);
+        plan = BuildPlan.create(buildDefinitions);
+        buildScheduler = new BuildScheduler(BuildScheduler.DEFAULT_MAX_PARALLEL_BUILDS, BuildDurations.inMemory());
+        environmentManager = new EnvironmentManagerImpl(new FixedBuildDefinitionCollector(buildDefinitions),
+                new FixedEnvironmentBuilderFactoryCollector(new SyntheticEnvironmentBuilderFactory()), buildScheduler);
+    }
+
+    @Benchmark
+    public BuildPlan createPlan() {
+        return BuildPlan.create(buildDefinitions);
+    }
+
+    @Benchmark
+    public BuildPlan reversePlan() {
+        return plan.reverse();
+    }
+
+    @Benchmark
+    public void executePlan() {
+        buildScheduler.execute(plan, definition -> { });
+    }
+
+    @Benchmark
+    public void setUp() {
+        environmentManager.setUp(context);
+    }
+
+    @Benchmark
+    public void tearDown() {
+        environmentManager.tearDown(context);
+    }
+}
@@ -0,0 +1,44 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.slinkyframework.environment.builder.definition.AbstractBuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * A build definition that builds nothing, used to measure the cost of the engine itself.
+ */
+public class SyntheticBuildDefinition extends AbstractBuildDefinition {
+
+    private static final BuildPriority[] PRIORITIES = {BuildPriority.HIGH, BuildPriority.NORMAL, BuildPriority.LOW};
+
+    public SyntheticBuildDefinition(BuildPriority priority, String name) {
+        super(priority, name);
+    }
+
+    /**
+     * Creates definitions spread across every priority, each depending on the definition created two before it in
+     * the same priority, so that plans have both independent definitions and chains of dependencies.
+     */
+    public static List<SyntheticBuildDefinition> create(int count) {
+        List<SyntheticBuildDefinition> definitions = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            SyntheticBuildDefinition definition = new SyntheticBuildDefinition(PRIORITIES[i % PRIORITIES.length], name(i));
+
+            int dependency = i - 2 * PRIORITIES.length;
+            if (dependency >= 0) {
+                definition.addDependency(name(dependency));
+            }
+            definitions.add(definition);
+        }
+        return definitions;
+    }
+
+    private static String name(int i) {
+        return format("Synthetic Build %05d", i);
+    }
+}
@@ -0,0 +1,23 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+
+import java.util.Set;
+
+/**
+ * An environment builder that does nothing, so that only the cost of orchestrating the builds is measured.
+ */
+public class SyntheticEnvironmentBuilder implements EnvironmentBuilder<SyntheticBuildDefinition> {
+
+    @Override
+    public void setUp(Set<SyntheticBuildDefinition> buildDefinitions) {
+    }
+
+    @Override
+    public void tearDown(Set<SyntheticBuildDefinition> buildDefinitions) {
+    }
+
+    @Override
+    public void cleanUp() {
+    }
+}
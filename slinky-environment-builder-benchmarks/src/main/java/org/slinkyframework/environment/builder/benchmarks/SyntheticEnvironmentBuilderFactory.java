@@ -0,0 +1,30 @@
+package org.slinkyframework.environment.builder.benchmarks;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SyntheticEnvironmentBuilderFactory implements EnvironmentBuilderFactory {
+
+    private final Class buildDefinitionClass;
+
+    public SyntheticEnvironmentBuilderFactory() {
+        this(SyntheticBuildDefinition.class);
+    }
+
+    public SyntheticEnvironmentBuilderFactory(Class buildDefinitionClass) {
+        this.buildDefinitionClass = buildDefinitionClass;
+    }
+
+    @Override
+    public boolean forClass(Class buildDefinitionClass) {
+        return this.buildDefinitionClass.equals(buildDefinitionClass);
+    }
+
+    @Override
+    public EnvironmentBuilder getInstance(EnvironmentBuilderContext environmentBuilderContext) {
+        return new SyntheticEnvironmentBuilder();
+    }
+}
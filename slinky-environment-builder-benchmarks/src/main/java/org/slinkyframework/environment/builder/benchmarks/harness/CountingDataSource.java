@@ -0,0 +1,75 @@
+package org.slinkyframework.environment.builder.benchmarks.harness;
+
+import org.slinkyframework.environment.builder.metrics.Counter;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Wraps a data source to count the round trips made to the database: each statement executed, each commit and
+ * rollback, and each query of the database meta data. Connections, statements and meta data obtained from it are
+ * wrapped in turn.
+ */
+public final class CountingDataSource implements InvocationHandler {
+
+    private static final Set<String> STATEMENT_ROUND_TRIPS = new HashSet<>(Arrays.asList(
+            "execute", "executeQuery", "executeUpdate", "executeBatch", "executeLargeUpdate", "executeLargeBatch"));
+    private static final Set<String> CONNECTION_ROUND_TRIPS = new HashSet<>(Arrays.asList("commit", "rollback"));
+
+    private final Object target;
+    private final Counter roundTrips;
+
+    private CountingDataSource(Object target, Counter roundTrips) {
+        this.target = target;
+        this.roundTrips = roundTrips;
+    }
+
+    public static DataSource wrap(DataSource dataSource, Counter roundTrips) {
+        return (DataSource) wrap(dataSource, DataSource.class, roundTrips);
+    }
+
+    private static Object wrap(Object target, Class<?> type, Counter roundTrips) {
+        return Proxy.newProxyInstance(CountingDataSource.class.getClassLoader(), new Class<?>[] {type}, new CountingDataSource(target, roundTrips));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (isRoundTrip(method)) {
+            roundTrips.increment();
+        }
+
+        Object result;
+        try {
+            result = method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+
+        Class<?> returnType = method.getReturnType();
+        if (result != null && (returnType == Connection.class || Statement.class.isAssignableFrom(returnType) || returnType == DatabaseMetaData.class)) {
+            return wrap(result, returnType, roundTrips);
+        }
+        return result;
+    }
+
+    private boolean isRoundTrip(Method method) {
+        if (target instanceof Statement) {
+            return STATEMENT_ROUND_TRIPS.contains(method.getName());
+        } else if (target instanceof Connection) {
+            return CONNECTION_ROUND_TRIPS.contains(method.getName());
+        } else if (target instanceof DatabaseMetaData) {
+            return method.getReturnType() == ResultSet.class;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,122 @@
+package org.slinkyframework.environment.builder.benchmarks.harness;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriver;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal.Entry;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Sets up and tears down an {@link EmbeddedDatabaseProperties embedded database} the way the Oracle driver does a
+ * real one, counting every round trip made to it.
+ */
+public class EmbeddedDatabaseDriver implements DatabaseDriver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EmbeddedDatabaseDriver.class);
+
+    public static final String ROUND_TRIPS_COUNTER = "jdbc.roundTrips";
+
+    private static final String EXISTING_SCHEMAS_SQL = "select SCHEMA_NAME from INFORMATION_SCHEMA.SCHEMATA";
+    private static final String TABLES_SQL = "select TABLE_NAME from INFORMATION_SCHEMA.TABLES where TABLE_SCHEMA = ?";
+    private static final String DATABASECHANGELOG_ENTRY_SQL = "delete from DATABASECHANGELOG where ID = ? and AUTHOR = ? and FILENAME = ?";
+
+    private final EmbeddedDatabaseProperties properties;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    public EmbeddedDatabaseDriver(EmbeddedDatabaseProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public void connect(String hostname) {
+        if (dataSource == null) {
+            DriverManagerDataSource driverManagerDataSource = new DriverManagerDataSource(properties.getUrl(), "sa", "");
+
+            dataSource = CountingDataSource.wrap(driverManagerDataSource, MetricsRegistry.global().counter(ROUND_TRIPS_COUNTER, MetricTags.NONE));
+            jdbcTemplate = new JdbcTemplate(dataSource);
+        }
+    }
+
+    @Override
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public void tearDown(String hostname) {
+        connect(hostname);
+
+        jdbcTemplate.execute("DROP ALL OBJECTS");
+    }
+
+    @Override
+    public void journalSetUp(String hostname, ProvisioningJournal journal) {
+        journal.start();
+        connect(hostname);
+
+        Set<String> existingSchemas = findExistingSchemas();
+        properties.getSchemas().stream()
+                .filter(schema -> !existingSchemas.contains(schema.toUpperCase()))
+                .forEach(schema -> journal.record(JOURNAL_USER, schema));
+    }
+
+    @Override
+    public void tearDown(String hostname, ProvisioningJournal journal) {
+        if (!journal.isStarted()) {
+            tearDown(hostname);
+            return;
+        }
+
+        connect(hostname);
+
+        List<Entry> changeSets = journal.getEntries(JOURNAL_CHANGE_SET);
+        jdbcTemplate.batchUpdate(DATABASECHANGELOG_ENTRY_SQL, changeSets.stream()
+                .map(entry -> entry.getValues().toArray())
+                .collect(Collectors.toList()));
+        journal.remove(changeSets);
+
+        journal.replayInReverse(entry -> {
+            if (JOURNAL_USER.equals(entry.getType())) {
+                dropSchema(entry.getTarget());
+            }
+        });
+    }
+
+    private void dropSchema(String schema) {
+        String name = schema.toUpperCase();
+
+        for (String table : jdbcTemplate.queryForList(TABLES_SQL, String.class, name)) {
+            jdbcTemplate.execute("DROP TABLE " + name + "." + table + " CASCADE");
+        }
+        jdbcTemplate.execute("DROP SCHEMA " + name);
+    }
+
+    @Override
+    public boolean isHealthy(String hostname) {
+        try {
+            connect(hostname);
+
+            Set<String> existingSchemas = findExistingSchemas();
+            return properties.getSchemas().stream().allMatch(schema -> existingSchemas.contains(schema.toUpperCase()));
+        } catch (DataAccessException e) {
+            LOG.debug("Database '{}' is not healthy", properties.getDatabase(), e);
+            return false;
+        }
+    }
+
+    private Set<String> findExistingSchemas() {
+        return new HashSet<>(jdbcTemplate.queryForList(EXISTING_SCHEMAS_SQL, String.class));
+    }
+}
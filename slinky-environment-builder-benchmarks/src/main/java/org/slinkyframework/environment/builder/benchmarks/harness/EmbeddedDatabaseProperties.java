@@ -0,0 +1,43 @@
+package org.slinkyframework.environment.builder.benchmarks.harness;
+
+import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriver;
+import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriverProvider;
+
+import java.util.List;
+
+import static java.lang.String.format;
+
+/**
+ * An in-memory H2 database standing in for an Oracle database. The schemas play the part of Oracle users.
+ */
+public class EmbeddedDatabaseProperties implements DatabaseDriverProvider {
+
+    private final String database;
+    private final List<String> schemas;
+
+    public EmbeddedDatabaseProperties(String database, List<String> schemas) {
+        this.database = database;
+        this.schemas = schemas;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public List<String> getSchemas() {
+        return schemas;
+    }
+
+    /**
+     * The database is kept until the JVM exits, rather than until its last connection is closed, so that it
+     * outlives each of the drivers that set it up and tear it down.
+     */
+    String getUrl() {
+        return format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", database);
+    }
+
+    @Override
+    public DatabaseDriver createDatabaseDriver(String changeLogPrefix) {
+        return new EmbeddedDatabaseDriver(this);
+    }
+}
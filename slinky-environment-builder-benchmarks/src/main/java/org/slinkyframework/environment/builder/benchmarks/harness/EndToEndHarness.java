@@ -0,0 +1,187 @@
+package org.slinkyframework.environment.builder.benchmarks.harness;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.EnvironmentManagerImpl;
+import org.slinkyframework.environment.builder.benchmarks.FixedBuildDefinitionCollector;
+import org.slinkyframework.environment.builder.benchmarks.FixedEnvironmentBuilderFactoryCollector;
+import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
+import org.slinkyframework.environment.builder.liquibase.docker.DockerLiquibaseEnvironmentBuilder;
+import org.slinkyframework.environment.builder.metrics.Counter;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.scheduler.BuildDurations;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.String.format;
+
+/**
+ * Sets up and tears down environments end to end through the {@link EnvironmentManagerImpl} without Oracle or
+ * Docker: the databases are in-memory H2 databases and the containers are run by an in-process
+ * {@link FakeDockerEngine}. For each {@link Scenario} the wall time of set up and tear down, the calls made to the
+ * Docker Engine API and the JDBC round trips are reported, so that scheduler and driver changes can be compared
+ * offline.
+ *
+ * The latencies of the fake Docker Engine and the number of databases can be set with system properties, e.g.
+ * <pre>
+ *     java -Dharness.definitions=16 -Dharness.pullMillis=5000 -cp benchmarks.jar \
+ *         org.slinkyframework.environment.builder.benchmarks.harness.EndToEndHarness
+ * </pre>
+ */
+public class EndToEndHarness {
+
+    private static final String CHANGE_LOG_FILE = "harness/harness.db.changelog-master.xml";
+    private static final String CHANGE_LOG_PREFIX = "harness-";
+    private static final String HOSTNAME = "localhost";
+
+    private final FakeDockerEngine.Latency latency;
+    private final PrintStream out;
+    private final Counter roundTrips = MetricsRegistry.global().counter(EmbeddedDatabaseDriver.ROUND_TRIPS_COUNTER, MetricTags.NONE);
+    private int runs;
+
+    public EndToEndHarness(FakeDockerEngine.Latency latency, PrintStream out) {
+        this.latency = latency;
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        int definitions = Integer.getInteger("harness.definitions", 8);
+        FakeDockerEngine.Latency latency = new FakeDockerEngine.Latency(
+                Long.getLong("harness.pullMillis", 3000),
+                Long.getLong("harness.createMillis", 100),
+                Long.getLong("harness.startMillis", 300),
+                Long.getLong("harness.portReadyMillis", 1500));
+
+        List<Scenario> scenarios = Arrays.asList(
+                Scenario.local(1, 1),
+                Scenario.local(definitions, 1),
+                Scenario.local(definitions, BuildScheduler.DEFAULT_MAX_PARALLEL_BUILDS),
+                Scenario.docker(definitions, BuildScheduler.DEFAULT_MAX_PARALLEL_BUILDS, false),
+                Scenario.docker(definitions, 1, true),
+                Scenario.docker(definitions, BuildScheduler.DEFAULT_MAX_PARALLEL_BUILDS, true));
+
+        new EndToEndHarness(latency, System.out).run(scenarios);
+
+        // The Docker clients leave their connection pools running
+        System.exit(0);
+    }
+
+    public List<Result> run(List<Scenario> scenarios) {
+        out.println("Fake Docker Engine latency: " + latency);
+
+        List<Result> results = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            results.add(run(scenario));
+        }
+
+        out.println();
+        out.println(format("%-52s %12s %12s %12s %12s", "Scenario", "Set up ms", "Tear down ms", "Docker calls", "JDBC trips"));
+        for (Result result : results) {
+            out.println(format("%-52s %12d %12d %12d %12d", result.scenario, result.setUpMillis, result.tearDownMillis,
+                    result.dockerCalls.values().stream().mapToLong(Long::longValue).sum(), result.jdbcRoundTrips));
+        }
+
+        for (Result result : results) {
+            if (!result.dockerCalls.isEmpty()) {
+                out.println();
+                out.println("Docker Engine API calls for " + result.scenario);
+                result.dockerCalls.forEach((endpoint, count) -> out.println(format("    %-36s %6d", endpoint, count)));
+            }
+        }
+        return results;
+    }
+
+    public Result run(Scenario scenario) {
+        runs++;
+
+        try (FakeDockerEngine dockerEngine = new FakeDockerEngine(latency)) {
+            if (scenario.isImageCached()) {
+                dockerEngine.addImage(DockerLiquibaseEnvironmentBuilder.ORACLE_XE_LATEST_IMAGE_NAME);
+            }
+
+            File journalDirectory = Files.createTempDirectory("slinky-harness").toFile();
+            EnvironmentManager environmentManager = new EnvironmentManagerImpl(
+                    new FixedBuildDefinitionCollector(createDefinitions(scenario)),
+                    new FixedEnvironmentBuilderFactoryCollector(new HarnessEnvironmentBuilderFactory(dockerEngine, journalDirectory)),
+                    new BuildScheduler(scenario.getMaxParallelBuilds(), BuildDurations.inMemory()));
+            EnvironmentBuilderContext context = new EnvironmentBuilderContext(HOSTNAME, scenario.isDocker());
+
+            long roundTripsBefore = roundTrips.getCount();
+
+            long start = System.nanoTime();
+            environmentManager.setUp(context);
+            long setUpNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            environmentManager.tearDown(context);
+            long tearDownNanos = System.nanoTime() - start;
+
+            return new Result(scenario, TimeUnit.NANOSECONDS.toMillis(setUpNanos), TimeUnit.NANOSECONDS.toMillis(tearDownNanos),
+                    dockerEngine.getCalls(), roundTrips.getCount() - roundTripsBefore);
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException("Unable to create a journal directory", e);
+        }
+    }
+
+    /**
+     * Each run has its own databases, as the in-memory databases of earlier runs are still there.
+     */
+    private List<LiquibaseBuildDefinition> createDefinitions(Scenario scenario) {
+        List<LiquibaseBuildDefinition> definitions = new ArrayList<>();
+
+        for (int i = 1; i <= scenario.getDefinitions(); i++) {
+            EmbeddedDatabaseProperties database = new EmbeddedDatabaseProperties(format("run%s_db%s", runs, i), Collections.singletonList("APP"));
+            definitions.add(new LiquibaseBuildDefinition("Database " + i, database, CHANGE_LOG_PREFIX, CHANGE_LOG_FILE));
+        }
+        return definitions;
+    }
+
+    public static class Result {
+
+        private final Scenario scenario;
+        private final long setUpMillis;
+        private final long tearDownMillis;
+        private final Map<String, Long> dockerCalls;
+        private final long jdbcRoundTrips;
+
+        Result(Scenario scenario, long setUpMillis, long tearDownMillis, Map<String, Long> dockerCalls, long jdbcRoundTrips) {
+            this.scenario = scenario;
+            this.setUpMillis = setUpMillis;
+            this.tearDownMillis = tearDownMillis;
+            this.dockerCalls = dockerCalls;
+            this.jdbcRoundTrips = jdbcRoundTrips;
+        }
+
+        public Scenario getScenario() {
+            return scenario;
+        }
+
+        public long getSetUpMillis() {
+            return setUpMillis;
+        }
+
+        public long getTearDownMillis() {
+            return tearDownMillis;
+        }
+
+        public Map<String, Long> getDockerCalls() {
+            return dockerCalls;
+        }
+
+        public long getJdbcRoundTrips() {
+            return jdbcRoundTrips;
+        }
+    }
+}
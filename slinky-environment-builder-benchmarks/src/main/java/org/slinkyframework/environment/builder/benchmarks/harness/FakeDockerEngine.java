@@ -0,0 +1,578 @@
+package org.slinkyframework.environment.builder.benchmarks.harness;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.String.format;
+
+/**
+ * An in-process stand-in for the Docker Engine API, serving just enough of it for {@code DefaultDockerClient} and
+ * the {@code DockerDriver}: ping, listing and pulling images, creating, starting, inspecting, listing, following
+ * the logs of, killing and removing containers, and streaming the events for them.
+ *
+ * Pulling, creating and starting take as long as configured. A started container only accepts connections on its
+ * published ports, and logs {@link #READY_LOG_LINE}, once its port readiness latency has passed, like a database
+ * still starting up inside it. Every
+ * call is counted by method and path, with container ids replaced by {@code {id}}.
+ */
+public class FakeDockerEngine implements AutoCloseable {
+
+    public static final String READY_LOG_LINE = "DATABASE IS READY TO USE!";
+
+    private static final Logger LOG = LoggerFactory.getLogger(FakeDockerEngine.class);
+
+    private static final Pattern API_VERSION = Pattern.compile("^/v[0-9.]+(/.*)$");
+    private static final Pattern CONTAINER_PATH = Pattern.compile("^/containers/([^/]+)(/[a-z]+)?$");
+    private static final String LATEST = "latest";
+
+    private final Latency latency;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Set<String> images = ConcurrentHashMap.newKeySet();
+    private final Map<String, FakeContainer> containers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> calls = new ConcurrentHashMap<>();
+    private final AtomicInteger containerCount = new AtomicInteger();
+    private final ExecutorService requestExecutor = Executors.newCachedThreadPool();
+    private final ScheduledExecutorService portExecutor = Executors.newSingleThreadScheduledExecutor();
+    private final List<OutputStream> eventSubscribers = new CopyOnWriteArrayList<>();
+    private final CountDownLatch closed = new CountDownLatch(1);
+    private final HttpServer server;
+
+    public FakeDockerEngine(Latency latency) {
+        this.latency = latency;
+
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException("Unable to start the fake Docker Engine", e);
+        }
+        server.createContext("/", this::handle);
+        server.setExecutor(requestExecutor);
+        server.start();
+    }
+
+    public URI getUri() {
+        return URI.create(format("http://%s:%s", server.getAddress().getHostString(), server.getAddress().getPort()));
+    }
+
+    /**
+     * Makes the image available without pulling it.
+     */
+    public void addImage(String imageName) {
+        images.add(withTag(imageName));
+    }
+
+    /**
+     * @return the number of calls made to each endpoint, e.g. {@code POST /containers/{id}/start}
+     */
+    public Map<String, Long> getCalls() {
+        Map<String, Long> counts = new TreeMap<>();
+        calls.forEach((endpoint, count) -> counts.put(endpoint, count.sum()));
+        return counts;
+    }
+
+    public long getTotalCalls() {
+        return calls.values().stream().mapToLong(LongAdder::sum).sum();
+    }
+
+    public void resetCalls() {
+        calls.clear();
+    }
+
+    @Override
+    public void close() {
+        closed.countDown();
+        server.stop(0);
+        requestExecutor.shutdownNow();
+        portExecutor.shutdownNow();
+        containers.values().forEach(FakeContainer::stop);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+
+            Matcher versioned = API_VERSION.matcher(path);
+            if (versioned.matches()) {
+                path = versioned.group(1);
+            }
+
+            byte[] body = readBody(exchange);
+            route(exchange, method, path, parseQuery(exchange.getRequestURI().getRawQuery()), body);
+        } catch (RuntimeException e) {
+            LOG.error("Fake Docker Engine failed to handle {} {}", exchange.getRequestMethod(), exchange.getRequestURI(), e);
+            send(exchange, 500, error(e.toString()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange, String method, String path, Map<String, String> query, byte[] body) throws IOException {
+        Matcher containerPath = CONTAINER_PATH.matcher(path);
+
+        if (containerPath.matches() && !"json".equals(containerPath.group(1)) && !"create".equals(containerPath.group(1))) {
+            String action = containerPath.group(2) == null ? "" : containerPath.group(2);
+            count(method, "/containers/{id}" + action);
+
+            FakeContainer container = findContainer(containerPath.group(1));
+            if (container == null) {
+                send(exchange, 404, error("No such container: " + containerPath.group(1)));
+            } else {
+                routeContainer(exchange, method, action, container, query);
+            }
+            return;
+        }
+
+        count(method, path);
+
+        switch (method + " " + path) {
+            case "GET /_ping":
+                sendText(exchange, 200, "OK");
+                break;
+            case "GET /version":
+                send(exchange, 200, mapper.createObjectNode().put("Version", "18.09.0").put("ApiVersion", "1.39"));
+                break;
+            case "GET /images/json":
+                send(exchange, 200, listImages());
+                break;
+            case "POST /images/create":
+                pullImage(exchange, query);
+                break;
+            case "GET /events":
+                streamEvents(exchange);
+                break;
+            case "GET /containers/json":
+                send(exchange, 200, listContainers());
+                break;
+            case "POST /containers/create":
+                createContainer(exchange, query, body);
+                break;
+            default:
+                send(exchange, 404, error("page not found"));
+        }
+    }
+
+    private void routeContainer(HttpExchange exchange, String method, String action, FakeContainer container, Map<String, String> query) throws IOException {
+        switch (method + " " + action) {
+            case "GET /json":
+                send(exchange, 200, inspect(container));
+                break;
+            case "POST /start":
+                sleep(latency.getStartMillis());
+                container.start();
+                publish("container", "start", container.id, container.image);
+                send(exchange, 204, null);
+                break;
+            case "GET /logs":
+                streamLogs(exchange, container);
+                break;
+            case "POST /kill":
+                container.stop();
+                publish("container", "kill", container.id, container.image);
+                send(exchange, 204, null);
+                break;
+            case "DELETE ":
+                if (container.running && !"1".equals(query.get("force")) && !"true".equals(query.get("force"))) {
+                    send(exchange, 409, error("You cannot remove a running container " + container.id));
+                } else {
+                    container.stop();
+                    containers.remove(container.id);
+                    publish("container", "destroy", container.id, container.image);
+                    send(exchange, 204, null);
+                }
+                break;
+            default:
+                send(exchange, 404, error("page not found"));
+        }
+    }
+
+    /**
+     * Writes the log in the multiplexed stream format, ending it once the container is ready or has stopped.
+     */
+    private void streamLogs(HttpExchange exchange, FakeContainer container) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/vnd.docker.raw-stream");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            writeLogLine(out, "Starting Oracle Database instance XE.");
+            try {
+                container.opened.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (container.running) {
+                writeLogLine(out, READY_LOG_LINE);
+            }
+        }
+    }
+
+    private static void writeLogLine(OutputStream out, String line) throws IOException {
+        byte[] content = (line + "\n").getBytes(StandardCharsets.UTF_8);
+        // Stream type stdout, three bytes of padding then the length of the frame
+        out.write(new byte[] { 1, 0, 0, 0 });
+        out.write(ByteBuffer.allocate(4).putInt(content.length).array());
+        out.write(content);
+        out.flush();
+    }
+
+    /**
+     * Streams events until the engine is closed.
+     */
+    private void streamEvents(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = exchange.getResponseBody();
+        eventSubscribers.add(out);
+        try {
+            closed.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            eventSubscribers.remove(out);
+            out.close();
+        }
+    }
+
+    private void publish(String type, String action, String id, String from) {
+        Instant now = Instant.now();
+        ObjectNode event = mapper.createObjectNode()
+                .put("status", action)
+                .put("id", id)
+                .put("from", from)
+                .put("Type", type)
+                .put("Action", action)
+                .put("time", now.getEpochSecond())
+                .put("timeNano", now.getEpochSecond() * 1000000000L + now.getNano());
+        event.putObject("Actor").put("ID", id).putObject("Attributes");
+
+        for (OutputStream out : eventSubscribers) {
+            try {
+                synchronized (out) {
+                    out.write(mapper.writeValueAsBytes(event));
+                    out.write('\n');
+                    out.flush();
+                }
+            } catch (IOException e) {
+                eventSubscribers.remove(out);
+            }
+        }
+    }
+
+    private ArrayNode listImages() {
+        ArrayNode list = mapper.createArrayNode();
+        for (String image : images) {
+            ObjectNode node = list.addObject()
+                    .put("Id", "sha256:" + Integer.toHexString(image.hashCode()))
+                    .put("ParentId", "")
+                    .put("Created", String.valueOf(Instant.now().getEpochSecond()))
+                    .put("Size", 0L)
+                    .put("VirtualSize", 0L);
+            node.putArray("RepoTags").add(image);
+        }
+        return list;
+    }
+
+    private void pullImage(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String image = query.get("fromImage");
+        String tag = query.get("tag");
+        String name = tag == null || tag.isEmpty() ? withTag(image) : image + ":" + tag;
+
+        sleep(latency.getPullMillis());
+        images.add(name);
+        publish("image", "pull", name, name);
+
+        sendText(exchange, 200, mapper.createObjectNode().put("status", "Pulling from " + image) + "\n"
+                + mapper.createObjectNode().put("status", "Status: Downloaded newer image for " + name) + "\n");
+    }
+
+    private ArrayNode listContainers() {
+        ArrayNode list = mapper.createArrayNode();
+        for (FakeContainer container : containers.values()) {
+            ObjectNode node = list.addObject()
+                    .put("Id", container.id)
+                    .put("Image", container.image)
+                    .put("ImageID", "sha256:" + Integer.toHexString(container.image.hashCode()))
+                    .put("Command", "")
+                    .put("Created", container.created.getEpochSecond())
+                    .put("State", container.running ? "running" : "exited")
+                    .put("Status", container.running ? "Up 1 second" : "Exited (137) 1 second ago");
+            node.putArray("Names").add("/" + container.name);
+            node.putArray("Ports");
+            node.putObject("Labels");
+        }
+        return list;
+    }
+
+    private void createContainer(HttpExchange exchange, Map<String, String> query, byte[] body) throws IOException {
+        JsonNode config = mapper.readTree(body);
+        String name = query.getOrDefault("name", "container-" + containerCount.get());
+        String image = withTag(config.path("Image").asText());
+
+        if (findContainer(name) != null) {
+            send(exchange, 409, error(format("Conflict. The container name \"/%s\" is already in use", name)));
+            return;
+        }
+        if (!images.contains(image)) {
+            send(exchange, 404, error("No such image: " + image));
+            return;
+        }
+
+        List<Integer> hostPorts = new ArrayList<>();
+        config.path("HostConfig").path("PortBindings").forEach(bindings ->
+                bindings.forEach(binding -> hostPorts.add(binding.path("HostPort").asInt())));
+
+        sleep(latency.getCreateMillis());
+
+        FakeContainer container = new FakeContainer(format("%064x", containerCount.incrementAndGet()), name, image, hostPorts);
+        containers.put(container.id, container);
+        publish("container", "create", container.id, container.image);
+
+        ObjectNode creation = mapper.createObjectNode().put("Id", container.id);
+        creation.putNull("Warnings");
+        send(exchange, 201, creation);
+    }
+
+    private ObjectNode inspect(FakeContainer container) {
+        ObjectNode info = mapper.createObjectNode()
+                .put("Id", container.id)
+                .put("Created", container.created.toString())
+                .put("Path", "/bin/sh")
+                .put("Image", "sha256:" + Integer.toHexString(container.image.hashCode()))
+                .put("ResolvConfPath", "")
+                .put("HostnamePath", "")
+                .put("HostsPath", "")
+                .put("LogPath", "")
+                .put("Name", "/" + container.name)
+                .put("Driver", "overlay2")
+                .put("ProcessLabel", "")
+                .put("MountLabel", "")
+                .put("AppArmorProfile", "")
+                .put("RestartCount", 0L);
+        info.putArray("Args");
+        info.putObject("Config").put("Image", container.image);
+        info.putObject("NetworkSettings");
+        info.putObject("State")
+                .put("Status", container.running ? "running" : "exited")
+                .put("Running", container.running)
+                .put("Paused", false)
+                .put("Restarting", false)
+                .put("Pid", container.running ? 1L : 0L)
+                .put("ExitCode", container.running ? 0L : 137L)
+                .put("StartedAt", container.created.toString())
+                .put("FinishedAt", "0001-01-01T00:00:00Z");
+        return info;
+    }
+
+    private FakeContainer findContainer(String idOrName) {
+        FakeContainer container = containers.get(idOrName);
+        if (container != null) {
+            return container;
+        }
+        return containers.values().stream()
+                .filter(candidate -> candidate.name.equals(idOrName) || candidate.id.startsWith(idOrName))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private void count(String method, String path) {
+        calls.computeIfAbsent(method + " " + path, endpoint -> new LongAdder()).increment();
+    }
+
+    private ObjectNode error(String message) {
+        return mapper.createObjectNode().put("message", message);
+    }
+
+    private void send(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            write(exchange, status, mapper.writeValueAsBytes(body));
+        }
+    }
+
+    private void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        write(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void write(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private byte[] readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+                body.write(buffer, 0, read);
+            }
+            return body.toByteArray();
+        }
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) throws IOException {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery != null) {
+            for (String parameter : rawQuery.split("&")) {
+                int equals = parameter.indexOf('=');
+                String name = equals < 0 ? parameter : parameter.substring(0, equals);
+                String value = equals < 0 ? "" : parameter.substring(equals + 1);
+                query.put(URLDecoder.decode(name, "UTF-8"), URLDecoder.decode(value, "UTF-8"));
+            }
+        }
+        return query;
+    }
+
+    private static String withTag(String image) {
+        int slash = image.lastIndexOf('/');
+        return image.indexOf(':', slash + 1) < 0 ? image + ":" + LATEST : image;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * How long the engine takes to do the slow parts of starting a container.
+     */
+    public static class Latency {
+
+        private final long pullMillis;
+        private final long createMillis;
+        private final long startMillis;
+        private final long portReadyMillis;
+
+        public Latency(long pullMillis, long createMillis, long startMillis, long portReadyMillis) {
+            this.pullMillis = pullMillis;
+            this.createMillis = createMillis;
+            this.startMillis = startMillis;
+            this.portReadyMillis = portReadyMillis;
+        }
+
+        public long getPullMillis() {
+            return pullMillis;
+        }
+
+        public long getCreateMillis() {
+            return createMillis;
+        }
+
+        public long getStartMillis() {
+            return startMillis;
+        }
+
+        public long getPortReadyMillis() {
+            return portReadyMillis;
+        }
+
+        @Override
+        public String toString() {
+            return format("pull %sms, create %sms, start %sms, port ready %sms", pullMillis, createMillis, startMillis, portReadyMillis);
+        }
+    }
+
+    private class FakeContainer {
+
+        private final String id;
+        private final String name;
+        private final String image;
+        private final List<Integer> hostPorts;
+        private final Instant created = Instant.now();
+        private final List<ServerSocket> listeners = new ArrayList<>();
+        // Counted down once the ports are open or the container has stopped
+        private final CountDownLatch opened = new CountDownLatch(1);
+        private volatile boolean running;
+
+        FakeContainer(String id, String name, String image, List<Integer> hostPorts) {
+            this.id = id;
+            this.name = name;
+            this.image = image;
+            this.hostPorts = hostPorts;
+        }
+
+        synchronized void start() {
+            running = true;
+            portExecutor.schedule(this::openPorts, latency.getPortReadyMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private synchronized void openPorts() {
+            if (!running) {
+                return;
+            }
+            for (int port : hostPorts) {
+                try {
+                    ServerSocket listener = new ServerSocket();
+                    listener.setReuseAddress(true);
+                    listener.bind(new InetSocketAddress(port));
+                    listeners.add(listener);
+                } catch (IOException e) {
+                    LOG.error("Container '{}' is unable to listen on port {}", name, port, e);
+                }
+            }
+            opened.countDown();
+        }
+
+        synchronized void stop() {
+            running = false;
+            opened.countDown();
+
+            Iterator<ServerSocket> iterator = listeners.iterator();
+            while (iterator.hasNext()) {
+                try {
+                    iterator.next().close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package org.slinkyframework.environment.builder.benchmarks.harness;
+
+import com.spotify.docker.client.DefaultDockerClient;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
+import org.slinkyframework.environment.builder.liquibase.docker.DockerLiquibaseEnvironmentBuilder;
+import org.slinkyframework.environment.builder.liquibase.local.LocalLiquibaseEnvironmentBuilder;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+import org.slinkyframework.environment.docker.DockerDriver;
+import org.slinkyframework.environment.docker.PortSelector;
+import org.slinkyframework.environment.docker.readiness.LogProbe;
+import org.slinkyframework.environment.docker.readiness.ReadinessProbe;
+import org.slinkyframework.environment.docker.readiness.TcpProbe;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Creates the same Liquibase environment builders as the {@code LiquibaseEnvironmentBuilderFactory}, but talking to
+ * the fake Docker Engine and keeping their journals in the given directory.
+ */
+public class HarnessEnvironmentBuilderFactory implements EnvironmentBuilderFactory {
+
+    private final FakeDockerEngine dockerEngine;
+    private final File journalDirectory;
+
+    public HarnessEnvironmentBuilderFactory(FakeDockerEngine dockerEngine, File journalDirectory) {
+        this.dockerEngine = dockerEngine;
+        this.journalDirectory = journalDirectory;
+    }
+
+    @Override
+    public boolean forClass(Class buildDefinitionClass) {
+        return buildDefinitionClass.equals(LiquibaseBuildDefinition.class);
+    }
+
+    @Override
+    public EnvironmentBuilder getInstance(EnvironmentBuilderContext environmentBuilderContext) {
+        LocalLiquibaseEnvironmentBuilder localLiquibaseEnvironmentBuilder
+                = new LocalLiquibaseEnvironmentBuilder(environmentBuilderContext.getTargetHost(), journalDirectory);
+
+        if (!environmentBuilderContext.isUseDocker()) {
+            return localLiquibaseEnvironmentBuilder;
+        }
+
+        Map<Integer, Integer> ports = new HashMap<>();
+        for (int port : DockerLiquibaseEnvironmentBuilder.ORACLE_XE_PORTS) {
+            ports.put(port, PortSelector.selectFreePort());
+        }
+
+        DockerDriver dockerDriver = new DockerDriver(DockerLiquibaseEnvironmentBuilder.CONTAINER_NAME,
+                DockerLiquibaseEnvironmentBuilder.ORACLE_XE_LATEST_IMAGE_NAME, ports, ProvisioningJournal.inMemory(),
+                DefaultDockerClient.builder().uri(dockerEngine.getUri()).build());
+        dockerDriver.setEnvironment(DockerLiquibaseEnvironmentBuilder.ORACLE_XE_ENVIRONMENT);
+        // The databases are in memory rather than in the container, so there is no database in it to query
+        dockerDriver.setReadinessProbe(ReadinessProbe.all(
+                new LogProbe(DockerLiquibaseEnvironmentBuilder.ORACLE_XE_READY_LOG_PATTERN),
+                new TcpProbe(DockerLiquibaseEnvironmentBuilder.ORACLE_XE_PORTS[0])),
+                DockerLiquibaseEnvironmentBuilder.ORACLE_XE_READY_TIMEOUT);
+
+        return new DockerLiquibaseEnvironmentBuilder(localLiquibaseEnvironmentBuilder, ports, dockerDriver);
+    }
+}
@@ -0,0 +1,52 @@
+package org.slinkyframework.environment.builder.benchmarks.harness;
+
+import static java.lang.String.format;
+
+/**
+ * One run of the {@link EndToEndHarness}: how many databases to set up, how many at a time, and whether in a
+ * Docker container, and if so whether its image has to be pulled first.
+ */
+public class Scenario {
+
+    private final int definitions;
+    private final int maxParallelBuilds;
+    private final boolean docker;
+    private final boolean imageCached;
+
+    public Scenario(int definitions, int maxParallelBuilds, boolean docker, boolean imageCached) {
+        this.definitions = definitions;
+        this.maxParallelBuilds = maxParallelBuilds;
+        this.docker = docker;
+        this.imageCached = imageCached;
+    }
+
+    public static Scenario local(int definitions, int maxParallelBuilds) {
+        return new Scenario(definitions, maxParallelBuilds, false, false);
+    }
+
+    public static Scenario docker(int definitions, int maxParallelBuilds, boolean imageCached) {
+        return new Scenario(definitions, maxParallelBuilds, true, imageCached);
+    }
+
+    public int getDefinitions() {
+        return definitions;
+    }
+
+    public int getMaxParallelBuilds() {
+        return maxParallelBuilds;
+    }
+
+    public boolean isDocker() {
+        return docker;
+    }
+
+    public boolean isImageCached() {
+        return imageCached;
+    }
+
+    @Override
+    public String toString() {
+        String where = docker ? (imageCached ? "docker, cached image" : "docker, pulled image") : "local";
+        return format("%s, %s database%s, %s at a time", where, definitions, definitions == 1 ? "" : "s", maxParallelBuilds);
+    }
+}
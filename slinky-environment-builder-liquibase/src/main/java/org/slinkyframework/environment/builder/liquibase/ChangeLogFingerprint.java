@@ -0,0 +1,136 @@
+package org.slinkyframework.environment.builder.liquibase;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.state.Fingerprint;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Adds the content of a Liquibase change log, and of every change log it includes, to a fingerprint so that
+ * editing any change set changes the fingerprint.
+ *
+ * Includes are followed for XML change logs. A directory referenced by <code>includeAll</code> is only listed when
+ * it is on the file system; otherwise just its path is added.
+ */
+class ChangeLogFingerprint {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ChangeLogFingerprint.class);
+
+    private static final Pattern INCLUDE = Pattern.compile("<include\\s[^>]*?file\\s*=\\s*\"([^\"]+)\"[^>]*>");
+    private static final Pattern INCLUDE_ALL = Pattern.compile("<includeAll\\s[^>]*?path\\s*=\\s*\"([^\"]+)\"[^>]*>");
+    private static final Pattern RELATIVE = Pattern.compile("relativeToChangelogFile\\s*=\\s*\"true\"");
+
+    private final ClassLoader classLoader;
+    private final Fingerprint fingerprint;
+    private final Set<String> visited = new HashSet<>();
+
+    ChangeLogFingerprint(ClassLoader classLoader, Fingerprint fingerprint) {
+        this.classLoader = classLoader;
+        this.fingerprint = fingerprint;
+    }
+
+    void addChangeLog(String changeLogFile) {
+        String path = normalise(changeLogFile);
+
+        if (!visited.add(path)) {
+            return;
+        }
+
+        URL resource = classLoader.getResource(path);
+        if (resource == null) {
+            LOGGER.debug("Change log '{}' not found on the classpath", path);
+            fingerprint.add("missing:" + path);
+            return;
+        }
+
+        String content = read(resource);
+        fingerprint.add(path).add(content);
+
+        addIncludes(path, content);
+        addIncludeAlls(path, content);
+    }
+
+    private void addIncludes(String path, String content) {
+        Matcher matcher = INCLUDE.matcher(content);
+        while (matcher.find()) {
+            addChangeLog(resolve(path, matcher.group(1), RELATIVE.matcher(matcher.group()).find()));
+        }
+    }
+
+    private void addIncludeAlls(String path, String content) {
+        Matcher matcher = INCLUDE_ALL.matcher(content);
+        while (matcher.find()) {
+            String directory = resolve(path, matcher.group(1), RELATIVE.matcher(matcher.group()).find());
+            URL resource = classLoader.getResource(normalise(directory));
+
+            File[] files = toDirectory(resource).listFiles(File::isFile);
+            if (files == null) {
+                fingerprint.add("includeAll:" + directory);
+            } else {
+                Arrays.sort(files);
+                for (File file : files) {
+                    addChangeLog(normalise(directory) + "/" + file.getName());
+                }
+            }
+        }
+    }
+
+    private File toDirectory(URL resource) {
+        if (resource != null && "file".equals(resource.getProtocol())) {
+            try {
+                return new File(resource.toURI());
+            } catch (URISyntaxException e) {
+                LOGGER.debug("Unable to list {}", resource, e);
+            }
+        }
+        return new File("");
+    }
+
+    private String resolve(String changeLogPath, String file, boolean relativeToChangeLog) {
+        if (relativeToChangeLog && changeLogPath.contains("/")) {
+            return changeLogPath.substring(0, changeLogPath.lastIndexOf('/') + 1) + file;
+        }
+        return file;
+    }
+
+    private String normalise(String path) {
+        String normalised = path.replace('\\', '/');
+        if (normalised.startsWith("classpath:")) {
+            normalised = normalised.substring("classpath:".length());
+        }
+        while (normalised.startsWith("/")) {
+            normalised = normalised.substring(1);
+        }
+        while (normalised.endsWith("/")) {
+            normalised = normalised.substring(0, normalised.length() - 1);
+        }
+        return normalised;
+    }
+
+    private String read(URL resource) {
+        try (InputStream in = resource.openStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException("Unable to read change log " + resource, e);
+        }
+    }
+}
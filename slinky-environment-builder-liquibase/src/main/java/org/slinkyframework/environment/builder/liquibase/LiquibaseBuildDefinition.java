@@ -3,9 +3,13 @@ package org.slinkyframework.environment.builder.liquibase;
 import org.slinkyframework.environment.builder.definition.AbstractBuildDefinition;
 import org.slinkyframework.environment.builder.definition.BuildPriority;
 import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseProperties;
+import org.slinkyframework.environment.builder.state.Fingerprint;
+import org.springframework.util.ClassUtils;
 
 public class LiquibaseBuildDefinition extends AbstractBuildDefinition {
 
+    private static final long serialVersionUID = 1L;
+
     private final DatabaseProperties databaseProperties;
     private final String changeLogPrefix;
     private final String changeLogFile;
@@ -38,4 +42,17 @@ public class LiquibaseBuildDefinition extends AbstractBuildDefinition {
     public String getChangeLogFile() {
         return changeLogFile;
     }
+
+    /**
+     * Includes the content of the change log and every change log it includes, as well as the fields of the
+     * definition.
+     */
+    @Override
+    public String getFingerprint() {
+        Fingerprint fingerprint = Fingerprint.create().add(super.getFingerprint());
+
+        new ChangeLogFingerprint(ClassUtils.getDefaultClassLoader(), fingerprint).addChangeLog(changeLogFile);
+
+        return fingerprint.toHex();
+    }
 }
@@ -3,14 +3,20 @@ package org.slinkyframework.environment.builder.liquibase;
 import org.apache.commons.lang3.NotImplementedException;
 import org.slinkyframework.environment.builder.EnvironmentBuilder;
 import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.Namespace;
 import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
 import org.slinkyframework.environment.builder.liquibase.docker.DockerLiquibaseEnvironmentBuilder;
 import org.slinkyframework.environment.builder.liquibase.local.LocalLiquibaseEnvironmentBuilder;
 import org.springframework.stereotype.Component;
 
+import java.util.Collections;
+import java.util.Map;
+
 @Component
 public class LiquibaseEnvironmentBuilderFactory implements EnvironmentBuilderFactory {
 
+    private static final long ONE_MB = 1024 * 1024;
+
     @Override
     public boolean forClass(Class buildDefinitionClass) {
         return buildDefinitionClass.equals(LiquibaseBuildDefinition.class);
@@ -18,13 +24,19 @@ public class LiquibaseEnvironmentBuilderFactory implements EnvironmentBuilderFac
 
     @Override
     public EnvironmentBuilder getInstance(EnvironmentBuilderContext environmentBuilderContext) {
-        LocalLiquibaseEnvironmentBuilder localLiquibaseEnvironmentBuilder
-                = new LocalLiquibaseEnvironmentBuilder(environmentBuilderContext.getTargetHost());
+        Namespace namespace = environmentBuilderContext.getNamespace();
 
         if (environmentBuilderContext.isUseDocker()) {
-            return new DockerLiquibaseEnvironmentBuilder(localLiquibaseEnvironmentBuilder);
+            Map<Integer, Integer> ports = DockerLiquibaseEnvironmentBuilder.selectPorts(namespace);
+
+            LocalLiquibaseEnvironmentBuilder localLiquibaseEnvironmentBuilder
+                    = new LocalLiquibaseEnvironmentBuilder(environmentBuilderContext.getTargetHost(), namespace, ports);
+            DockerLiquibaseEnvironmentBuilder dockerLiquibaseEnvironmentBuilder = new DockerLiquibaseEnvironmentBuilder(
+                    localLiquibaseEnvironmentBuilder, namespace, ports, environmentBuilderContext.isReuseContainers());
+            dockerLiquibaseEnvironmentBuilder.setImageCacheBudget(environmentBuilderContext.getImageCacheBudget() * ONE_MB);
+            return dockerLiquibaseEnvironmentBuilder;
         } else {
-            return localLiquibaseEnvironmentBuilder;
+            return new LocalLiquibaseEnvironmentBuilder(environmentBuilderContext.getTargetHost(), namespace, Collections.emptyMap());
         }
     }
 }
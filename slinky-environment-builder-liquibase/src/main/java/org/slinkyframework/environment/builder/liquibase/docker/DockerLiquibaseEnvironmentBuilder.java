@@ -1,18 +1,30 @@
 package org.slinkyframework.environment.builder.liquibase.docker;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.Namespace;
 import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
 import org.slinkyframework.environment.builder.liquibase.local.LocalLiquibaseEnvironmentBuilder;
 import org.slinkyframework.environment.docker.DockerDriver;
 import org.slinkyframework.environment.docker.PortSelector;
+import org.slinkyframework.environment.docker.readiness.JdbcProbe;
+import org.slinkyframework.environment.docker.readiness.LogProbe;
+import org.slinkyframework.environment.docker.readiness.ReadinessProbe;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
 /**
- * Creates and starts an Oracle XE Docker container.
- * It then kills and removes the container when environment torn down.
+ * Creates and starts an Oracle XE Docker container, shared by all of the build definitions set up by this builder.
+ * It then kills and removes the container when environment torn down, or when reusing containers, drops the
+ * databases instead.
+ *
+ * Set up starts from a cached image when there is one, see {@link OracleXeContainer}, and starts again from the
+ * Oracle XE image should the change logs fail to apply to it.
  *
  * NOTE: Assumes the standard Docker Machine environment variables are set:
  *         DOCKER_TLS_VERIFY, DOCKER_HOST, DOCKER_CERT_PATH and DOCKER_MACHINE_NAME
@@ -24,35 +36,187 @@ public class DockerLiquibaseEnvironmentBuilder implements EnvironmentBuilder<Liq
     //public static final String ORACLE_XE_LATEST_IMAGE_NAME = "alexeiled/docker-oracle-xe-11g";
     public static final String ORACLE_XE_LATEST_IMAGE_NAME = "docker-pull-tfc.g.sicloud.atos.net/atosorigin/gvenzl/oracle-xe:18-slim";
     public  static final int[] ORACLE_XE_PORTS = { 1521 };
+    // The image sets the password of SYS and SYSTEM from the environment
+    public static final String ORACLE_XE_PASSWORD_VARIABLE = "ORACLE_PASSWORD";
+    public static final Map<String, String> ORACLE_XE_ENVIRONMENT = Collections.singletonMap(ORACLE_XE_PASSWORD_VARIABLE, "oracle");
+    public static final String ORACLE_XE_ADMIN_USER = "system";
+    // The listener accepts connections before the database is open, so wait for the image to say it is ready
+    public static final String ORACLE_XE_READY_LOG_PATTERN = "DATABASE IS READY TO USE";
+    public static final String ORACLE_XE_URL_FORMAT = "jdbc:oracle:thin:@%s:%s/XEPDB1";
+    public static final long ORACLE_XE_READY_TIMEOUT = 300000;
+    public static final String IMAGE_CACHE_REPOSITORY = "slinky-cache/" + CONTAINER_NAME;
+
+    private static final Logger LOG = LoggerFactory.getLogger(DockerLiquibaseEnvironmentBuilder.class);
 
     private final LocalLiquibaseEnvironmentBuilder localEnvironmentBuilder;
+    private final Namespace namespace;
     private final Map<Integer, Integer> internalToExternalPortsMap = new HashMap<>();
     private final DockerDriver dockerDriver;
+    private final OracleXeContainer container;
 
     public DockerLiquibaseEnvironmentBuilder(LocalLiquibaseEnvironmentBuilder localEnvironmentBuilder) {
+        this(localEnvironmentBuilder, Namespace.NONE, selectPorts(Namespace.NONE));
+    }
+
+    /**
+     * @param localEnvironmentBuilder sets up the databases in the container, so should connect to the ports given
+     * @param internalToExternalPortsMap the ports the container publishes, see {@link #selectPorts(Namespace)}
+     */
+    public DockerLiquibaseEnvironmentBuilder(LocalLiquibaseEnvironmentBuilder localEnvironmentBuilder, Namespace namespace,
+                                             Map<Integer, Integer> internalToExternalPortsMap) {
+        this(localEnvironmentBuilder, namespace, internalToExternalPortsMap, false);
+    }
+
+    /**
+     * @param reuseContainer whether to keep the container between builds, resetting the databases instead
+     */
+    public DockerLiquibaseEnvironmentBuilder(LocalLiquibaseEnvironmentBuilder localEnvironmentBuilder, Namespace namespace,
+                                             Map<Integer, Integer> internalToExternalPortsMap, boolean reuseContainer) {
+        this(localEnvironmentBuilder, namespace, internalToExternalPortsMap,
+                oracleXeDriver(namespace, internalToExternalPortsMap, reuseContainer));
+    }
+
+    /**
+     * Used for testing
+     */
+    public DockerLiquibaseEnvironmentBuilder(LocalLiquibaseEnvironmentBuilder localEnvironmentBuilder, Map<Integer, Integer> internalToExternalPortsMap,
+                                             DockerDriver dockerDriver) {
+        this(localEnvironmentBuilder, Namespace.NONE, internalToExternalPortsMap, dockerDriver);
+    }
+
+    private DockerLiquibaseEnvironmentBuilder(LocalLiquibaseEnvironmentBuilder localEnvironmentBuilder, Namespace namespace,
+                                              Map<Integer, Integer> internalToExternalPortsMap, DockerDriver dockerDriver) {
         this.localEnvironmentBuilder = localEnvironmentBuilder;
+        this.namespace = namespace;
+        this.internalToExternalPortsMap.putAll(internalToExternalPortsMap);
+        this.dockerDriver = dockerDriver;
+        this.container = new OracleXeContainer(dockerDriver, namespace);
+    }
+
+    private static DockerDriver oracleXeDriver(Namespace namespace, Map<Integer, Integer> internalToExternalPortsMap, boolean reuseContainer) {
+        Map<String, String> labels = namespace.isNone()
+                ? Collections.emptyMap()
+                : Collections.singletonMap(DockerDriver.LABEL_NAMESPACE, namespace.getName());
+
+        DockerDriver dockerDriver = new DockerDriver(namespace.qualify(CONTAINER_NAME), ORACLE_XE_LATEST_IMAGE_NAME, internalToExternalPortsMap, labels);
+        dockerDriver.setEnvironment(ORACLE_XE_ENVIRONMENT);
+        dockerDriver.setReadinessProbe(oracleXeReady(), ORACLE_XE_READY_TIMEOUT);
+        dockerDriver.setReuseContainer(reuseContainer);
+        return dockerDriver;
+    }
+
+    /**
+     * Selects the ports for the container to publish. Containers in a namespace publish free ports, unless set by
+     * environment variable, so that they do not clash with those of concurrent builds.
+     */
+    public static Map<Integer, Integer> selectPorts(Namespace namespace) {
+        Map<Integer, Integer> internalToExternalPortsMap = new HashMap<>();
 
         for (int port: ORACLE_XE_PORTS) {
-            internalToExternalPortsMap.put(port, PortSelector.selectPort(port));
+            internalToExternalPortsMap.put(port, PortSelector.selectPort(port, !namespace.isNone()));
         }
+        return internalToExternalPortsMap;
+    }
 
-        dockerDriver = new DockerDriver(CONTAINER_NAME, ORACLE_XE_LATEST_IMAGE_NAME, internalToExternalPortsMap);
+    /**
+     * The database is ready for Liquibase once the image says so and the pluggable database answers a query.
+     */
+    public static ReadinessProbe oracleXeReady() {
+        return ReadinessProbe.all(
+                new LogProbe(ORACLE_XE_READY_LOG_PATTERN),
+                new JdbcProbe(ORACLE_XE_PORTS[0], ORACLE_XE_URL_FORMAT,
+                        ORACLE_XE_ADMIN_USER, ORACLE_XE_ENVIRONMENT.get(ORACLE_XE_PASSWORD_VARIABLE), "SELECT 1 FROM DUAL"));
+    }
+
+    /**
+     * Sets the disk space the images committed from the container may take up, 0 to not cache images. Images are
+     * only cached when the builder has been prepared, as only then are all of the build definitions known.
+     */
+    public void setImageCacheBudget(long budgetBytes) {
+        container.setImageCacheBudget(budgetBytes);
     }
 
     public Map<Integer, Integer> getInternalToExternalPortsMap() {
         return internalToExternalPortsMap;
     }
 
+    @Override
+    public void prefetch(Set<LiquibaseBuildDefinition> buildDefinitions) {
+        dockerDriver.prefetchImage();
+    }
+
+    /**
+     * Pulls the image and starts the container, leaving the databases to be set up later.
+     */
+    @Override
+    public void prepare(Set<LiquibaseBuildDefinition> buildDefinitions) {
+        container.prepareFor(buildDefinitions);
+        container.start();
+    }
+
     @Override
     public void setUp(Set<LiquibaseBuildDefinition> buildDefinitions) {
-        dockerDriver.setUpDocker();
+        int generation = container.start();
 
-        localEnvironmentBuilder.setUp(buildDefinitions);
+        if (dockerDriver.isContainerReused()) {
+            // Drop whatever an earlier build left in the container
+            localEnvironmentBuilder.tearDown(buildDefinitions);
+        }
+
+        try {
+            localEnvironmentBuilder.setUp(buildDefinitions);
+        } catch (EnvironmentBuilderException e) {
+            if (!container.isStartedFromCachedImage()) {
+                throw e;
+            }
+            LOG.warn("Unable to set up the databases in cached image '{}', so starting again from '{}'",
+                    dockerDriver.getImageName(), ORACLE_XE_LATEST_IMAGE_NAME, e);
+
+            Set<LiquibaseBuildDefinition> toSetUp = container.startAgainFromOracleXeImage(generation, buildDefinitions);
+            localEnvironmentBuilder.discardJournals(toSetUp);
+            localEnvironmentBuilder.setUp(toSetUp);
+        }
+        container.setUp(buildDefinitions);
     }
 
+    /**
+     * Only the container is locked, so that the databases of the build definitions are dropped at the same time.
+     */
     @Override
     public void tearDown(Set<LiquibaseBuildDefinition> buildDefinitions) {
-        dockerDriver.killAndRemoveContainer();
+        if (dockerDriver.isReuseContainer() && !container.isRemoved() && dockerDriver.isContainerRunning()) {
+            try {
+                localEnvironmentBuilder.tearDown(buildDefinitions);
+                container.stop();
+                return;
+            } catch (EnvironmentBuilderException e) {
+                LOG.warn("Unable to reset the databases in the container, so removing it", e);
+            }
+        }
+
+        container.remove();
+        // The databases went with the container
+        localEnvironmentBuilder.discardJournals(buildDefinitions);
+    }
+
+    @Override
+    public String getFingerprint() {
+        // Free ports differ from one build to the next, so only the ports inside the container count for namespaces
+        Object ports = namespace.isNone() ? internalToExternalPortsMap : internalToExternalPortsMap.keySet();
+        return namespace.qualify(CONTAINER_NAME) + ":" + ORACLE_XE_LATEST_IMAGE_NAME + ":" + ports;
+    }
+
+    @Override
+    public boolean isHealthy(Set<LiquibaseBuildDefinition> buildDefinitions) {
+        return dockerDriver.isContainerRunning() && localEnvironmentBuilder.isHealthy(buildDefinitions);
+    }
+
+    /**
+     * All of the build definitions share one container, which is removed when any of them is torn down.
+     */
+    @Override
+    public boolean isSharedEnvironment() {
+        return true;
     }
 
     @Override
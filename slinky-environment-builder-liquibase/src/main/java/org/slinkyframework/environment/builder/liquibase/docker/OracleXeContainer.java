@@ -0,0 +1,181 @@
+package org.slinkyframework.environment.builder.liquibase.docker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.Namespace;
+import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
+import org.slinkyframework.environment.builder.state.Fingerprint;
+import org.slinkyframework.environment.docker.DockerDriver;
+import org.slinkyframework.environment.docker.DockerImageCache;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import static org.slinkyframework.environment.builder.liquibase.docker.DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY;
+import static org.slinkyframework.environment.builder.liquibase.docker.DockerLiquibaseEnvironmentBuilder.ORACLE_XE_LATEST_IMAGE_NAME;
+
+/**
+ * The Oracle XE container shared by the build definitions of a {@link DockerLiquibaseEnvironmentBuilder}, and the
+ * image it is started from.
+ *
+ * With an image cache budget, the container starts from the image cached for the prepared build definitions, or else
+ * from the one cached for the same definitions most recently, and is committed once every one of them is set up.
+ */
+class OracleXeContainer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OracleXeContainer.class);
+
+    private enum State { STOPPED, STARTED, REMOVED }
+
+    private final DockerDriver dockerDriver;
+    private final Namespace namespace;
+    private long imageCacheBudget;
+    private Set<LiquibaseBuildDefinition> preparedDefinitions = Collections.emptySet();
+    private final Set<LiquibaseBuildDefinition> definitionsSetUp = new LinkedHashSet<>();
+    private State state = State.STOPPED;
+    // Counts the containers started, so that only one of the definitions failing in a cached image starts again
+    private int generation;
+    // Null unless the container is to be cached
+    private String imageCacheKey;
+    private String imageCacheLineage;
+    private boolean imageCached;
+
+    OracleXeContainer(DockerDriver dockerDriver, Namespace namespace) {
+        this.dockerDriver = dockerDriver;
+        this.namespace = namespace;
+    }
+
+    synchronized void setImageCacheBudget(long budgetBytes) {
+        this.imageCacheBudget = budgetBytes;
+    }
+
+    synchronized void prepareFor(Set<LiquibaseBuildDefinition> buildDefinitions) {
+        preparedDefinitions = new HashSet<>(buildDefinitions);
+    }
+
+    /**
+     * @return the generation of the container, started unless it already was
+     */
+    synchronized int start() {
+        if (state != State.STARTED) {
+            selectImage();
+            dockerDriver.setUpDocker();
+            generation++;
+            definitionsSetUp.clear();
+            state = State.STARTED;
+        }
+        return generation;
+    }
+
+    private void selectImage() {
+        imageCacheKey = null;
+
+        if (imageCacheBudget <= 0 || preparedDefinitions.isEmpty()) {
+            return;
+        }
+
+        String key = imageCacheKey(true);
+        String lineage = imageCacheKey(false);
+        try {
+            String image = dockerDriver.getImageCache().find(IMAGE_CACHE_REPOSITORY, key, lineage).orElse(ORACLE_XE_LATEST_IMAGE_NAME);
+
+            dockerDriver.setImageName(image);
+            imageCacheKey = key;
+            imageCacheLineage = lineage;
+            imageCached = image.equals(IMAGE_CACHE_REPOSITORY + ":" + key);
+        } catch (EnvironmentBuilderException e) {
+            LOG.warn("Unable to look for a cached image, so starting from '{}'", ORACLE_XE_LATEST_IMAGE_NAME, e);
+            dockerDriver.setImageName(ORACLE_XE_LATEST_IMAGE_NAME);
+        }
+    }
+
+    /**
+     * @param content whether the hash covers the change logs, or just which build definitions were set up
+     */
+    private String imageCacheKey(boolean content) {
+        Fingerprint fingerprint = Fingerprint.create()
+                .add(ORACLE_XE_LATEST_IMAGE_NAME)
+                .add(namespace.getName());
+
+        preparedDefinitions.stream()
+                .sorted(Comparator.comparing(LiquibaseBuildDefinition::getName))
+                .forEach(definition -> {
+                    fingerprint.add(definition.getName());
+                    if (content) {
+                        fingerprint.add(definition.getFingerprint());
+                    }
+                });
+        return fingerprint.toHex();
+    }
+
+    synchronized boolean isStartedFromCachedImage() {
+        return imageCacheKey != null && !ORACLE_XE_LATEST_IMAGE_NAME.equals(dockerDriver.getImageName());
+    }
+
+    /**
+     * Replaces the container of the given generation with one started from the Oracle XE image, unless another build
+     * definition has already done so.
+     *
+     * @return the build definitions to set up again, whose databases went with the container replaced
+     */
+    synchronized Set<LiquibaseBuildDefinition> startAgainFromOracleXeImage(int generation, Set<LiquibaseBuildDefinition> buildDefinitions) {
+        Set<LiquibaseBuildDefinition> toSetUp = new LinkedHashSet<>();
+
+        if (generation == this.generation) {
+            dockerDriver.killAndRemoveContainer();
+            toSetUp.addAll(definitionsSetUp);
+
+            dockerDriver.setImageName(ORACLE_XE_LATEST_IMAGE_NAME);
+            dockerDriver.setUpDocker();
+            this.generation++;
+            imageCached = false;
+        }
+
+        toSetUp.addAll(buildDefinitions);
+        return toSetUp;
+    }
+
+    /**
+     * Caches the container as an image once every prepared build definition has been set up in it.
+     */
+    synchronized void setUp(Set<LiquibaseBuildDefinition> buildDefinitions) {
+        definitionsSetUp.addAll(buildDefinitions);
+
+        if (imageCacheKey == null || imageCached || !definitionsSetUp.containsAll(preparedDefinitions)) {
+            return;
+        }
+        imageCached = true;
+
+        try {
+            DockerImageCache imageCache = dockerDriver.getImageCache();
+            String image = imageCache.commit(dockerDriver.getContainerId(), IMAGE_CACHE_REPOSITORY, imageCacheKey, imageCacheLineage);
+            imageCache.evict(imageCacheBudget, image);
+        } catch (EnvironmentBuilderException e) {
+            LOG.warn("Unable to cache the container as an image", e);
+        }
+    }
+
+    synchronized boolean isRemoved() {
+        return state == State.REMOVED;
+    }
+
+    /**
+     * Leaves the container running to be started again by the next set up.
+     */
+    synchronized void stop() {
+        if (state == State.STARTED) {
+            state = State.STOPPED;
+        }
+    }
+
+    synchronized void remove() {
+        if (state != State.REMOVED) {
+            dockerDriver.killAndRemoveContainer();
+            state = State.REMOVED;
+        }
+    }
+}
@@ -1,9 +1,44 @@
 package org.slinkyframework.environment.builder.liquibase.drivers;
 
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+
 import javax.sql.DataSource;
 
-public interface DatabaseDriver {
+/**
+ * Closing the driver closes the connections it holds, so drivers are used with try-with-resources.
+ */
+public interface DatabaseDriver extends AutoCloseable {
+
+    String JOURNAL_USER = "user";
+    String JOURNAL_TABLESPACE = "tablespace";
+    String JOURNAL_CHANGE_SET = "changeSet";
+
+    String CHANGE_LOG_TABLE = "DATABASECHANGELOG";
+    String CHANGE_LOG_LOCK_TABLE = "DATABASECHANGELOGLOCK";
+
     void connect(String hostname);
     void tearDown(String hostname);
     DataSource getDataSource();
+
+    /**
+     * Starts the journal and records in it the users and tablespaces that set up is about to create, i.e. those
+     * configured that do not exist yet. Called before the change log is applied so that a failed set up is still
+     * recorded.
+     */
+    void journalSetUp(String hostname, ProvisioningJournal journal);
+
+    /**
+     * Removes exactly what the journal records, newest first. Falls back to {@link #tearDown(String)} only when no
+     * journal was kept, e.g. when the environment was set up by an earlier version.
+     */
+    void tearDown(String hostname, ProvisioningJournal journal);
+
+    /**
+     * @return true if the database can be reached and everything set up for the build definition is in place
+     */
+    boolean isHealthy(String hostname);
+
+    @Override
+    default void close() {
+    }
 }
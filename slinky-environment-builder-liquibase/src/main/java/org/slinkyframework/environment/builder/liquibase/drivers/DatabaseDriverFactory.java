@@ -1,21 +1,35 @@
 package org.slinkyframework.environment.builder.liquibase.drivers;
 
 import org.apache.commons.lang3.NotImplementedException;
+import org.slinkyframework.environment.builder.Namespace;
 import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
 import org.slinkyframework.environment.builder.liquibase.drivers.oracle.OracleProperties;
 import org.slinkyframework.environment.builder.liquibase.drivers.oracle.OracleDatabaseDriver;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class DatabaseDriverFactory {
 
     private DatabaseDriverFactory() {
     }
 
     public static DatabaseDriver getInstance(LiquibaseBuildDefinition liquibaseBuildDefinition) {
+        return getInstance(liquibaseBuildDefinition, Namespace.NONE, Collections.emptyMap());
+    }
+
+    /**
+     * @param namespace qualifies the users, tablespaces and change log tables the driver creates and drops
+     * @param ports maps the configured database port to the port to connect to, e.g. the port published by a container
+     */
+    public static DatabaseDriver getInstance(LiquibaseBuildDefinition liquibaseBuildDefinition, Namespace namespace, Map<Integer, Integer> ports) {
 
         DatabaseProperties databaseProperties = liquibaseBuildDefinition.getDatabaseProperties();
 
         if (databaseProperties instanceof OracleProperties) {
-            return new OracleDatabaseDriver((OracleProperties) databaseProperties, liquibaseBuildDefinition.getChangeLogPrefix());
+            return new OracleDatabaseDriver((OracleProperties) databaseProperties, liquibaseBuildDefinition.getChangeLogPrefix(), namespace, ports);
+        } else if (databaseProperties instanceof DatabaseDriverProvider) {
+            return ((DatabaseDriverProvider) databaseProperties).createDatabaseDriver(liquibaseBuildDefinition.getChangeLogPrefix());
         } else {
             throw new NotImplementedException("Database properties not yet implmented: " + liquibaseBuildDefinition.getClass());
         }
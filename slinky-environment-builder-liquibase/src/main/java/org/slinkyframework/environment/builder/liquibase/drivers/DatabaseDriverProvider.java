@@ -0,0 +1,9 @@
+package org.slinkyframework.environment.builder.liquibase.drivers;
+
+/**
+ * Properties of a database that no driver is provided for here, which create their own driver instead.
+ */
+public interface DatabaseDriverProvider extends DatabaseProperties {
+
+    DatabaseDriver createDatabaseDriver(String changeLogPrefix);
+}
@@ -1,4 +1,6 @@
 package org.slinkyframework.environment.builder.liquibase.drivers;
 
-public interface DatabaseProperties {
+import java.io.Serializable;
+
+public interface DatabaseProperties extends Serializable {
 }
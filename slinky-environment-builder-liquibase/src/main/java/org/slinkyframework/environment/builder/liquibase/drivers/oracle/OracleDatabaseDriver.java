@@ -5,10 +5,15 @@ import com.zaxxer.hikari.HikariDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.Namespace;
 import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriver;
 import org.slinkyframework.environment.builder.liquibase.drivers.TableDoesNotExistException;
 import org.slinkyframework.environment.builder.liquibase.drivers.TablespaceDoesNotExistException;
 import org.slinkyframework.environment.builder.liquibase.drivers.UserDoesNotExistException;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.scheduler.BuildScope;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal.Entry;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.retry.backoff.FixedBackOffPolicy;
@@ -17,7 +22,15 @@ import org.springframework.retry.support.RetryTemplate;
 
 import javax.sql.DataSource;
 import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import static java.lang.String.format;
 
@@ -25,27 +38,59 @@ public class OracleDatabaseDriver implements DatabaseDriver {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OracleDatabaseDriver.class);
 
-    private static final String DATABASECHANGELOG_SQL = "delete from DATABASECHANGELOG where ID like ?";
+    private static final String DATABASECHANGELOG_SQL = "delete from %s where ID like ?";
+    private static final String DATABASECHANGELOG_ENTRY_SQL = "delete from %s where ID = ? and AUTHOR = ? and FILENAME = ?";
+    private static final String USER_EXISTS_SQL = "select count(*) from ALL_USERS where USERNAME = UPPER(?)";
+    private static final String EXISTING_USERS_SQL = "select USERNAME from ALL_USERS where USERNAME in (%s)";
+    private static final String EXISTING_TABLESPACES_SQL = "select TABLESPACE_NAME from DBA_TABLESPACES where TABLESPACE_NAME in (%s)";
 
     private static final int ONE_SECOND = 1000;
     private static final long THIRTY_SECONDS = 30000;
     private static final long TEN_SECONDS = 10000;
 
+    private static final String DOES_NOT_EXIST_COUNTER = "database.statement.doesNotExist";
+    private static final String DICTIONARY_QUERY_COUNTER = "database.dictionary.queries";
+
     private OracleProperties properties;
     private String changeLogPrefix;
+    private final List<String> users;
+    private final List<String> tablespaces;
+    private final String changeLogTable;
+    private final int port;
     private HikariDataSource dataSource;
     private JdbcTemplate jdbcTemplate;
+    private final MetricsRegistry metrics = MetricsRegistry.global();
 
     public OracleDatabaseDriver(OracleProperties properties, String changeLogPrefix) {
+        this(properties, changeLogPrefix, Namespace.NONE, Collections.emptyMap());
+    }
+
+    /**
+     * @param namespace qualifies the users and tablespaces configured, and the change log table
+     * @param ports maps the configured port to the port to connect to
+     */
+    public OracleDatabaseDriver(OracleProperties properties, String changeLogPrefix, Namespace namespace, Map<Integer, Integer> ports) {
         this.properties = properties;
         this.changeLogPrefix = changeLogPrefix;
+        this.users = properties.getUsers().stream().map(namespace::qualify).collect(Collectors.toList());
+        this.tablespaces = properties.getTablespaces().stream().map(namespace::qualify).collect(Collectors.toList());
+        this.changeLogTable = namespace.qualify(CHANGE_LOG_TABLE);
+        this.port = ports.getOrDefault(properties.getPort(), properties.getPort());
+    }
+
+    /**
+     * Used for testing
+     */
+    public OracleDatabaseDriver(OracleProperties properties, String changeLogPrefix, JdbcTemplate jdbcTemplate) {
+        this(properties, changeLogPrefix);
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
     public void connect(String hostname) {
 
-        if (dataSource == null) {
-            createDataSource(hostname);
+        if (jdbcTemplate == null) {
+            metrics.timer("database.connect").time(() -> createDataSource(hostname));
             createJdbcTemplate();
         }
     }
@@ -53,7 +98,7 @@ public class OracleDatabaseDriver implements DatabaseDriver {
 
     private void createDataSource(String hostname) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(properties.getUrl(hostname));
+        config.setJdbcUrl(properties.getUrl(hostname, port));
         config.setUsername(properties.getUsername());
         config.setPassword(properties.getPassword());
         config.setMinimumIdle(2);
@@ -73,21 +118,134 @@ public class OracleDatabaseDriver implements DatabaseDriver {
         return dataSource;
     }
 
+    @Override
+    public void close() {
+        if (dataSource != null) {
+            dataSource.close();
+        }
+        dataSource = null;
+        jdbcTemplate = null;
+    }
+
     @Override
     public void tearDown(String hostname) {
         connect(hostname);
 
-        properties.getUsers().forEach(this::dropUser);
-        properties.getUsers().forEach(this::dropPublicSynonyms);
-        properties.getTablespaces().forEach(this::dropTablespace);
+        // The users are dropped before their synonyms and tablespaces, each of them at the same time on virtual threads
+        BuildScope scope = BuildScope.current();
+        scope.runAll(forEach(users, this::dropUser));
+        scope.runAll(forEach(users, this::dropPublicSynonyms));
+        scope.runAll(forEach(tablespaces, this::dropTablespace));
 
         cleanUpDatabaseChangeLog();
     }
 
+    private static List<Runnable> forEach(Collection<String> names, Consumer<String> statement) {
+        return names.stream()
+                .map(name -> (Runnable) () -> statement.accept(name))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void journalSetUp(String hostname, ProvisioningJournal journal) {
+        journal.start();
+        connect(hostname);
+
+        Set<String> existingTablespaces = findExisting(EXISTING_TABLESPACES_SQL, tablespaces);
+        tablespaces.stream()
+                .filter(tablespace -> !existingTablespaces.contains(tablespace.toUpperCase()))
+                .forEach(tablespace -> journal.record(JOURNAL_TABLESPACE, tablespace));
+
+        Set<String> existingUsers = findExisting(EXISTING_USERS_SQL, users);
+        users.stream()
+                .filter(username -> !existingUsers.contains(username.toUpperCase()))
+                .forEach(username -> journal.record(JOURNAL_USER, username));
+    }
+
+    @Override
+    public void tearDown(String hostname, ProvisioningJournal journal) {
+        if (!journal.isStarted()) {
+            LOGGER.debug("No provisioning journal was kept. Tearing down everything configured.");
+            tearDown(hostname);
+            return;
+        }
+
+        connect(hostname);
+
+        List<Entry> changeSets = journal.getEntries(JOURNAL_CHANGE_SET);
+        deleteChangeSets(changeSets);
+        journal.remove(changeSets);
+
+        journal.replayInReverse(this::undo);
+    }
+
+    private void undo(Entry entry) {
+        switch (entry.getType()) {
+            case JOURNAL_USER:
+                dropUser(entry.getTarget());
+                dropPublicSynonyms(entry.getTarget());
+                break;
+            case JOURNAL_TABLESPACE:
+                dropTablespace(entry.getTarget());
+                break;
+            default:
+                LOGGER.warn("Ignoring unknown provisioning journal entry '{}'", entry);
+        }
+    }
+
+    private Set<String> findExisting(String sql, Collection<String> names) {
+        if (names.isEmpty()) {
+            return Collections.emptySet();
+        }
+        verifyConnected();
+
+        String placeholders = String.join(",", Collections.nCopies(names.size(), "UPPER(?)"));
+        metrics.counter(DICTIONARY_QUERY_COUNTER).increment();
+        return new HashSet<>(jdbcTemplate.queryForList(format(sql, placeholders), String.class, names.toArray()));
+    }
+
+    private void deleteChangeSets(List<Entry> changeSets) {
+        if (changeSets.isEmpty()) {
+            return;
+        }
+        LOGGER.info("Removing {} change sets from {} table", changeSets.size(), changeLogTable);
+
+        verifyConnected();
+
+        List<Object[]> args = new ArrayList<>();
+        changeSets.forEach(changeSet -> args.add(changeSet.getValues().toArray()));
+
+        try {
+            metrics.timer("database.changelog.cleanUp").time(() -> jdbcTemplate.batchUpdate(format(DATABASECHANGELOG_ENTRY_SQL, changeLogTable), args));
+        } catch (TableDoesNotExistException e) {
+            LOGGER.debug("Unable to cleanup {}. Table does not exist.", changeLogTable);
+            metrics.counter(DOES_NOT_EXIST_COUNTER).increment();
+        }
+    }
+
+    @Override
+    public boolean isHealthy(String hostname) {
+        try {
+            connect(hostname);
+
+            for (String username : users) {
+                metrics.counter(DICTIONARY_QUERY_COUNTER).increment();
+                if (jdbcTemplate.queryForObject(USER_EXISTS_SQL, Integer.class, username) == 0) {
+                    LOGGER.info("Database user '{}' does not exist", username);
+                    return false;
+                }
+            }
+            return true;
+        } catch (RuntimeException e) {
+            LOGGER.info("Unable to check database on '{}': {}", hostname, e.getMessage());
+            return false;
+        }
+    }
+
     private void dropUser(String username) {
         if (jdbcTemplate != null) {
             try {
-                killSessions(username);
+                metrics.timer("database.session.kill").time(() -> killSessions(username));
             } catch (EnvironmentBuilderException e) {
                 LOGGER.warn("Session should be killed by now");
             }
@@ -95,9 +253,10 @@ public class OracleDatabaseDriver implements DatabaseDriver {
             LOGGER.info("Dropping database user '{}'", username);
 
             try {
-                jdbcTemplate.execute(format("DROP USER %s CASCADE", username));
+                metrics.timer("database.user.drop").time(() -> jdbcTemplate.execute(format("DROP USER %s CASCADE", username)));
             } catch (UserDoesNotExistException e) {
                 LOGGER.debug("Unable to drop user '{}'. User does not exist.", username);
+                metrics.counter(DOES_NOT_EXIST_COUNTER).increment();
             }
         }
     }
@@ -112,6 +271,7 @@ public class OracleDatabaseDriver implements DatabaseDriver {
     private List<String> findPublicSynonymsForUser(String username) {
         verifyConnected();
 
+        metrics.counter(DICTIONARY_QUERY_COUNTER).increment();
         return jdbcTemplate.queryForList("select SYNONYM_NAME from ALL_SYNONYMS where TABLE_OWNER like ?", String.class, username);
     }
 
@@ -127,9 +287,10 @@ public class OracleDatabaseDriver implements DatabaseDriver {
         verifyConnected();
 
         try {
-            jdbcTemplate.execute(format("DROP PUBLIC SYNONYM %s", synonymName));
+            metrics.timer("database.synonym.drop").time(() -> jdbcTemplate.execute(format("DROP PUBLIC SYNONYM %s", synonymName)));
         } catch (UserDoesNotExistException e) {
             LOGGER.debug("Unable to drop public synonym '{}'. {}", synonymName, e.getMessage());
+            metrics.counter(DOES_NOT_EXIST_COUNTER).increment();
         }
     }
 
@@ -139,9 +300,10 @@ public class OracleDatabaseDriver implements DatabaseDriver {
         verifyConnected();
 
         try {
-            jdbcTemplate.execute(format("DROP TABLESPACE %s INCLUDING CONTENTS AND DATAFILES", tablespace));
+            metrics.timer("database.tablespace.drop").time(() -> jdbcTemplate.execute(format("DROP TABLESPACE %s INCLUDING CONTENTS AND DATAFILES", tablespace)));
         } catch (TablespaceDoesNotExistException e) {
             LOGGER.debug("Unable to drop tablespace '{}'. Tablespace does not exist.", tablespace);
+            metrics.counter(DOES_NOT_EXIST_COUNTER).increment();
         }
     }
 
@@ -156,6 +318,7 @@ public class OracleDatabaseDriver implements DatabaseDriver {
 
         verifyConnected();
 
+        metrics.counter(DICTIONARY_QUERY_COUNTER).increment();
         jdbcTemplate.query("SELECT username, sid, serial# FROM v$session WHERE username = UPPER(?)", args, f);
     }
 
@@ -200,14 +363,15 @@ public class OracleDatabaseDriver implements DatabaseDriver {
     private void cleanUpDatabaseChangeLog() {
         String parameter = changeLogPrefix + "%";
 
-        LOGGER.info("Cleaning up DATABASECHANGELOG table for ID like '{}'", parameter);
+        LOGGER.info("Cleaning up {} table for ID like '{}'", changeLogTable, parameter);
 
         verifyConnected();
 
         try {
-            jdbcTemplate.update(DATABASECHANGELOG_SQL, parameter);
+            metrics.timer("database.changelog.cleanUp").time(() -> jdbcTemplate.update(format(DATABASECHANGELOG_SQL, changeLogTable), parameter));
         } catch (TableDoesNotExistException e) {
-            LOGGER.debug("Unable to cleanup DATABASECHANGELOG. Table does not exist.");
+            LOGGER.debug("Unable to cleanup {}. Table does not exist.", changeLogTable);
+            metrics.counter(DOES_NOT_EXIST_COUNTER).increment();
         }
     }
 }
@@ -10,6 +10,8 @@ import static java.lang.String.format;
 
 public class OracleProperties implements DatabaseProperties {
 
+    private static final long serialVersionUID = 1L;
+
     private String username;
     private String password;
     private int port;
@@ -50,7 +52,15 @@ public class OracleProperties implements DatabaseProperties {
         return users;
     }
 
+    int getPort() {
+        return port;
+    }
+
     String getUrl(String hostname) {
+        return getUrl(hostname, port);
+    }
+
+    String getUrl(String hostname, int port) {
         return format("jdbc:oracle:thin:@%s:%s/%s", hostname, port, pdb);
     }
 }
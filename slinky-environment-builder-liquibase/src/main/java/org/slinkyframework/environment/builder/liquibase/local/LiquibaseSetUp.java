@@ -1,6 +1,9 @@
 package org.slinkyframework.environment.builder.liquibase.local;
 
+import liquibase.Contexts;
+import liquibase.LabelExpression;
 import liquibase.Liquibase;
+import liquibase.changelog.ChangeSet;
 import liquibase.database.Database;
 import liquibase.database.DatabaseFactory;
 import liquibase.database.jvm.JdbcConnection;
@@ -10,57 +13,90 @@ import liquibase.resource.ResourceAccessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.Namespace;
 import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
 import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriver;
 import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriverFactory;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.Timer;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class LiquibaseSetUp {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LiquibaseSetUp.class);
 
-    private Liquibase liquibase;
+    /**
+     * Change log parameter holding the suffix that qualifies names with the namespace, e.g. _1234, or nothing. Change
+     * logs refer to it as ${namespaceSuffix}, e.g. create user MOVIES${namespaceSuffix}.
+     */
+    public static final String NAMESPACE_SUFFIX_PARAMETER = "namespaceSuffix";
+
     private String hostname;
+    private final Namespace namespace;
+    private final Map<Integer, Integer> ports;
+    private final MetricsRegistry metrics = MetricsRegistry.global();
 
     public LiquibaseSetUp(String hostname) {
+        this(hostname, Namespace.NONE, Collections.emptyMap());
+    }
+
+    public LiquibaseSetUp(String hostname, Namespace namespace, Map<Integer, Integer> ports) {
         this.hostname = hostname;
+        this.namespace = namespace;
+        this.ports = ports;
     }
 
     public void setUp(LiquibaseBuildDefinition definition) {
+        setUp(definition, ProvisioningJournal.inMemory());
+    }
+
+    /**
+     * Sets up the database, first recording in the journal the users, tablespaces and change sets it will create.
+     */
+    public void setUp(LiquibaseBuildDefinition definition, ProvisioningJournal journal) {
+
+        try (DatabaseDriver databaseDriver = DatabaseDriverFactory.getInstance(definition, namespace, ports)) {
+            databaseDriver.connect(hostname);
+            databaseDriver.journalSetUp(hostname, journal);
+
+            update(definition, journal, databaseDriver);
+        }
+    }
 
-        try {
-            Connection con = getNewConnection(definition);
+    private void update(LiquibaseBuildDefinition definition, ProvisioningJournal journal, DatabaseDriver databaseDriver) {
 
+        try (Connection con = databaseDriver.getDataSource().getConnection()) {
             Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(con));
+            database.setDatabaseChangeLogTableName(namespace.qualify(DatabaseDriver.CHANGE_LOG_TABLE));
+            database.setDatabaseChangeLogLockTableName(namespace.qualify(DatabaseDriver.CHANGE_LOG_LOCK_TABLE));
             ResourceAccessor resourceAccessor = new ClassLoaderResourceAccessor();
 
-            liquibase = new Liquibase(definition.getChangeLogFile(), resourceAccessor, database);
+            Liquibase liquibase = new Liquibase(definition.getChangeLogFile(), resourceAccessor, database);
+            liquibase.setChangeLogParameter(NAMESPACE_SUFFIX_PARAMETER, namespace.getSuffix());
 
             LOGGER.info("Setting up database {} on {}", definition.getName(), hostname);
 
-            liquibase.update("");
+            Contexts contexts = new Contexts();
+            LabelExpression labels = new LabelExpression();
+
+            List<ChangeSet> unrunChangeSets = liquibase.listUnrunChangeSets(contexts, labels);
+            for (ChangeSet changeSet : unrunChangeSets) {
+                journal.record(DatabaseDriver.JOURNAL_CHANGE_SET, changeSet.getId(), changeSet.getAuthor(), changeSet.getFilePath());
+            }
+            metrics.histogram("liquibase.changeSets").record(unrunChangeSets.size());
 
-            closeConnectionQuietly(con);
+            try (Timer.Context ignored = metrics.timer("liquibase.update").start()) {
+                liquibase.update(contexts, labels);
+            }
 
         } catch (LiquibaseException | SQLException e) {
             throw new EnvironmentBuilderException("Database setup has failed", e);
         }
     }
-
-    private Connection getNewConnection(LiquibaseBuildDefinition definition) throws SQLException {
-        DatabaseDriver databaseDriver = DatabaseDriverFactory.getInstance(definition);
-        databaseDriver.connect(hostname);
-
-        return databaseDriver.getDataSource().getConnection();
-    }
-
-    private void closeConnectionQuietly(Connection con) {
-        try {
-            con.close();
-        } catch (SQLException e) {
-            // Ignore
-        }
-    }
 }
@@ -2,25 +2,46 @@ package org.slinkyframework.environment.builder.liquibase.local;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.Namespace;
 import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
 import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriver;
 import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriverFactory;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+
+import java.util.Collections;
+import java.util.Map;
 
 public class LiquibaseTearDown {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LiquibaseTearDown.class);
 
     private final String hostname;
+    private final Namespace namespace;
+    private final Map<Integer, Integer> ports;
 
     public LiquibaseTearDown(String hostname) {
+        this(hostname, Namespace.NONE, Collections.emptyMap());
+    }
+
+    public LiquibaseTearDown(String hostname, Namespace namespace, Map<Integer, Integer> ports) {
         this.hostname = hostname;
+        this.namespace = namespace;
+        this.ports = ports;
     }
 
     public void tearDown(LiquibaseBuildDefinition definition) {
+        tearDown(definition, ProvisioningJournal.inMemory());
+    }
+
+    /**
+     * Tears down what the journal records as created, or everything configured if the journal is empty.
+     */
+    public void tearDown(LiquibaseBuildDefinition definition, ProvisioningJournal journal) {
 
         LOGGER.info("Tearing down database {} on {}", definition.getName(), hostname);
 
-        DatabaseDriver databaseDriver = DatabaseDriverFactory.getInstance(definition);
-        databaseDriver.tearDown(hostname);
+        try (DatabaseDriver databaseDriver = DatabaseDriverFactory.getInstance(definition, namespace, ports)) {
+            databaseDriver.tearDown(hostname, journal);
+        }
     }
 }
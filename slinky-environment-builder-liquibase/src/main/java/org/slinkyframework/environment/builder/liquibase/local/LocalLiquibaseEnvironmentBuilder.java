@@ -1,30 +1,88 @@
 package org.slinkyframework.environment.builder.liquibase.local;
 
 import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.Namespace;
 import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
+import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriver;
+import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriverFactory;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
 
+import java.io.File;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Sets up databases on an existing server. What each build definition creates is recorded in a
+ * {@link ProvisioningJournal} so that tear down only removes that.
+ */
 public class LocalLiquibaseEnvironmentBuilder implements EnvironmentBuilder<LiquibaseBuildDefinition> {
 
     private final String hostname;
+    private final Namespace namespace;
+    private final Map<Integer, Integer> ports;
+    private final File journalDirectory;
+    private final Map<String, ProvisioningJournal> journals = new ConcurrentHashMap<>();
     private LiquibaseSetUp liquibaseSetUp;
     private LiquibaseTearDown liquibaseTearDown;
 
     public LocalLiquibaseEnvironmentBuilder(String hostname) {
+        this(hostname, ProvisioningJournal.DEFAULT_DIRECTORY);
+    }
+
+    public LocalLiquibaseEnvironmentBuilder(String hostname, File journalDirectory) {
+        this(hostname, Namespace.NONE, Collections.emptyMap(), journalDirectory);
+    }
+
+    /**
+     * @param ports maps the configured database ports to the ports to connect to, e.g. those published by a container
+     */
+    public LocalLiquibaseEnvironmentBuilder(String hostname, Namespace namespace, Map<Integer, Integer> ports) {
+        this(hostname, namespace, ports, ProvisioningJournal.DEFAULT_DIRECTORY);
+    }
+
+    public LocalLiquibaseEnvironmentBuilder(String hostname, Namespace namespace, Map<Integer, Integer> ports, File journalDirectory) {
         this.hostname = hostname;
-        liquibaseSetUp = new LiquibaseSetUp(hostname);
-        liquibaseTearDown = new LiquibaseTearDown(hostname);
+        this.namespace = namespace;
+        this.ports = ports;
+        this.journalDirectory = journalDirectory;
+        liquibaseSetUp = new LiquibaseSetUp(hostname, namespace, ports);
+        liquibaseTearDown = new LiquibaseTearDown(hostname, namespace, ports);
     }
 
     @Override
     public void setUp(Set<LiquibaseBuildDefinition> buildDefinitions) {
-        buildDefinitions.forEach(definition -> liquibaseSetUp.setUp(definition));
+        buildDefinitions.forEach(definition -> liquibaseSetUp.setUp(definition, getJournal(definition)));
     }
 
     @Override
     public void tearDown(Set<LiquibaseBuildDefinition> buildDefinitions) {
-        buildDefinitions.forEach(definition -> liquibaseTearDown.tearDown(definition));
+        buildDefinitions.forEach(definition -> liquibaseTearDown.tearDown(definition, getJournal(definition)));
+    }
+
+    /**
+     * Forgets what was created for the build definitions without touching the database, for when the database
+     * itself has been removed.
+     */
+    public void discardJournals(Set<LiquibaseBuildDefinition> buildDefinitions) {
+        buildDefinitions.forEach(definition -> getJournal(definition).clear());
+    }
+
+    public ProvisioningJournal getJournal(LiquibaseBuildDefinition definition) {
+        return journals.computeIfAbsent(definition.getName(),
+                name -> ProvisioningJournal.open(journalDirectory, "liquibase-" + hostname + "-" + namespace.qualify(name)));
+    }
+
+    @Override
+    public boolean isHealthy(Set<LiquibaseBuildDefinition> buildDefinitions) {
+        return buildDefinitions.stream().allMatch(this::isHealthy);
+    }
+
+    private boolean isHealthy(LiquibaseBuildDefinition definition) {
+        try (DatabaseDriver databaseDriver = DatabaseDriverFactory.getInstance(definition, namespace, ports)) {
+            return databaseDriver.isHealthy(hostname);
+        }
     }
 
     @Override
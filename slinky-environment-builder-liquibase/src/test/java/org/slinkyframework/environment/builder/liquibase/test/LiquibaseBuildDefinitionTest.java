@@ -1,13 +1,25 @@
 package org.slinkyframework.environment.builder.liquibase.test;
 
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
 import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseProperties;
+import org.slinkyframework.environment.builder.liquibase.drivers.oracle.OracleProperties;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.junit.Assert.assertThat;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -17,9 +29,16 @@ public class LiquibaseBuildDefinitionTest {
     private static final String TEST_CHANGE_LOG_XML = "test-changeLog.xml";
     private static final String TEST_NAME = "TEST";
 
+    private static final String MASTER_CHANGE_LOG = "<databaseChangeLog><include file=\"changes.xml\" relativeToChangelogFile=\"true\"/></databaseChangeLog>";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Mock
     private DatabaseProperties mockDatabaseProperties;
 
+    private OracleProperties oracleProperties = new OracleProperties("system", "oracle", 1521, "XEPDB1", "TEST_USER");
+
     @Test
     public void shouldBeAbleToSpecifyDatabaseConnectionDetailsInBuildDefinition() {
         LiquibaseBuildDefinition testee =
@@ -29,4 +48,49 @@ public class LiquibaseBuildDefinitionTest {
         assertThat(testee.getDatabaseProperties(), is(mockDatabaseProperties));
         assertThat(testee.getChangeLogFile(), is(TEST_CHANGE_LOG_XML));
     }
+
+    @Test
+    public void shouldChangeFingerprintWhenAnIncludedChangeLogChanges() throws IOException {
+        File root = temporaryFolder.newFolder();
+        write(root, "db/master.xml", MASTER_CHANGE_LOG);
+        write(root, "db/changes.xml", "<changeSet id=\"1\"/>");
+
+        LiquibaseBuildDefinition testee = new LiquibaseBuildDefinition(TEST_NAME, oracleProperties, TEST_CHANGE_LOG_PREFIX, "db/master.xml");
+
+        String original = fingerprintWithClasspath(root, testee);
+        String unchanged = fingerprintWithClasspath(root, testee);
+
+        write(root, "db/changes.xml", "<changeSet id=\"2\"/>");
+        String changed = fingerprintWithClasspath(root, testee);
+
+        assertThat("Fingerprint", unchanged, equalTo(original));
+        assertThat("Fingerprint", changed, not(equalTo(original)));
+    }
+
+    @Test
+    public void shouldChangeFingerprintWhenDatabasePropertiesChange() {
+        LiquibaseBuildDefinition testee = new LiquibaseBuildDefinition(TEST_NAME, oracleProperties, TEST_CHANGE_LOG_PREFIX, TEST_CHANGE_LOG_XML);
+        LiquibaseBuildDefinition otherUser = new LiquibaseBuildDefinition(TEST_NAME,
+                new OracleProperties("system", "oracle", 1521, "XEPDB1", "OTHER_USER"), TEST_CHANGE_LOG_PREFIX, TEST_CHANGE_LOG_XML);
+
+        assertThat("Fingerprint", otherUser.getFingerprint(), not(equalTo(testee.getFingerprint())));
+    }
+
+    private String fingerprintWithClasspath(File root, LiquibaseBuildDefinition definition) throws IOException {
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { root.toURI().toURL() }, null)) {
+            thread.setContextClassLoader(classLoader);
+            return definition.getFingerprint();
+        } finally {
+            thread.setContextClassLoader(original);
+        }
+    }
+
+    private void write(File root, String path, String content) throws IOException {
+        File file = new File(root, path);
+        file.getParentFile().mkdirs();
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+    }
 }
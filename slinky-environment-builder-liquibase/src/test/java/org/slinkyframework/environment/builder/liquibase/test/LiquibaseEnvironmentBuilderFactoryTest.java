@@ -0,0 +1,37 @@
+package org.slinkyframework.environment.builder.liquibase.test;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.Namespace;
+import org.slinkyframework.environment.builder.liquibase.LiquibaseEnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.liquibase.docker.DockerLiquibaseEnvironmentBuilder;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class LiquibaseEnvironmentBuilderFactoryTest {
+
+    private static final int ORACLE_PORT = 1521;
+
+    private LiquibaseEnvironmentBuilderFactory testee = new LiquibaseEnvironmentBuilderFactory();
+
+    @Test
+    public void shouldNameContainerAfterNamespace() {
+        EnvironmentBuilder builder = testee.getInstance(EnvironmentBuilderContext.builder("localhost", true).namespace(Namespace.of("ci-42")).build());
+
+        assertThat("Builder", builder, instanceOf(DockerLiquibaseEnvironmentBuilder.class));
+        assertThat("Fingerprint", builder.getFingerprint(), startsWith("oracle-xe_ci_42:"));
+    }
+
+    @Test
+    public void shouldPublishFreePortForNamespace() {
+        DockerLiquibaseEnvironmentBuilder builder = (DockerLiquibaseEnvironmentBuilder)
+                testee.getInstance(EnvironmentBuilderContext.builder("localhost", true).namespace(Namespace.of("ci-42")).build());
+
+        assertThat("External port", builder.getInternalToExternalPortsMap().get(ORACLE_PORT), is(not(ORACLE_PORT)));
+    }
+}
@@ -0,0 +1,166 @@
+package org.slinkyframework.environment.builder.liquibase.test.docker;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
+import org.slinkyframework.environment.builder.liquibase.docker.DockerLiquibaseEnvironmentBuilder;
+import org.slinkyframework.environment.builder.liquibase.local.LocalLiquibaseEnvironmentBuilder;
+import org.slinkyframework.environment.docker.DockerDriver;
+import org.slinkyframework.environment.docker.DockerImageCache;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DockerLiquibaseEnvironmentBuilderTest {
+
+    private static final long ONE_GB = 1024 * 1024 * 1024;
+
+    @Mock private LocalLiquibaseEnvironmentBuilder mockLocalLiquibaseEnvironmentBuilder;
+    @Mock private DockerDriver mockDockerDriver;
+    @Mock private LiquibaseBuildDefinition mockBuildDefinition;
+    @Mock private LiquibaseBuildDefinition mockOtherBuildDefinition;
+    @Mock private DockerImageCache mockImageCache;
+
+    private DockerLiquibaseEnvironmentBuilder testee;
+    private Set<LiquibaseBuildDefinition> buildDefinitions;
+
+    @Before
+    public void setUp() {
+        testee = new DockerLiquibaseEnvironmentBuilder(mockLocalLiquibaseEnvironmentBuilder, Collections.singletonMap(1521, 1521), mockDockerDriver);
+        buildDefinitions = Collections.singleton(mockBuildDefinition);
+    }
+
+    @Test
+    public void shouldStartContainerWithoutSettingUpDatabasesWhenPrepared() {
+        testee.prepare(buildDefinitions);
+
+        verify(mockDockerDriver).setUpDocker();
+        verify(mockLocalLiquibaseEnvironmentBuilder, never()).setUp(buildDefinitions);
+    }
+
+    @Test
+    public void shouldNotStartContainerAgainWhenSettingUpAfterPreparing() {
+        testee.prepare(buildDefinitions);
+        testee.setUp(buildDefinitions);
+
+        verify(mockDockerDriver).setUpDocker();
+        verify(mockLocalLiquibaseEnvironmentBuilder).setUp(buildDefinitions);
+    }
+
+    @Test
+    public void shouldResetWhatEarlierBuildsLeftInReusedContainer() {
+        when(mockDockerDriver.isContainerReused()).thenReturn(true);
+
+        testee.setUp(buildDefinitions);
+
+        InOrder inOrder = inOrder(mockLocalLiquibaseEnvironmentBuilder);
+        inOrder.verify(mockLocalLiquibaseEnvironmentBuilder).tearDown(buildDefinitions);
+        inOrder.verify(mockLocalLiquibaseEnvironmentBuilder).setUp(buildDefinitions);
+    }
+
+    @Test
+    public void shouldResetDatabasesRatherThanRemoveContainerWhenReusing() {
+        when(mockDockerDriver.isReuseContainer()).thenReturn(true);
+        when(mockDockerDriver.isContainerRunning()).thenReturn(true);
+
+        testee.tearDown(buildDefinitions);
+
+        verify(mockLocalLiquibaseEnvironmentBuilder).tearDown(buildDefinitions);
+        verify(mockDockerDriver, never()).killAndRemoveContainer();
+    }
+
+    @Test
+    public void shouldRemoveReusedContainerWhenDatabasesCannotBeReset() {
+        when(mockDockerDriver.isReuseContainer()).thenReturn(true);
+        when(mockDockerDriver.isContainerRunning()).thenReturn(true);
+        doThrow(new EnvironmentBuilderException("Unable to drop user")).when(mockLocalLiquibaseEnvironmentBuilder).tearDown(buildDefinitions);
+
+        testee.tearDown(buildDefinitions);
+
+        verify(mockDockerDriver).killAndRemoveContainer();
+        verify(mockLocalLiquibaseEnvironmentBuilder).discardJournals(buildDefinitions);
+    }
+
+    @Test
+    public void shouldCacheImageOnceEveryPreparedDefinitionIsSetUp() {
+        String lineageImage = DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY + ":earlier";
+        expectCachedImage(lineageImage);
+        when(mockImageCache.commit(any(), eq(DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY), anyString(), anyString())).thenReturn("cached");
+
+        testee.prepare(bothDefinitions());
+        testee.setUp(buildDefinitions);
+        verify(mockImageCache, never()).commit(any(), anyString(), anyString(), anyString());
+
+        testee.setUp(Collections.singleton(mockOtherBuildDefinition));
+
+        verify(mockDockerDriver).setImageName(lineageImage);
+        verify(mockImageCache).commit(any(), eq(DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY), anyString(), anyString());
+        verify(mockImageCache).evict(ONE_GB, "cached");
+    }
+
+    @Test
+    public void shouldNotCacheImageAgainWhenStartedFromImageCachedForSameChangeLogs() {
+        when(mockDockerDriver.getImageCache()).thenReturn(mockImageCache);
+        when(mockImageCache.find(eq(DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY), anyString(), anyString()))
+                .thenAnswer(invocation -> Optional.of(DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY + ":" + invocation.getArgument(1)));
+        stubDefinitions();
+        testee.setImageCacheBudget(ONE_GB);
+
+        testee.prepare(bothDefinitions());
+        testee.setUp(bothDefinitions());
+
+        verify(mockImageCache, never()).commit(any(), anyString(), anyString(), anyString());
+    }
+
+    @Test
+    public void shouldStartAgainFromOracleXeImageWhenCachedImageCannotBeUpdated() {
+        expectCachedImage(DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY + ":earlier");
+        when(mockDockerDriver.getImageName()).thenReturn(DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY + ":earlier");
+        doThrow(new EnvironmentBuilderException("Validation failed")).doNothing().when(mockLocalLiquibaseEnvironmentBuilder).setUp(any());
+
+        testee.prepare(bothDefinitions());
+        testee.setUp(buildDefinitions);
+
+        verify(mockDockerDriver).killAndRemoveContainer();
+        verify(mockDockerDriver).setImageName(DockerLiquibaseEnvironmentBuilder.ORACLE_XE_LATEST_IMAGE_NAME);
+        verify(mockDockerDriver, times(2)).setUpDocker();
+        verify(mockLocalLiquibaseEnvironmentBuilder, times(2)).setUp(buildDefinitions);
+    }
+
+    private void expectCachedImage(String image) {
+        when(mockDockerDriver.getImageCache()).thenReturn(mockImageCache);
+        when(mockImageCache.find(eq(DockerLiquibaseEnvironmentBuilder.IMAGE_CACHE_REPOSITORY), anyString(), anyString())).thenReturn(Optional.of(image));
+        stubDefinitions();
+        testee.setImageCacheBudget(ONE_GB);
+    }
+
+    private void stubDefinitions() {
+        when(mockBuildDefinition.getName()).thenReturn("movies");
+        when(mockBuildDefinition.getFingerprint()).thenReturn("1");
+        when(mockOtherBuildDefinition.getName()).thenReturn("actors");
+        when(mockOtherBuildDefinition.getFingerprint()).thenReturn("2");
+    }
+
+    private Set<LiquibaseBuildDefinition> bothDefinitions() {
+        return new LinkedHashSet<>(Arrays.asList(mockBuildDefinition, mockOtherBuildDefinition));
+    }
+}
@@ -0,0 +1,82 @@
+package org.slinkyframework.environment.builder.liquibase.test.drivers.oracle;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.liquibase.drivers.oracle.OracleDatabaseDriver;
+import org.slinkyframework.environment.builder.liquibase.drivers.oracle.OracleProperties;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import static java.util.Collections.singletonList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class OracleDatabaseDriverTest {
+
+    private static final String TEST_HOSTNAME = "localhost";
+    private static final String TEST_USER = "TEST_USER";
+    private static final String TEST_TABLESPACE = "TEST_TS";
+    private static final String JOURNAL_NAME = "oracle-localhost";
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Mock private JdbcTemplate mockJdbcTemplate;
+
+    private OracleDatabaseDriver testee;
+    private File journalDirectory;
+
+    @Before
+    public void setUp() throws IOException {
+        OracleProperties properties = new OracleProperties("system", "oracle", 1521, "XEPDB1",
+                singletonList(TEST_USER), singletonList(TEST_TABLESPACE));
+
+        testee = new OracleDatabaseDriver(properties, "prefix", mockJdbcTemplate);
+        journalDirectory = temporaryFolder.newFolder();
+    }
+
+    @Test
+    public void shouldNotDropUsersAndTablespacesThatExistedBeforeSetUp() {
+        when(mockJdbcTemplate.queryForList(contains("DBA_TABLESPACES"), eq(String.class), eq(TEST_TABLESPACE)))
+                .thenReturn(singletonList(TEST_TABLESPACE));
+        when(mockJdbcTemplate.queryForList(contains("ALL_USERS"), eq(String.class), eq(TEST_USER)))
+                .thenReturn(singletonList(TEST_USER));
+
+        testee.journalSetUp(TEST_HOSTNAME, ProvisioningJournal.open(journalDirectory, JOURNAL_NAME));
+        testee.tearDown(TEST_HOSTNAME, ProvisioningJournal.open(journalDirectory, JOURNAL_NAME));
+
+        verify(mockJdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    public void shouldNotTearDownAgainOnceTheJournalHasBeenReplayed() {
+        when(mockJdbcTemplate.queryForList(contains("DBA_TABLESPACES"), eq(String.class), eq(TEST_TABLESPACE)))
+                .thenReturn(Collections.emptyList());
+        when(mockJdbcTemplate.queryForList(contains("ALL_USERS"), eq(String.class), eq(TEST_USER)))
+                .thenReturn(Collections.emptyList());
+
+        testee.journalSetUp(TEST_HOSTNAME, ProvisioningJournal.open(journalDirectory, JOURNAL_NAME));
+        testee.tearDown(TEST_HOSTNAME, ProvisioningJournal.open(journalDirectory, JOURNAL_NAME));
+
+        verify(mockJdbcTemplate).execute(contains("DROP USER " + TEST_USER));
+        clearInvocations(mockJdbcTemplate);
+
+        testee.tearDown(TEST_HOSTNAME, ProvisioningJournal.open(journalDirectory, JOURNAL_NAME));
+
+        verify(mockJdbcTemplate, never()).execute(anyString());
+    }
+}
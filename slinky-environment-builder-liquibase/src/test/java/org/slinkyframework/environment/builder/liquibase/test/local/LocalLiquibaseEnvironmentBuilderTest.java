@@ -0,0 +1,66 @@
+package org.slinkyframework.environment.builder.liquibase.test.local;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.liquibase.LiquibaseBuildDefinition;
+import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriver;
+import org.slinkyframework.environment.builder.liquibase.drivers.DatabaseDriverProvider;
+import org.slinkyframework.environment.builder.liquibase.local.LocalLiquibaseEnvironmentBuilder;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+
+import java.util.Collections;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class LocalLiquibaseEnvironmentBuilderTest {
+
+    @Rule public TemporaryFolder journalDirectory = new TemporaryFolder();
+
+    @Mock private DatabaseDriverProvider mockDatabaseProperties;
+    @Mock private DatabaseDriver mockDatabaseDriver;
+
+    private LocalLiquibaseEnvironmentBuilder testee;
+    private LiquibaseBuildDefinition definition;
+
+    @Before
+    public void setUp() {
+        when(mockDatabaseProperties.createDatabaseDriver("prefix")).thenReturn(mockDatabaseDriver);
+
+        testee = new LocalLiquibaseEnvironmentBuilder("localhost", journalDirectory.getRoot());
+        definition = new LiquibaseBuildDefinition("Database", mockDatabaseProperties, "prefix", "changelog.xml");
+    }
+
+    @Test
+    public void shouldCloseDriverOnceHealthChecked() {
+        when(mockDatabaseDriver.isHealthy("localhost")).thenReturn(true);
+
+        assertThat("Healthy", testee.isHealthy(Collections.singleton(definition)), is(true));
+
+        verify(mockDatabaseDriver).close();
+    }
+
+    @Test
+    public void shouldCloseDriverWhenTearDownFails() {
+        doThrow(new IllegalStateException("Unable to connect")).when(mockDatabaseDriver).tearDown(anyString(), any(ProvisioningJournal.class));
+
+        try {
+            testee.tearDown(Collections.singleton(definition));
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+
+        verify(mockDatabaseDriver).close();
+    }
+}
@@ -1,12 +1,33 @@
 package org.slinkyframework.environment.builder.maven.plugin;
 
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
 import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
 import org.slinkyframework.environment.builder.EnvironmentManager;
 import org.slinkyframework.environment.builder.EnvironmentManagerImpl;
+import org.slinkyframework.environment.builder.Namespace;
+import org.slinkyframework.environment.builder.daemon.DaemonClient;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.TraceRecorder;
+import org.slinkyframework.environment.builder.scheduler.ExecutionMode;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public abstract class AbstractEnvironmentBuilderMojo extends AbstractMojo {
 
@@ -16,13 +37,51 @@ public abstract class AbstractEnvironmentBuilderMojo extends AbstractMojo {
     @Parameter(property = "env.docker", defaultValue = "false", readonly = true)
     private boolean useDocker;
 
+    @Parameter(property = "env.namespace", readonly = true)
+    private String namespace;
+
+    @Parameter(property = "env.docker.reuse", defaultValue = "false", readonly = true)
+    private boolean reuseContainers;
+
+    @Parameter(property = "env.docker.imageCacheBudget", defaultValue = "0", readonly = true)
+    private long imageCacheBudget;
+
     @Parameter(property = "env.skip", defaultValue = "false", readonly = true)
     private boolean skip;
 
     @Parameter(property = "env.skipTearDown", defaultValue = "true", readonly = true)
     private boolean skipTearDown;
 
+    @Parameter(property = "env.maxParallelBuilds", defaultValue = "4", readonly = true)
+    private int maxParallelBuilds;
+
+    @Parameter(property = "env.threads", defaultValue = "platform", readonly = true)
+    private String threads;
+
+    @Parameter(property = "env.metricsFile", readonly = true)
+    private File metricsFile;
+
+    @Parameter(property = "env.traceFile", readonly = true)
+    private File traceFile;
+
+    @Parameter(property = "env.daemon", defaultValue = "false", readonly = true)
+    private boolean useDaemon;
+
+    @Parameter(property = "env.daemonPort", defaultValue = "47474", readonly = true)
+    private int daemonPort;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${plugin}", readonly = true)
+    private PluginDescriptor plugin;
+
     private EnvironmentManager environmentManager;
+    private ReactorEnvironments reactorEnvironments;
+    private String projectId;
 
     public AbstractEnvironmentBuilderMojo() {
     }
@@ -32,6 +91,13 @@ public abstract class AbstractEnvironmentBuilderMojo extends AbstractMojo {
         this.environmentManager = environmentManager;
     }
 
+    // Used for testing
+    public AbstractEnvironmentBuilderMojo(ReactorEnvironments reactorEnvironments, String projectId) {
+        this.reactorEnvironments = reactorEnvironments;
+        this.environmentManager = reactorEnvironments.getEnvironmentManager();
+        this.projectId = projectId;
+    }
+
     abstract void performBuild();
 
     @Override
@@ -39,11 +105,77 @@ public abstract class AbstractEnvironmentBuilderMojo extends AbstractMojo {
         if (skip) {
             getLog().info("Environment build is skipped.");
         } else {
-            if (environmentManager == null) {
-                environmentManager = new EnvironmentManagerImpl();
+            if (session == null) {
+                if (environmentManager == null) {
+                    environmentManager = createEnvironmentManager();
+                }
+            } else if (reactorEnvironments == null) {
+                // An environment manager given for testing stands in for the one the session would create
+                EnvironmentManager givenEnvironmentManager = environmentManager;
+                reactorEnvironments = ReactorEnvironments.forSession(getSessionKey(),
+                        givenEnvironmentManager == null ? this::createEnvironmentManager : () -> givenEnvironmentManager,
+                        this::findTearDownProjects);
+                environmentManager = reactorEnvironments.getEnvironmentManager();
+                projectId = project.getId();
+            }
+
+            if (traceFile != null) {
+                TraceRecorder.global().start();
             }
 
-            performBuild();
+            try (TraceRecorder.Span ignored = TraceRecorder.global().span(getSpanName(), "maven", MetricTags.NONE)) {
+                performBuild();
+            } finally {
+                writeMetrics();
+            }
+        }
+    }
+
+    /**
+     * Creates the environment manager for the goal that runs first. When it goes on to set up the environment, images
+     * start being fetched straight away, rather than once the goal gets round to it.
+     */
+    private EnvironmentManager createEnvironmentManager() {
+        EnvironmentManager environmentManager = new EnvironmentManagerImpl(maxParallelBuilds, ExecutionMode.fromString(threads));
+
+        if (isPrefetching()) {
+            environmentManager.prefetch(getEnvironmentBuilderContext());
+        }
+        return environmentManager;
+    }
+
+    /**
+     * @return whether the goal sets up the environment, so needs what {@link EnvironmentManager#prefetch} fetches
+     */
+    protected boolean isPrefetching() {
+        return false;
+    }
+
+    private String getSpanName() {
+        return projectId == null ? getClass().getSimpleName() : getClass().getSimpleName() + " " + projectId;
+    }
+
+    /**
+     * Writes everything recorded so far in the build to the metrics and trace files, so that the files left by the
+     * last goal cover the whole build.
+     */
+    private void writeMetrics() {
+        if (metricsFile != null) {
+            try {
+                MetricsRegistry.global().writeJson(metricsFile);
+                getLog().debug("Environment build metrics written to " + metricsFile);
+            } catch (EnvironmentBuilderException e) {
+                getLog().warn(e.getMessage(), e);
+            }
+        }
+
+        if (traceFile != null) {
+            try {
+                TraceRecorder.global().writeJson(traceFile);
+                getLog().info("Environment build trace written to " + traceFile + ". Open it in chrome://tracing or https://ui.perfetto.dev");
+            } catch (EnvironmentBuilderException e) {
+                getLog().warn(e.getMessage(), e);
+            }
         }
     }
 
@@ -51,8 +183,171 @@ public abstract class AbstractEnvironmentBuilderMojo extends AbstractMojo {
         return environmentManager;
     }
 
+    /**
+     * Closes the environment manager once the given tear downs have finished with it. It is dropped from the session
+     * straight away, so that a later goal of the session creates a new one.
+     */
+    protected void closeEnvironmentManager(CompletableFuture<Void> tearDowns) {
+        EnvironmentManager closing = getEnvironmentManager();
+
+        if (reactorEnvironments != null) {
+            reactorEnvironments.dropEnvironmentManager(closing);
+        }
+        tearDowns.whenComplete((result, failure) -> closing.close());
+    }
+
+    /**
+     * Sets up the environment unless an earlier module in the reactor has already set it up.
+     *
+     * @return true if the environment was set up
+     */
+    protected boolean setUpOncePerReactor(Consumer<EnvironmentBuilderContext> setUp) {
+        if (reactorEnvironments == null) {
+            setUp.accept(getEnvironmentBuilderContext());
+            return true;
+        }
+        return reactorEnvironments.setUp(getEnvironmentBuilderContext(), setUp);
+    }
+
+    /**
+     * Tears down the environment once the last module in the reactor that tears down has finished with it.
+     *
+     * @return true if the environment was torn down, false if tear down has been deferred to a later module
+     */
+    protected boolean tearDownWhenReactorFinished(Consumer<EnvironmentBuilderContext> tearDown) {
+        if (reactorEnvironments == null) {
+            tearDown.accept(getEnvironmentBuilderContext());
+            return true;
+        }
+        return reactorEnvironments.tearDown(getEnvironmentBuilderContext(), projectId, tearDown);
+    }
+
+    /**
+     * Leases the environment from the environment daemon, when asked to use one. The lease is held until released
+     * by {@link #releaseToDaemon}, or until Maven exits.
+     *
+     * @return true if the environment was leased, false if it has to be set up
+     */
+    protected boolean leaseFromDaemon(EnvironmentBuilderContext context) {
+        if (!useDaemon) {
+            return false;
+        }
+
+        try {
+            getDaemonLeases().add(context, new DaemonClient(daemonPort).lease(context, environmentManager.getFingerprint(context)));
+            return true;
+        } catch (EnvironmentBuilderException e) {
+            getLog().warn(e.getMessage() + ". Setting up the environment instead.");
+            return false;
+        }
+    }
+
+    protected boolean isLeasedFromDaemon(EnvironmentBuilderContext context) {
+        return getDaemonLeases().isLeased(context);
+    }
+
+    protected void releaseToDaemon(EnvironmentBuilderContext context) {
+        DaemonClient.Lease lease = getDaemonLeases().remove(context);
+
+        if (lease != null) {
+            try {
+                lease.release();
+            } catch (EnvironmentBuilderException e) {
+                getLog().warn("Unable to release the environment to the environment daemon: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Starts preparing the environment in the background, unless an earlier module has already started.
+     *
+     * @return true if preparation was started now
+     */
+    protected boolean prepareInBackground(Function<EnvironmentBuilderContext, CompletableFuture<Void>> prepare) {
+        EnvironmentBuilderContext context = getEnvironmentBuilderContext();
+        return Preparations.forSession(getSessionKey()).start(context, () -> prepare.apply(context));
+    }
+
+    /**
+     * Waits for the environment to finish being prepared in the background.
+     *
+     * @return true if the environment has been prepared, false if it was not being prepared or preparation failed
+     */
+    protected boolean awaitPreparation(EnvironmentBuilderContext context) {
+        try {
+            return Preparations.forSession(getSessionKey()).await(context);
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            getLog().warn("Unable to prepare the environment in the background: " + cause.getMessage() + ". Setting it up from scratch instead.");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EnvironmentBuilderException("Interrupted waiting for the environment to be prepared", e);
+        }
+    }
+
+    /**
+     * Waits for any tear down of the environment left running in the background, so that it does not remove what is
+     * about to be set up.
+     */
+    protected void awaitDeferredTearDown(EnvironmentBuilderContext context) {
+        if (DeferredTearDowns.global().isPending(context)) {
+            getLog().info("Waiting for the environment to finish being torn down in the background.");
+        }
+        DeferredTearDowns.global().whenTornDown(context).join();
+    }
+
+    private DaemonLeases getDaemonLeases() {
+        return DaemonLeases.forSession(getSessionKey());
+    }
+
+    /**
+     * @return what the environments, leases and preparations of the session are kept for. Maven hands each project a
+     * clone of the session, so it is the request the clones share rather than the session itself. Outside of a
+     * session, e.g. in tests, it is the environment manager shared by the mojos.
+     */
+    private Object getSessionKey() {
+        return session == null ? environmentManager : session.getRequest();
+    }
+
+    private Set<String> findTearDownProjects() {
+        Set<String> tearDownProjects = new HashSet<>();
+
+        for (MavenProject reactorProject : session.getProjects()) {
+            Plugin buildPlugin = reactorProject.getPlugin(plugin.getPluginLookupKey());
+
+            if (buildPlugin != null) {
+                for (PluginExecution execution : buildPlugin.getExecutions()) {
+                    if (execution.getGoals().contains(EnvironmentTearDownMojo.GOAL)) {
+                        tearDownProjects.add(reactorProject.getId());
+                    }
+                }
+            }
+        }
+        return tearDownProjects;
+    }
+
     public EnvironmentBuilderContext getEnvironmentBuilderContext() {
-        return new EnvironmentBuilderContext(host, useDocker);
+        return EnvironmentBuilderContext.builder(host, useDocker)
+                .namespace(Namespace.of(namespace))
+                .reuseContainers(reuseContainers)
+                .imageCacheBudget(imageCacheBudget)
+                .build();
+    }
+
+    // Used for testing
+    public void setSession(MavenSession session) {
+        this.session = session;
+    }
+
+    // Used for testing
+    public void setProject(MavenProject project) {
+        this.project = project;
+    }
+
+    // Used for testing
+    public void setPlugin(PluginDescriptor plugin) {
+        this.plugin = plugin;
     }
 
     public void setUseDocker(boolean useDocker) {
@@ -63,6 +358,18 @@ public abstract class AbstractEnvironmentBuilderMojo extends AbstractMojo {
         this.host = host;
     }
 
+    public void setNamespace(String namespace) {
+        this.namespace = namespace;
+    }
+
+    public void setReuseContainers(boolean reuseContainers) {
+        this.reuseContainers = reuseContainers;
+    }
+
+    public void setImageCacheBudget(long imageCacheBudget) {
+        this.imageCacheBudget = imageCacheBudget;
+    }
+
     public void setSkip(boolean skip) {
         this.skip = skip;
     }
@@ -71,7 +378,39 @@ public abstract class AbstractEnvironmentBuilderMojo extends AbstractMojo {
         this.skipTearDown = skipTearDown;
     }
 
+    public void setMaxParallelBuilds(int maxParallelBuilds) {
+        this.maxParallelBuilds = maxParallelBuilds;
+    }
+
+    public void setMetricsFile(File metricsFile) {
+        this.metricsFile = metricsFile;
+    }
+
+    public void setTraceFile(File traceFile) {
+        this.traceFile = traceFile;
+    }
+
+    public void setThreads(String threads) {
+        this.threads = threads;
+    }
+
+    public void setUseDaemon(boolean useDaemon) {
+        this.useDaemon = useDaemon;
+    }
+
+    public void setDaemonPort(int daemonPort) {
+        this.daemonPort = daemonPort;
+    }
+
+    public int getDaemonPort() {
+        return daemonPort;
+    }
+
     public boolean isSkipTearDown() {
         return skipTearDown;
     }
+
+    public boolean isUseDaemon() {
+        return useDaemon;
+    }
 }
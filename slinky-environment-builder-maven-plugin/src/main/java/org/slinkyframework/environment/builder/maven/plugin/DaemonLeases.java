@@ -0,0 +1,46 @@
+package org.slinkyframework.environment.builder.maven.plugin;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.daemon.DaemonClient;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The environments of a single Maven session leased from the environment daemon, each held from the setup goal until
+ * the teardown goal releases it.
+ *
+ * All methods are safe to call from the parallel module builds of <code>mvn -T</code>.
+ */
+public class DaemonLeases {
+
+    private static final Map<Object, DaemonLeases> SESSIONS = new WeakHashMap<>();
+
+    private final Map<EnvironmentBuilderContext, DaemonClient.Lease> leases = new ConcurrentHashMap<>();
+
+    /**
+     * @return the leases of the session, created on first use. The session is only weakly referenced so the leases
+     * are forgotten along with it.
+     */
+    public static DaemonLeases forSession(Object session) {
+        synchronized (SESSIONS) {
+            return SESSIONS.computeIfAbsent(session, key -> new DaemonLeases());
+        }
+    }
+
+    public void add(EnvironmentBuilderContext context, DaemonClient.Lease lease) {
+        leases.put(context, lease);
+    }
+
+    public boolean isLeased(EnvironmentBuilderContext context) {
+        return leases.containsKey(context);
+    }
+
+    /**
+     * @return the lease of the environment, or null when it was not leased
+     */
+    public DaemonClient.Lease remove(EnvironmentBuilderContext context) {
+        return leases.remove(context);
+    }
+}
@@ -0,0 +1,110 @@
+package org.slinkyframework.environment.builder.maven.plugin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Tear downs left running in the background while the build carries on. A shutdown hook waits for them to finish
+ * before the JVM exits, so the environment is still torn down when the build finishes first.
+ *
+ * Setting up an environment waits for any tear down of it that is still running, so that the tear down does not
+ * remove what has just been set up.
+ */
+public class DeferredTearDowns {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DeferredTearDowns.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MINUTES = 10;
+    private static final DeferredTearDowns GLOBAL = new DeferredTearDowns();
+
+    private final Map<EnvironmentBuilderContext, CompletableFuture<Void>> pending = new ConcurrentHashMap<>();
+    private boolean shutdownHookAdded;
+
+    /**
+     * @return the tear downs of this JVM, waited for when it shuts down
+     */
+    public static DeferredTearDowns global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Starts tearing down the environment, after any earlier tear down of it has finished.
+     *
+     * @return completes once the tear down has finished, whether or not it succeeded
+     */
+    public CompletableFuture<Void> defer(EnvironmentBuilderContext context, Supplier<CompletableFuture<Void>> tearDown) {
+        addShutdownHook();
+
+        CompletableFuture<Void> future = pending.compute(context, (key, previous) -> previous == null
+                ? tearDown.get()
+                : previous.handle((result, failure) -> null).thenCompose(ignored -> tearDown.get()));
+
+        future.whenComplete((result, failure) -> {
+            pending.remove(context, future);
+
+            if (failure != null) {
+                LOG.error("Unable to tear down the environment for {} in the background", context, failure);
+            }
+        });
+        return future.handle((result, failure) -> null);
+    }
+
+    public boolean isPending(EnvironmentBuilderContext context) {
+        return pending.containsKey(context);
+    }
+
+    /**
+     * @return completes once the tear down of the environment has finished, whether or not it succeeded. Failures
+     * have already been logged.
+     */
+    public CompletableFuture<Void> whenTornDown(EnvironmentBuilderContext context) {
+        CompletableFuture<Void> future = pending.get(context);
+        return future == null ? CompletableFuture.completedFuture(null) : future.handle((result, failure) -> null);
+    }
+
+    /**
+     * Waits for every tear down still running, giving up on those that have not finished in time.
+     */
+    public void awaitAll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        List<CompletableFuture<Void>> futures = new ArrayList<>(pending.values());
+
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                // Logged when the tear down failed
+            } catch (TimeoutException e) {
+                LOG.error("Gave up waiting for the environment to be torn down in the background after {} {}", timeout, unit);
+                return;
+            }
+        }
+    }
+
+    private synchronized void addShutdownHook() {
+        if (!shutdownHookAdded) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                if (!pending.isEmpty()) {
+                    LOG.info("Waiting for the environment to be torn down in the background");
+                    try {
+                        awaitAll(SHUTDOWN_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            }, "environment-teardown-shutdown"));
+            shutdownHookAdded = true;
+        }
+    }
+}
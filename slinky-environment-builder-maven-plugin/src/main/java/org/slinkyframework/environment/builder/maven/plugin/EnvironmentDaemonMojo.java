@@ -0,0 +1,66 @@
+package org.slinkyframework.environment.builder.maven.plugin;
+
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.daemon.EnvironmentDaemon;
+import org.slinkyframework.environment.builder.daemon.EnvironmentPool;
+
+/**
+ * Runs the environment daemon in the foreground until stopped, keeping environments set up for builds run with
+ * -Denv.daemon=true to lease. The environments are torn down when the daemon stops.
+ */
+@Mojo(name = "daemon", requiresProject = false, threadSafe = true)
+public class EnvironmentDaemonMojo extends AbstractEnvironmentBuilderMojo {
+
+    @Parameter(property = "env.daemon.memoryBudget", defaultValue = "4096", readonly = true)
+    private long memoryBudget;
+
+    @Parameter(property = "env.daemon.environmentMemory", defaultValue = "1024", readonly = true)
+    private long environmentMemory;
+
+    public EnvironmentDaemonMojo() {
+        super();
+    }
+
+    public EnvironmentDaemonMojo(EnvironmentManager environmentManager) {
+        super(environmentManager);
+    }
+
+    public void setMemoryBudget(long memoryBudget) {
+        this.memoryBudget = memoryBudget;
+    }
+
+    public void setEnvironmentMemory(long environmentMemory) {
+        this.environmentMemory = environmentMemory;
+    }
+
+    @Override
+    void performBuild() {
+        EnvironmentPool pool = new EnvironmentPool(getEnvironmentManager(), memoryBudget, environmentMemory);
+        EnvironmentDaemon daemon = new EnvironmentDaemon(pool, getDaemonPort());
+
+        Thread shutdownHook = new Thread(() -> {
+            daemon.close();
+            pool.close();
+        }, "environment-daemon-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        try {
+            pool.prepare(getEnvironmentBuilderContext());
+            daemon.start();
+
+            getLog().info("Environment daemon listening on port " + daemon.getPort() + ". Press Ctrl-C to stop it.");
+            daemon.awaitStop();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EnvironmentBuilderException("Environment daemon interrupted", e);
+        } finally {
+            if (Runtime.getRuntime().removeShutdownHook(shutdownHook)) {
+                shutdownHook.run();
+            }
+        }
+    }
+}
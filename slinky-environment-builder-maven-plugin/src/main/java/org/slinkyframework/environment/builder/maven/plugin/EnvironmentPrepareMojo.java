@@ -0,0 +1,67 @@
+package org.slinkyframework.environment.builder.maven.plugin;
+
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+
+/**
+ * Starts the slow parts of setting up the environment, such as pulling images and starting containers, in the
+ * background early in the build, so that they overlap with compiling and unit testing. The setup goal then waits for
+ * them to finish and completes the set up.
+ */
+@Mojo(name = "prepare", defaultPhase = LifecyclePhase.INITIALIZE, threadSafe = true)
+public class EnvironmentPrepareMojo extends AbstractEnvironmentBuilderMojo {
+
+    @Parameter(property = "env.skipSetup", defaultValue = "false", readonly = true)
+    private boolean skipSetUp;
+
+    @Parameter(property = "env.incremental", defaultValue = "false", readonly = true)
+    private boolean incremental;
+
+    public EnvironmentPrepareMojo() {
+        super();
+    }
+
+    public EnvironmentPrepareMojo(EnvironmentManager environmentManager) {
+        super(environmentManager);
+    }
+
+    public EnvironmentPrepareMojo(ReactorEnvironments reactorEnvironments, String projectId) {
+        super(reactorEnvironments, projectId);
+    }
+
+    public void setSkipSetUp(boolean skipSetUp) {
+        this.skipSetUp = skipSetUp;
+    }
+
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    @Override
+    protected boolean isPrefetching() {
+        return !skipSetUp && !isUseDaemon();
+    }
+
+    @Override
+    void performBuild() {
+        if (skipSetUp || incremental || isUseDaemon()) {
+            getLog().info("Environment is not prepared in the background when set up is skipped, incremental or leased from the environment daemon.");
+            return;
+        }
+
+        EnvironmentManager environmentManager = getEnvironmentManager();
+        environmentManager.prefetch(getEnvironmentBuilderContext());
+
+        boolean started = prepareInBackground(context -> DeferredTearDowns.global().whenTornDown(context).thenCompose(tornDown -> isSkipTearDown()
+                ? environmentManager.prepareAsync(context)
+                : environmentManager.tearDownAsync(context).thenCompose(ignored -> environmentManager.prepareAsync(context))));
+
+        if (started) {
+            getLog().info("Preparing environment in the background.");
+        } else {
+            getLog().info("Environment is already being prepared by an earlier module in this build.");
+        }
+    }
+}
@@ -3,14 +3,18 @@ package org.slinkyframework.environment.builder.maven.plugin;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
 import org.slinkyframework.environment.builder.EnvironmentManager;
 
-@Mojo(name = "setup", defaultPhase = LifecyclePhase.PRE_INTEGRATION_TEST, inheritByDefault = true)
+@Mojo(name = "setup", defaultPhase = LifecyclePhase.PRE_INTEGRATION_TEST, inheritByDefault = true, threadSafe = true)
 public class EnvironmentSetUpMojo extends AbstractEnvironmentBuilderMojo {
 
     @Parameter(property = "env.skipSetup", defaultValue = "false", readonly = true)
     private boolean skipSetUp;
 
+    @Parameter(property = "env.incremental", defaultValue = "false", readonly = true)
+    private boolean incremental;
+
     public EnvironmentSetUpMojo() {
         super();
     }
@@ -19,12 +23,63 @@ public class EnvironmentSetUpMojo extends AbstractEnvironmentBuilderMojo {
         super(environmentManager);
     }
 
+    public EnvironmentSetUpMojo(ReactorEnvironments reactorEnvironments, String projectId) {
+        super(reactorEnvironments, projectId);
+    }
+
     public void setSkipSetUp(boolean skipSetUp) {
         this.skipSetUp = skipSetUp;
     }
 
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    @Override
+    protected boolean isPrefetching() {
+        return !skipSetUp && !isUseDaemon();
+    }
+
     @Override
     void performBuild() {
+        boolean builtNow = setUpOncePerReactor(this::tearDownAndSetUp);
+
+        if (!builtNow) {
+            getLog().info("Environment has already been set up by an earlier module in this build.");
+        }
+    }
+
+    private void tearDownAndSetUp(EnvironmentBuilderContext context) {
+        if (isPrefetching()) {
+            // Images are pulled while the previous environment is torn down
+            getEnvironmentManager().prefetch(context);
+        }
+        awaitDeferredTearDown(context);
+
+        if (!skipSetUp && leaseFromDaemon(context)) {
+            getLog().info("Environment leased from the environment daemon.");
+            return;
+        }
+
+        if (!incremental && !skipSetUp && awaitPreparation(context)) {
+            getLog().warn("******************************");
+            getLog().warn("** Setting up environment   **");
+            getLog().warn("******************************");
+
+            getLog().info("Environment was prepared in the background. Finishing set up.");
+            getEnvironmentManager().setUp(context);
+            return;
+        }
+
+        if (incremental && !skipSetUp) {
+            getLog().warn("*******************************************");
+            getLog().warn("** Setting up environment incrementally  **");
+            getLog().warn("*******************************************");
+
+            getEnvironmentManager().setUpIncrementally(context);
+            return;
+        }
+
         if (isSkipTearDown()) {
             getLog().warn("************************************");
             getLog().warn("** Skipping environment tear down **");
@@ -35,7 +90,7 @@ public class EnvironmentSetUpMojo extends AbstractEnvironmentBuilderMojo {
             getLog().warn("** Tearing down environment **");
             getLog().warn("******************************");
 
-            getEnvironmentManager().tearDown(getEnvironmentBuilderContext());
+            getEnvironmentManager().tearDown(context);
         }
 
         if (skipSetUp) {
@@ -47,7 +102,7 @@ public class EnvironmentSetUpMojo extends AbstractEnvironmentBuilderMojo {
             getLog().warn("** Setting up environment   **");
             getLog().warn("******************************");
 
-            getEnvironmentManager().setUp(getEnvironmentBuilderContext());
+            getEnvironmentManager().setUp(context);
         }
     }
 }
@@ -2,11 +2,21 @@ package org.slinkyframework.environment.builder.maven.plugin;
 
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
 import org.slinkyframework.environment.builder.EnvironmentManager;
 
-@Mojo(name = "teardown", defaultPhase = LifecyclePhase.POST_INTEGRATION_TEST)
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Mojo(name = EnvironmentTearDownMojo.GOAL, defaultPhase = LifecyclePhase.POST_INTEGRATION_TEST, threadSafe = true)
 public class EnvironmentTearDownMojo extends AbstractEnvironmentBuilderMojo {
 
+    static final String GOAL = "teardown";
+
+    @Parameter(property = "env.deferTearDown", defaultValue = "false", readonly = true)
+    private boolean deferTearDown;
+
     public EnvironmentTearDownMojo() {
         super();
     }
@@ -15,19 +25,54 @@ public class EnvironmentTearDownMojo extends AbstractEnvironmentBuilderMojo {
         super(environmentManager);
     }
 
+    public EnvironmentTearDownMojo(ReactorEnvironments reactorEnvironments, String projectId) {
+        super(reactorEnvironments, projectId);
+    }
+
+    public void setDeferTearDown(boolean deferTearDown) {
+        this.deferTearDown = deferTearDown;
+    }
+
     @Override
     void performBuild() {
-        if (isSkipTearDown()) {
+        if (isLeasedFromDaemon(getEnvironmentBuilderContext())) {
+            boolean released = tearDownWhenReactorFinished(context -> {
+                getLog().info("Releasing environment to the environment daemon.");
+                releaseToDaemon(context);
+            });
+
+            if (released) {
+                closeEnvironmentManager(CompletableFuture.completedFuture(null));
+            } else {
+                getLog().info("Environment will be released once the remaining modules in the build have finished with it.");
+            }
+
+        } else if (isSkipTearDown()) {
             getLog().warn("************************************");
             getLog().warn("** Skipping environment tear down **");
             getLog().warn("************************************");
 
         } else {
-            getLog().warn("******************************");
-            getLog().warn("** Tearing down environment **");
-            getLog().warn("******************************");
+            List<CompletableFuture<Void>> deferredTearDowns = new ArrayList<>();
+            boolean tornDown = tearDownWhenReactorFinished(context -> {
+                getLog().warn("******************************");
+                getLog().warn("** Tearing down environment **");
+                getLog().warn("******************************");
+
+                if (deferTearDown) {
+                    getLog().info("Tearing down environment in the background. Maven will wait for it to finish before exiting.");
+                    deferredTearDowns.add(DeferredTearDowns.global().defer(context, () -> getEnvironmentManager().tearDownAsync(context)));
+                } else {
+                    getEnvironmentManager().tearDown(context);
+                }
+            });
 
-            getEnvironmentManager().tearDown(getEnvironmentBuilderContext());
+            if (tornDown) {
+                // The build has finished with the environment manager, so it can let go of its threads
+                closeEnvironmentManager(CompletableFuture.allOf(deferredTearDowns.toArray(new CompletableFuture<?>[0])));
+            } else {
+                getLog().info("Environment will be torn down once the remaining modules in the build have finished with it.");
+            }
         }
     }
 }
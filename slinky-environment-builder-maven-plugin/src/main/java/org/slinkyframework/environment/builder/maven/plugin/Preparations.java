@@ -0,0 +1,79 @@
+package org.slinkyframework.environment.builder.maven.plugin;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Supplier;
+
+/**
+ * The environments of a single Maven session being prepared in the background, started by the prepare goal of the
+ * first module and waited for by the setup goal.
+ *
+ * All methods are safe to call from the parallel module builds of <code>mvn -T</code>.
+ */
+public class Preparations {
+
+    private static final Map<Object, Preparations> SESSIONS = new WeakHashMap<>();
+
+    private final Map<EnvironmentBuilderContext, Preparation> preparations = new ConcurrentHashMap<>();
+
+    /**
+     * @return the preparations of the session, created on first use. The session is only weakly referenced so the
+     * preparations are forgotten along with it.
+     */
+    public static Preparations forSession(Object session) {
+        synchronized (SESSIONS) {
+            return SESSIONS.computeIfAbsent(session, key -> new Preparations());
+        }
+    }
+
+    /**
+     * Starts preparing the environment, unless it is already being prepared.
+     *
+     * @return true if preparation was started now
+     */
+    public boolean start(EnvironmentBuilderContext context, Supplier<CompletableFuture<Void>> prepare) {
+        Preparation preparation = new Preparation();
+
+        if (preparations.putIfAbsent(context, preparation) != null) {
+            return false;
+        }
+
+        try {
+            preparation.future = prepare.get();
+        } catch (RuntimeException e) {
+            preparation.future = new CompletableFuture<>();
+            preparation.future.completeExceptionally(e);
+        } finally {
+            preparation.started.countDown();
+        }
+        return true;
+    }
+
+    /**
+     * Waits for the environment to finish being prepared, then forgets the preparation.
+     *
+     * @return true if the environment has been prepared, false if it was not being prepared
+     * @throws java.util.concurrent.CompletionException if preparation failed
+     */
+    public boolean await(EnvironmentBuilderContext context) throws InterruptedException {
+        Preparation preparation = preparations.remove(context);
+
+        if (preparation == null) {
+            return false;
+        }
+
+        preparation.started.await();
+        preparation.future.join();
+        return true;
+    }
+
+    private static class Preparation {
+        private final CountDownLatch started = new CountDownLatch(1);
+        private volatile CompletableFuture<Void> future;
+    }
+}
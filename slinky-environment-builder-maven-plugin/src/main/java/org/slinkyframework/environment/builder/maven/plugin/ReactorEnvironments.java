@@ -0,0 +1,132 @@
+package org.slinkyframework.environment.builder.maven.plugin;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The environments of a single Maven session, shared by every module of the reactor.
+ *
+ * A single {@link EnvironmentManager} is created for the session so the build definitions are only discovered once.
+ * Each distinct environment is set up the first time a module asks for it and left up for the modules that follow.
+ * Tear down is deferred until every module in the reactor configured with the teardown goal has asked for it.
+ *
+ * All methods are safe to call from the parallel module builds of <code>mvn -T</code>.
+ */
+public class ReactorEnvironments {
+
+    private static final Map<Object, ReactorEnvironments> SESSIONS = new WeakHashMap<>();
+
+    private final Supplier<EnvironmentManager> environmentManagerFactory;
+    private final Set<String> tearDownProjects;
+
+    private final Map<EnvironmentBuilderContext, Environment> environments = new ConcurrentHashMap<>();
+    private final Set<String> finishedProjects = new HashSet<>();
+    private final Set<EnvironmentBuilderContext> pendingTearDowns = new LinkedHashSet<>();
+
+    private EnvironmentManager environmentManager;
+
+    public ReactorEnvironments(Supplier<EnvironmentManager> environmentManagerFactory, Set<String> tearDownProjects) {
+        this.environmentManagerFactory = environmentManagerFactory;
+        this.tearDownProjects = Collections.unmodifiableSet(new HashSet<>(tearDownProjects));
+    }
+
+    /**
+     * @param session the same for every project of the session, e.g. its execution request, as each project is given
+     *                a clone of the session itself
+     * @return the environments of the session, created on first use. The session is only weakly referenced so
+     * the environments are released along with it.
+     */
+    public static ReactorEnvironments forSession(Object session, Supplier<EnvironmentManager> environmentManagerFactory,
+                                                 Supplier<Set<String>> tearDownProjects) {
+        synchronized (SESSIONS) {
+            return SESSIONS.computeIfAbsent(session, key -> new ReactorEnvironments(environmentManagerFactory, tearDownProjects.get()));
+        }
+    }
+
+    public synchronized EnvironmentManager getEnvironmentManager() {
+        if (environmentManager == null) {
+            environmentManager = environmentManagerFactory.get();
+        }
+        return environmentManager;
+    }
+
+    /**
+     * Forgets the environment manager once the build has finished with it, so that a later goal of the session
+     * creates a new one rather than being given one that has been closed.
+     */
+    public synchronized void dropEnvironmentManager(EnvironmentManager environmentManager) {
+        if (this.environmentManager == environmentManager) {
+            this.environmentManager = null;
+        }
+    }
+
+    /**
+     * Sets the environment up unless it has already been set up during this session.
+     *
+     * @return true if the environment was set up, false if it was already up
+     */
+    public boolean setUp(EnvironmentBuilderContext context, Consumer<EnvironmentBuilderContext> setUp) {
+        Environment environment = environments.computeIfAbsent(context, key -> new Environment());
+
+        synchronized (environment) {
+            if (environment.up) {
+                return false;
+            }
+            setUp.accept(context);
+            environment.up = true;
+            return true;
+        }
+    }
+
+    /**
+     * Records that the project has finished with the environment. The environment is only torn down once every
+     * project that tears down has finished, or straight away if the project is not one of them, e.g. when the
+     * goal is run from the command line.
+     *
+     * @return true if the environment was torn down, false if tear down has been deferred
+     */
+    public boolean tearDown(EnvironmentBuilderContext context, String projectId, Consumer<EnvironmentBuilderContext> tearDown) {
+        if (!tearDownProjects.contains(projectId)) {
+            tearDownNow(context, tearDown);
+            return true;
+        }
+
+        Set<EnvironmentBuilderContext> contexts;
+        synchronized (this) {
+            finishedProjects.add(projectId);
+            pendingTearDowns.add(context);
+
+            if (!finishedProjects.containsAll(tearDownProjects)) {
+                return false;
+            }
+            contexts = new LinkedHashSet<>(pendingTearDowns);
+            pendingTearDowns.clear();
+        }
+
+        contexts.forEach(pendingContext -> tearDownNow(pendingContext, tearDown));
+        return true;
+    }
+
+    private void tearDownNow(EnvironmentBuilderContext context, Consumer<EnvironmentBuilderContext> tearDown) {
+        Environment environment = environments.computeIfAbsent(context, key -> new Environment());
+
+        synchronized (environment) {
+            tearDown.accept(context);
+            environment.up = false;
+        }
+    }
+
+    private static class Environment {
+        private boolean up;
+    }
+}
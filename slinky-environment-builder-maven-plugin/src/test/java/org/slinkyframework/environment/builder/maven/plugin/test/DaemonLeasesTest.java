@@ -0,0 +1,40 @@
+package org.slinkyframework.environment.builder.maven.plugin.test;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.daemon.DaemonClient;
+import org.slinkyframework.environment.builder.maven.plugin.DaemonLeases;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DaemonLeasesTest {
+
+    @Mock private DaemonClient.Lease mockLease;
+
+    private EnvironmentBuilderContext context = new EnvironmentBuilderContext("localhost", true);
+
+    @Test
+    public void shouldShareLeasesWithinASession() {
+        Object session = new Object();
+
+        DaemonLeases.forSession(session).add(context, mockLease);
+
+        assertThat("Leased", DaemonLeases.forSession(session).isLeased(context), is(true));
+        assertThat("Lease", DaemonLeases.forSession(session).remove(context), is(sameInstance(mockLease)));
+        assertThat("Leased", DaemonLeases.forSession(session).isLeased(context), is(false));
+    }
+
+    @Test
+    public void shouldNotShareLeasesBetweenSessions() {
+        DaemonLeases.forSession(new Object()).add(context, mockLease);
+
+        assertThat("Lease", DaemonLeases.forSession(new Object()).remove(context), is(nullValue()));
+    }
+}
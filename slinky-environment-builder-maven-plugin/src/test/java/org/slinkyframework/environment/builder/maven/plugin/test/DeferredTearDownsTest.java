@@ -0,0 +1,68 @@
+package org.slinkyframework.environment.builder.maven.plugin.test;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.maven.plugin.DeferredTearDowns;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DeferredTearDownsTest {
+
+    private static final EnvironmentBuilderContext TEST_CONTEXT = new EnvironmentBuilderContext("localhost", false);
+
+    private DeferredTearDowns testee = new DeferredTearDowns();
+
+    @Test
+    public void shouldStartSecondTearDownOnceFirstHasFinished() {
+        List<String> tearDowns = new ArrayList<>();
+        CompletableFuture<Void> first = new CompletableFuture<>();
+
+        testee.defer(TEST_CONTEXT, () -> {
+            tearDowns.add("first");
+            return first;
+        });
+        testee.defer(TEST_CONTEXT, () -> {
+            tearDowns.add("second");
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertThat("Tear downs", tearDowns, contains("first"));
+
+        first.completeExceptionally(new IllegalStateException("Container still running"));
+
+        assertThat("Tear downs", tearDowns, contains("first", "second"));
+        assertThat("Pending", testee.isPending(TEST_CONTEXT), is(false));
+    }
+
+    @Test
+    public void shouldCompleteWhenTornDownEvenIfTearDownFailed() {
+        CompletableFuture<Void> tearDown = new CompletableFuture<>();
+        testee.defer(TEST_CONTEXT, () -> tearDown);
+
+        CompletableFuture<Void> tornDown = testee.whenTornDown(TEST_CONTEXT);
+        assertThat("Torn down", tornDown.isDone(), is(false));
+
+        tearDown.completeExceptionally(new IllegalStateException("Container still running"));
+
+        assertThat("Torn down", tornDown.isDone(), is(true));
+        assertThat("Failed", tornDown.isCompletedExceptionally(), is(false));
+    }
+
+    @Test
+    public void shouldGiveUpWaitingForAllAfterTimeout() throws Exception {
+        testee.defer(TEST_CONTEXT, CompletableFuture::new);
+
+        long start = System.nanoTime();
+        testee.awaitAll(100, TimeUnit.MILLISECONDS);
+
+        assertThat("Gave up", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 5000, is(true));
+        assertThat("Pending", testee.isPending(TEST_CONTEXT), is(true));
+    }
+}
@@ -0,0 +1,97 @@
+package org.slinkyframework.environment.builder.maven.plugin.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.maven.plugin.EnvironmentPrepareMojo;
+import org.slinkyframework.environment.builder.maven.plugin.EnvironmentSetUpMojo;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EnvironmentPrepareMojoTest {
+
+    private static final boolean TEST_USE_DOCKER = true;
+
+    @Mock private EnvironmentManager mockEnvironmentManager;
+
+    private EnvironmentPrepareMojo testee;
+    private EnvironmentSetUpMojo setUpMojo;
+
+    @Before
+    public void setUp() {
+        testee = new EnvironmentPrepareMojo(mockEnvironmentManager);
+        testee.setSkipTearDown(true);
+        testee.setUseDocker(TEST_USE_DOCKER);
+
+        setUpMojo = new EnvironmentSetUpMojo(mockEnvironmentManager);
+        setUpMojo.setSkipTearDown(true);
+        setUpMojo.setUseDocker(TEST_USE_DOCKER);
+    }
+
+    @Test
+    public void shouldFinishSettingUpPreparedEnvironment() throws Exception {
+        EnvironmentBuilderContext context = givenHost("prepared-host");
+        when(mockEnvironmentManager.prepareAsync(context)).thenReturn(CompletableFuture.completedFuture(null));
+
+        testee.execute();
+        setUpMojo.execute();
+
+        verify(mockEnvironmentManager).prepareAsync(context);
+        verify(mockEnvironmentManager).setUp(context);
+    }
+
+    @Test
+    public void shouldTearDownBeforePreparing() throws Exception {
+        EnvironmentBuilderContext context = givenHost("torn-down-host");
+        when(mockEnvironmentManager.tearDownAsync(context)).thenReturn(CompletableFuture.completedFuture(null));
+        when(mockEnvironmentManager.prepareAsync(context)).thenReturn(CompletableFuture.completedFuture(null));
+        testee.setSkipTearDown(false);
+        setUpMojo.setSkipTearDown(false);
+
+        testee.execute();
+        setUpMojo.execute();
+
+        verify(mockEnvironmentManager).tearDownAsync(context);
+        verify(mockEnvironmentManager, never()).tearDown(context);
+        verify(mockEnvironmentManager).setUp(context);
+    }
+
+    @Test
+    public void shouldSetUpFromScratchWhenPreparationFails() throws Exception {
+        EnvironmentBuilderContext context = givenHost("failed-host");
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new EnvironmentBuilderException("Unable to pull image"));
+        when(mockEnvironmentManager.prepareAsync(context)).thenReturn(failed);
+
+        testee.execute();
+        setUpMojo.execute();
+
+        verify(mockEnvironmentManager).setUp(context);
+    }
+
+    @Test
+    public void shouldNotPrepareWhenSetUpIsSkipped() throws Exception {
+        givenHost("skipped-host");
+        testee.setSkipSetUp(true);
+
+        testee.execute();
+
+        verify(mockEnvironmentManager, never()).prepareAsync(new EnvironmentBuilderContext("skipped-host", TEST_USE_DOCKER));
+    }
+
+    private EnvironmentBuilderContext givenHost(String host) {
+        testee.setHost(host);
+        setUpMojo.setHost(host);
+        return new EnvironmentBuilderContext(host, TEST_USE_DOCKER);
+    }
+}
@@ -1,16 +1,31 @@
 package org.slinkyframework.environment.builder.maven.plugin.test;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
 import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.daemon.EnvironmentDaemon;
+import org.slinkyframework.environment.builder.daemon.EnvironmentPool;
 import org.slinkyframework.environment.builder.maven.plugin.EnvironmentSetUpMojo;
+import org.slinkyframework.environment.builder.maven.plugin.EnvironmentTearDownMojo;
 
+import java.io.File;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -18,8 +33,13 @@ public class EnvironmentSetUpMojoTest {
 
     private static final String TEST_HOST = "localhost";
     private static final boolean TEST_USE_DOCKER = false;
+    private static final String DAEMON_HOST = "daemon-host";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     @Mock private EnvironmentManager mockEnvironmentManager;
+    @Mock private EnvironmentManager mockDaemonEnvironmentManager;
 
     private EnvironmentSetUpMojo testee;
     private EnvironmentBuilderContext testContext = new EnvironmentBuilderContext(TEST_HOST, TEST_USE_DOCKER);
@@ -61,6 +81,25 @@ public class EnvironmentSetUpMojoTest {
         verify(mockEnvironmentManager, never()).setUp(any(EnvironmentBuilderContext.class));
     }
 
+    @Test
+    public void shouldPrefetchBeforeTearingDown() throws Exception {
+        testee.execute();
+
+        InOrder inOrder = inOrder(mockEnvironmentManager);
+        inOrder.verify(mockEnvironmentManager).prefetch(testContext);
+        inOrder.verify(mockEnvironmentManager).tearDown(testContext);
+        inOrder.verify(mockEnvironmentManager).setUp(testContext);
+    }
+
+    @Test
+    public void shouldNotPrefetchWhenSetUpIsSkipped() throws Exception {
+        testee.setSkipSetUp(true);
+
+        testee.execute();
+
+        verify(mockEnvironmentManager, never()).prefetch(any(EnvironmentBuilderContext.class));
+    }
+
     @Test
     public void shouldSkipBothTearDownAndSetUp() throws Exception {
         testee.setSkipTearDown(true);
@@ -70,4 +109,73 @@ public class EnvironmentSetUpMojoTest {
 
         verify(mockEnvironmentManager, never()).tearDown(any(EnvironmentBuilderContext.class));
         verify(mockEnvironmentManager, never()).setUp(any(EnvironmentBuilderContext.class));
-    }}
+    }
+
+    @Test
+    public void shouldSetUpIncrementallyWithoutTearingDown() throws Exception {
+        testee.setIncremental(true);
+
+        testee.execute();
+
+        verify(mockEnvironmentManager, never()).tearDown(any(EnvironmentBuilderContext.class));
+        verify(mockEnvironmentManager).setUpIncrementally(testContext);
+    }
+
+    @Test
+    public void shouldWriteMetricsAtTheEndOfTheGoal() throws Exception {
+        File metricsFile = new File(temporaryFolder.getRoot(), "target/slinky-environment-metrics.json");
+        testee.setMetricsFile(metricsFile);
+
+        testee.execute();
+
+        assertThat("Metrics", new String(Files.readAllBytes(metricsFile.toPath()), UTF_8), containsString("\"timers\": ["));
+    }
+
+    @Test
+    public void shouldWriteTraceAtTheEndOfTheGoal() throws Exception {
+        File traceFile = new File(temporaryFolder.getRoot(), "target/slinky-environment-trace.json");
+        testee.setTraceFile(traceFile);
+
+        testee.execute();
+
+        assertThat("Trace", new String(Files.readAllBytes(traceFile.toPath()), UTF_8), containsString("{\"name\": \"EnvironmentSetUpMojo\", \"cat\": \"maven\", \"ph\": \"X\""));
+    }
+
+    @Test
+    public void shouldLeaseEnvironmentFromDaemonInsteadOfSettingUp() throws Exception {
+        EnvironmentBuilderContext daemonContext = new EnvironmentBuilderContext(DAEMON_HOST, TEST_USE_DOCKER);
+
+        try (EnvironmentPool pool = new EnvironmentPool(mockDaemonEnvironmentManager, 1024, 1024);
+             EnvironmentDaemon daemon = new EnvironmentDaemon(pool, 0)) {
+            daemon.start();
+
+            testee.setHost(DAEMON_HOST);
+            testee.setUseDaemon(true);
+            testee.setDaemonPort(daemon.getPort());
+            testee.execute();
+
+            EnvironmentTearDownMojo tearDownMojo = new EnvironmentTearDownMojo(mockEnvironmentManager);
+            tearDownMojo.setHost(DAEMON_HOST);
+            tearDownMojo.setUseDocker(TEST_USE_DOCKER);
+            tearDownMojo.setSkipTearDown(true);
+            tearDownMojo.execute();
+
+            verify(mockDaemonEnvironmentManager, timeout(5000).times(2)).setUp(daemonContext);
+        }
+
+        verify(mockEnvironmentManager, never()).tearDown(any(EnvironmentBuilderContext.class));
+        verify(mockEnvironmentManager, never()).setUp(any(EnvironmentBuilderContext.class));
+    }
+
+    @Test
+    public void shouldSetUpWhenDaemonIsNotRunning() throws Exception {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            testee.setDaemonPort(socket.getLocalPort());
+        }
+        testee.setUseDaemon(true);
+
+        testee.execute();
+
+        verify(mockEnvironmentManager).setUp(testContext);
+    }
+}
@@ -1,5 +1,13 @@
 package org.slinkyframework.environment.builder.maven.plugin.test;
 
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.project.MavenProject;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -7,13 +15,31 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
 import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.Namespace;
+import org.slinkyframework.environment.builder.maven.plugin.DeferredTearDowns;
+import org.slinkyframework.environment.builder.maven.plugin.EnvironmentSetUpMojo;
 import org.slinkyframework.environment.builder.maven.plugin.EnvironmentTearDownMojo;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
 public class EnvironmentTearDownMojoTest {
 
+    private static final String DEFERRED_HOST = "deferred-host";
+    private static final String DEFERRED_CLOSE_HOST = "deferred-close-host";
+    private static final String PLUGIN_GROUP_ID = "org.slinkyframework";
+    private static final String PLUGIN_ARTIFACT_ID = "slinky-environment-builder-maven-plugin";
+
     @Mock private EnvironmentManager mockEnvironmentManager;
 
     private EnvironmentTearDownMojo testee;
@@ -33,4 +59,119 @@ public class EnvironmentTearDownMojoTest {
 
         verify(mockEnvironmentManager).tearDown(defaultTestContext);
     }
+
+    @Test
+    public void shouldCloseEnvironmentManagerOnceTornDown() throws Exception {
+
+        testee.execute();
+
+        verify(mockEnvironmentManager).close();
+    }
+
+    @Test
+    public void shouldCloseEnvironmentManagerOnceDeferredTearDownHasFinished() throws Exception {
+        EnvironmentBuilderContext deferredContext = new EnvironmentBuilderContext(DEFERRED_CLOSE_HOST, false);
+        CompletableFuture<Void> tearDown = new CompletableFuture<>();
+        when(mockEnvironmentManager.tearDownAsync(deferredContext)).thenReturn(tearDown);
+
+        testee.setHost(DEFERRED_CLOSE_HOST);
+        testee.setDeferTearDown(true);
+        testee.execute();
+
+        verify(mockEnvironmentManager, never()).close();
+
+        tearDown.complete(null);
+
+        verify(mockEnvironmentManager).close();
+    }
+
+    @Test
+    public void shouldTearDownEnvironmentInNamespace() throws Exception {
+        testee.setNamespace("build-42");
+
+        testee.execute();
+
+        verify(mockEnvironmentManager).tearDown(EnvironmentBuilderContext.builder("localhost", false).namespace(Namespace.of("build-42")).build());
+    }
+
+    @Test
+    public void shouldTearDownOnceEveryModuleOfTheReactorHasFinished() throws Exception {
+        MavenSession session = new MavenSession(null, null, new DefaultMavenExecutionRequest(), new DefaultMavenExecutionResult());
+        MavenProject moduleA = tearDownProject("module-a");
+        MavenProject moduleB = tearDownProject("module-b");
+        session.setProjects(Arrays.asList(moduleA, moduleB));
+
+        // Maven gives each project a clone of the session
+        tearDownMojo(session.clone(), moduleA).execute();
+        verify(mockEnvironmentManager, never()).tearDown(defaultTestContext);
+
+        tearDownMojo(session.clone(), moduleB).execute();
+        verify(mockEnvironmentManager).tearDown(defaultTestContext);
+    }
+
+    private EnvironmentTearDownMojo tearDownMojo(MavenSession session, MavenProject project) {
+        PluginDescriptor pluginDescriptor = new PluginDescriptor();
+        pluginDescriptor.setGroupId(PLUGIN_GROUP_ID);
+        pluginDescriptor.setArtifactId(PLUGIN_ARTIFACT_ID);
+
+        EnvironmentTearDownMojo mojo = new EnvironmentTearDownMojo(mockEnvironmentManager);
+        mojo.setHost("localhost");
+        mojo.setUseDocker(false);
+        mojo.setSession(session);
+        mojo.setProject(project);
+        mojo.setPlugin(pluginDescriptor);
+        return mojo;
+    }
+
+    private MavenProject tearDownProject(String artifactId) {
+        PluginExecution execution = new PluginExecution();
+        execution.addGoal("teardown");
+
+        Plugin plugin = new Plugin();
+        plugin.setGroupId(PLUGIN_GROUP_ID);
+        plugin.setArtifactId(PLUGIN_ARTIFACT_ID);
+        plugin.addExecution(execution);
+
+        MavenProject project = new MavenProject();
+        project.setGroupId("org.example");
+        project.setArtifactId(artifactId);
+        project.setVersion("1.0");
+        project.setBuild(new Build());
+        project.getBuild().addPlugin(plugin);
+        return project;
+    }
+
+    @Test
+    public void shouldTearDownInBackgroundAndSetUpOnceFinished() throws Exception {
+        EnvironmentBuilderContext deferredContext = new EnvironmentBuilderContext(DEFERRED_HOST, false);
+        CompletableFuture<Void> tearDown = new CompletableFuture<>();
+        when(mockEnvironmentManager.tearDownAsync(deferredContext)).thenReturn(tearDown);
+
+        testee.setHost(DEFERRED_HOST);
+        testee.setDeferTearDown(true);
+        testee.execute();
+
+        verify(mockEnvironmentManager, never()).tearDown(any(EnvironmentBuilderContext.class));
+        assertThat("Pending", DeferredTearDowns.global().isPending(deferredContext), is(true));
+
+        EnvironmentSetUpMojo setUpMojo = new EnvironmentSetUpMojo(mockEnvironmentManager);
+        setUpMojo.setHost(DEFERRED_HOST);
+        setUpMojo.setUseDocker(false);
+        setUpMojo.setSkipTearDown(true);
+        CompletableFuture<Void> setUp = CompletableFuture.runAsync(() -> {
+            try {
+                setUpMojo.execute();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        verify(mockEnvironmentManager, after(200).never()).setUp(deferredContext);
+
+        tearDown.complete(null);
+        setUp.get(5, TimeUnit.SECONDS);
+
+        verify(mockEnvironmentManager).setUp(deferredContext);
+        assertThat("Pending", DeferredTearDowns.global().isPending(deferredContext), is(false));
+    }
 }
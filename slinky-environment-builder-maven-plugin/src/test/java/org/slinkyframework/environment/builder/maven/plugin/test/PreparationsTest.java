@@ -0,0 +1,32 @@
+package org.slinkyframework.environment.builder.maven.plugin.test;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.maven.plugin.Preparations;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PreparationsTest {
+
+    private EnvironmentBuilderContext context = new EnvironmentBuilderContext("localhost", true);
+
+    @Test
+    public void shouldOnlyPrepareOnceWithinASession() throws InterruptedException {
+        Object session = new Object();
+
+        assertThat("Started", Preparations.forSession(session).start(context, () -> CompletableFuture.completedFuture(null)), is(true));
+        assertThat("Started", Preparations.forSession(session).start(context, () -> CompletableFuture.completedFuture(null)), is(false));
+        assertThat("Prepared", Preparations.forSession(session).await(context), is(true));
+        assertThat("Prepared", Preparations.forSession(session).await(context), is(false));
+    }
+
+    @Test
+    public void shouldNotSharePreparationsBetweenSessions() throws InterruptedException {
+        Preparations.forSession(new Object()).start(context, () -> CompletableFuture.completedFuture(null));
+
+        assertThat("Prepared", Preparations.forSession(new Object()).await(context), is(false));
+    }
+}
@@ -0,0 +1,163 @@
+package org.slinkyframework.environment.builder.maven.plugin.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.maven.plugin.EnvironmentSetUpMojo;
+import org.slinkyframework.environment.builder.maven.plugin.EnvironmentTearDownMojo;
+import org.slinkyframework.environment.builder.maven.plugin.ReactorEnvironments;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReactorEnvironmentsTest {
+
+    private static final String MODULE_A = "org.example:module-a:jar:1.0";
+    private static final String MODULE_B = "org.example:module-b:jar:1.0";
+    private static final String CLI = "org.example:parent:pom:1.0";
+
+    @Mock private EnvironmentManager mockEnvironmentManager;
+
+    private ReactorEnvironments testee;
+    private EnvironmentBuilderContext localContext = new EnvironmentBuilderContext("localhost", false);
+    private EnvironmentBuilderContext devContext = new EnvironmentBuilderContext("dev", true);
+
+    @Before
+    public void setUp() {
+        testee = new ReactorEnvironments(() -> mockEnvironmentManager, new HashSet<>(Arrays.asList(MODULE_A, MODULE_B)));
+    }
+
+    @Test
+    public void shouldShareEnvironmentManagerAcrossTheSession() {
+        AtomicInteger created = new AtomicInteger();
+        Object session = new Object();
+
+        ReactorEnvironments first = ReactorEnvironments.forSession(session, () -> { created.incrementAndGet(); return mockEnvironmentManager; }, HashSet::new);
+        ReactorEnvironments second = ReactorEnvironments.forSession(session, () -> { created.incrementAndGet(); return mockEnvironmentManager; }, HashSet::new);
+
+        assertThat("Reactor environments", second, sameInstance(first));
+        assertThat("Environment manager", second.getEnvironmentManager(), sameInstance(first.getEnvironmentManager()));
+        assertThat("Environment managers created", created.get(), equalTo(1));
+    }
+
+    @Test
+    public void shouldCreateNewEnvironmentManagerOnceTheReactorHasClosedTheLastOne() throws Exception {
+        EnvironmentManager nextEnvironmentManager = mock(EnvironmentManager.class);
+        Iterator<EnvironmentManager> environmentManagers = Arrays.asList(mockEnvironmentManager, nextEnvironmentManager).iterator();
+        testee = new ReactorEnvironments(environmentManagers::next, new HashSet<>(Arrays.asList(MODULE_A, MODULE_B)));
+
+        tearDownMojo(MODULE_A).execute();
+        tearDownMojo(MODULE_B).execute();
+        verify(mockEnvironmentManager).close();
+
+        assertThat("Environment manager", testee.getEnvironmentManager(), sameInstance(nextEnvironmentManager));
+        verify(nextEnvironmentManager, never()).close();
+    }
+
+    @Test
+    public void shouldSetUpEachEnvironmentOnce() throws Exception {
+        setUpMojo(MODULE_A).execute();
+        setUpMojo(MODULE_B).execute();
+
+        verify(mockEnvironmentManager, times(1)).setUp(localContext);
+    }
+
+    @Test
+    public void shouldSetUpDistinctEnvironmentsSeparately() {
+        assertThat("Set up", testee.setUp(localContext, mockEnvironmentManager::setUp), is(true));
+        assertThat("Set up", testee.setUp(devContext, mockEnvironmentManager::setUp), is(true));
+        assertThat("Set up", testee.setUp(localContext, mockEnvironmentManager::setUp), is(false));
+
+        verify(mockEnvironmentManager).setUp(localContext);
+        verify(mockEnvironmentManager).setUp(devContext);
+    }
+
+    @Test
+    public void shouldSetUpOnceWhenModulesBuildInParallel() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Callable<Boolean>> modules = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            modules.add(() -> testee.setUp(localContext, mockEnvironmentManager::setUp));
+        }
+
+        int setUps = 0;
+        for (Future<Boolean> result : executor.invokeAll(modules)) {
+            setUps += result.get() ? 1 : 0;
+        }
+        executor.shutdown();
+
+        assertThat("Set ups", setUps, equalTo(1));
+        verify(mockEnvironmentManager, times(1)).setUp(localContext);
+    }
+
+    @Test
+    public void shouldDeferTearDownUntilLastModuleHasFinished() throws Exception {
+        testee.setUp(localContext, mockEnvironmentManager::setUp);
+
+        tearDownMojo(MODULE_A).execute();
+        verify(mockEnvironmentManager, never()).tearDown(localContext);
+
+        tearDownMojo(MODULE_B).execute();
+        verify(mockEnvironmentManager).tearDown(localContext);
+    }
+
+    @Test
+    public void shouldTearDownEveryEnvironmentUsedByTheReactor() {
+        testee.tearDown(localContext, MODULE_A, mockEnvironmentManager::tearDown);
+        testee.tearDown(devContext, MODULE_B, mockEnvironmentManager::tearDown);
+
+        verify(mockEnvironmentManager).tearDown(localContext);
+        verify(mockEnvironmentManager).tearDown(devContext);
+    }
+
+    @Test
+    public void shouldTearDownImmediatelyWhenNotPartOfTheReactorTearDown() {
+        assertThat("Torn down", testee.tearDown(localContext, CLI, mockEnvironmentManager::tearDown), is(true));
+
+        verify(mockEnvironmentManager).tearDown(localContext);
+    }
+
+    @Test
+    public void shouldSetUpAgainAfterTearDown() {
+        testee.setUp(localContext, mockEnvironmentManager::setUp);
+        testee.tearDown(localContext, CLI, mockEnvironmentManager::tearDown);
+        testee.setUp(localContext, mockEnvironmentManager::setUp);
+
+        verify(mockEnvironmentManager, times(2)).setUp(localContext);
+    }
+
+    private EnvironmentSetUpMojo setUpMojo(String projectId) {
+        EnvironmentSetUpMojo mojo = new EnvironmentSetUpMojo(testee, projectId);
+        mojo.setHost("localhost");
+        mojo.setSkipTearDown(true);
+        return mojo;
+    }
+
+    private EnvironmentTearDownMojo tearDownMojo(String projectId) {
+        EnvironmentTearDownMojo mojo = new EnvironmentTearDownMojo(testee, projectId);
+        mojo.setHost("localhost");
+        return mojo;
+    }
+}
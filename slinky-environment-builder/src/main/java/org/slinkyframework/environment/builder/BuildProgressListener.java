@@ -0,0 +1,21 @@
+package org.slinkyframework.environment.builder;
+
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+
+/**
+ * Told as each build definition is set up or torn down. Independent build definitions are built at the same time,
+ * so the methods may be called concurrently from different threads.
+ */
+public interface BuildProgressListener {
+
+    BuildProgressListener NONE = new BuildProgressListener() {};
+
+    default void onStarted(BuildDefinition definition) {
+    }
+
+    default void onCompleted(BuildDefinition definition, long durationMillis) {
+    }
+
+    default void onFailed(BuildDefinition definition, Throwable cause) {
+    }
+}
@@ -8,4 +8,43 @@ public interface EnvironmentBuilder<T extends BuildDefinition> {
     void setUp(Set<T> buildDefinitions);
     void tearDown(Set<T> buildDefinitions);
     void cleanUp();
+
+    /**
+     * Starts the slow parts of set up that do not need anything else to have been built, such as pulling an image
+     * and starting a container, so that there is less left for {@link #setUp(Set)} to do. Called with all of the
+     * builder's build definitions before any of them are set up. Set up must still work when it has not been called.
+     */
+    default void prepare(Set<T> buildDefinitions) {
+    }
+
+    /**
+     * Starts fetching what set up will need, such as images, in the background without changing the environment.
+     * Called as soon as the environment is known to be needed, so must return straight away.
+     */
+    default void prefetch(Set<T> buildDefinitions) {
+    }
+
+    /**
+     * A fingerprint of the builder's own configuration, such as the Docker image it uses. A change to it causes
+     * the build definitions to be set up again by an incremental set up.
+     */
+    default String getFingerprint() {
+        return "";
+    }
+
+    /**
+     * Whether the build definitions set up previously are still in place, e.g. that the database is running and
+     * the users exist. Builders that cannot tell return false so their build definitions are always set up again.
+     */
+    default boolean isHealthy(Set<T> buildDefinitions) {
+        return false;
+    }
+
+    /**
+     * Whether tearing down any of the builder's build definitions also tears down the rest, e.g. because they share
+     * a container. An incremental set up then sets up all of them again when any one of them changes.
+     */
+    default boolean isSharedEnvironment() {
+        return false;
+    }
 }
@@ -9,10 +9,27 @@ public class EnvironmentBuilderContext {
 
     private final String targetHost;
     private final boolean useDocker;
+    private final Namespace namespace;
+    private final boolean reuseContainers;
+    private final long imageCacheBudget;
 
     public EnvironmentBuilderContext(String targetHost, boolean useDocker) {
-        this.targetHost = targetHost;
-        this.useDocker = useDocker;
+        this(builder(targetHost, useDocker));
+    }
+
+    private EnvironmentBuilderContext(Builder builder) {
+        this.targetHost = builder.targetHost;
+        this.useDocker = builder.useDocker;
+        this.namespace = builder.namespace;
+        this.reuseContainers = builder.reuseContainers;
+        this.imageCacheBudget = builder.imageCacheBudget;
+    }
+
+    /**
+     * @return a builder for a context with the options that are not given left at their defaults
+     */
+    public static Builder builder(String targetHost, boolean useDocker) {
+        return new Builder(targetHost, useDocker);
     }
 
     public String getTargetHost() {
@@ -23,18 +40,89 @@ public class EnvironmentBuilderContext {
         return useDocker;
     }
 
+    public Namespace getNamespace() {
+        return namespace;
+    }
+
+    public boolean isReuseContainers() {
+        return reuseContainers;
+    }
+
+    public long getImageCacheBudget() {
+        return imageCacheBudget;
+    }
+
     @Override
     public boolean equals(Object o) {
-        return EqualsBuilder.reflectionEquals(this, o);
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EnvironmentBuilderContext that = (EnvironmentBuilderContext) o;
+
+        return new EqualsBuilder()
+                .append(targetHost, that.targetHost)
+                .append(useDocker, that.useDocker)
+                .append(namespace, that.namespace)
+                .append(reuseContainers, that.reuseContainers)
+                .append(imageCacheBudget, that.imageCacheBudget)
+                .isEquals();
     }
 
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this);
+        return new HashCodeBuilder()
+                .append(targetHost)
+                .append(useDocker)
+                .append(namespace)
+                .append(reuseContainers)
+                .append(imageCacheBudget)
+                .toHashCode();
     }
 
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this, ToStringStyle.SIMPLE_STYLE);
     }
+
+    public static class Builder {
+
+        private final String targetHost;
+        private final boolean useDocker;
+        private Namespace namespace = Namespace.NONE;
+        private boolean reuseContainers;
+        private long imageCacheBudget;
+
+        private Builder(String targetHost, boolean useDocker) {
+            this.targetHost = targetHost;
+            this.useDocker = useDocker;
+        }
+
+        public Builder namespace(Namespace namespace) {
+            this.namespace = namespace;
+            return this;
+        }
+
+        /**
+         * @param reuseContainers whether Docker containers created with the same configuration are kept between builds
+         */
+        public Builder reuseContainers(boolean reuseContainers) {
+            this.reuseContainers = reuseContainers;
+            return this;
+        }
+
+        /**
+         * @param imageCacheBudget the MB of disk that images of set up Docker containers may take up, 0 to not cache them
+         */
+        public Builder imageCacheBudget(long imageCacheBudget) {
+            this.imageCacheBudget = imageCacheBudget;
+            return this;
+        }
+
+        public EnvironmentBuilderContext build() {
+            return new EnvironmentBuilderContext(this);
+        }
+    }
 }
@@ -1,6 +1,69 @@
 package org.slinkyframework.environment.builder;
 
-public interface EnvironmentManager {
+import java.util.concurrent.CompletableFuture;
+
+public interface EnvironmentManager extends AutoCloseable {
     void setUp(EnvironmentBuilderContext context);
     void tearDown(EnvironmentBuilderContext context);
+
+    /**
+     * Starts setting up the environment and returns straight away, so that the caller can get on with other work.
+     * The future completes once every build definition has been set up, or fails with the
+     * {@link EnvironmentBuilderException} that {@link #setUp(EnvironmentBuilderContext)} would have thrown as its cause.
+     */
+    CompletableFuture<Void> setUpAsync(EnvironmentBuilderContext context, BuildProgressListener listener);
+
+    /**
+     * Starts tearing down the environment and returns straight away.
+     *
+     * @see #setUpAsync(EnvironmentBuilderContext, BuildProgressListener)
+     */
+    CompletableFuture<Void> tearDownAsync(EnvironmentBuilderContext context, BuildProgressListener listener);
+
+    default CompletableFuture<Void> setUpAsync(EnvironmentBuilderContext context) {
+        return setUpAsync(context, BuildProgressListener.NONE);
+    }
+
+    default CompletableFuture<Void> tearDownAsync(EnvironmentBuilderContext context) {
+        return tearDownAsync(context, BuildProgressListener.NONE);
+    }
+
+    /**
+     * Starts preparing the environment, see {@link EnvironmentBuilder#prepare(java.util.Set)}, and returns straight
+     * away. Each environment builder is prepared in parallel. A later set up with the same context finishes the job.
+     */
+    CompletableFuture<Void> prepareAsync(EnvironmentBuilderContext context);
+
+    /**
+     * Starts fetching what the environment will need, see {@link EnvironmentBuilder#prefetch(java.util.Set)}, and
+     * returns straight away.
+     */
+    void prefetch(EnvironmentBuilderContext context);
+
+    /**
+     * Sets up only the build definitions that have been added or changed since the environment was last set up,
+     * or whose part of the environment is no longer healthy, along with everything built after them.
+     */
+    void setUpIncrementally(EnvironmentBuilderContext context);
+
+    /**
+     * Starts setting up the environment incrementally and returns straight away.
+     *
+     * @see #setUpIncrementally(EnvironmentBuilderContext)
+     * @see #setUpAsync(EnvironmentBuilderContext, BuildProgressListener)
+     */
+    CompletableFuture<Void> setUpIncrementallyAsync(EnvironmentBuilderContext context);
+
+    /**
+     * A fingerprint of everything that would be set up for the context. Environments with the same fingerprint are
+     * interchangeable, so one set up earlier can be used in place of setting up another.
+     */
+    String getFingerprint(EnvironmentBuilderContext context);
+
+    /**
+     * Stops taking on asynchronous work once the environment manager is no longer needed. Work already started is
+     * left to finish.
+     */
+    @Override
+    void close();
 }
@@ -4,66 +4,390 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slinkyframework.environment.builder.definition.BuildDefinition;
 import org.slinkyframework.environment.builder.definition.BuildDefinitionCollector;
-import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
 import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactoryCollector;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderRegistry;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.Timer;
+import org.slinkyframework.environment.builder.metrics.TraceRecorder;
+import org.slinkyframework.environment.builder.scheduler.BuildDurations;
+import org.slinkyframework.environment.builder.scheduler.BuildPlan;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler.FailurePolicy;
+import org.slinkyframework.environment.builder.scheduler.ExecutionMode;
+import org.slinkyframework.environment.builder.state.EnvironmentState;
+import org.slinkyframework.environment.builder.state.EnvironmentStateStore;
+import org.slinkyframework.environment.builder.state.Fingerprint;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class EnvironmentManagerImpl implements EnvironmentManager {
 
     private static final Logger LOG = LoggerFactory.getLogger(EnvironmentManagerImpl.class);
 
+    private static final File BUILD_DURATIONS_FILE = new File(System.getProperty("user.home"), ".slinky/build-durations.properties");
+    private static final File ENVIRONMENT_STATE_DIRECTORY = new File(System.getProperty("user.home"), ".slinky/state");
+
     private BuildDefinitionCollector buildDefinitionCollector;
     private EnvironmentBuilderFactoryCollector environmentBuilderFactoryCollector;
+    private BuildScheduler buildScheduler;
+    private EnvironmentStateStore environmentStateStore;
     private Map<Class, Set<BuildDefinition>> buildDefinitions;
-    private List<EnvironmentBuilderFactory> environmentBuilderFactories;
+    private EnvironmentBuilderRegistry environmentBuilderRegistry;
+    private final ExecutorService asyncExecutor = Executors.newCachedThreadPool(new AsyncThreadFactory());
 
     public EnvironmentManagerImpl() {
-        this(new BuildDefinitionCollector(), new EnvironmentBuilderFactoryCollector());
+        this(BuildScheduler.DEFAULT_MAX_PARALLEL_BUILDS);
+    }
+
+    public EnvironmentManagerImpl(int maxParallelBuilds) {
+        this(maxParallelBuilds, ExecutionMode.fromSystemProperty());
+    }
+
+    public EnvironmentManagerImpl(int maxParallelBuilds, ExecutionMode executionMode) {
+        this(new BuildDefinitionCollector(), new EnvironmentBuilderFactoryCollector(),
+                new BuildScheduler(maxParallelBuilds, BuildDurations.load(BUILD_DURATIONS_FILE), executionMode),
+                EnvironmentStateStore.inDirectory(ENVIRONMENT_STATE_DIRECTORY));
     }
 
     public EnvironmentManagerImpl(BuildDefinitionCollector buildDefinitionCollector, EnvironmentBuilderFactoryCollector environmentBuilderFactoryCollector) {
+        this(buildDefinitionCollector, environmentBuilderFactoryCollector, new BuildScheduler());
+    }
+
+    public EnvironmentManagerImpl(BuildDefinitionCollector buildDefinitionCollector, EnvironmentBuilderFactoryCollector environmentBuilderFactoryCollector,
+                                  BuildScheduler buildScheduler) {
+        this(buildDefinitionCollector, environmentBuilderFactoryCollector, buildScheduler, EnvironmentStateStore.inMemory());
+    }
+
+    public EnvironmentManagerImpl(BuildDefinitionCollector buildDefinitionCollector, EnvironmentBuilderFactoryCollector environmentBuilderFactoryCollector,
+                                  BuildScheduler buildScheduler, EnvironmentStateStore environmentStateStore) {
         this.buildDefinitionCollector = buildDefinitionCollector;
         this.environmentBuilderFactoryCollector = environmentBuilderFactoryCollector;
+        this.buildScheduler = buildScheduler;
+        this.environmentStateStore = environmentStateStore;
 
         buildDefinitions = buildDefinitionCollector.findBuildDefinitions();
-        environmentBuilderFactories = environmentBuilderFactoryCollector.findEnvironmentBuilderFactories();
+        environmentBuilderRegistry = new EnvironmentBuilderRegistry(environmentBuilderFactoryCollector.findEnvironmentBuilderFactories());
     }
 
     @Override
     public void setUp(EnvironmentBuilderContext context) {
-        buildDefinitions.forEach((buildDefinitionClass, buildDefinitions) -> setUpEnvironment(context, buildDefinitionClass, buildDefinitions));
+        setUp(context, BuildProgressListener.NONE);
+    }
+
+    @Override
+    public CompletableFuture<Void> setUpAsync(EnvironmentBuilderContext context, BuildProgressListener listener) {
+        return CompletableFuture.runAsync(() -> setUp(context, listener), asyncExecutor);
+    }
+
+    @Override
+    public CompletableFuture<Void> prepareAsync(EnvironmentBuilderContext context) {
+        Map<Class, Optional<EnvironmentBuilder>> environmentBuilders = findEnvironmentBuilders(context);
+        List<CompletableFuture<Void>> preparations = new ArrayList<>();
+
+        buildDefinitions.forEach((buildDefinitionClass, definitions) ->
+                environmentBuilders.get(buildDefinitionClass).ifPresent(environmentBuilder ->
+                        preparations.add(CompletableFuture.runAsync(() -> prepareEnvironment(environmentBuilder, definitions), asyncExecutor))));
+
+        return CompletableFuture.allOf(preparations.toArray(new CompletableFuture[0]));
+    }
+
+    @Override
+    public void prefetch(EnvironmentBuilderContext context) {
+        Map<Class, Optional<EnvironmentBuilder>> environmentBuilders = findEnvironmentBuilders(context);
+
+        buildDefinitions.forEach((buildDefinitionClass, definitions) ->
+                environmentBuilders.get(buildDefinitionClass).ifPresent(environmentBuilder -> environmentBuilder.prefetch(definitions)));
+    }
+
+    private void prepareEnvironment(EnvironmentBuilder environmentBuilder, Set<BuildDefinition> definitions) {
+        String builderName = environmentBuilder.getClass().getSimpleName();
+        MetricTags tags = MetricTags.of(MetricTags.BUILDER, builderName);
+
+        tags.runWith(() -> {
+            try (Timer.Context ignored = MetricsRegistry.global().timer("environment.prepare").start("prepare " + builderName)) {
+                environmentBuilder.prepare(definitions);
+            }
+        });
+    }
+
+    private void setUp(EnvironmentBuilderContext context, BuildProgressListener listener) {
+        try (TraceRecorder.Span ignored = TraceRecorder.global().span("setUp " + context, "environment", MetricTags.NONE)) {
+            Map<Class, Optional<EnvironmentBuilder>> environmentBuilders = findEnvironmentBuilders(context);
+            EnvironmentState state = environmentStateStore.get(context);
+            BuildPlan plan = createBuildPlan();
+
+            state.clear();
+            setUp(plan, environmentBuilders, fingerprint(plan, environmentBuilders), state, listener);
+        }
+    }
+
+    @Override
+    public void setUpIncrementally(EnvironmentBuilderContext context) {
+        Map<Class, Optional<EnvironmentBuilder>> environmentBuilders = findEnvironmentBuilders(context);
+        EnvironmentState state = environmentStateStore.get(context);
+        BuildPlan plan = createBuildPlan();
+
+        Set<String> removed = new TreeSet<>(state.getKeys());
+        plan.getDefinitions().forEach(definition -> removed.remove(EnvironmentState.key(definition)));
+
+        if (!removed.isEmpty()) {
+            LOG.info("Build definitions {} have been removed. Setting up the whole environment.", removed);
+            tearDownRemoved(context, removed, state);
+            tearDown(context);
+            setUp(context);
+            return;
+        }
+
+        Map<BuildDefinition, String> fingerprints = fingerprint(plan, environmentBuilders);
+        Set<BuildDefinition> changed = findChangedDefinitions(plan, environmentBuilders, fingerprints, state);
+        Set<BuildDefinition> affected = plan.getDefinitionsAffectedBy(changed);
+
+        if (affected.isEmpty()) {
+            LOG.info("Environment is up to date. Nothing to set up.");
+            return;
+        }
+
+        LOG.info("Setting up {} of {} build definitions", affected.size(), plan.getDefinitions().size());
+
+        BuildPlan changedPlan = plan.restrictTo(affected);
+        affected.forEach(state::forget);
+
+        buildScheduler.execute(changedPlan.reverse(), buildDefinition -> tearDownEnvironment(environmentBuilders, buildDefinition), FailurePolicy.CONTINUE);
+        setUp(changedPlan, environmentBuilders, fingerprints, state, BuildProgressListener.NONE);
+    }
+
+    /**
+     * Tears down the build definitions that have been removed since the environment was set up, lowest priority
+     * first, as recorded in its state. A definition that was not recorded is left for the builder to clean up.
+     */
+    private void tearDownRemoved(EnvironmentBuilderContext context, Set<String> removed, EnvironmentState state) {
+        List<BuildDefinition> removedDefinitions = new ArrayList<>();
+
+        for (String key : removed) {
+            Optional<BuildDefinition> definition = state.getDefinition(key);
+
+            if (definition.isPresent()) {
+                removedDefinitions.add(definition.get());
+            } else {
+                LOG.warn("Unable to tear down removed build definition '{}' as it was not recorded", key);
+            }
+        }
+        removedDefinitions.sort(Comparator.comparingInt((BuildDefinition definition) -> definition.getPriority().getPriority()).reversed());
+
+        Map<Class, Optional<EnvironmentBuilder>> environmentBuilders = new HashMap<>();
+        for (BuildDefinition definition : removedDefinitions) {
+            environmentBuilders.computeIfAbsent(definition.getClass(), buildDefinitionClass -> findEnvironmentBuilder(context, buildDefinitionClass));
+
+            try {
+                tearDownEnvironment(environmentBuilders, definition);
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to tear down removed build definition '{}'", definition.getName(), e);
+            }
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> setUpIncrementallyAsync(EnvironmentBuilderContext context) {
+        return CompletableFuture.runAsync(() -> setUpIncrementally(context), asyncExecutor);
     }
 
-    private void setUpEnvironment(EnvironmentBuilderContext context, Class buildDefinitionClass, Set<BuildDefinition> buildDefinitions) {
-        Optional<EnvironmentBuilder> environmentBuilder = findEnvironmentBuilder(context, buildDefinitionClass);
+    @Override
+    public String getFingerprint(EnvironmentBuilderContext context) {
+        Map<BuildDefinition, String> fingerprints = fingerprint(createBuildPlan(), findEnvironmentBuilders(context));
+
+        Map<String, String> fingerprintsByKey = new TreeMap<>();
+        fingerprints.forEach((definition, fingerprint) -> fingerprintsByKey.put(EnvironmentState.key(definition), fingerprint));
+
+        Fingerprint fingerprint = Fingerprint.create();
+        fingerprintsByKey.forEach((key, definitionFingerprint) -> fingerprint.add(key).add(definitionFingerprint));
+        return fingerprint.toHex();
+    }
+
+    private void setUp(BuildPlan plan, Map<Class, Optional<EnvironmentBuilder>> environmentBuilders,
+                       Map<BuildDefinition, String> fingerprints, EnvironmentState state, BuildProgressListener listener) {
+        try {
+            buildScheduler.execute(plan, buildDefinition -> {
+                setUpEnvironment(environmentBuilders, buildDefinition);
+                state.record(buildDefinition, fingerprints.get(buildDefinition));
+            }, FailurePolicy.FAIL_FAST, listener);
+        } finally {
+            state.save();
+        }
+    }
+
+    private Set<BuildDefinition> findChangedDefinitions(BuildPlan plan, Map<Class, Optional<EnvironmentBuilder>> environmentBuilders,
+                                                        Map<BuildDefinition, String> fingerprints, EnvironmentState state) {
+        Set<BuildDefinition> changed = new LinkedHashSet<>();
+        Map<Class, Set<BuildDefinition>> unchanged = new HashMap<>();
+
+        for (BuildDefinition definition : plan.getDefinitions()) {
+            Optional<String> previousFingerprint = state.getFingerprint(definition);
+
+            if (previousFingerprint.isPresent() && previousFingerprint.get().equals(fingerprints.get(definition))) {
+                unchanged.computeIfAbsent(definition.getClass(), key -> new TreeSet<>()).add(definition);
+            } else {
+                LOG.debug("Build definition '{}' is new or has changed", definition.getName());
+                changed.add(definition);
+            }
+        }
+
+        unchanged.forEach((buildDefinitionClass, definitions) -> {
+            Optional<EnvironmentBuilder> environmentBuilder = environmentBuilders.get(buildDefinitionClass);
+
+            if (environmentBuilder.isPresent() && !environmentBuilder.get().isHealthy(definitions)) {
+                LOG.info("Environment for build definitions {} is not healthy", names(definitions));
+                changed.addAll(definitions);
+            }
+        });
+
+        // Tearing down one definition of a shared environment tears down all of them
+        for (BuildDefinition definition : new ArrayList<>(changed)) {
+            Optional<EnvironmentBuilder> environmentBuilder = environmentBuilders.get(definition.getClass());
+
+            if (environmentBuilder.isPresent() && environmentBuilder.get().isSharedEnvironment()) {
+                changed.addAll(buildDefinitions.get(definition.getClass()));
+            }
+        }
+        return changed;
+    }
+
+    private Map<BuildDefinition, String> fingerprint(BuildPlan plan, Map<Class, Optional<EnvironmentBuilder>> environmentBuilders) {
+        Map<BuildDefinition, String> fingerprints = new HashMap<>();
+
+        for (BuildDefinition definition : plan.getDefinitions()) {
+            Fingerprint fingerprint = Fingerprint.create().add(definition.getFingerprint());
+            environmentBuilders.get(definition.getClass()).ifPresent(environmentBuilder -> fingerprint.add(environmentBuilder.getFingerprint()));
+
+            fingerprints.put(definition, fingerprint.toHex());
+        }
+        return fingerprints;
+    }
+
+    private List<String> names(Set<BuildDefinition> definitions) {
+        List<String> names = new ArrayList<>();
+        definitions.forEach(definition -> names.add(definition.getName()));
+        return names;
+    }
+
+    private void setUpEnvironment(Map<Class, Optional<EnvironmentBuilder>> environmentBuilders, BuildDefinition buildDefinition) {
+        Optional<EnvironmentBuilder> environmentBuilder = environmentBuilders.get(buildDefinition.getClass());
         if (environmentBuilder.isPresent()) {
-            environmentBuilder.get().setUp(buildDefinitions);
+            measure("environment.setUp", environmentBuilder.get(), buildDefinition,
+                    () -> environmentBuilder.get().setUp(Collections.singleton(buildDefinition)));
         }
     }
 
+    /**
+     * Times the build of the definition, recording a span named after it when tracing. The definition and builder
+     * are made the current metric tags so that the metrics recorded by the builder and its drivers are attributed
+     * to them.
+     */
+    private void measure(String name, EnvironmentBuilder environmentBuilder, BuildDefinition buildDefinition, Runnable build) {
+        MetricsRegistry metrics = MetricsRegistry.global();
+        MetricTags tags = MetricTags.of(MetricTags.DEFINITION, buildDefinition.getName())
+                .and(MetricTags.BUILDER, environmentBuilder.getClass().getSimpleName());
+
+        tags.runWith(() -> {
+            try (Timer.Context ignored = metrics.timer(name).start(buildDefinition.getName())) {
+                build.run();
+            } catch (RuntimeException | Error e) {
+                metrics.counter(name + ".failures").increment();
+                throw e;
+            }
+        });
+    }
+
+    /**
+     * Tears the environment down in the reverse order to which it was built. A failure to tear down one build
+     * definition does not stop the others from being torn down; all of the failures are reported at the end.
+     */
     @Override
     public void tearDown(EnvironmentBuilderContext context) {
-        buildDefinitions.forEach((buildDefinitionClass, buildDefinitions) -> tearDownEnvironment(context, buildDefinitionClass, buildDefinitions));
+        tearDown(context, BuildProgressListener.NONE);
     }
 
-    private void tearDownEnvironment(EnvironmentBuilderContext context, Class buildDefinitionClass, Set<BuildDefinition> buildDefinitions) {
-        Optional<EnvironmentBuilder> environmentBuilder = findEnvironmentBuilder(context, buildDefinitionClass);
+    @Override
+    public CompletableFuture<Void> tearDownAsync(EnvironmentBuilderContext context, BuildProgressListener listener) {
+        return CompletableFuture.runAsync(() -> tearDown(context, listener), asyncExecutor);
+    }
+
+    private void tearDown(EnvironmentBuilderContext context, BuildProgressListener listener) {
+        Map<Class, Optional<EnvironmentBuilder>> environmentBuilders = findEnvironmentBuilders(context);
+        EnvironmentState state = environmentStateStore.get(context);
+
+        try (TraceRecorder.Span ignored = TraceRecorder.global().span("tearDown " + context, "environment", MetricTags.NONE)) {
+            buildScheduler.execute(createBuildPlan().reverse(), buildDefinition -> tearDownEnvironment(environmentBuilders, buildDefinition), FailurePolicy.CONTINUE, listener);
+        } finally {
+            state.clear();
+            state.save();
+        }
+    }
+
+    private void tearDownEnvironment(Map<Class, Optional<EnvironmentBuilder>> environmentBuilders, BuildDefinition buildDefinition) {
+        Optional<EnvironmentBuilder> environmentBuilder = environmentBuilders.get(buildDefinition.getClass());
         if (environmentBuilder.isPresent()) {
-            environmentBuilder.get().tearDown(buildDefinitions);
+            measure("environment.tearDown", environmentBuilder.get(), buildDefinition,
+                    () -> environmentBuilder.get().tearDown(Collections.singleton(buildDefinition)));
         }
     }
 
+    private BuildPlan createBuildPlan() {
+        List<BuildDefinition> allBuildDefinitions = new ArrayList<>();
+        buildDefinitions.values().forEach(allBuildDefinitions::addAll);
+
+        return BuildPlan.create(allBuildDefinitions);
+    }
+
+    private Map<Class, Optional<EnvironmentBuilder>> findEnvironmentBuilders(EnvironmentBuilderContext context) {
+        Map<Class, Optional<EnvironmentBuilder>> environmentBuilders = new HashMap<>();
+        buildDefinitions.keySet().forEach(buildDefinitionClass -> environmentBuilders.put(buildDefinitionClass, findEnvironmentBuilder(context, buildDefinitionClass)));
+        return environmentBuilders;
+    }
+
     private Optional<EnvironmentBuilder> findEnvironmentBuilder(EnvironmentBuilderContext context, Class buildDefinitionClass) {
-        for (EnvironmentBuilderFactory factory: environmentBuilderFactories) {
-            if (factory.forClass(buildDefinitionClass)) {
-                return Optional.of(factory.getInstance(context));
+        Optional<EnvironmentBuilder> environmentBuilder = environmentBuilderRegistry.getEnvironmentBuilder(context, buildDefinitionClass);
+
+        if (!environmentBuilder.isPresent()) {
+            if (environmentBuilderRegistry.findFactory(buildDefinitionClass).isPresent()) {
+                LOG.debug("Nothing to build for build definitions of type '{}' in this environment", buildDefinitionClass.getSimpleName());
+            } else {
+                LOG.error("No EnvironmentBuilderFactory for build definitions of type '{}'", buildDefinitionClass.getSimpleName());
             }
         }
-        LOG.error("No EnvironmentBuilderFactory for build definitions of type '{}'", buildDefinitionClass.getSimpleName());
-        return Optional.empty();
+        return environmentBuilder;
+    }
+
+    @Override
+    public void close() {
+        asyncExecutor.shutdown();
+    }
+
+    private static class AsyncThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "environment-manager-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
@@ -0,0 +1,71 @@
+package org.slinkyframework.environment.builder;
+
+import java.util.Objects;
+
+/**
+ * Keeps environments set up by concurrent builds on the same host apart, e.g. a CI build number. Container names,
+ * database users and the like are qualified with the namespace so that builds do not tear down each other's
+ * environments.
+ *
+ * Characters other than letters, digits and underscores are replaced with underscores, so that qualified names are
+ * valid as container names and as unquoted database identifiers.
+ */
+public final class Namespace {
+
+    public static final Namespace NONE = new Namespace(null);
+
+    private static final String SEPARATOR = "_";
+
+    private final String name;
+
+    private Namespace(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return the namespace, or {@link #NONE} if the name is null or blank
+     */
+    public static Namespace of(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return NONE;
+        }
+        return new Namespace(name.trim().replaceAll("[^A-Za-z0-9_]", SEPARATOR));
+    }
+
+    public boolean isNone() {
+        return name == null;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return what is appended to a name to qualify it, e.g. _1234 for namespace 1234, or an empty string
+     */
+    public String getSuffix() {
+        return isNone() ? "" : SEPARATOR + name;
+    }
+
+    /**
+     * @return the name qualified with the namespace, e.g. oracle-xe_1234, or the name unchanged if there is no namespace
+     */
+    public String qualify(String name) {
+        return name + getSuffix();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Namespace && Objects.equals(name, ((Namespace) o).name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
+
+    @Override
+    public String toString() {
+        return isNone() ? "" : name;
+    }
+}
@@ -0,0 +1,175 @@
+package org.slinkyframework.environment.builder.daemon;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Talks to an {@link EnvironmentDaemon} running on this machine.
+ */
+public class DaemonClient {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 1000;
+
+    private final int port;
+
+    public DaemonClient(int port) {
+        this.port = port;
+    }
+
+    public boolean isRunning() {
+        try (Connection connection = connect()) {
+            return "OK".equals(connection.send("PING"));
+        } catch (EnvironmentBuilderException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Leases the environment for the context, waiting for the daemon to set it up if need be. The lease is held until
+     * released or until this process exits.
+     *
+     * @param fingerprint the fingerprint of the environment that would otherwise be set up, or null to take whatever
+     *                    environment the daemon sets up
+     * @throws EnvironmentBuilderException if the daemon is not running or is unable to lease the environment
+     */
+    public Lease lease(EnvironmentBuilderContext context, String fingerprint) {
+        Connection connection = connect();
+        try {
+            String response = connection.send(format("LEASE %s %s %s %s", context.getTargetHost(), context.isUseDocker(),
+                    EnvironmentDaemon.toWire(context.getNamespace()), fingerprint == null ? EnvironmentDaemon.NONE : fingerprint));
+
+            if (response.startsWith("LEASED ")) {
+                return new Lease(response.substring("LEASED ".length()), connection);
+            }
+            throw new EnvironmentBuilderException(format("Unable to lease the environment for %s: %s", context, response));
+
+        } catch (RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a line for each environment in the daemon's pool, giving its host, whether it uses Docker, its namespace and its state
+     */
+    public List<String> getStatus() {
+        try (Connection connection = connect()) {
+            List<String> environments = new ArrayList<>();
+
+            String line = connection.send("STATUS");
+            while (line.startsWith("ENV ")) {
+                environments.add(line.substring("ENV ".length()));
+                line = connection.readLine();
+            }
+            return environments;
+        }
+    }
+
+    public void stop() {
+        try (Connection connection = connect()) {
+            connection.send("STOP");
+        }
+    }
+
+    private Connection connect() {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            return new Connection(socket);
+        } catch (IOException e) {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Not connected
+            }
+            throw new EnvironmentBuilderException(format("Unable to connect to the environment daemon on port %s", port), e);
+        }
+    }
+
+    /**
+     * An environment leased from the daemon. The connection to the daemon is kept open for as long as the lease is held.
+     */
+    public static class Lease implements AutoCloseable {
+
+        private final String id;
+        private final Connection connection;
+
+        private Lease(String id, Connection connection) {
+            this.id = id;
+            this.connection = connection;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Hands the environment back to the daemon, which sets it up again for the next build.
+         */
+        public void release() {
+            try {
+                connection.send("RELEASE " + id);
+            } finally {
+                connection.close();
+            }
+        }
+
+        @Override
+        public void close() {
+            release();
+        }
+    }
+
+    private static class Connection implements AutoCloseable {
+
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+            this.out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8), true);
+        }
+
+        String send(String command) {
+            out.println(command);
+            return readLine();
+        }
+
+        String readLine() {
+            try {
+                String line = in.readLine();
+                if (line == null) {
+                    throw new EnvironmentBuilderException("The environment daemon closed the connection");
+                }
+                return line;
+            } catch (IOException e) {
+                throw new EnvironmentBuilderException("Unable to talk to the environment daemon", e);
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                socket.close();
+            } catch (IOException ignored) {
+                // Already closed
+            }
+        }
+    }
+}
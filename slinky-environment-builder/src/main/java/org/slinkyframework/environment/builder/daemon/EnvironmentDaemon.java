@@ -0,0 +1,188 @@
+package org.slinkyframework.environment.builder.daemon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.Namespace;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A long lived process that keeps an {@link EnvironmentPool} of environments set up ahead of time and leases them to
+ * builds over a socket on the loopback address. See {@link DaemonClient} for the other end.
+ *
+ * Each command is a line of text and is answered with a line of text:
+ * <pre>
+ *     PING                                               OK
+ *     LEASE &lt;host&gt; &lt;docker&gt; &lt;namespace&gt; &lt;fingerprint&gt;   LEASED &lt;id&gt; or UNAVAILABLE &lt;reason&gt;
+ *     RELEASE &lt;id&gt;                                       OK or UNKNOWN
+ *     STATUS                                             ENV &lt;host&gt; &lt;docker&gt; &lt;namespace&gt; &lt;state&gt; for each environment, then END
+ *     STOP                                               OK
+ * </pre>
+ * A namespace or fingerprint of - stands for none. A lease is released when the connection it was taken on is closed, so a build that dies cannot keep hold of an
+ * environment.
+ */
+public class EnvironmentDaemon implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EnvironmentDaemon.class);
+
+    public static final int DEFAULT_PORT = 47474;
+    public static final String NONE = "-";
+
+    private static final long LEASE_TIMEOUT_MINUTES = 30;
+
+    private final EnvironmentPool pool;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    /**
+     * @param port the port to listen on, or 0 for any free port
+     */
+    public EnvironmentDaemon(EnvironmentPool pool, int port) {
+        this.pool = pool;
+
+        try {
+            this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException(format("Unable to listen on port %s", port), e);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "environment-daemon-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public void start() {
+        connections.execute(this::acceptConnections);
+        LOG.info("Environment daemon listening on port {}", getPort());
+    }
+
+    /**
+     * Blocks until the daemon is told to stop or is closed.
+     */
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * Stops accepting connections. Closing the pool, and so tearing down its environments, is left to the caller.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            LOG.warn("Unable to close the daemon socket", e);
+        }
+        connections.shutdownNow();
+        stopped.countDown();
+    }
+
+    private void acceptConnections() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> handle(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    LOG.warn("Unable to accept connection", e);
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) {
+        Set<String> leases = new HashSet<>();
+
+        try (Socket ignored = socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF_8));
+             PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), UTF_8), true)) {
+
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] command = line.trim().split(" ");
+
+                switch (command[0]) {
+                    case "PING":
+                        out.println("OK");
+                        break;
+
+                    case "LEASE":
+                        out.println(lease(command, leases));
+                        break;
+
+                    case "RELEASE":
+                        boolean released = command.length == 2 && leases.remove(command[1]) && pool.release(command[1]);
+                        out.println(released ? "OK" : "UNKNOWN");
+                        break;
+
+                    case "STATUS":
+                        pool.getStates().forEach((context, state) ->
+                                out.println(format("ENV %s %s %s %s", context.getTargetHost(), context.isUseDocker(), toWire(context.getNamespace()), state)));
+                        out.println("END");
+                        break;
+
+                    case "STOP":
+                        out.println("OK");
+                        close();
+                        return;
+
+                    default:
+                        out.println("ERROR Unknown command " + command[0]);
+                }
+            }
+        } catch (IOException e) {
+            LOG.debug("Connection closed", e);
+        } finally {
+            leases.forEach(pool::release);
+        }
+    }
+
+    private String lease(String[] command, Set<String> leases) {
+        if (command.length != 5) {
+            return "ERROR LEASE <host> <docker> <namespace> <fingerprint>";
+        }
+
+        Namespace namespace = NONE.equals(command[3]) ? Namespace.NONE : Namespace.of(command[3]);
+        EnvironmentBuilderContext context = EnvironmentBuilderContext.builder(command[1], Boolean.parseBoolean(command[2])).namespace(namespace).build();
+        String fingerprint = NONE.equals(command[4]) ? null : command[4];
+
+        try {
+            String leaseId = pool.lease(context, fingerprint, LEASE_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+            leases.add(leaseId);
+            return "LEASED " + leaseId;
+        } catch (EnvironmentBuilderException e) {
+            return "UNAVAILABLE " + e.getMessage().replace('\n', ' ');
+        }
+    }
+
+    static String toWire(Namespace namespace) {
+        return namespace.isNone() ? NONE : namespace.getName();
+    }
+}
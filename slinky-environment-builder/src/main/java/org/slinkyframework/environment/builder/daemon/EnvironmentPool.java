@@ -0,0 +1,295 @@
+package org.slinkyframework.environment.builder.daemon;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/**
+ * Environments set up ahead of time, so that a build can lease one rather than set up its own.
+ *
+ * There is at most one environment for each {@link EnvironmentBuilderContext}, as within a namespace the environment
+ * builders give what they create fixed names. An environment is set up in the background when first asked for and set up again in the
+ * background each time a lease is released, so that the next build gets a clean environment without waiting. An
+ * environment whose fingerprint no longer matches what would be set up now is set up again before it is leased.
+ *
+ * Every environment is taken to use the same amount of memory. When setting up another environment would take the
+ * pool over its memory budget, the least recently used environment that is not leased is torn down to make room.
+ */
+public class EnvironmentPool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EnvironmentPool.class);
+
+    private static final long CLOSE_TIMEOUT_MINUTES = 10;
+
+    public enum State {
+        BUILDING,
+        READY,
+        LEASED,
+        EVICTING,
+        FAILED
+    }
+
+    private final EnvironmentManager environmentManager;
+    private final long memoryBudget;
+    private final long environmentMemory;
+    private final ExecutorService executor;
+    private final Map<EnvironmentBuilderContext, PooledEnvironment> environments = new LinkedHashMap<>();
+    private boolean closed;
+
+    /**
+     * @param memoryBudget the memory all of the environments together may use
+     * @param environmentMemory the memory used by each environment, in the same units as the budget
+     */
+    public EnvironmentPool(EnvironmentManager environmentManager, long memoryBudget, long environmentMemory) {
+        this.environmentManager = environmentManager;
+        this.memoryBudget = memoryBudget;
+        this.environmentMemory = environmentMemory;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "environment-pool-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts setting up the environment in the background, unless it is already in the pool.
+     */
+    public synchronized void prepare(EnvironmentBuilderContext context) {
+        checkNotClosed();
+
+        if (!environments.containsKey(context)) {
+            makeRoomFor(context);
+            build(new PooledEnvironment(context, environmentManager.getFingerprint(context)), true);
+        }
+    }
+
+    /**
+     * Leases the environment, waiting for it to be set up if need be, or for the build that holds it to release it.
+     *
+     * @param fingerprint the fingerprint of the environment the caller would otherwise set up, or null to take
+     *                    whatever environment the pool sets up
+     * @return the id of the lease, needed to release it
+     * @throws EnvironmentBuilderException if the environment differs from the one asked for, failed to set up or is
+     * not ready in time
+     */
+    public String lease(EnvironmentBuilderContext context, String fingerprint, long timeout, TimeUnit unit) {
+        String currentFingerprint = environmentManager.getFingerprint(context);
+
+        if (fingerprint != null && !fingerprint.equals(currentFingerprint)) {
+            throw new EnvironmentBuilderException(format("The environment for %s differs from the one the pool sets up", context));
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+        synchronized (this) {
+            while (true) {
+                checkNotClosed();
+
+                PooledEnvironment environment = environments.get(context);
+
+                if (environment == null) {
+                    makeRoomFor(context);
+                    build(new PooledEnvironment(context, currentFingerprint), true);
+
+                } else if (environment.state == State.FAILED) {
+                    environments.remove(context);
+                    throw new EnvironmentBuilderException(format("Set up of the environment for %s has failed", context), environment.failure);
+
+                } else if (environment.state == State.READY && !Objects.equals(environment.fingerprint, currentFingerprint)) {
+                    LOG.info("Environment for {} has changed. Setting it up again.", context);
+                    environment.fingerprint = currentFingerprint;
+                    build(environment, true);
+
+                } else if (environment.state == State.READY) {
+                    environment.state = State.LEASED;
+                    environment.leaseId = UUID.randomUUID().toString();
+                    environment.lastUsed = System.nanoTime();
+
+                    LOG.info("Environment for {} leased ({})", context, environment.leaseId);
+                    return environment.leaseId;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    throw new EnvironmentBuilderException(format("Timed out waiting for the environment for %s, which is %s",
+                            context, environments.containsKey(context) ? environments.get(context).state : State.EVICTING));
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new EnvironmentBuilderException(format("Interrupted waiting for the environment for %s", context), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Ends the lease and sets the environment up again in the background for the next build.
+     *
+     * @return false if there is no such lease
+     */
+    public synchronized boolean release(String leaseId) {
+        Optional<PooledEnvironment> leased = environments.values().stream()
+                .filter(environment -> leaseId.equals(environment.leaseId))
+                .findFirst();
+
+        if (!leased.isPresent()) {
+            return false;
+        }
+
+        PooledEnvironment environment = leased.get();
+        environment.leaseId = null;
+        environment.lastUsed = System.nanoTime();
+        LOG.info("Environment for {} released ({})", environment.context, leaseId);
+
+        if (closed) {
+            environment.state = State.READY;
+        } else {
+            build(environment, true);
+        }
+        return true;
+    }
+
+    public synchronized Map<EnvironmentBuilderContext, State> getStates() {
+        Map<EnvironmentBuilderContext, State> states = new LinkedHashMap<>();
+        environments.forEach((context, environment) -> states.put(context, environment.state));
+        return states;
+    }
+
+    /**
+     * Waits for the environments being set up and then tears every environment down.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+
+        executor.shutdown();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<EnvironmentBuilderContext> contexts;
+        synchronized (this) {
+            contexts = new ArrayList<>(environments.keySet());
+            environments.clear();
+        }
+
+        for (EnvironmentBuilderContext context : contexts) {
+            try {
+                environmentManager.tearDown(context);
+            } catch (RuntimeException e) {
+                LOG.error("Unable to tear down the environment for {}", context, e);
+            }
+        }
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new EnvironmentBuilderException("The environment pool has been closed");
+        }
+    }
+
+    /**
+     * Evicts the least recently used environments until there is room for one more, unless the context is already
+     * in the pool.
+     */
+    private void makeRoomFor(EnvironmentBuilderContext context) {
+        while ((countEnvironmentsUsingMemory() + 1) * environmentMemory > memoryBudget) {
+            Optional<PooledEnvironment> leastRecentlyUsed = environments.values().stream()
+                    .filter(environment -> environment.state == State.READY && !environment.context.equals(context))
+                    .min(Comparator.comparingLong(environment -> environment.lastUsed));
+
+            if (!leastRecentlyUsed.isPresent()) {
+                throw new EnvironmentBuilderException(format("No room for the environment for %s within the memory budget of %s", context, memoryBudget));
+            }
+            evict(leastRecentlyUsed.get());
+        }
+    }
+
+    private long countEnvironmentsUsingMemory() {
+        return environments.values().stream().filter(environment -> environment.state != State.EVICTING).count();
+    }
+
+    private void evict(PooledEnvironment environment) {
+        LOG.info("Evicting the least recently used environment, for {}", environment.context);
+        environment.state = State.EVICTING;
+
+        executor.execute(() -> {
+            try {
+                environmentManager.tearDown(environment.context);
+            } catch (RuntimeException e) {
+                LOG.error("Unable to tear down the environment for {}", environment.context, e);
+            } finally {
+                synchronized (this) {
+                    environments.remove(environment.context);
+                    notifyAll();
+                }
+            }
+        });
+    }
+
+    private void build(PooledEnvironment environment, boolean tearDownFirst) {
+        environment.state = State.BUILDING;
+        environment.failure = null;
+        environments.put(environment.context, environment);
+
+        executor.execute(() -> {
+            RuntimeException failure = null;
+            try {
+                if (tearDownFirst) {
+                    environmentManager.tearDown(environment.context);
+                }
+                environmentManager.setUp(environment.context);
+            } catch (RuntimeException e) {
+                LOG.error("Unable to set up the environment for {}", environment.context, e);
+                failure = e;
+            }
+
+            synchronized (this) {
+                environment.state = failure == null ? State.READY : State.FAILED;
+                environment.failure = failure;
+                notifyAll();
+            }
+        });
+    }
+
+    private static class PooledEnvironment {
+
+        private final EnvironmentBuilderContext context;
+        private String fingerprint;
+        private State state;
+        private String leaseId;
+        private long lastUsed = System.nanoTime();
+        private RuntimeException failure;
+
+        PooledEnvironment(EnvironmentBuilderContext context, String fingerprint) {
+            this.context = context;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
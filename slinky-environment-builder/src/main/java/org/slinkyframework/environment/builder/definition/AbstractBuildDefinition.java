@@ -6,10 +6,22 @@ import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
-public class AbstractBuildDefinition implements BuildDefinition, Comparable<BuildDefinition> {
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Serializable so that the environment state can record the definition, and tear it down once it has been removed.
+ */
+public class AbstractBuildDefinition implements BuildDefinition, Comparable<BuildDefinition>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final BuildPriority priority;
     private final String name;
+    // Left out of equality, as dependencies may be added once the definition is in a set or map
+    private final Set<String> dependencies = new TreeSet<>();
 
     public AbstractBuildDefinition(String name) {
         this(BuildPriority.NORMAL, name);
@@ -30,6 +42,15 @@ public class AbstractBuildDefinition implements BuildDefinition, Comparable<Buil
         return name;
     }
 
+    @Override
+    public Set<String> getDependencies() {
+        return Collections.unmodifiableSet(dependencies);
+    }
+
+    public void addDependency(String buildDefinitionName) {
+        dependencies.add(buildDefinitionName);
+    }
+
     @Override
     public String toString() {
         return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
@@ -45,11 +66,11 @@ public class AbstractBuildDefinition implements BuildDefinition, Comparable<Buil
 
     @Override
     public boolean equals(Object o) {
-        return EqualsBuilder.reflectionEquals(this, o);
+        return EqualsBuilder.reflectionEquals(this, o, "dependencies");
     }
 
     @Override
     public int hashCode() {
-        return HashCodeBuilder.reflectionHashCode(this);
+        return HashCodeBuilder.reflectionHashCode(this, "dependencies");
     }
 }
@@ -1,8 +1,29 @@
 package org.slinkyframework.environment.builder.definition;
 
+import org.slinkyframework.environment.builder.state.Fingerprint;
+
+import java.util.Collections;
+import java.util.Set;
+
 public interface BuildDefinition {
 
     BuildPriority getPriority();
 
     String getName();
+
+    /**
+     * Names of the build definitions that must be built before this one. Definitions with the same
+     * priority and no dependencies between them may be built at the same time.
+     */
+    default Set<String> getDependencies() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * A fingerprint of everything that affects what this definition builds. An incremental set up only builds
+     * the definition again when its fingerprint changes. By default every field of the definition is included.
+     */
+    default String getFingerprint() {
+        return Fingerprint.create().addFields(this).toHex();
+    }
 }
@@ -1,25 +1,45 @@
 package org.slinkyframework.environment.builder.definition;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.index.DiscoveryIndex;
+import org.slinkyframework.environment.builder.index.DiscoveryMode;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ClassUtils;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
 
 @Configuration
-@ComponentScan(basePackages = {"environment"})
+@ComponentScan(basePackages = {BuildDefinitionCollector.BASE_PACKAGE})
 public class BuildDefinitionCollector {
 
+    private static final Logger LOG = LoggerFactory.getLogger(BuildDefinitionCollector.class);
+
+    public static final String BASE_PACKAGE = "environment";
+
     private static final boolean ALLOW_EAGER_INIT = true;
     private static final boolean INCLUDE_NON_SINGLETONS = true;
 
+    private final DiscoveryMode discoveryMode;
+
+    public BuildDefinitionCollector() {
+        this(DiscoveryMode.fromSystemProperty());
+    }
+
+    public BuildDefinitionCollector(DiscoveryMode discoveryMode) {
+        this.discoveryMode = discoveryMode;
+    }
+
     public Map<Class, Set<BuildDefinition>> findBuildDefinitions() {
 
-        ApplicationContext context = new AnnotationConfigApplicationContext(BuildDefinitionCollector.class);
+        ApplicationContext context = createApplicationContext();
 
         Map<Class, Set<BuildDefinition>> buildDefinitions = new HashMap<>();
 
@@ -32,6 +52,19 @@ public class BuildDefinitionCollector {
         return buildDefinitions;
     }
 
+    private ApplicationContext createApplicationContext() {
+        if (discoveryMode == DiscoveryMode.INDEX) {
+            List<Class<?>> configurations = new DiscoveryIndex(ClassUtils.getDefaultClassLoader()).findBuildDefinitionConfigurations();
+
+            if (!configurations.isEmpty()) {
+                LOG.debug("Registering build definition configurations from discovery index {}", configurations);
+                return new AnnotationConfigApplicationContext(configurations.toArray(new Class<?>[configurations.size()]));
+            }
+            LOG.debug("No build definition configurations in discovery index. Scanning package '{}'.", BASE_PACKAGE);
+        }
+        return new AnnotationConfigApplicationContext(BuildDefinitionCollector.class);
+    }
+
     private void addBuildDefintionToMap(Map<Class, Set<BuildDefinition>> buildDefinitions, BuildDefinition buildDefinition) {
 
         Class clazz = buildDefinition.getClass();
@@ -1,10 +1,16 @@
 package org.slinkyframework.environment.builder.definition;
 
 import org.apache.commons.lang3.builder.CompareToBuilder;
+import org.apache.commons.lang3.builder.EqualsBuilder;
+import org.apache.commons.lang3.builder.HashCodeBuilder;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.commons.lang3.builder.ToStringStyle;
 
-public class BuildPriority implements Comparable<BuildPriority> {
+import java.io.Serializable;
+
+public class BuildPriority implements Comparable<BuildPriority>, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     public static final BuildPriority HIGH = new BuildPriority(1);
     public static final BuildPriority NORMAL = new BuildPriority(5);
@@ -32,4 +38,14 @@ public class BuildPriority implements Comparable<BuildPriority> {
                 .append(priority, o.getPriority())
                 .build();
     }
+
+    @Override
+    public boolean equals(Object o) {
+        return EqualsBuilder.reflectionEquals(this, o);
+    }
+
+    @Override
+    public int hashCode() {
+        return HashCodeBuilder.reflectionHashCode(this);
+    }
 }
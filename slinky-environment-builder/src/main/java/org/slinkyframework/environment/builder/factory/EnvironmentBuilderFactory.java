@@ -5,5 +5,9 @@ import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
 
 public interface EnvironmentBuilderFactory {
     boolean forClass(Class buildDefinitionClass);
+
+    /**
+     * @return the builder for the context, or null when there is nothing for it to build in the context
+     */
     EnvironmentBuilder getInstance(EnvironmentBuilderContext environmentBuilderContext);
 }
@@ -1,24 +1,109 @@
 package org.slinkyframework.environment.builder.factory;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.index.DiscoveryIndex;
+import org.slinkyframework.environment.builder.index.DiscoveryMode;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 @Configuration
-@ComponentScan(basePackages = {"org.slinkyframework"})
+@ComponentScan(basePackages = {EnvironmentBuilderFactoryCollector.BASE_PACKAGE})
 public class EnvironmentBuilderFactoryCollector {
 
+    private static final Logger LOG = LoggerFactory.getLogger(EnvironmentBuilderFactoryCollector.class);
+
+    public static final String BASE_PACKAGE = "org.slinkyframework";
+
     private static final boolean ALLOW_EAGER_INIT = true;
     private static final boolean INCLUDE_NON_SINGLETONS = true;
 
+    private final DiscoveryMode discoveryMode;
+    private final ClassLoader classLoader;
+
+    public EnvironmentBuilderFactoryCollector() {
+        this(DiscoveryMode.fromSystemProperty());
+    }
+
+    public EnvironmentBuilderFactoryCollector(DiscoveryMode discoveryMode) {
+        this(discoveryMode, ClassUtils.getDefaultClassLoader());
+    }
+
+    // Used for testing
+    public EnvironmentBuilderFactoryCollector(DiscoveryMode discoveryMode, ClassLoader classLoader) {
+        this.discoveryMode = discoveryMode;
+        this.classLoader = classLoader;
+    }
+
+    /**
+     * In {@link DiscoveryMode#INDEX} the factories are created from the discovery index, together with those found
+     * by scanning just the jars that have no index.
+     */
     public List<EnvironmentBuilderFactory> findEnvironmentBuilderFactories() {
 
-        ApplicationContext context = new AnnotationConfigApplicationContext(EnvironmentBuilderFactoryCollector.class);
+        if (discoveryMode == DiscoveryMode.INDEX) {
+            DiscoveryIndex discoveryIndex = new DiscoveryIndex(classLoader);
+            List<Class<?>> factoryClasses = new ArrayList<>(discoveryIndex.findEnvironmentBuilderFactories());
+
+            if (!factoryClasses.isEmpty()) {
+                for (String root : discoveryIndex.findRootsWithoutEnvironmentBuilderFactories(BASE_PACKAGE)) {
+                    LOG.debug("No discovery index in '{}'. Scanning it for environment builder factories.", root);
+                    scanRoot(root).stream()
+                            .filter(factoryClass -> !factoryClasses.contains(factoryClass))
+                            .forEach(factoryClasses::add);
+                }
+
+                LOG.debug("Creating environment builder factories from discovery index {}", factoryClasses);
+                return getFactories(new AnnotationConfigApplicationContext(factoryClasses.toArray(new Class<?>[factoryClasses.size()])));
+            }
+            LOG.debug("No environment builder factories in discovery index. Scanning package '{}'.", BASE_PACKAGE);
+        }
+        return scanForFactories();
+    }
+
+    private List<Class<?>> scanRoot(String root) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        MetadataReaderFactory metadataReaderFactory = new CachingMetadataReaderFactory(resolver);
+        List<Class<?>> factoryClasses = new ArrayList<>();
+
+        try {
+            for (Resource resource : resolver.getResources(root + ClassUtils.convertClassNameToResourcePath(BASE_PACKAGE) + "/**/*.class")) {
+                MetadataReader metadataReader = metadataReaderFactory.getMetadataReader(resource);
+
+                if (metadataReader.getClassMetadata().isConcrete() && metadataReader.getAnnotationMetadata().isAnnotated(Component.class.getName())) {
+                    Class<?> candidate = ClassUtils.forName(metadataReader.getClassMetadata().getClassName(), classLoader);
+
+                    if (EnvironmentBuilderFactory.class.isAssignableFrom(candidate)) {
+                        factoryClasses.add(candidate);
+                    }
+                }
+            }
+        } catch (IOException | ClassNotFoundException | LinkageError e) {
+            throw new EnvironmentBuilderException("Unable to scan " + root + " for environment builder factories", e);
+        }
+        return factoryClasses;
+    }
+
+    private List<EnvironmentBuilderFactory> scanForFactories() {
+        return getFactories(new AnnotationConfigApplicationContext(EnvironmentBuilderFactoryCollector.class));
+    }
+
+    private List<EnvironmentBuilderFactory> getFactories(ApplicationContext context) {
 
         List<EnvironmentBuilderFactory> factories = new ArrayList<>();
 
@@ -0,0 +1,82 @@
+package org.slinkyframework.environment.builder.factory;
+
+import org.apache.commons.lang3.builder.HashCodeBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the {@link EnvironmentBuilderFactory} for each type of build definition and keeps the
+ * {@link EnvironmentBuilder} it creates for each {@link EnvironmentBuilderContext}, so that the set up and tear down
+ * of an environment are performed by the same builder.
+ *
+ * A factory for a build definition class is also used for its subclasses, unless another factory claims the
+ * subclass itself.
+ */
+public class EnvironmentBuilderRegistry {
+
+    private final List<EnvironmentBuilderFactory> factories;
+    private final Map<Class, Optional<EnvironmentBuilderFactory>> factoriesByClass = new ConcurrentHashMap<>();
+    private final Map<BuilderKey, EnvironmentBuilder> builders = new ConcurrentHashMap<>();
+
+    public EnvironmentBuilderRegistry(List<EnvironmentBuilderFactory> factories) {
+        this.factories = new ArrayList<>(factories);
+    }
+
+    public Optional<EnvironmentBuilderFactory> findFactory(Class buildDefinitionClass) {
+        return factoriesByClass.computeIfAbsent(buildDefinitionClass, this::searchForFactory);
+    }
+
+    /**
+     * @return the builder for the build definition class in the given context, creating it on first use. Empty when
+     * there is no factory for the class, or when the factory has nothing to build in the context.
+     */
+    public Optional<EnvironmentBuilder> getEnvironmentBuilder(EnvironmentBuilderContext context, Class buildDefinitionClass) {
+        return findFactory(buildDefinitionClass)
+                .map(factory -> builders.computeIfAbsent(new BuilderKey(factory, context), key -> factory.getInstance(context)));
+    }
+
+    private Optional<EnvironmentBuilderFactory> searchForFactory(Class buildDefinitionClass) {
+        for (Class clazz = buildDefinitionClass; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (EnvironmentBuilderFactory factory : factories) {
+                if (factory.forClass(clazz)) {
+                    return Optional.of(factory);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private static class BuilderKey {
+
+        private final EnvironmentBuilderFactory factory;
+        private final EnvironmentBuilderContext context;
+
+        BuilderKey(EnvironmentBuilderFactory factory, EnvironmentBuilderContext context) {
+            this.factory = factory;
+            this.context = context;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BuilderKey)) {
+                return false;
+            }
+            BuilderKey other = (BuilderKey) o;
+            return factory == other.factory && context.equals(other.context);
+        }
+
+        @Override
+        public int hashCode() {
+            return new HashCodeBuilder()
+                    .append(System.identityHashCode(factory))
+                    .append(context)
+                    .toHashCode();
+        }
+    }
+}
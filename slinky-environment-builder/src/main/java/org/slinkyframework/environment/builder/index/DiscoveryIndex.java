@@ -0,0 +1,111 @@
+package org.slinkyframework.environment.builder.index;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reads the lists of build definition configurations and environment builder factories recorded at compile time by
+ * the {@link DiscoveryIndexProcessor}. Every jar on the classpath can contribute its own index files.
+ */
+public class DiscoveryIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiscoveryIndex.class);
+
+    public static final String BUILD_DEFINITION_CONFIGURATIONS = "META-INF/slinky/build-definition-configurations";
+    public static final String ENVIRONMENT_BUILDER_FACTORIES = "META-INF/slinky/environment-builder-factories";
+
+    private final ClassLoader classLoader;
+
+    public DiscoveryIndex(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public List<Class<?>> findBuildDefinitionConfigurations() {
+        return loadClasses(BUILD_DEFINITION_CONFIGURATIONS);
+    }
+
+    public List<Class<?>> findEnvironmentBuilderFactories() {
+        return loadClasses(ENVIRONMENT_BUILDER_FACTORIES);
+    }
+
+    /**
+     * @return the jars and class directories that hold classes in the package but no index of environment builder
+     * factories, e.g. because they were compiled without annotation processing
+     */
+    public List<String> findRootsWithoutEnvironmentBuilderFactories(String basePackage) {
+        Set<String> roots = findRoots(basePackage.replace('.', '/') + "/");
+        roots.removeAll(findRoots(ENVIRONMENT_BUILDER_FACTORIES));
+        return new ArrayList<>(roots);
+    }
+
+    private Set<String> findRoots(String location) {
+        Set<String> roots = new LinkedHashSet<>();
+
+        try {
+            Enumeration<URL> resources = classLoader.getResources(location);
+
+            while (resources.hasMoreElements()) {
+                String resource = resources.nextElement().toString();
+                roots.add(resource.substring(0, resource.length() - location.length()));
+            }
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException("Unable to find " + location + " on the classpath", e);
+        }
+        return roots;
+    }
+
+    private List<Class<?>> loadClasses(String indexLocation) {
+        List<Class<?>> classes = new ArrayList<>();
+
+        for (String className : readClassNames(indexLocation)) {
+            try {
+                classes.add(Class.forName(className, false, classLoader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                LOG.warn("Class '{}' listed in {} could not be loaded", className, indexLocation, e);
+            }
+        }
+        return classes;
+    }
+
+    private Set<String> readClassNames(String indexLocation) {
+        Set<String> classNames = new LinkedHashSet<>();
+
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(indexLocation);
+
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                LOG.debug("Reading discovery index {}", index);
+
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    readClassNames(reader, classNames);
+                }
+            }
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException("Unable to read discovery index " + indexLocation, e);
+        }
+        return classNames;
+    }
+
+    static void readClassNames(BufferedReader reader, Set<String> classNames) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                classNames.add(line);
+            }
+        }
+    }
+}
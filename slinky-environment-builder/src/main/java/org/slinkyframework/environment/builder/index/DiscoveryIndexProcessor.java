@@ -0,0 +1,136 @@
+package org.slinkyframework.environment.builder.index;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Annotation processor that records, at compile time, the classes that would otherwise be found by scanning the
+ * classpath with Spring:
+ * <ul>
+ *     <li>{@code @Configuration} classes in the {@code environment} package, which define build definitions</li>
+ *     <li>{@code @Component} classes in the {@code org.slinkyframework} package that implement
+ *     {@code EnvironmentBuilderFactory}</li>
+ * </ul>
+ *
+ * The processor is registered as a service so it runs automatically in any project that compiles against
+ * slinky-environment-builder. Existing index entries are kept so that incremental compilation does not lose them.
+ */
+@SupportedAnnotationTypes({DiscoveryIndexProcessor.CONFIGURATION, DiscoveryIndexProcessor.COMPONENT})
+public class DiscoveryIndexProcessor extends AbstractProcessor {
+
+    static final String CONFIGURATION = "org.springframework.context.annotation.Configuration";
+    static final String COMPONENT = "org.springframework.stereotype.Component";
+
+    private static final String ENVIRONMENT_BUILDER_FACTORY = "org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory";
+    private static final String BUILD_DEFINITION_PACKAGE = "environment";
+    private static final String FACTORY_PACKAGE = "org.slinkyframework";
+
+    private final Set<String> buildDefinitionConfigurations = new TreeSet<>();
+    private final Set<String> environmentBuilderFactories = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex(DiscoveryIndex.BUILD_DEFINITION_CONFIGURATIONS, buildDefinitionConfigurations);
+            writeIndex(DiscoveryIndex.ENVIRONMENT_BUILDER_FACTORIES, environmentBuilderFactories);
+        } else {
+            for (TypeElement annotation : annotations) {
+                String annotationName = annotation.getQualifiedName().toString();
+
+                for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                    if (isConcreteClass(element)) {
+                        record(annotationName, (TypeElement) element);
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private void record(String annotationName, TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+
+        if (CONFIGURATION.equals(annotationName) && isInPackage(packageName, BUILD_DEFINITION_PACKAGE)) {
+            buildDefinitionConfigurations.add(className);
+        }
+        if (COMPONENT.equals(annotationName) && isInPackage(packageName, FACTORY_PACKAGE) && isEnvironmentBuilderFactory(type)) {
+            environmentBuilderFactories.add(className);
+        }
+    }
+
+    private boolean isConcreteClass(Element element) {
+        return element.getKind() == ElementKind.CLASS && !element.getModifiers().contains(Modifier.ABSTRACT);
+    }
+
+    private boolean isInPackage(String packageName, String basePackage) {
+        return packageName.equals(basePackage) || packageName.startsWith(basePackage + ".");
+    }
+
+    private boolean isEnvironmentBuilderFactory(TypeElement type) {
+        TypeElement factory = processingEnv.getElementUtils().getTypeElement(ENVIRONMENT_BUILDER_FACTORY);
+        if (factory == null) {
+            return false;
+        }
+        TypeMirror factoryType = processingEnv.getTypeUtils().erasure(factory.asType());
+        return processingEnv.getTypeUtils().isAssignable(type.asType(), factoryType);
+    }
+
+    private void writeIndex(String location, Set<String> classNames) {
+        if (classNames.isEmpty()) {
+            return;
+        }
+
+        Set<String> allClassNames = new TreeSet<>(classNames);
+        readExistingIndex(location, allClassNames);
+
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", location);
+
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write("# Generated by " + getClass().getName() + "\n");
+                for (String className : allClassNames) {
+                    writer.write(className);
+                    writer.write("\n");
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write discovery index " + location + ": " + e.getMessage());
+        }
+    }
+
+    private void readExistingIndex(String location, Set<String> classNames) {
+        try {
+            FileObject existing = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", location);
+
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                DiscoveryIndex.readClassNames(reader, classNames);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            // No existing index
+        }
+    }
+}
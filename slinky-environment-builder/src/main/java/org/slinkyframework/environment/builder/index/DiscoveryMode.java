@@ -0,0 +1,42 @@
+package org.slinkyframework.environment.builder.index;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.util.Arrays;
+
+import static java.lang.String.format;
+
+/**
+ * How build definitions and environment builder factories are discovered.
+ *
+ * The mode can be chosen with the <code>env.discovery</code> system property.
+ */
+public enum DiscoveryMode {
+
+    /**
+     * Use the discovery index generated at compile time by the {@link DiscoveryIndexProcessor}, falling back to
+     * scanning the classpath when no index is found.
+     */
+    INDEX,
+
+    /** Always scan the classpath with Spring. */
+    SCAN;
+
+    public static final String SYSTEM_PROPERTY = "env.discovery";
+
+    public static DiscoveryMode fromSystemProperty() {
+        return fromString(System.getProperty(SYSTEM_PROPERTY));
+    }
+
+    public static DiscoveryMode fromString(String mode) {
+        if (mode == null || mode.trim().isEmpty()) {
+            return INDEX;
+        }
+
+        try {
+            return valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new EnvironmentBuilderException(format("Unknown discovery mode '%s'. Expected one of %s", mode, Arrays.toString(values())), e);
+        }
+    }
+}
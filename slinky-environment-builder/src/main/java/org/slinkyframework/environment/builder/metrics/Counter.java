@@ -0,0 +1,23 @@
+package org.slinkyframework.environment.builder.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often something happened, e.g. statements that failed because what they dropped did not exist.
+ */
+public class Counter {
+
+    private final LongAdder count = new LongAdder();
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void increment(long amount) {
+        count.add(amount);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+}
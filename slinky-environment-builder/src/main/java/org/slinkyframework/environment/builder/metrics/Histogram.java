@@ -0,0 +1,93 @@
+package org.slinkyframework.environment.builder.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The distribution of a value, e.g. the number of change sets applied by each Liquibase update.
+ *
+ * Count, sum, minimum and maximum are exact. Percentiles are calculated from a uniform sample of at most
+ * {@link #SAMPLE_SIZE} values, which is every value for all but the largest builds.
+ */
+public class Histogram {
+
+    static final int SAMPLE_SIZE = 1024;
+
+    private final long[] sample = new long[SAMPLE_SIZE];
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    public synchronized void record(long value) {
+        if (count < SAMPLE_SIZE) {
+            sample[(int) count] = value;
+        } else {
+            long index = ThreadLocalRandom.current().nextLong(count + 1);
+            if (index < SAMPLE_SIZE) {
+                sample[(int) index] = value;
+            }
+        }
+
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    public synchronized Snapshot getSnapshot() {
+        long[] values = Arrays.copyOf(sample, (int) Math.min(count, SAMPLE_SIZE));
+        Arrays.sort(values);
+
+        return new Snapshot(count, sum, count == 0 ? 0 : min, count == 0 ? 0 : max, values);
+    }
+
+    public static class Snapshot {
+
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+        private final long[] sortedValues;
+
+        Snapshot(long count, long sum, long min, long max, long[] sortedValues) {
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.sortedValues = sortedValues;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSum() {
+            return sum;
+        }
+
+        public long getMin() {
+            return min;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param quantile between 0 and 1, e.g. 0.95 for the 95th percentile
+         * @return the smallest sampled value that the given proportion of values do not exceed
+         */
+        public long getPercentile(double quantile) {
+            if (sortedValues.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(quantile * sortedValues.length) - 1;
+            return sortedValues[Math.max(0, Math.min(index, sortedValues.length - 1))];
+        }
+    }
+}
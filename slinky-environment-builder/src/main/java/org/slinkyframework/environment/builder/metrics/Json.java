@@ -0,0 +1,38 @@
+package org.slinkyframework.environment.builder.metrics;
+
+import static java.lang.String.format;
+
+/**
+ * Just enough JSON to write metrics and traces without a JSON library.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static String quote(String value) {
+        StringBuilder json = new StringBuilder("\"");
+
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        return json.append('"').toString();
+    }
+
+    static String toJson(MetricTags tags) {
+        StringBuilder json = new StringBuilder("{");
+        tags.asMap().forEach((key, value) -> {
+            if (json.length() > 1) {
+                json.append(", ");
+            }
+            json.append(quote(key)).append(": ").append(quote(value));
+        });
+        return json.append("}").toString();
+    }
+}
@@ -0,0 +1,88 @@
+package org.slinkyframework.environment.builder.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * The tags that identify a metric along with its name, e.g. the build definition and builder it was recorded for.
+ *
+ * Tags can be made current for the running thread, so that the drivers a builder calls record their metrics
+ * against the build definition being built without the tags being passed down to them.
+ */
+public final class MetricTags {
+
+    public static final String DEFINITION = "definition";
+    public static final String BUILDER = "builder";
+
+    public static final MetricTags NONE = new MetricTags(Collections.emptyMap());
+
+    private static final ThreadLocal<MetricTags> CURRENT = ThreadLocal.withInitial(() -> NONE);
+
+    private final Map<String, String> tags;
+
+    private MetricTags(Map<String, String> tags) {
+        this.tags = Collections.unmodifiableMap(new TreeMap<>(tags));
+    }
+
+    public static MetricTags of(String key, String value) {
+        return NONE.and(key, value);
+    }
+
+    public static MetricTags current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the action with these tags added to the current tags of the thread.
+     */
+    public <T> T runWith(Supplier<T> action) {
+        MetricTags previous = CURRENT.get();
+        CURRENT.set(previous.and(this));
+
+        try {
+            return action.get();
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+
+    public void runWith(Runnable action) {
+        runWith(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    public MetricTags and(String key, String value) {
+        Map<String, String> combined = new TreeMap<>(tags);
+        combined.put(key, value);
+        return new MetricTags(combined);
+    }
+
+    public MetricTags and(MetricTags other) {
+        Map<String, String> combined = new TreeMap<>(tags);
+        combined.putAll(other.tags);
+        return new MetricTags(combined);
+    }
+
+    public Map<String, String> asMap() {
+        return tags;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof MetricTags && tags.equals(((MetricTags) o).tags);
+    }
+
+    @Override
+    public int hashCode() {
+        return tags.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return tags.toString();
+    }
+}
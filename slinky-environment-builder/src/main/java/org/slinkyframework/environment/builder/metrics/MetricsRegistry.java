@@ -0,0 +1,167 @@
+package org.slinkyframework.environment.builder.metrics;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Timers, counters and histograms recording where the time goes in an environment build.
+ *
+ * Metrics are identified by their name and tags. Unless given explicitly the tags are those current for the thread,
+ * see {@link MetricTags#runWith(Runnable)}.
+ */
+public class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<MetricId, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<MetricId, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<MetricId, Histogram> histograms = new ConcurrentHashMap<>();
+
+    /**
+     * @return the registry the environment builders record to
+     */
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Timer timer(String name) {
+        return timer(name, MetricTags.current());
+    }
+
+    public Timer timer(String name, MetricTags tags) {
+        return timers.computeIfAbsent(new MetricId(name, tags), id -> new Timer(name, tags));
+    }
+
+    public Counter counter(String name) {
+        return counter(name, MetricTags.current());
+    }
+
+    public Counter counter(String name, MetricTags tags) {
+        return counters.computeIfAbsent(new MetricId(name, tags), id -> new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return histogram(name, MetricTags.current());
+    }
+
+    public Histogram histogram(String name, MetricTags tags) {
+        return histograms.computeIfAbsent(new MetricId(name, tags), id -> new Histogram());
+    }
+
+    public void clear() {
+        timers.clear();
+        counters.clear();
+        histograms.clear();
+    }
+
+    /**
+     * Writes every metric to the file as JSON. Durations are in milliseconds.
+     */
+    public void writeJson(File file) {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), UTF_8)) {
+            writeJson(writer);
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException(format("Unable to write metrics to '%s'", file), e);
+        }
+    }
+
+    public void writeJson(Appendable out) throws IOException {
+        out.append("{\n");
+
+        writeMetrics(out, "timers", timers, timer -> {
+            Histogram.Snapshot snapshot = timer.getSnapshot();
+            return format(Locale.ROOT, "\"count\": %d, \"totalMillis\": %s, \"minMillis\": %s, \"maxMillis\": %s, \"meanMillis\": %s, \"p50Millis\": %s, \"p95Millis\": %s, \"p99Millis\": %s",
+                    snapshot.getCount(), millis(snapshot.getSum()), millis(snapshot.getMin()), millis(snapshot.getMax()), millis(snapshot.getMean()),
+                    millis(snapshot.getPercentile(0.5)), millis(snapshot.getPercentile(0.95)), millis(snapshot.getPercentile(0.99)));
+        });
+        out.append(",\n");
+
+        writeMetrics(out, "counters", counters, counter -> format("\"count\": %d", counter.getCount()));
+        out.append(",\n");
+
+        writeMetrics(out, "histograms", histograms, histogram -> {
+            Histogram.Snapshot snapshot = histogram.getSnapshot();
+            return format(Locale.ROOT, "\"count\": %d, \"sum\": %d, \"min\": %d, \"max\": %d, \"mean\": %.3f, \"p50\": %d, \"p95\": %d, \"p99\": %d",
+                    snapshot.getCount(), snapshot.getSum(), snapshot.getMin(), snapshot.getMax(), snapshot.getMean(),
+                    snapshot.getPercentile(0.5), snapshot.getPercentile(0.95), snapshot.getPercentile(0.99));
+        });
+
+        out.append("\n}\n");
+    }
+
+    private <M> void writeMetrics(Appendable out, String type, Map<MetricId, M> metrics, Function<M, String> values) throws IOException {
+        Map<MetricId, M> sorted = new TreeMap<>(Comparator.comparing(MetricId::toString));
+        sorted.putAll(metrics);
+
+        out.append("  \"").append(type).append("\": [");
+
+        Iterator<Map.Entry<MetricId, M>> iterator = sorted.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<MetricId, M> metric = iterator.next();
+
+            out.append("\n    {\"name\": ").append(Json.quote(metric.getKey().name))
+                    .append(", \"tags\": ").append(Json.toJson(metric.getKey().tags))
+                    .append(", ").append(values.apply(metric.getValue())).append("}");
+
+            if (iterator.hasNext()) {
+                out.append(",");
+            }
+        }
+        out.append(sorted.isEmpty() ? "]" : "\n  ]");
+    }
+
+    private static String millis(double nanos) {
+        return format(Locale.ROOT, "%.3f", nanos / TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+    private static final class MetricId {
+
+        private final String name;
+        private final MetricTags tags;
+
+        MetricId(String name, MetricTags tags) {
+            this.name = name;
+            this.tags = tags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof MetricId)) {
+                return false;
+            }
+            MetricId other = (MetricId) o;
+            return name.equals(other.name) && tags.equals(other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + tags.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return name + tags;
+        }
+    }
+}
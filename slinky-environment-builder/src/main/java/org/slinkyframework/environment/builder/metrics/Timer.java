@@ -0,0 +1,106 @@
+package org.slinkyframework.environment.builder.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times a phase of an environment build, e.g. pulling an image or applying a change log. Each time taken is also
+ * recorded as a span by the {@link TraceRecorder} when tracing.
+ *
+ * Phases that throw checked exceptions can be timed with try-with-resources:
+ * <pre>
+ *     try (Timer.Context ignored = registry.timer("docker.image.pull").start()) {
+ *         dockerClient.pull(imageName);
+ *     }
+ * </pre>
+ */
+public class Timer {
+
+    private final String name;
+    private final MetricTags tags;
+    private final Histogram durations = new Histogram();
+
+    public Timer() {
+        this(null, MetricTags.NONE);
+    }
+
+    Timer(String name, MetricTags tags) {
+        this.name = name;
+        this.tags = tags;
+    }
+
+    public void record(long duration, TimeUnit unit) {
+        durations.record(unit.toNanos(duration));
+    }
+
+    public void time(Runnable phase) {
+        time(() -> {
+            phase.run();
+            return null;
+        });
+    }
+
+    public <T> T time(Supplier<T> phase) {
+        try (Context ignored = start()) {
+            return phase.get();
+        }
+    }
+
+    public Context start() {
+        return start(name);
+    }
+
+    /**
+     * @param spanName the name of the span recorded in the trace, in place of the name of the timer
+     */
+    public Context start(String spanName) {
+        return new Context(spanName, System.nanoTime());
+    }
+
+    /**
+     * @return the durations recorded, in nanoseconds
+     */
+    public Histogram.Snapshot getSnapshot() {
+        return durations.getSnapshot();
+    }
+
+    /**
+     * @return the first part of a dotted metric name, e.g. docker for docker.image.pull
+     */
+    private static String category(String name) {
+        int dot = name.indexOf('.');
+        return dot < 0 ? name : name.substring(0, dot);
+    }
+
+    public class Context implements AutoCloseable {
+
+        private final String spanName;
+        private final long start;
+        private boolean stopped;
+
+        private Context(String spanName, long start) {
+            this.spanName = spanName;
+            this.start = start;
+        }
+
+        /**
+         * Records the time since the context was started. Only the first call is recorded.
+         */
+        public void stop() {
+            if (!stopped) {
+                stopped = true;
+                long duration = System.nanoTime() - start;
+
+                record(duration, TimeUnit.NANOSECONDS);
+                if (spanName != null) {
+                    TraceRecorder.global().record(spanName, category(name == null ? spanName : name), tags, start, duration);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            stop();
+        }
+    }
+}
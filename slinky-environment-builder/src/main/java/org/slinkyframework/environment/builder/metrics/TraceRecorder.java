@@ -0,0 +1,174 @@
+package org.slinkyframework.environment.builder.metrics;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Records a timeline of an environment build in the Chrome trace event format, which can be loaded into
+ * chrome://tracing or https://ui.perfetto.dev to see which builds ran one after another and which overlapped.
+ *
+ * Every {@link Timer} records a span while tracing is on, so each timed phase appears in the trace along with
+ * the spans recorded explicitly for each build definition. Nothing is recorded until {@link #start()} is called.
+ */
+public class TraceRecorder {
+
+    private static final TraceRecorder GLOBAL = new TraceRecorder();
+
+    private static final String PROCESS_NAME = "Slinky Environment Builder";
+    private static final int PROCESS_ID = 1;
+
+    private final Queue<Event> events = new ConcurrentLinkedQueue<>();
+    private final Map<Long, ThreadInfo> threads = new ConcurrentHashMap<>();
+    private final AtomicInteger threadCount = new AtomicInteger();
+
+    private volatile boolean enabled;
+    private volatile long originNanos;
+
+    /**
+     * @return the recorder that timers record their spans to
+     */
+    public static TraceRecorder global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Starts recording, unless already recording.
+     */
+    public synchronized void start() {
+        if (!enabled) {
+            events.clear();
+            threads.clear();
+            originNanos = System.nanoTime();
+            enabled = true;
+        }
+    }
+
+    public synchronized void stop() {
+        enabled = false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts a span that is recorded when closed.
+     */
+    public Span span(String name, String category, MetricTags tags) {
+        return new Span(name, category, tags, System.nanoTime());
+    }
+
+    void record(String name, String category, MetricTags tags, long startNanos, long durationNanos) {
+        if (enabled) {
+            Thread thread = Thread.currentThread();
+            ThreadInfo threadInfo = threads.computeIfAbsent(thread.getId(), id -> new ThreadInfo(threadCount.incrementAndGet(), thread.getName()));
+
+            events.add(new Event(name, category, tags, threadInfo.tid,
+                    TimeUnit.NANOSECONDS.toMicros(startNanos - originNanos), TimeUnit.NANOSECONDS.toMicros(durationNanos)));
+        }
+    }
+
+    public void writeJson(File file) {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), UTF_8)) {
+            writeJson(writer);
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException(format("Unable to write trace to '%s'", file), e);
+        }
+    }
+
+    public void writeJson(Appendable out) throws IOException {
+        List<String> lines = new ArrayList<>();
+
+        lines.add(format("{\"name\": \"process_name\", \"ph\": \"M\", \"pid\": %d, \"args\": {\"name\": %s}}", PROCESS_ID, Json.quote(PROCESS_NAME)));
+        threads.values().forEach(thread ->
+                lines.add(format("{\"name\": \"thread_name\", \"ph\": \"M\", \"pid\": %d, \"tid\": %d, \"args\": {\"name\": %s}}",
+                        PROCESS_ID, thread.tid, Json.quote(thread.name))));
+
+        events.forEach(event ->
+                lines.add(format("{\"name\": %s, \"cat\": %s, \"ph\": \"X\", \"pid\": %d, \"tid\": %d, \"ts\": %d, \"dur\": %d, \"args\": %s}",
+                        Json.quote(event.name), Json.quote(event.category), PROCESS_ID, event.tid, event.timestamp, event.duration, Json.toJson(event.tags))));
+
+        out.append("{\"displayTimeUnit\": \"ms\", \"traceEvents\": [\n");
+
+        Iterator<String> iterator = lines.iterator();
+        while (iterator.hasNext()) {
+            out.append("  ").append(iterator.next()).append(iterator.hasNext() ? ",\n" : "\n");
+        }
+        out.append("]}\n");
+    }
+
+    /**
+     * A span of time in the trace, recorded when closed.
+     */
+    public class Span implements AutoCloseable {
+
+        private final String name;
+        private final String category;
+        private final MetricTags tags;
+        private final long startNanos;
+
+        private Span(String name, String category, MetricTags tags, long startNanos) {
+            this.name = name;
+            this.category = category;
+            this.tags = tags;
+            this.startNanos = startNanos;
+        }
+
+        @Override
+        public void close() {
+            record(name, category, tags, startNanos, System.nanoTime() - startNanos);
+        }
+    }
+
+    private static class Event {
+
+        private final String name;
+        private final String category;
+        private final MetricTags tags;
+        private final int tid;
+        private final long timestamp;
+        private final long duration;
+
+        Event(String name, String category, MetricTags tags, int tid, long timestamp, long duration) {
+            this.name = name;
+            this.category = category;
+            this.tags = tags;
+            this.tid = tid;
+            this.timestamp = timestamp;
+            this.duration = duration;
+        }
+    }
+
+    private static class ThreadInfo {
+
+        private final int tid;
+        private final String name;
+
+        ThreadInfo(int tid, String name) {
+            this.tid = tid;
+            this.name = name;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package org.slinkyframework.environment.builder.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Durations of previous builds, used by the {@link BuildScheduler} to start the longest running build
+ * definitions first. When backed by a file the durations survive between builds.
+ */
+public class BuildDurations {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BuildDurations.class);
+
+    public static final long UNKNOWN = Long.MAX_VALUE;
+
+    private final Optional<File> file;
+    private final Map<String, Long> durations = new ConcurrentHashMap<>();
+
+    private BuildDurations(Optional<File> file) {
+        this.file = file;
+    }
+
+    public static BuildDurations inMemory() {
+        return new BuildDurations(Optional.empty());
+    }
+
+    public static BuildDurations load(File file) {
+        BuildDurations buildDurations = new BuildDurations(Optional.of(file));
+
+        if (file.exists()) {
+            Properties properties = new Properties();
+
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+                properties.stringPropertyNames().forEach(key -> buildDurations.durations.put(key, Long.valueOf(properties.getProperty(key))));
+            } catch (IOException | NumberFormatException e) {
+                LOG.warn("Unable to read build durations from '{}'. Durations will be recorded again.", file, e);
+            }
+        }
+        return buildDurations;
+    }
+
+    /**
+     * @return the duration in milliseconds of the last successful build of the definition or {@link #UNKNOWN}
+     * if it has not been built before. Unknown definitions are treated as the longest.
+     */
+    public long getExpectedDuration(BuildDefinition definition) {
+        return durations.getOrDefault(key(definition), UNKNOWN);
+    }
+
+    public void record(BuildDefinition definition, long durationInMillis) {
+        durations.put(key(definition), durationInMillis);
+    }
+
+    public void save() {
+        if (file.isPresent()) {
+            Properties properties = new Properties();
+            durations.forEach((key, duration) -> properties.setProperty(key, String.valueOf(duration)));
+
+            File parent = file.get().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+
+            try (OutputStream out = new FileOutputStream(file.get())) {
+                properties.store(out, "Slinky Environment Builder build durations (ms)");
+            } catch (IOException e) {
+                LOG.warn("Unable to save build durations to '{}'", file.get(), e);
+            }
+        }
+    }
+
+    private String key(BuildDefinition definition) {
+        return definition.getClass().getName() + "#" + definition.getName();
+    }
+}
@@ -0,0 +1,247 @@
+package org.slinkyframework.environment.builder.scheduler;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.lang.String.format;
+
+/**
+ * The order in which a collection of build definitions has to be built.
+ *
+ * Definitions are grouped into tiers by their {@link org.slinkyframework.environment.builder.definition.BuildPriority}
+ * and a definition can only start once every definition in the earlier tiers, and every definition in its own tier
+ * that it declares as a dependency, has finished. Definitions that are not ordered by either rule are independent
+ * and may be built at the same time.
+ *
+ * The {@link #reverse() reverse} of a plan is used to tear an environment down, so that a definition is only torn
+ * down once everything built on top of it has gone. The durations of a reversed plan are not recorded, as they would
+ * replace those of the set up that the longest running definitions are started first by.
+ */
+public class BuildPlan {
+
+    private final Set<BuildDefinition> definitions;
+    private final Map<BuildDefinition, Integer> tiers;
+    private final int tierCount;
+    private final Map<BuildDefinition, Set<BuildDefinition>> prerequisites;
+    private final Map<BuildDefinition, Set<BuildDefinition>> dependents;
+    private final boolean reversed;
+
+    private BuildPlan(Set<BuildDefinition> definitions, Map<BuildDefinition, Integer> tiers, int tierCount,
+                      Map<BuildDefinition, Set<BuildDefinition>> prerequisites,
+                      Map<BuildDefinition, Set<BuildDefinition>> dependents, boolean reversed) {
+        this.definitions = definitions;
+        this.tiers = tiers;
+        this.tierCount = tierCount;
+        this.prerequisites = prerequisites;
+        this.dependents = dependents;
+        this.reversed = reversed;
+    }
+
+    public static BuildPlan create(Collection<? extends BuildDefinition> buildDefinitions) {
+        Set<BuildDefinition> definitions = new LinkedHashSet<>(buildDefinitions);
+
+        Map<BuildDefinition, Integer> tiers = assignTiers(definitions);
+        int tierCount = tiers.isEmpty() ? 0 : Collections.max(tiers.values()) + 1;
+
+        Map<BuildDefinition, Set<BuildDefinition>> prerequisites = new HashMap<>();
+        Map<BuildDefinition, Set<BuildDefinition>> dependents = new HashMap<>();
+        definitions.forEach(definition -> {
+            prerequisites.put(definition, new LinkedHashSet<>());
+            dependents.put(definition, new LinkedHashSet<>());
+        });
+
+        Map<String, List<BuildDefinition>> definitionsByName = new HashMap<>();
+        definitions.forEach(definition -> definitionsByName.computeIfAbsent(definition.getName(), name -> new ArrayList<>()).add(definition));
+
+        for (BuildDefinition definition : definitions) {
+            for (String dependencyName : definition.getDependencies()) {
+                List<BuildDefinition> dependencies = definitionsByName.get(dependencyName);
+
+                if (dependencies == null) {
+                    throw new EnvironmentBuilderException(format("Build definition '%s' depends on unknown build definition '%s'", definition.getName(), dependencyName));
+                }
+
+                for (BuildDefinition dependency : dependencies) {
+                    addDependency(definition, dependency, tiers, prerequisites, dependents);
+                }
+            }
+        }
+
+        verifyNoCycles(definitions, prerequisites, dependents);
+
+        return new BuildPlan(definitions, tiers, tierCount, prerequisites, dependents, false);
+    }
+
+    private static Map<BuildDefinition, Integer> assignTiers(Set<BuildDefinition> definitions) {
+        TreeSet<Integer> priorities = new TreeSet<>();
+        definitions.forEach(definition -> priorities.add(definition.getPriority().getPriority()));
+
+        List<Integer> orderedPriorities = new ArrayList<>(priorities);
+
+        Map<BuildDefinition, Integer> tiers = new LinkedHashMap<>();
+        definitions.forEach(definition -> tiers.put(definition, orderedPriorities.indexOf(definition.getPriority().getPriority())));
+        return tiers;
+    }
+
+    private static void addDependency(BuildDefinition definition, BuildDefinition dependency, Map<BuildDefinition, Integer> tiers,
+                                      Map<BuildDefinition, Set<BuildDefinition>> prerequisites,
+                                      Map<BuildDefinition, Set<BuildDefinition>> dependents) {
+        int tier = tiers.get(definition);
+        int dependencyTier = tiers.get(dependency);
+
+        if (dependencyTier > tier) {
+            throw new EnvironmentBuilderException(format("Build definition '%s' cannot depend on '%s' as it has a lower build priority", definition.getName(), dependency.getName()));
+        }
+
+        // Dependencies on earlier tiers are already guaranteed by the tier ordering
+        if (dependencyTier == tier) {
+            prerequisites.get(definition).add(dependency);
+            dependents.get(dependency).add(definition);
+        }
+    }
+
+    private static void verifyNoCycles(Set<BuildDefinition> definitions, Map<BuildDefinition, Set<BuildDefinition>> prerequisites,
+                                       Map<BuildDefinition, Set<BuildDefinition>> dependents) {
+        Map<BuildDefinition, Integer> remaining = new HashMap<>();
+        Deque<BuildDefinition> ready = new ArrayDeque<>();
+
+        for (BuildDefinition definition : definitions) {
+            remaining.put(definition, prerequisites.get(definition).size());
+            if (prerequisites.get(definition).isEmpty()) {
+                ready.add(definition);
+            }
+        }
+
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            BuildDefinition definition = ready.poll();
+            visited++;
+
+            for (BuildDefinition dependent : dependents.get(definition)) {
+                if (remaining.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+
+        if (visited != definitions.size()) {
+            List<String> names = new ArrayList<>();
+            remaining.forEach((definition, count) -> {
+                if (count > 0) {
+                    names.add(definition.getName());
+                }
+            });
+            Collections.sort(names);
+            throw new EnvironmentBuilderException("Circular dependency between build definitions " + names);
+        }
+    }
+
+    public BuildPlan reverse() {
+        Map<BuildDefinition, Integer> reversedTiers = new LinkedHashMap<>();
+        tiers.forEach((definition, tier) -> reversedTiers.put(definition, tierCount - 1 - tier));
+
+        return new BuildPlan(definitions, reversedTiers, tierCount, dependents, prerequisites, !reversed);
+    }
+
+    /**
+     * @return whether the plan tears an environment down
+     */
+    public boolean isReversed() {
+        return reversed;
+    }
+
+    /**
+     * @return the given definitions together with every definition built after them: those in later tiers and
+     * those in the same tier that depend on them, directly or indirectly.
+     */
+    public Set<BuildDefinition> getDefinitionsAffectedBy(Collection<? extends BuildDefinition> changed) {
+        Set<BuildDefinition> affected = new LinkedHashSet<>();
+        if (changed.isEmpty()) {
+            return affected;
+        }
+
+        int firstChangedTier = changed.stream().mapToInt(this::getTier).min().getAsInt();
+        Deque<BuildDefinition> toVisit = new ArrayDeque<>(changed);
+
+        while (!toVisit.isEmpty()) {
+            BuildDefinition definition = toVisit.poll();
+            if (affected.add(definition)) {
+                toVisit.addAll(dependents.get(definition));
+            }
+        }
+        definitions.stream().filter(definition -> getTier(definition) > firstChangedTier).forEach(affected::add);
+
+        // Keep the order of the plan
+        Set<BuildDefinition> ordered = new LinkedHashSet<>(definitions);
+        ordered.retainAll(affected);
+        return ordered;
+    }
+
+    /**
+     * @return a plan for just the given definitions, keeping their order. Dependencies on definitions outside the
+     * plan are dropped and assumed to have been built already.
+     */
+    public BuildPlan restrictTo(Collection<? extends BuildDefinition> included) {
+        Set<BuildDefinition> restricted = new LinkedHashSet<>(definitions);
+        restricted.retainAll(included);
+
+        TreeSet<Integer> usedTiers = new TreeSet<>();
+        restricted.forEach(definition -> usedTiers.add(getTier(definition)));
+        List<Integer> orderedTiers = new ArrayList<>(usedTiers);
+
+        Map<BuildDefinition, Integer> restrictedTiers = new LinkedHashMap<>();
+        Map<BuildDefinition, Set<BuildDefinition>> restrictedPrerequisites = new HashMap<>();
+        Map<BuildDefinition, Set<BuildDefinition>> restrictedDependents = new HashMap<>();
+
+        for (BuildDefinition definition : restricted) {
+            restrictedTiers.put(definition, orderedTiers.indexOf(getTier(definition)));
+
+            Set<BuildDefinition> definitionPrerequisites = new LinkedHashSet<>(prerequisites.get(definition));
+            definitionPrerequisites.retainAll(restricted);
+            restrictedPrerequisites.put(definition, definitionPrerequisites);
+
+            Set<BuildDefinition> definitionDependents = new LinkedHashSet<>(dependents.get(definition));
+            definitionDependents.retainAll(restricted);
+            restrictedDependents.put(definition, definitionDependents);
+        }
+
+        return new BuildPlan(restricted, restrictedTiers, orderedTiers.size(), restrictedPrerequisites, restrictedDependents, reversed);
+    }
+
+    public Set<BuildDefinition> getDefinitions() {
+        return Collections.unmodifiableSet(definitions);
+    }
+
+    public int getTierCount() {
+        return tierCount;
+    }
+
+    public int getTier(BuildDefinition definition) {
+        return tiers.get(definition);
+    }
+
+    public Set<BuildDefinition> getPrerequisites(BuildDefinition definition) {
+        return Collections.unmodifiableSet(prerequisites.get(definition));
+    }
+
+    public Set<BuildDefinition> getDependents(BuildDefinition definition) {
+        return Collections.unmodifiableSet(dependents.get(definition));
+    }
+
+    public boolean isEmpty() {
+        return definitions.isEmpty();
+    }
+}
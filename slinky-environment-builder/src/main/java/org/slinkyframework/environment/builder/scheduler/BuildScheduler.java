@@ -0,0 +1,353 @@
+package org.slinkyframework.environment.builder.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.BuildProgressListener;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+
+/**
+ * Executes a {@link BuildPlan} on a bounded pool of threads.
+ *
+ * Independent build definitions are run at the same time. When more definitions are ready than there are threads
+ * available the definitions that took longest last time are started first, so that the long running builds do not
+ * end up at the end of the critical path. Only the durations of set up are recorded, not those of a reversed plan.
+ *
+ * The {@link ExecutionMode} decides whether builds run on a pool of platform threads or on virtual threads. On
+ * virtual threads every definition that is ready is started straight away, and the work each build forks in its
+ * {@link BuildScope} is cancelled along with it.
+ */
+public class BuildScheduler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BuildScheduler.class);
+
+    public static final int DEFAULT_MAX_PARALLEL_BUILDS = 4;
+
+    public enum FailurePolicy {
+        /** Stop starting new tasks after the first failure. */
+        FAIL_FAST,
+        /** Carry on with every remaining task and report all of the failures at the end. */
+        CONTINUE
+    }
+
+    private static final long TEN_SECONDS = 10000;
+
+    private final int maxParallelBuilds;
+    private final BuildDurations buildDurations;
+    private final ExecutionMode executionMode;
+
+    public BuildScheduler() {
+        this(DEFAULT_MAX_PARALLEL_BUILDS, BuildDurations.inMemory());
+    }
+
+    public BuildScheduler(int maxParallelBuilds, BuildDurations buildDurations) {
+        this(maxParallelBuilds, buildDurations, ExecutionMode.PLATFORM);
+    }
+
+    public BuildScheduler(int maxParallelBuilds, BuildDurations buildDurations, ExecutionMode executionMode) {
+        if (maxParallelBuilds < 1) {
+            throw new IllegalArgumentException("maxParallelBuilds must be at least 1");
+        }
+        executionMode.checkAvailable();
+
+        this.maxParallelBuilds = maxParallelBuilds;
+        this.buildDurations = buildDurations;
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * @return how many builds run at the same time on platform threads, virtual threads are not limited
+     */
+    public int getMaxParallelBuilds() {
+        return maxParallelBuilds;
+    }
+
+    public BuildDurations getBuildDurations() {
+        return buildDurations;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    /**
+     * Runs the task for every definition in the plan, respecting the order of the plan. Once a task fails no
+     * further tasks are started and the failure is rethrown. The tasks already running are allowed to finish, unless
+     * the execution mode cancels them, in which case they are interrupted and waited for.
+     */
+    public void execute(BuildPlan plan, Consumer<BuildDefinition> task) {
+        execute(plan, task, FailurePolicy.FAIL_FAST);
+    }
+
+    /**
+     * Runs the task for every definition in the plan, respecting the order of the plan. With
+     * {@link FailurePolicy#CONTINUE} a failed task is treated as finished so that the tasks that follow it still run,
+     * and every failure is reported together once the plan is complete.
+     */
+    public void execute(BuildPlan plan, Consumer<BuildDefinition> task, FailurePolicy failurePolicy) {
+        execute(plan, task, failurePolicy, BuildProgressListener.NONE);
+    }
+
+    /**
+     * As {@link #execute(BuildPlan, Consumer, FailurePolicy)}, telling the listener as each task starts and finishes.
+     */
+    public void execute(BuildPlan plan, Consumer<BuildDefinition> task, FailurePolicy failurePolicy, BuildProgressListener listener) {
+        if (plan.isEmpty()) {
+            return;
+        }
+
+        ExecutorService executor = executionMode.newExecutor(Math.min(maxParallelBuilds, plan.getDefinitions().size()), "environment-builder-");
+
+        try {
+            new Execution(plan, task, failurePolicy, listener, executor).run();
+        } finally {
+            shutdown(executor);
+            buildDurations.save();
+        }
+    }
+
+    /**
+     * Makes sure no task outlives the execution, including those cancelled after a failure.
+     */
+    private void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+
+        try {
+            if (!executor.awaitTermination(TEN_SECONDS, TimeUnit.MILLISECONDS)) {
+                LOG.warn("Environment builds are still running after being cancelled");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private class Execution {
+
+        private final BuildPlan plan;
+        private final Consumer<BuildDefinition> task;
+        private final FailurePolicy failurePolicy;
+        private final BuildProgressListener listener;
+        private final ExecutorService executor;
+        private final CompletionService<BuildDefinition> completionService;
+
+        private final Map<BuildDefinition, Integer> remainingPrerequisites = new HashMap<>();
+        private final int[] remainingInTier;
+        private final List<List<BuildDefinition>> waitingForTier = new ArrayList<>();
+        private final PriorityQueue<BuildDefinition> ready;
+
+        private int currentTier = 0;
+        private int running = 0;
+        private final List<BuildFailure> failures = new ArrayList<>();
+        private final Map<BuildDefinition, Future<BuildDefinition>> runningTasks = new HashMap<>();
+        private final Map<BuildDefinition, BuildScope> scopes = new HashMap<>();
+
+        Execution(BuildPlan plan, Consumer<BuildDefinition> task, FailurePolicy failurePolicy, BuildProgressListener listener,
+                  ExecutorService executor) {
+            this.plan = plan;
+            this.task = task;
+            this.failurePolicy = failurePolicy;
+            this.listener = listener;
+            this.executor = executor;
+            this.completionService = new ExecutorCompletionService<>(executor);
+
+            Comparator<BuildDefinition> longestFirst = Comparator.comparingLong(buildDurations::getExpectedDuration).reversed();
+            ready = new PriorityQueue<>(longestFirst.thenComparing(BuildDefinition::getName));
+
+            remainingInTier = new int[plan.getTierCount()];
+            for (int i = 0; i < plan.getTierCount(); i++) {
+                waitingForTier.add(new ArrayList<>());
+            }
+
+            for (BuildDefinition definition : plan.getDefinitions()) {
+                remainingPrerequisites.put(definition, plan.getPrerequisites(definition).size());
+                remainingInTier[plan.getTier(definition)]++;
+
+                if (plan.getPrerequisites(definition).isEmpty()) {
+                    waitingForTier.get(plan.getTier(definition)).add(definition);
+                }
+            }
+            ready.addAll(waitingForTier.get(currentTier));
+        }
+
+        void run() {
+            int outstanding = plan.getDefinitions().size();
+
+            try {
+                while (outstanding > 0) {
+                    while (canStartMoreTasks() && (running < maxParallelBuilds || executionMode == ExecutionMode.VIRTUAL) && !ready.isEmpty()) {
+                        submit(ready.poll());
+                    }
+
+                    if (running == 0) {
+                        break;
+                    }
+
+                    complete(completionService.take());
+                    outstanding--;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EnvironmentBuilderException("Interrupted whilst waiting for environment builds to complete", e);
+            }
+
+            if (!failures.isEmpty()) {
+                throw toEnvironmentBuilderException(failures);
+            }
+            if (outstanding > 0) {
+                throw new EnvironmentBuilderException(format("Unable to schedule %s build definition(s)", outstanding));
+            }
+        }
+
+        private boolean canStartMoreTasks() {
+            return failures.isEmpty() || failurePolicy == FailurePolicy.CONTINUE;
+        }
+
+        private void submit(BuildDefinition definition) {
+            BuildScope scope = new BuildScope(executionMode == ExecutionMode.VIRTUAL ? executor : null);
+
+            running++;
+            scopes.put(definition, scope);
+            runningTasks.put(definition, completionService.submit(() -> {
+                long start = System.currentTimeMillis();
+
+                LOG.debug("Starting build of '{}'", definition.getName());
+                notifyListener(() -> listener.onStarted(definition));
+                try {
+                    BuildScope.runIn(scope, () -> task.accept(definition));
+                } catch (RuntimeException | Error e) {
+                    notifyListener(() -> listener.onFailed(definition, e));
+                    throw new BuildFailure(definition, e);
+                } finally {
+                    scope.cancel();
+                }
+
+                long duration = System.currentTimeMillis() - start;
+                if (!plan.isReversed()) {
+                    buildDurations.record(definition, duration);
+                }
+                LOG.debug("Build of '{}' completed in {}ms", definition.getName(), duration);
+                notifyListener(() -> listener.onCompleted(definition, duration));
+
+                return definition;
+            }));
+        }
+
+        private void complete(Future<BuildDefinition> future) throws InterruptedException {
+            running--;
+
+            BuildDefinition definition;
+            try {
+                definition = future.get();
+            } catch (CancellationException e) {
+                runningTasks.values().remove(future);
+                return;
+            } catch (ExecutionException e) {
+                BuildFailure failure = (BuildFailure) e.getCause();
+                LOG.error("Build of '{}' failed", failure.getDefinition().getName(), failure.getCause());
+
+                failures.add(failure);
+                definition = failure.getDefinition();
+                cancelRunningTasks();
+            }
+            runningTasks.remove(definition);
+            scopes.remove(definition);
+
+            for (BuildDefinition dependent : plan.getDependents(definition)) {
+                if (remainingPrerequisites.merge(dependent, -1, Integer::sum) == 0) {
+                    release(dependent);
+                }
+            }
+
+            remainingInTier[plan.getTier(definition)]--;
+            openNextTiers();
+        }
+
+        private void cancelRunningTasks() {
+            if (executionMode.isCancelOnFailure() && failurePolicy == FailurePolicy.FAIL_FAST) {
+                runningTasks.forEach((definition, future) -> {
+                    if (future.cancel(true)) {
+                        LOG.info("Cancelled build of '{}'", definition.getName());
+                    }
+                    scopes.get(definition).cancel();
+                });
+            }
+        }
+
+        private void release(BuildDefinition definition) {
+            int tier = plan.getTier(definition);
+
+            if (tier <= currentTier) {
+                ready.add(definition);
+            } else {
+                waitingForTier.get(tier).add(definition);
+            }
+        }
+
+        private void openNextTiers() {
+            while (currentTier < plan.getTierCount() - 1 && remainingInTier[currentTier] == 0) {
+                currentTier++;
+                ready.addAll(waitingForTier.get(currentTier));
+            }
+        }
+    }
+
+    /**
+     * A listener that throws must not fail the build.
+     */
+    private static void notifyListener(Runnable notification) {
+        try {
+            notification.run();
+        } catch (RuntimeException e) {
+            LOG.warn("Build progress listener failed", e);
+        }
+    }
+
+    private static EnvironmentBuilderException toEnvironmentBuilderException(List<BuildFailure> failures) {
+        if (failures.size() == 1) {
+            Throwable cause = failures.get(0).getCause();
+
+            if (cause instanceof EnvironmentBuilderException) {
+                return (EnvironmentBuilderException) cause;
+            }
+            return new EnvironmentBuilderException(format("Environment build of '%s' failed: %s", failures.get(0).getDefinition().getName(), cause.getMessage()), cause);
+        }
+
+        List<String> names = new ArrayList<>();
+        failures.forEach(failure -> names.add(failure.getDefinition().getName()));
+
+        EnvironmentBuilderException exception = new EnvironmentBuilderException(format("Environment build failed for %s build definitions %s", failures.size(), names), failures.get(0).getCause());
+        failures.stream().skip(1).forEach(failure -> exception.addSuppressed(failure.getCause()));
+        return exception;
+    }
+
+    private static class BuildFailure extends RuntimeException {
+
+        private final BuildDefinition definition;
+
+        BuildFailure(BuildDefinition definition, Throwable cause) {
+            super(cause);
+            this.definition = definition;
+        }
+
+        BuildDefinition getDefinition() {
+            return definition;
+        }
+    }
+}
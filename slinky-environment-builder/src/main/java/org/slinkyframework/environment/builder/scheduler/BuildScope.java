@@ -0,0 +1,140 @@
+package org.slinkyframework.environment.builder.scheduler;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The work a build does alongside itself, e.g. probing a container or running the statements of a tear down.
+ *
+ * In {@link ExecutionMode#VIRTUAL} the work is forked onto virtual threads of its own and is cancelled along with
+ * the build, so nothing forked outlives it. Otherwise the work runs as it did before, on the calling thread or on the
+ * executor of the caller's choosing. Forked work is tagged with the {@link MetricTags} of the thread that forked it.
+ */
+public class BuildScope {
+
+    private static final BuildScope NONE = new BuildScope(null);
+    private static final ThreadLocal<BuildScope> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService executor;
+    private final Set<Future<?>> forks = ConcurrentHashMap.newKeySet();
+    private volatile boolean cancelled;
+
+    BuildScope(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return the scope of the build running on this thread, or one that forks nothing outside of a build
+     */
+    public static BuildScope current() {
+        BuildScope scope = CURRENT.get();
+        return scope == null ? NONE : scope;
+    }
+
+    /**
+     * @return whether work forked in the scope runs at the same time
+     */
+    public boolean isConcurrent() {
+        return executor != null;
+    }
+
+    /**
+     * @return forks each task in the scope, or the fallback outside a concurrent scope
+     */
+    public Executor executorOr(Executor fallback) {
+        return executor == null ? fallback : this::fork;
+    }
+
+    /**
+     * Runs every task, at the same time in a concurrent scope and one after another otherwise, and waits for them to
+     * finish. When a task fails the others are cancelled and the failure is rethrown.
+     */
+    public void runAll(List<Runnable> tasks) {
+        if (executor == null) {
+            tasks.forEach(Runnable::run);
+            return;
+        }
+
+        MetricTags tags = MetricTags.current();
+        CompletionService<Void> completionService = new ExecutorCompletionService<>(runnable -> executor.execute(() -> runIn(this, tags, runnable)));
+        List<Future<?>> futures = new ArrayList<>();
+        tasks.forEach(task -> futures.add(track(completionService.submit(task, null))));
+
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                completionService.take().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new EnvironmentBuilderException("Unable to complete the work of the build", e.getCause());
+        } catch (CancellationException e) {
+            throw new EnvironmentBuilderException("The work of the build was cancelled", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EnvironmentBuilderException("Interrupted whilst waiting for the work of the build", e);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+            forks.removeAll(futures);
+        }
+    }
+
+    private void fork(Runnable task) {
+        MetricTags tags = MetricTags.current();
+        FutureTask<Void> future = new FutureTask<Void>(() -> runIn(this, tags, task), null) {
+            @Override
+            protected void done() {
+                forks.remove(this);
+            }
+        };
+        executor.execute(track(future));
+    }
+
+    private <F extends Future<?>> F track(F future) {
+        forks.add(future);
+
+        if (cancelled) {
+            future.cancel(true);
+        }
+        return future;
+    }
+
+    /**
+     * Interrupts every task forked in the scope that is still running, and any forked after.
+     */
+    void cancel() {
+        cancelled = true;
+        forks.forEach(future -> future.cancel(true));
+    }
+
+    static void runIn(BuildScope scope, Runnable task) {
+        runIn(scope, MetricTags.NONE, task);
+    }
+
+    /**
+     * @param tags the metric tags of the thread the task was forked from
+     */
+    private static void runIn(BuildScope scope, MetricTags tags, Runnable task) {
+        BuildScope previous = CURRENT.get();
+        CURRENT.set(scope);
+        try {
+            tags.runWith(task);
+        } finally {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.slinkyframework.environment.builder.scheduler;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.lang.String.format;
+
+/**
+ * The threads that build definitions are built on.
+ *
+ * The mode can be chosen with the <code>env.threads</code> system property.
+ */
+public enum ExecutionMode {
+
+    /** A fixed pool of platform threads, sized by the maximum number of parallel builds. */
+    PLATFORM,
+
+    /**
+     * A new virtual thread for each build definition, and for the work each build forks in its {@link BuildScope}, so
+     * that builds blocked on Docker, JDBC or retry back off cost next to nothing. When one build fails the builds
+     * still running are cancelled. Virtual threads need Java 21 or later.
+     */
+    VIRTUAL;
+
+    public static final String SYSTEM_PROPERTY = "env.threads";
+
+    public static ExecutionMode fromSystemProperty() {
+        return fromString(System.getProperty(SYSTEM_PROPERTY));
+    }
+
+    public static ExecutionMode fromString(String mode) {
+        if (mode == null || mode.trim().isEmpty()) {
+            return PLATFORM;
+        }
+
+        try {
+            return valueOf(mode.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new EnvironmentBuilderException(format("Unknown execution mode '%s'. Expected one of %s", mode, Arrays.toString(values())), e);
+        }
+    }
+
+    /**
+     * @return true if the running JVM supports virtual threads
+     */
+    public static boolean isVirtualThreadsAvailable() {
+        return VirtualThreads.isAvailable();
+    }
+
+    /**
+     * @return whether running builds are cancelled as soon as one of them fails
+     */
+    public boolean isCancelOnFailure() {
+        return this == VIRTUAL;
+    }
+
+    /**
+     * @throws EnvironmentBuilderException when the running JVM cannot create the threads of the mode
+     */
+    void checkAvailable() {
+        if (this == VIRTUAL && !isVirtualThreadsAvailable()) {
+            throw new EnvironmentBuilderException(format("Virtual threads need Java 21 or later, but this is Java %s. Remove %s=virtual or build on a later JVM.",
+                    System.getProperty("java.version"), SYSTEM_PROPERTY));
+        }
+    }
+
+    ExecutorService newExecutor(int threads, String threadNamePrefix) {
+        checkAvailable();
+
+        if (this == PLATFORM) {
+            return Executors.newFixedThreadPool(threads, new PlatformThreadFactory(threadNamePrefix));
+        }
+        return VirtualThreads.newThreadPerTaskExecutor(threadNamePrefix);
+    }
+
+    private static class PlatformThreadFactory implements ThreadFactory {
+
+        private final String threadNamePrefix;
+        private final AtomicInteger count = new AtomicInteger();
+
+        PlatformThreadFactory(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, threadNamePrefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /**
+     * Reaches the Java 21 virtual thread API by reflection, as the project is still built for Java 8.
+     */
+    private static class VirtualThreads {
+
+        private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+        private static final Method FACTORY = OF_VIRTUAL == null ? null : findMethod(OF_VIRTUAL.getReturnType(), "factory");
+        private static final Method NAME = OF_VIRTUAL == null ? null : findMethod(OF_VIRTUAL.getReturnType(), "name", String.class, long.class);
+        private static final Method NEW_THREAD_PER_TASK_EXECUTOR = findMethod(Executors.class, "newThreadPerTaskExecutor", ThreadFactory.class);
+
+        // Virtual threads were a preview feature before Java 21 and refuse to start without --enable-preview
+        private static final boolean AVAILABLE = createThreadFactory("virtual-") != null;
+
+        static boolean isAvailable() {
+            return AVAILABLE;
+        }
+
+        static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+            try {
+                return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, createThreadFactory(threadNamePrefix));
+            } catch (ReflectiveOperationException e) {
+                throw new EnvironmentBuilderException("Unable to create virtual threads", e);
+            }
+        }
+
+        private static ThreadFactory createThreadFactory(String threadNamePrefix) {
+            if (OF_VIRTUAL == null || FACTORY == null || NAME == null || NEW_THREAD_PER_TASK_EXECUTOR == null) {
+                return null;
+            }
+
+            try {
+                Object builder = NAME.invoke(OF_VIRTUAL.invoke(null), threadNamePrefix, 1L);
+                return (ThreadFactory) FACTORY.invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                return null;
+            }
+        }
+
+        private static Method findMethod(Class<?> clazz, String name, Class<?>... parameterTypes) {
+            try {
+                return clazz.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.slinkyframework.environment.builder.state;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The fingerprints of the build definitions that were last set up in an environment, used to work out which
+ * build definitions need to be set up again. When backed by a file the state survives between builds.
+ *
+ * A serializable build definition is recorded as well, so that it can still be torn down once it has been removed.
+ */
+public class EnvironmentState {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EnvironmentState.class);
+
+    private static final String CONTEXT_KEY = "context";
+    private static final String FINGERPRINT_PREFIX = "fingerprint.";
+    private static final String DEFINITION_PREFIX = "definition.";
+
+    private final Optional<File> file;
+    private final String context;
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, String> definitions = new ConcurrentHashMap<>();
+
+    private EnvironmentState(Optional<File> file, String context) {
+        this.file = file;
+        this.context = context;
+    }
+
+    public static EnvironmentState inMemory(EnvironmentBuilderContext context) {
+        return new EnvironmentState(Optional.empty(), context.toString());
+    }
+
+    /**
+     * Loads the state of the context from the directory. A file written for a different context is ignored.
+     */
+    public static EnvironmentState load(File directory, EnvironmentBuilderContext context) {
+        File file = new File(directory, fileName(context));
+        EnvironmentState state = new EnvironmentState(Optional.of(file), context.toString());
+
+        if (file.exists()) {
+            Properties properties = new Properties();
+
+            try (InputStream in = new FileInputStream(file)) {
+                properties.load(in);
+
+                if (state.context.equals(properties.getProperty(CONTEXT_KEY))) {
+                    readProperties(properties, FINGERPRINT_PREFIX, state.fingerprints);
+                    readProperties(properties, DEFINITION_PREFIX, state.definitions);
+                }
+            } catch (IOException e) {
+                LOG.warn("Unable to read environment state from '{}'. The environment will be set up in full.", file, e);
+            }
+        }
+        return state;
+    }
+
+    private static void readProperties(Properties properties, String prefix, Map<String, String> values) {
+        properties.stringPropertyNames().stream()
+                .filter(key -> key.startsWith(prefix))
+                .forEach(key -> values.put(key.substring(prefix.length()), properties.getProperty(key)));
+    }
+
+    public static String key(BuildDefinition definition) {
+        return definition.getClass().getName() + "#" + definition.getName();
+    }
+
+    public Optional<String> getFingerprint(BuildDefinition definition) {
+        return Optional.ofNullable(fingerprints.get(key(definition)));
+    }
+
+    public void record(BuildDefinition definition, String fingerprint) {
+        fingerprints.put(key(definition), fingerprint);
+        serialize(definition).ifPresent(serialized -> definitions.put(key(definition), serialized));
+    }
+
+    public void forget(BuildDefinition definition) {
+        fingerprints.remove(key(definition));
+        definitions.remove(key(definition));
+    }
+
+    /**
+     * @return the build definition recorded under the key, or empty when it was not serializable or can no longer
+     * be read, e.g. because its class has gone
+     */
+    public Optional<BuildDefinition> getDefinition(String key) {
+        String serialized = definitions.get(key);
+
+        if (serialized == null) {
+            return Optional.empty();
+        }
+
+        try (ObjectInputStream in = new DefinitionInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(serialized)))) {
+            return Optional.of((BuildDefinition) in.readObject());
+        } catch (IOException | ClassNotFoundException | ClassCastException | IllegalArgumentException e) {
+            LOG.warn("Unable to read build definition '{}' from the environment state", key, e);
+            return Optional.empty();
+        }
+    }
+
+    private static Optional<String> serialize(BuildDefinition definition) {
+        if (!(definition instanceof Serializable)) {
+            return Optional.empty();
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(definition);
+        } catch (IOException e) {
+            LOG.debug("Unable to record build definition '{}' in the environment state", definition.getName(), e);
+            return Optional.empty();
+        }
+        return Optional.of(Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    }
+
+    /**
+     * @return the keys, as returned by {@link #key(BuildDefinition)}, of every build definition in the state.
+     */
+    public Set<String> getKeys() {
+        return new TreeSet<>(fingerprints.keySet());
+    }
+
+    public void clear() {
+        fingerprints.clear();
+        definitions.clear();
+    }
+
+    public boolean isEmpty() {
+        return fingerprints.isEmpty();
+    }
+
+    public void save() {
+        if (file.isPresent()) {
+            Properties properties = new Properties();
+            properties.setProperty(CONTEXT_KEY, context);
+            fingerprints.forEach((key, fingerprint) -> properties.setProperty(FINGERPRINT_PREFIX + key, fingerprint));
+            definitions.forEach((key, definition) -> properties.setProperty(DEFINITION_PREFIX + key, definition));
+
+            File parent = file.get().getParentFile();
+            if (parent != null) {
+                parent.mkdirs();
+            }
+
+            try (OutputStream out = new FileOutputStream(file.get())) {
+                properties.store(out, "Slinky Environment Builder environment state");
+            } catch (IOException e) {
+                LOG.warn("Unable to save environment state to '{}'", file.get(), e);
+            }
+        }
+    }
+
+    private static String fileName(EnvironmentBuilderContext context) {
+        String host = context.getTargetHost() == null ? "default" : context.getTargetHost();
+        return host.replaceAll("[^A-Za-z0-9._-]", "_") + (context.isUseDocker() ? "-docker" : "-local") + context.getNamespace().getSuffix() + ".properties";
+    }
+
+    /**
+     * Reads build definitions with the classes of the build rather than those of the JDK.
+     */
+    private static class DefinitionInputStream extends ObjectInputStream {
+
+        DefinitionInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            try {
+                return ClassUtils.forName(description.getName(), ClassUtils.getDefaultClassLoader());
+            } catch (ClassNotFoundException e) {
+                return super.resolveClass(description);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.slinkyframework.environment.builder.state;
+
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link EnvironmentState} of each environment. When backed by a directory each environment's state is
+ * kept in its own file so that it survives between builds.
+ */
+public class EnvironmentStateStore {
+
+    private final Optional<File> directory;
+    private final Map<EnvironmentBuilderContext, EnvironmentState> states = new ConcurrentHashMap<>();
+
+    private EnvironmentStateStore(Optional<File> directory) {
+        this.directory = directory;
+    }
+
+    public static EnvironmentStateStore inMemory() {
+        return new EnvironmentStateStore(Optional.empty());
+    }
+
+    public static EnvironmentStateStore inDirectory(File directory) {
+        return new EnvironmentStateStore(Optional.of(directory));
+    }
+
+    public EnvironmentState get(EnvironmentBuilderContext context) {
+        return states.computeIfAbsent(context, this::load);
+    }
+
+    private EnvironmentState load(EnvironmentBuilderContext context) {
+        if (directory.isPresent()) {
+            return EnvironmentState.load(directory.get(), context);
+        }
+        return EnvironmentState.inMemory(context);
+    }
+}
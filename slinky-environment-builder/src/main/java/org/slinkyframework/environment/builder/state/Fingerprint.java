@@ -0,0 +1,89 @@
+package org.slinkyframework.environment.builder.state;
+
+import org.apache.commons.lang3.builder.RecursiveToStringStyle;
+import org.apache.commons.lang3.builder.ReflectionToStringBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A SHA-256 digest of the content that makes up part of an environment. Two fingerprints are equal when the
+ * same content has been added in the same order.
+ */
+public class Fingerprint {
+
+    private static final String ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 8192;
+
+    private final MessageDigest digest;
+
+    private Fingerprint() {
+        try {
+            digest = MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new EnvironmentBuilderException("Unable to create fingerprint", e);
+        }
+    }
+
+    public static Fingerprint create() {
+        return new Fingerprint();
+    }
+
+    public Fingerprint add(String value) {
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+
+        // Length prefix so that "ab" + "c" differs from "a" + "bc"
+        addLength(bytes.length);
+        digest.update(bytes);
+        return this;
+    }
+
+    /**
+     * Adds every field of the object, and of the objects it refers to, so that a change to any of its
+     * configuration changes the fingerprint.
+     */
+    public Fingerprint addFields(Object object) {
+        return add(new ReflectionToStringBuilder(object, new FieldsStyle()).toString());
+    }
+
+    public Fingerprint add(InputStream in) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            digest.update(buffer, 0, read);
+        }
+        return this;
+    }
+
+    public String toHex() {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private void addLength(int length) {
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+    }
+
+    private static class FieldsStyle extends RecursiveToStringStyle {
+
+        FieldsStyle() {
+            setUseIdentityHashCode(false);
+        }
+
+        @Override
+        protected boolean accept(Class<?> clazz) {
+            // JDK types are described by their toString() rather than their internals
+            return !clazz.getName().startsWith("java.");
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package org.slinkyframework.environment.builder.state;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * An append-only record of everything an environment builder has created, so that tear down removes exactly that
+ * and nothing else.
+ *
+ * Each entry is written and forced to disk before the resource it describes is created, or as soon as its
+ * identity is known, so the journal survives a crash part way through set up. An entry left half written by a
+ * crash is ignored when the journal is next opened.
+ *
+ * Once started, the journal is kept even when there is nothing left in it, so that an empty journal means there is
+ * nothing to undo rather than that the environment was set up before journals were kept.
+ */
+public class ProvisioningJournal {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProvisioningJournal.class);
+
+    public static final File DEFAULT_DIRECTORY = new File(System.getProperty("user.home"), ".slinky/journal");
+
+    private static final String SEPARATOR = "\t";
+    private static final String END_OF_ENTRY = "\n";
+
+    private final Optional<File> file;
+    private final List<Entry> entries = new ArrayList<>();
+    private boolean started;
+
+    private ProvisioningJournal(Optional<File> file) {
+        this.file = file;
+    }
+
+    public static ProvisioningJournal inMemory() {
+        return new ProvisioningJournal(Optional.empty());
+    }
+
+    /**
+     * Opens the journal with the given name in the directory, reading any entries left by an earlier build.
+     */
+    public static ProvisioningJournal open(File directory, String name) {
+        File file = new File(directory, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".journal");
+        ProvisioningJournal journal = new ProvisioningJournal(Optional.of(file));
+
+        if (file.exists()) {
+            journal.started = true;
+
+            if (!journal.read(file)) {
+                // Drop the incomplete entry so that the next one is not appended to it
+                journal.rewrite();
+            }
+        }
+        return journal;
+    }
+
+    /**
+     * Starts keeping the journal, before set up records anything in it, so that a set up that creates nothing is
+     * still known to have been journaled.
+     */
+    public synchronized void start() {
+        if (!started) {
+            file.ifPresent(journalFile -> write(journalFile, "", APPEND));
+            started = true;
+        }
+    }
+
+    /**
+     * @return whether the journal was kept by an earlier build or started by this one. If not, what was set up is
+     * unknown.
+     */
+    public synchronized boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Appends an entry and forces it to disk. An entry that is already in the journal is not recorded again.
+     */
+    public synchronized void record(String type, String... values) {
+        Entry entry = new Entry(type, Arrays.asList(values));
+
+        if (!entries.contains(entry)) {
+            append(entry);
+            entries.add(entry);
+            started = true;
+        }
+    }
+
+    public synchronized List<Entry> getEntries() {
+        return new ArrayList<>(entries);
+    }
+
+    public synchronized List<Entry> getEntries(String type) {
+        return entries.stream()
+                .filter(entry -> entry.getType().equals(type))
+                .collect(Collectors.toList());
+    }
+
+    public synchronized boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Removes entries whose resources have been torn down.
+     */
+    public synchronized void remove(Collection<Entry> removed) {
+        if (entries.removeAll(removed)) {
+            rewrite();
+        }
+    }
+
+    /**
+     * Undoes each entry, newest first, removing it from the journal once it has been undone. Replay stops at the
+     * first failure, leaving that entry and the older ones in the journal for the next tear down.
+     */
+    public void replayInReverse(Consumer<Entry> undo) {
+        List<Entry> reversed = getEntries();
+        Collections.reverse(reversed);
+
+        for (Entry entry : reversed) {
+            undo.accept(entry);
+            remove(Collections.singleton(entry));
+        }
+    }
+
+    /**
+     * Forgets every entry, e.g. once the resources have gone along with the container they were created in.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        started = true;
+        rewrite();
+    }
+
+    /**
+     * @return false if the journal ended with an incomplete entry
+     */
+    private boolean read(File file) {
+        try {
+            String content = new String(Files.readAllBytes(file.toPath()), UTF_8);
+            int end = content.lastIndexOf(END_OF_ENTRY);
+
+            boolean complete = end == content.length() - 1;
+
+            if (!complete) {
+                LOG.warn("Ignoring incomplete entry at the end of provisioning journal '{}'", file);
+            }
+
+            if (end >= 0) {
+                for (String line : content.substring(0, end).split(END_OF_ENTRY)) {
+                    if (!line.isEmpty()) {
+                        List<String> fields = Arrays.asList(line.split(SEPARATOR, -1));
+                        entries.add(new Entry(fields.get(0), fields.subList(1, fields.size())));
+                    }
+                }
+            }
+            return complete;
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException(format("Unable to read provisioning journal '%s'", file), e);
+        }
+    }
+
+    private void append(Entry entry) {
+        if (file.isPresent()) {
+            write(file.get(), entry.toString() + END_OF_ENTRY, APPEND);
+        }
+    }
+
+    private void rewrite() {
+        if (file.isPresent()) {
+            try {
+                File tempFile = new File(file.get().getPath() + ".tmp");
+                StringBuilder content = new StringBuilder();
+                entries.forEach(entry -> content.append(entry).append(END_OF_ENTRY));
+
+                write(tempFile, content.toString(), TRUNCATE_EXISTING);
+                Files.move(tempFile.toPath(), file.get().toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new EnvironmentBuilderException(format("Unable to update provisioning journal '%s'", file.get()), e);
+            }
+        }
+    }
+
+    private static void write(File file, String content, OpenOption mode) {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), CREATE, WRITE, mode)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new EnvironmentBuilderException(format("Unable to write to provisioning journal '%s'", file), e);
+        }
+    }
+
+    /**
+     * Something created during set up, identified by its type and the values needed to remove it.
+     */
+    public static final class Entry {
+
+        private final String type;
+        private final List<String> values;
+
+        public Entry(String type, List<String> values) {
+            if (type.isEmpty() || containsSeparator(type) || values.stream().anyMatch(Entry::containsSeparator)) {
+                throw new IllegalArgumentException(format("Journal entries may not contain tabs or line breaks: %s %s", type, values));
+            }
+            this.type = type;
+            this.values = Collections.unmodifiableList(new ArrayList<>(values));
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public List<String> getValues() {
+            return values;
+        }
+
+        /**
+         * @return the first value, which identifies the resource
+         */
+        public String getTarget() {
+            return values.isEmpty() ? "" : values.get(0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Entry)) {
+                return false;
+            }
+            Entry other = (Entry) o;
+            return type.equals(other.type) && values.equals(other.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + values.hashCode();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder line = new StringBuilder(type);
+            values.forEach(value -> line.append(SEPARATOR).append(value));
+            return line.toString();
+        }
+
+        private static boolean containsSeparator(String value) {
+            return value.contains(SEPARATOR) || value.contains("\n") || value.contains("\r");
+        }
+    }
+}
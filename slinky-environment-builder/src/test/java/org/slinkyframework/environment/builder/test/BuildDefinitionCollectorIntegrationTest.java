@@ -7,6 +7,7 @@ import org.slinkyframework.environment.builder.definition.BuildDefinitionCollect
 import org.slinkyframework.environment.builder.definition.BuildPriority;
 import org.slinkyframework.environment.builder.example.AnotherBuildDefinition;
 import org.slinkyframework.environment.builder.example.ExampleBuildDefinition;
+import org.slinkyframework.environment.builder.index.DiscoveryMode;
 
 import java.util.Map;
 import java.util.Set;
@@ -49,4 +50,13 @@ public class BuildDefinitionCollectorIntegrationTest {
         Set<BuildDefinition> exampleBuildDefinitions = buildDefinitions.get(definition1.getClass());
         assertThat("BuildDefinitions", exampleBuildDefinitions, contains(definition1, definition2, definition3));
     }
+
+    @Test
+    public void shouldFindTheSameBuildDefinitionsWhenScanningTheClasspath() {
+
+        Map<Class, Set<BuildDefinition>> indexed = testee.findBuildDefinitions();
+        Map<Class, Set<BuildDefinition>> scanned = new BuildDefinitionCollector(DiscoveryMode.SCAN).findBuildDefinitions();
+
+        assertThat("BuildDefinitions", scanned, equalTo(indexed));
+    }
 }
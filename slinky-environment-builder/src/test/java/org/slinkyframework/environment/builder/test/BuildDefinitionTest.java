@@ -5,6 +5,7 @@ import org.slinkyframework.environment.builder.definition.BuildDefinition;
 import org.slinkyframework.environment.builder.definition.BuildPriority;
 import org.slinkyframework.environment.builder.example.ExampleBuildDefinition;
 
+import java.util.HashSet;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -25,6 +26,17 @@ public class BuildDefinitionTest {
         assertThat("BuildDefinition", definition1, is(equalTo(definition2)));
     }
 
+    @Test
+    public void shouldStillBeFoundOnceDependencyAdded() {
+        ExampleBuildDefinition definition = new ExampleBuildDefinition(BuildPriority.NORMAL, TEST_NAME);
+        Set<BuildDefinition> buildDefinitions = new HashSet<>();
+        buildDefinitions.add(definition);
+
+        definition.addDependency("Other");
+
+        assertThat("Contains", buildDefinitions.contains(definition), is(true));
+    }
+
     @Test
     public void shouldBeOrderByPriority() {
 
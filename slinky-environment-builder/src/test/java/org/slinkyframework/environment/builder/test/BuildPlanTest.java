@@ -0,0 +1,129 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+import org.slinkyframework.environment.builder.example.ExampleBuildDefinition;
+import org.slinkyframework.environment.builder.scheduler.BuildPlan;
+
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BuildPlanTest {
+
+    @Test
+    public void shouldGroupDefinitionsIntoTiersByPriority() {
+        ExampleBuildDefinition low = new ExampleBuildDefinition(BuildPriority.LOW, "Low");
+        ExampleBuildDefinition normal = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal");
+        ExampleBuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+
+        BuildPlan testee = BuildPlan.create(Arrays.asList(low, normal, high));
+
+        assertThat("Tiers", testee.getTierCount(), is(3));
+        assertThat("High tier", testee.getTier(high), is(0));
+        assertThat("Normal tier", testee.getTier(normal), is(1));
+        assertThat("Low tier", testee.getTier(low), is(2));
+    }
+
+    @Test
+    public void shouldLinkDeclaredDependenciesWithinATier() {
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.NORMAL, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        schema.addDependency("Users");
+
+        BuildPlan testee = BuildPlan.create(Arrays.asList(users, schema));
+
+        assertThat("Prerequisites", testee.getPrerequisites(schema), contains(users));
+        assertThat("Dependents", testee.getDependents(users), contains(schema));
+        assertThat("Prerequisites", testee.getPrerequisites(users), is(empty()));
+    }
+
+    @Test
+    public void shouldNotLinkDependenciesAlreadyOrderedByPriority() {
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.HIGH, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        schema.addDependency("Users");
+
+        BuildPlan testee = BuildPlan.create(Arrays.asList(users, schema));
+
+        assertThat("Prerequisites", testee.getPrerequisites(schema), is(empty()));
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldRejectAnUnknownDependency() {
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        schema.addDependency("Unknown");
+
+        BuildPlan.create(Arrays.asList(schema));
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldRejectADependencyOnALowerPriority() {
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.LOW, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        schema.addDependency("Users");
+
+        BuildPlan.create(Arrays.asList(users, schema));
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldRejectCircularDependencies() {
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.NORMAL, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        users.addDependency("Schema");
+        schema.addDependency("Users");
+
+        BuildPlan.create(Arrays.asList(users, schema));
+    }
+
+    @Test
+    public void shouldReverseTiersAndDependencies() {
+        ExampleBuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.NORMAL, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        schema.addDependency("Users");
+
+        BuildPlan testee = BuildPlan.create(Arrays.asList(high, users, schema)).reverse();
+
+        assertThat("High tier", testee.getTier(high), is(1));
+        assertThat("Users tier", testee.getTier(users), is(0));
+        assertThat("Prerequisites", testee.getPrerequisites(users), contains(schema));
+        assertThat("Prerequisites", testee.getPrerequisites(schema), is(empty()));
+    }
+
+    @Test
+    public void shouldIncludeLaterTiersAndDependentsInDefinitionsAffectedByAChange() {
+        ExampleBuildDefinition tablespace = new ExampleBuildDefinition(BuildPriority.HIGH, "Tablespace");
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.NORMAL, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        ExampleBuildDefinition other = new ExampleBuildDefinition(BuildPriority.NORMAL, "Other");
+        ExampleBuildDefinition data = new ExampleBuildDefinition(BuildPriority.LOW, "Data");
+        schema.addDependency("Users");
+
+        BuildPlan testee = BuildPlan.create(Arrays.asList(tablespace, users, schema, other, data));
+
+        assertThat("Affected", testee.getDefinitionsAffectedBy(Arrays.asList(users)), containsInAnyOrder(users, schema, data));
+        assertThat("Affected", testee.getDefinitionsAffectedBy(Arrays.asList(data)), contains(data));
+    }
+
+    @Test
+    public void shouldRestrictPlanToSomeDefinitions() {
+        ExampleBuildDefinition tablespace = new ExampleBuildDefinition(BuildPriority.HIGH, "Tablespace");
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.NORMAL, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        ExampleBuildDefinition data = new ExampleBuildDefinition(BuildPriority.LOW, "Data");
+        schema.addDependency("Users");
+
+        BuildPlan testee = BuildPlan.create(Arrays.asList(tablespace, users, schema, data)).restrictTo(Arrays.asList(schema, data));
+
+        assertThat("Definitions", testee.getDefinitions(), contains(schema, data));
+        assertThat("Tiers", testee.getTierCount(), is(2));
+        assertThat("Schema tier", testee.getTier(schema), is(0));
+        assertThat("Prerequisites", testee.getPrerequisites(schema), is(empty()));
+    }
+}
@@ -0,0 +1,358 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slinkyframework.environment.builder.BuildProgressListener;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+import org.slinkyframework.environment.builder.example.ExampleBuildDefinition;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.scheduler.BuildDurations;
+import org.slinkyframework.environment.builder.scheduler.BuildPlan;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler.FailurePolicy;
+import org.slinkyframework.environment.builder.scheduler.BuildScope;
+import org.slinkyframework.environment.builder.scheduler.ExecutionMode;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class BuildSchedulerTest {
+
+    private BuildDurations buildDurations;
+    private List<String> built;
+
+    @Before
+    public void setUp() {
+        buildDurations = BuildDurations.inMemory();
+        built = new CopyOnWriteArrayList<>();
+    }
+
+    @Test
+    public void shouldBuildEveryDefinition() {
+        BuildDefinition definition1 = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1");
+        BuildDefinition definition2 = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build2");
+
+        new BuildScheduler(2, buildDurations).execute(BuildPlan.create(Arrays.asList(definition1, definition2)), this::build);
+
+        assertThat("Built", built, containsInAnyOrder("Build1", "Build2"));
+    }
+
+    @Test
+    public void shouldBuildHigherPrioritiesFirst() {
+        BuildDefinition low = new ExampleBuildDefinition(BuildPriority.LOW, "Low");
+        BuildDefinition normal = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal");
+        BuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+
+        new BuildScheduler(4, buildDurations).execute(BuildPlan.create(Arrays.asList(low, normal, high)), this::build);
+
+        assertThat("Built", built, contains("High", "Normal", "Low"));
+    }
+
+    @Test
+    public void shouldBuildDeclaredDependenciesFirst() {
+        ExampleBuildDefinition users = new ExampleBuildDefinition(BuildPriority.NORMAL, "Users");
+        ExampleBuildDefinition schema = new ExampleBuildDefinition(BuildPriority.NORMAL, "Schema");
+        schema.addDependency("Users");
+
+        new BuildScheduler(4, buildDurations).execute(BuildPlan.create(Arrays.asList(schema, users)), this::build);
+
+        assertThat("Built", built, contains("Users", "Schema"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldBuildIndependentDefinitionsAtTheSameTime() {
+        BuildDefinition definition1 = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1");
+        BuildDefinition definition2 = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build2");
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        new BuildScheduler(2, buildDurations).execute(BuildPlan.create(Arrays.asList(definition1, definition2)), definition -> {
+            bothStarted.countDown();
+            awaitQuietly(bothStarted);
+            build(definition);
+        });
+
+        assertThat("Built", built, containsInAnyOrder("Build1", "Build2"));
+    }
+
+    @Test
+    public void shouldStartTheLongestBuildFirst() {
+        BuildDefinition quick = new ExampleBuildDefinition(BuildPriority.NORMAL, "A Quick Build");
+        BuildDefinition slow = new ExampleBuildDefinition(BuildPriority.NORMAL, "B Slow Build");
+        buildDurations.record(quick, 10);
+        buildDurations.record(slow, 60000);
+
+        new BuildScheduler(1, buildDurations).execute(BuildPlan.create(Arrays.asList(quick, slow)), this::build);
+
+        assertThat("Built", built, contains("B Slow Build", "A Quick Build"));
+    }
+
+    @Test
+    public void shouldNotStartFurtherBuildsAfterAFailure() {
+        BuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+        BuildDefinition normal = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal");
+
+        try {
+            new BuildScheduler(2, buildDurations).execute(BuildPlan.create(Arrays.asList(high, normal)), definition -> {
+                throw new EnvironmentBuilderException("Failed to build " + definition.getName());
+            });
+            fail("Expected EnvironmentBuilderException");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Message", e.getMessage(), is("Failed to build High"));
+        }
+    }
+
+    @Test
+    public void shouldTearDownInReverseOrder() {
+        BuildDefinition low = new ExampleBuildDefinition(BuildPriority.LOW, "Low");
+        BuildDefinition normal = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal");
+        BuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+
+        new BuildScheduler(4, buildDurations).execute(BuildPlan.create(Arrays.asList(low, normal, high)).reverse(), this::build, FailurePolicy.CONTINUE);
+
+        assertThat("Built", built, contains("Low", "Normal", "High"));
+    }
+
+    @Test
+    public void shouldContinueAfterAFailureWhenRequested() {
+        BuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+        BuildDefinition normal1 = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal1");
+        BuildDefinition normal2 = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal2");
+
+        try {
+            new BuildScheduler(2, buildDurations).execute(BuildPlan.create(Arrays.asList(high, normal1, normal2)), definition -> {
+                if (!definition.getName().equals("Normal2")) {
+                    throw new EnvironmentBuilderException("Failed to build " + definition.getName());
+                }
+                build(definition);
+            }, FailurePolicy.CONTINUE);
+            fail("Expected EnvironmentBuilderException");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Message", e.getMessage(), is("Environment build failed for 2 build definitions [High, Normal1]"));
+            assertThat("Suppressed", e.getSuppressed().length, is(1));
+        }
+
+        assertThat("Built", built, contains("Normal2"));
+    }
+
+    @Test
+    public void shouldRecordBuildDurations() {
+        BuildDefinition definition = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1");
+
+        new BuildScheduler(1, buildDurations).execute(BuildPlan.create(Arrays.asList(definition)), this::build);
+
+        assertThat("Duration", buildDurations.getExpectedDuration(definition), is(not(BuildDurations.UNKNOWN)));
+        assertThat("Built", built, hasItem("Build1"));
+    }
+
+    @Test
+    public void shouldReportProgressOfEachBuild() {
+        BuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+        BuildDefinition normal = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal");
+        List<String> progress = new CopyOnWriteArrayList<>();
+
+        BuildProgressListener listener = new BuildProgressListener() {
+            @Override
+            public void onStarted(BuildDefinition definition) {
+                progress.add("Started " + definition.getName());
+            }
+
+            @Override
+            public void onCompleted(BuildDefinition definition, long durationMillis) {
+                progress.add("Completed " + definition.getName());
+            }
+
+            @Override
+            public void onFailed(BuildDefinition definition, Throwable cause) {
+                progress.add("Failed " + definition.getName());
+            }
+        };
+
+        try {
+            new BuildScheduler(1, buildDurations).execute(BuildPlan.create(Arrays.asList(high, normal)), definition -> {
+                if (definition == normal) {
+                    throw new EnvironmentBuilderException("Failed to build " + definition.getName());
+                }
+            }, FailurePolicy.CONTINUE, listener);
+            fail("Expected EnvironmentBuilderException");
+        } catch (EnvironmentBuilderException e) {
+            // Expected
+        }
+
+        assertThat("Progress", progress, contains("Started High", "Completed High", "Started Normal", "Failed Normal"));
+    }
+
+    @Test
+    public void shouldNotFailBuildWhenListenerFails() {
+        BuildDefinition definition = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1");
+
+        BuildProgressListener listener = new BuildProgressListener() {
+            @Override
+            public void onStarted(BuildDefinition definition) {
+                throw new IllegalStateException("Listener failed");
+            }
+        };
+
+        new BuildScheduler(1, buildDurations).execute(BuildPlan.create(Arrays.asList(definition)), this::build, FailurePolicy.FAIL_FAST, listener);
+
+        assertThat("Built", built, contains("Build1"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldCancelRunningBuildsAfterAFailureInVirtualMode() {
+        assumeTrue(ExecutionMode.isVirtualThreadsAvailable());
+
+        BuildDefinition slow = new ExampleBuildDefinition(BuildPriority.NORMAL, "Slow");
+        BuildDefinition failing = new ExampleBuildDefinition(BuildPriority.NORMAL, "Failing");
+        CountDownLatch slowStarted = new CountDownLatch(1);
+        CountDownLatch neverReleased = new CountDownLatch(1);
+
+        try {
+            new BuildScheduler(2, buildDurations, ExecutionMode.VIRTUAL).execute(BuildPlan.create(Arrays.asList(slow, failing)), definition -> {
+                if (definition == slow) {
+                    slowStarted.countDown();
+                    try {
+                        neverReleased.await();
+                    } catch (InterruptedException e) {
+                        built.add("Slow cancelled");
+                    }
+                } else {
+                    awaitQuietly(slowStarted);
+                    throw new EnvironmentBuilderException("Failed to build " + definition.getName());
+                }
+            });
+            fail("Expected EnvironmentBuilderException");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Message", e.getMessage(), is("Failed to build Failing"));
+        }
+
+        assertThat("Built", built, contains("Slow cancelled"));
+    }
+
+    @Test
+    public void shouldBuildEveryDefinitionInVirtualMode() {
+        assumeTrue(ExecutionMode.isVirtualThreadsAvailable());
+
+        BuildDefinition high = new ExampleBuildDefinition(BuildPriority.HIGH, "High");
+        BuildDefinition normal = new ExampleBuildDefinition(BuildPriority.NORMAL, "Normal");
+
+        new BuildScheduler(4, buildDurations, ExecutionMode.VIRTUAL).execute(BuildPlan.create(Arrays.asList(normal, high)), this::build);
+
+        assertThat("Built", built, contains("High", "Normal"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldNotLimitParallelBuildsInVirtualMode() {
+        assumeTrue(ExecutionMode.isVirtualThreadsAvailable());
+
+        CountDownLatch allStarted = new CountDownLatch(3);
+        List<BuildDefinition> definitions = Arrays.asList(
+                new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1"),
+                new ExampleBuildDefinition(BuildPriority.NORMAL, "Build2"),
+                new ExampleBuildDefinition(BuildPriority.NORMAL, "Build3"));
+
+        new BuildScheduler(1, buildDurations, ExecutionMode.VIRTUAL).execute(BuildPlan.create(definitions), definition -> {
+            allStarted.countDown();
+            awaitQuietly(allStarted);
+            built.add(definition.getName() + (allStarted.getCount() == 0 ? " alongside the others" : " alone"));
+        });
+
+        assertThat("Built", built, containsInAnyOrder("Build1 alongside the others", "Build2 alongside the others", "Build3 alongside the others"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldRunTheWorkOfABuildAtTheSameTimeInVirtualMode() {
+        assumeTrue(ExecutionMode.isVirtualThreadsAvailable());
+
+        BuildDefinition definition = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1");
+        CountDownLatch allStarted = new CountDownLatch(2);
+        Runnable statement = () -> {
+            allStarted.countDown();
+            awaitQuietly(allStarted);
+            built.add(allStarted.getCount() == 0 ? "Alongside" : "Alone");
+        };
+
+        new BuildScheduler(1, buildDurations, ExecutionMode.VIRTUAL).execute(BuildPlan.create(Arrays.asList(definition)),
+                ignored -> BuildScope.current().runAll(Arrays.asList(statement, statement)));
+
+        assertThat("Built", built, contains("Alongside", "Alongside"));
+    }
+
+    @Test(timeout = 10000)
+    public void shouldTagTheMetricsOfTheWorkOfABuildInVirtualMode() {
+        assumeTrue(ExecutionMode.isVirtualThreadsAvailable());
+
+        BuildDefinition definition = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1");
+        MetricTags tags = MetricTags.of(MetricTags.DEFINITION, "Forked " + definition.getName());
+
+        new BuildScheduler(1, buildDurations, ExecutionMode.VIRTUAL).execute(BuildPlan.create(Arrays.asList(definition)),
+                ignored -> tags.runWith(() -> {
+                    BuildScope.current().runAll(Arrays.asList(() -> MetricsRegistry.global().timer("build.work").time(() -> { })));
+                    CompletableFuture.runAsync(() -> MetricsRegistry.global().timer("build.fork").time(() -> { }),
+                            BuildScope.current().executorOr(Runnable::run)).join();
+                }));
+
+        assertThat("Work timed", MetricsRegistry.global().timer("build.work", tags).getSnapshot().getCount(), is(1L));
+        assertThat("Fork timed", MetricsRegistry.global().timer("build.fork", tags).getSnapshot().getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRunTheWorkOfABuildInTurnOnPlatformThreads() {
+        BuildDefinition definition = new ExampleBuildDefinition(BuildPriority.NORMAL, "Build1");
+
+        new BuildScheduler(1, buildDurations).execute(BuildPlan.create(Arrays.asList(definition)), ignored -> {
+            Thread buildThread = Thread.currentThread();
+            BuildScope.current().runAll(Arrays.asList(
+                    () -> built.add("First" + (Thread.currentThread() == buildThread ? " on the build thread" : "")),
+                    () -> built.add("Second" + (Thread.currentThread() == buildThread ? " on the build thread" : ""))));
+        });
+
+        assertThat("Built", built, contains("First on the build thread", "Second on the build thread"));
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldFailFastWhenVirtualThreadsAreUnavailable() {
+        assumeFalse(ExecutionMode.isVirtualThreadsAvailable());
+
+        new BuildScheduler(4, buildDurations, ExecutionMode.VIRTUAL);
+    }
+
+    @Test
+    public void shouldParseExecutionMode() {
+        assertThat("Default", ExecutionMode.fromString(null), is(ExecutionMode.PLATFORM));
+        assertThat("Virtual", ExecutionMode.fromString(" virtual "), is(ExecutionMode.VIRTUAL));
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldRejectUnknownExecutionMode() {
+        ExecutionMode.fromString("green");
+    }
+
+    private void build(BuildDefinition definition) {
+        built.add(definition.getName());
+    }
+
+    private void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.slinkyframework.environment.builder.test;
+
+import environment.ExampleSetUpConfiguration;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slinkyframework.environment.builder.example.ExampleEnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.index.DiscoveryIndex;
+import org.slinkyframework.environment.builder.index.DiscoveryMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+public class DiscoveryIndexTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldFindBuildDefinitionConfigurationsRecordedAtCompileTime() {
+        DiscoveryIndex testee = new DiscoveryIndex(getClass().getClassLoader());
+
+        assertThat("Configurations", testee.findBuildDefinitionConfigurations(), contains(ExampleSetUpConfiguration.class));
+    }
+
+    @Test
+    public void shouldFindEnvironmentBuilderFactoriesRecordedAtCompileTime() {
+        DiscoveryIndex testee = new DiscoveryIndex(getClass().getClassLoader());
+
+        assertThat("Factories", testee.findEnvironmentBuilderFactories(), contains(ExampleEnvironmentBuilderFactory.class));
+    }
+
+    @Test
+    public void shouldIgnoreCommentsBlankLinesAndMissingClasses() throws IOException {
+        File root = temporaryFolder.newFolder();
+        writeIndex(root, DiscoveryIndex.ENVIRONMENT_BUILDER_FACTORIES,
+                "# A comment", "", ExampleEnvironmentBuilderFactory.class.getName(), "org.example.MissingFactory");
+
+        List<Class<?>> factories = new DiscoveryIndex(classLoaderFor(root)).findEnvironmentBuilderFactories();
+
+        assertThat("Factories", factories, contains(ExampleEnvironmentBuilderFactory.class));
+    }
+
+    @Test
+    public void shouldFindNothingWhenThereIsNoIndex() throws IOException {
+        DiscoveryIndex testee = new DiscoveryIndex(new URLClassLoader(new URL[0], null));
+
+        assertThat("Configurations", testee.findBuildDefinitionConfigurations(), empty());
+        assertThat("Factories", testee.findEnvironmentBuilderFactories(), empty());
+    }
+
+    @Test
+    public void shouldFindRootsWithoutAnIndexOfEnvironmentBuilderFactories() throws IOException {
+        File indexed = temporaryFolder.newFolder();
+        new File(indexed, "org/slinkyframework").mkdirs();
+        writeIndex(indexed, DiscoveryIndex.ENVIRONMENT_BUILDER_FACTORIES, ExampleEnvironmentBuilderFactory.class.getName());
+        File unindexed = temporaryFolder.newFolder();
+        new File(unindexed, "org/slinkyframework").mkdirs();
+
+        DiscoveryIndex testee = new DiscoveryIndex(new URLClassLoader(new URL[] { indexed.toURI().toURL(), unindexed.toURI().toURL() }, null));
+
+        assertThat("Roots", testee.findRootsWithoutEnvironmentBuilderFactories("org.slinkyframework"), contains(unindexed.toURI().toURL().toString()));
+    }
+
+    @Test
+    public void shouldParseDiscoveryMode() {
+        assertThat("Discovery mode", DiscoveryMode.fromString("scan"), equalTo(DiscoveryMode.SCAN));
+        assertThat("Discovery mode", DiscoveryMode.fromString("INDEX"), equalTo(DiscoveryMode.INDEX));
+        assertThat("Discovery mode", DiscoveryMode.fromString(null), equalTo(DiscoveryMode.INDEX));
+    }
+
+    private void writeIndex(File root, String location, String... lines) throws IOException {
+        File index = new File(root, location);
+        index.getParentFile().mkdirs();
+        Files.write(index.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+    }
+
+    private ClassLoader classLoaderFor(File root) throws IOException {
+        return new URLClassLoader(new URL[] { root.toURI().toURL() }, getClass().getClassLoader());
+    }
+}
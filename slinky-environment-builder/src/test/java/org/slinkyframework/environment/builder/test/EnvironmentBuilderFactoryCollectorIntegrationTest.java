@@ -5,11 +5,13 @@ import org.junit.Test;
 import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
 import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactoryCollector;
 import org.slinkyframework.environment.builder.example.ExampleEnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.index.DiscoveryMode;
 
 import java.util.List;
 
 import static org.hamcrest.Matchers.any;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.Assert.assertThat;
 
 public class EnvironmentBuilderFactoryCollectorIntegrationTest {
@@ -31,4 +33,11 @@ public class EnvironmentBuilderFactoryCollectorIntegrationTest {
 
         assertThat("Environment Builder Factories", factories, contains(any(EnvironmentBuilderFactory.class)));
     }
+
+    @Test
+    public void shouldFindEnvironmentBuilderFactoriesWhenScanningTheClasspath() {
+        List<EnvironmentBuilderFactory> factories = new EnvironmentBuilderFactoryCollector(DiscoveryMode.SCAN).findEnvironmentBuilderFactories();
+
+        assertThat("Environment Builder Factories", factories, contains(instanceOf(ExampleEnvironmentBuilderFactory.class)));
+    }
 }
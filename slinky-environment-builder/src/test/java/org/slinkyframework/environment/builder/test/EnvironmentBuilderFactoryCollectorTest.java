@@ -0,0 +1,73 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.example.ExampleEnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactoryCollector;
+import org.slinkyframework.environment.builder.index.DiscoveryIndex;
+import org.slinkyframework.environment.builder.index.DiscoveryMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+
+public class EnvironmentBuilderFactoryCollectorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void shouldScanJarsWithoutAnIndexAlongsideTheIndex() throws IOException {
+        File indexed = temporaryFolder.newFolder();
+        File index = new File(indexed, DiscoveryIndex.ENVIRONMENT_BUILDER_FACTORIES);
+        index.getParentFile().mkdirs();
+        Files.write(index.toPath(), Collections.singletonList(IndexedEnvironmentBuilderFactory.class.getName()), StandardCharsets.UTF_8);
+
+        // The test classes holding ExampleEnvironmentBuilderFactory are left looking as if compiled without an index
+        ClassLoader classLoader = new URLClassLoader(new URL[] { indexed.toURI().toURL() }, new WithoutDiscoveryIndexes(getClass().getClassLoader()));
+
+        List<EnvironmentBuilderFactory> factories = new EnvironmentBuilderFactoryCollector(DiscoveryMode.INDEX, classLoader).findEnvironmentBuilderFactories();
+
+        assertThat("Environment Builder Factories", factories, containsInAnyOrder(
+                instanceOf(IndexedEnvironmentBuilderFactory.class), instanceOf(ExampleEnvironmentBuilderFactory.class)));
+    }
+
+    public static class IndexedEnvironmentBuilderFactory implements EnvironmentBuilderFactory {
+
+        @Override
+        public boolean forClass(Class buildDefinitionClass) {
+            return false;
+        }
+
+        @Override
+        public EnvironmentBuilder getInstance(EnvironmentBuilderContext environmentBuilderContext) {
+            return null;
+        }
+    }
+
+    private static class WithoutDiscoveryIndexes extends ClassLoader {
+
+        WithoutDiscoveryIndexes(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            return name.startsWith("META-INF/slinky/") ? Collections.emptyEnumeration() : super.getResources(name);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+import org.slinkyframework.environment.builder.example.AnotherBuildDefinition;
+import org.slinkyframework.environment.builder.example.ExampleBuildDefinition;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderRegistry;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EnvironmentBuilderRegistryTest {
+
+    @Mock private EnvironmentBuilderFactory mockEnvironmentBuilderFactory;
+
+    private EnvironmentBuilderRegistry testee;
+    private EnvironmentBuilderContext localContext = new EnvironmentBuilderContext("localhost", false);
+    private EnvironmentBuilderContext dockerContext = new EnvironmentBuilderContext("localhost", true);
+
+    @Before
+    public void setUp() {
+        when(mockEnvironmentBuilderFactory.forClass(ExampleBuildDefinition.class)).thenReturn(true);
+
+        testee = new EnvironmentBuilderRegistry(Collections.singletonList(mockEnvironmentBuilderFactory));
+    }
+
+    @Test
+    public void shouldReuseBuilderForTheSameContext() {
+        when(mockEnvironmentBuilderFactory.getInstance(localContext)).thenReturn(mock(EnvironmentBuilder.class));
+
+        Optional<EnvironmentBuilder> first = testee.getEnvironmentBuilder(localContext, ExampleBuildDefinition.class);
+        Optional<EnvironmentBuilder> second = testee.getEnvironmentBuilder(new EnvironmentBuilderContext("localhost", false), ExampleBuildDefinition.class);
+
+        assertThat("Environment builder", second.get(), sameInstance(first.get()));
+        verify(mockEnvironmentBuilderFactory, times(1)).getInstance(localContext);
+    }
+
+    @Test
+    public void shouldCreateBuilderForEachContext() {
+        when(mockEnvironmentBuilderFactory.getInstance(localContext)).thenReturn(mock(EnvironmentBuilder.class));
+        when(mockEnvironmentBuilderFactory.getInstance(dockerContext)).thenReturn(mock(EnvironmentBuilder.class));
+
+        Optional<EnvironmentBuilder> local = testee.getEnvironmentBuilder(localContext, ExampleBuildDefinition.class);
+        Optional<EnvironmentBuilder> docker = testee.getEnvironmentBuilder(dockerContext, ExampleBuildDefinition.class);
+
+        assertThat("Environment builder", docker.get(), not(sameInstance(local.get())));
+    }
+
+    @Test
+    public void shouldFindFactoryForSubclassOfBuildDefinition() {
+        assertThat("Factory", testee.findFactory(SpecialisedBuildDefinition.class), equalTo(Optional.of(mockEnvironmentBuilderFactory)));
+    }
+
+    @Test
+    public void shouldOnlySearchForFactoryOnce() {
+        testee.findFactory(ExampleBuildDefinition.class);
+        testee.findFactory(ExampleBuildDefinition.class);
+
+        verify(mockEnvironmentBuilderFactory, times(1)).forClass(ExampleBuildDefinition.class);
+    }
+
+    @Test
+    public void shouldNotFindFactoryForUnknownBuildDefinition() {
+        assertThat("Factory", testee.findFactory(AnotherBuildDefinition.class), equalTo(Optional.empty()));
+        assertThat("Environment builder", testee.getEnvironmentBuilder(localContext, AnotherBuildDefinition.class), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldNotFindBuilderWhenFactoryHasNothingToBuild() {
+        assertThat("Environment builder", testee.getEnvironmentBuilder(localContext, ExampleBuildDefinition.class), equalTo(Optional.empty()));
+        assertThat("Factory", testee.findFactory(ExampleBuildDefinition.class), equalTo(Optional.of(mockEnvironmentBuilderFactory)));
+    }
+
+    private static class SpecialisedBuildDefinition extends ExampleBuildDefinition {
+        SpecialisedBuildDefinition() {
+            super(BuildPriority.NORMAL, "Specialised");
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.daemon.DaemonClient;
+import org.slinkyframework.environment.builder.daemon.EnvironmentDaemon;
+import org.slinkyframework.environment.builder.daemon.EnvironmentPool;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EnvironmentDaemonTest {
+
+    private static final EnvironmentBuilderContext CONTEXT = new EnvironmentBuilderContext("localhost", true);
+
+    @Mock EnvironmentManager mockEnvironmentManager;
+
+    private EnvironmentPool pool;
+    private EnvironmentDaemon daemon;
+    private DaemonClient testee;
+
+    @Before
+    public void setUp() {
+        pool = new EnvironmentPool(mockEnvironmentManager, 1024, 1024);
+        daemon = new EnvironmentDaemon(pool, 0);
+        daemon.start();
+
+        testee = new DaemonClient(daemon.getPort());
+    }
+
+    @After
+    public void tearDown() {
+        daemon.close();
+        pool.close();
+    }
+
+    @Test
+    public void shouldBeRunning() {
+        assertThat("Running", testee.isRunning(), is(true));
+    }
+
+    @Test
+    public void shouldNotBeRunningWhenNothingIsListening() throws IOException {
+        int unusedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            unusedPort = socket.getLocalPort();
+        }
+
+        assertThat("Running", new DaemonClient(unusedPort).isRunning(), is(false));
+    }
+
+    @Test
+    public void shouldLeaseAndReleaseEnvironment() {
+        when(mockEnvironmentManager.getFingerprint(CONTEXT)).thenReturn("abc");
+
+        DaemonClient.Lease lease = testee.lease(CONTEXT, "abc");
+        assertThat("Status", testee.getStatus(), contains("localhost true - LEASED"));
+
+        lease.release();
+
+        verify(mockEnvironmentManager, timeout(5000).times(2)).setUp(CONTEXT);
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldRefuseToLeaseADifferentEnvironment() {
+        when(mockEnvironmentManager.getFingerprint(CONTEXT)).thenReturn("abc");
+
+        testee.lease(CONTEXT, "def");
+    }
+
+    @Test
+    public void shouldStop() throws InterruptedException {
+        testee.stop();
+
+        daemon.awaitStop();
+        assertThat("Running", testee.isRunning(), is(false));
+        verify(mockEnvironmentManager, times(0)).setUp(CONTEXT);
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.BuildProgressListener;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
 import org.slinkyframework.environment.builder.definition.BuildDefinition;
 import org.slinkyframework.environment.builder.definition.BuildDefinitionCollector;
 import org.slinkyframework.environment.builder.definition.BuildPriority;
@@ -16,6 +18,10 @@ import org.slinkyframework.environment.builder.EnvironmentManager;
 import org.slinkyframework.environment.builder.EnvironmentManagerImpl;
 import org.slinkyframework.environment.builder.example.AnotherBuildDefinition;
 import org.slinkyframework.environment.builder.example.ExampleBuildDefinition;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.scheduler.BuildDurations;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler;
 
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -23,7 +29,20 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -140,4 +159,136 @@ public class EnvironmentManagerTest {
 
         verify(mockExampleEnvironmentBuilder).tearDown(exampleBuildDefinitions);
     }
+
+    @Test
+    public void shouldUseTheSameEnvironmentBuilderToSetUpAndTearDown() {
+
+        testee.setUp(environmentBuilderContext);
+        testee.tearDown(environmentBuilderContext);
+
+        verify(mockExampleEnvironmentBuilderFactory).getInstance(environmentBuilderContext);
+        verify(mockExampleEnvironmentBuilder).setUp(exampleBuildDefinitions);
+        verify(mockExampleEnvironmentBuilder).tearDown(exampleBuildDefinitions);
+    }
+
+    @Test
+    public void shouldSetUpAsynchronouslyAndReportProgress() throws Exception {
+        List<String> progress = new CopyOnWriteArrayList<>();
+
+        CompletableFuture<Void> future = testee.setUpAsync(environmentBuilderContext, new BuildProgressListener() {
+            @Override
+            public void onCompleted(BuildDefinition definition, long durationMillis) {
+                progress.add(definition.getName());
+            }
+        });
+        future.get(10, TimeUnit.SECONDS);
+
+        verify(mockExampleEnvironmentBuilder).setUp(exampleBuildDefinitions);
+        assertThat("Completed", progress, contains("Build1", "Build2"));
+    }
+
+    @Test
+    public void shouldCompleteExceptionallyWhenAsynchronousSetUpFails() throws Exception {
+        doThrow(new EnvironmentBuilderException("Database setup has failed")).when(mockExampleEnvironmentBuilder).setUp(any());
+
+        try {
+            testee.setUpAsync(environmentBuilderContext).get(10, TimeUnit.SECONDS);
+            fail("Expected set up to fail");
+        } catch (ExecutionException e) {
+            assertThat("Cause", e.getCause(), instanceOf(EnvironmentBuilderException.class));
+        }
+    }
+
+    @Test
+    public void shouldTearDownAsynchronously() throws Exception {
+
+        testee.tearDownAsync(environmentBuilderContext).get(10, TimeUnit.SECONDS);
+
+        verify(mockExampleEnvironmentBuilder).tearDown(exampleBuildDefinitions);
+    }
+
+    @Test
+    public void shouldSetUpIncrementallyAsynchronously() throws Exception {
+
+        testee.setUpIncrementallyAsync(environmentBuilderContext).get(10, TimeUnit.SECONDS);
+
+        verify(mockExampleEnvironmentBuilder).setUp(exampleBuildDefinitions);
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void shouldNotStartAsynchronousWorkOnceClosed() {
+
+        testee.close();
+
+        testee.setUpAsync(environmentBuilderContext);
+    }
+
+    @Test
+    public void shouldPrepareEachEnvironmentBuilderWithItsBuildDefinitions() throws Exception {
+
+        testee.prepareAsync(environmentBuilderContext).get(5, TimeUnit.SECONDS);
+
+        verify(mockExampleEnvironmentBuilder).prepare(exampleBuildDefinitions);
+    }
+
+    @Test
+    public void shouldPrefetchForEachEnvironmentBuilderWithItsBuildDefinitions() {
+
+        testee.prefetch(environmentBuilderContext);
+
+        verify(mockExampleEnvironmentBuilder).prefetch(exampleBuildDefinitions);
+    }
+
+    @Test
+    public void shouldTagMetricsRecordedByBuilderWithDefinitionAndBuilder() {
+        MetricTags tags = MetricTags.of(MetricTags.DEFINITION, exampleDefinition.getName())
+                .and(MetricTags.BUILDER, mockExampleEnvironmentBuilder.getClass().getSimpleName());
+        long before = MetricsRegistry.global().timer("environment.setUp", tags).getSnapshot().getCount();
+        List<MetricTags> tagsSeenByBuilder = new CopyOnWriteArrayList<>();
+
+        doAnswer(invocation -> tagsSeenByBuilder.add(MetricTags.current()))
+                .when(mockExampleEnvironmentBuilder).setUp(exampleBuildDefinitions);
+
+        testee.setUp(environmentBuilderContext);
+
+        assertThat("Tags", tagsSeenByBuilder, contains(tags));
+        assertThat("Timed", MetricsRegistry.global().timer("environment.setUp", tags).getSnapshot().getCount(), greaterThan(before));
+    }
+
+    @Test
+    public void shouldKeepStartingTheLongestSetUpFirstAfterATearDown() {
+        BuildDefinition slowTearDown = new ExampleBuildDefinition(BuildPriority.NORMAL, "A Slow Tear Down");
+        BuildDefinition slowSetUp = new ExampleBuildDefinition(BuildPriority.NORMAL, "B Slow Set Up");
+        exampleBuildDefinitions.clear();
+        exampleBuildDefinitions.add(slowTearDown);
+        exampleBuildDefinitions.add(slowSetUp);
+        List<String> setUp = new CopyOnWriteArrayList<>();
+
+        doAnswer(invocation -> {
+            BuildDefinition definition = (BuildDefinition) ((Set) invocation.getArgument(0)).iterator().next();
+            setUp.add(definition.getName());
+            sleepIf(definition == slowSetUp);
+            return null;
+        }).when(mockExampleEnvironmentBuilder).setUp(any());
+        doAnswer(invocation -> {
+            sleepIf(((Set) invocation.getArgument(0)).contains(slowTearDown));
+            return null;
+        }).when(mockExampleEnvironmentBuilder).tearDown(any());
+
+        testee = new EnvironmentManagerImpl(mockBuildDefinitionCollector, mockEnvironmentBuilderFactoryCollector,
+                new BuildScheduler(1, BuildDurations.inMemory()));
+
+        testee.setUp(environmentBuilderContext);
+        testee.tearDown(environmentBuilderContext);
+        setUp.clear();
+        testee.setUp(environmentBuilderContext);
+
+        assertThat("Set up", setUp, contains("B Slow Set Up", "A Slow Tear Down"));
+    }
+
+    private void sleepIf(boolean slow) throws InterruptedException {
+        if (slow) {
+            Thread.sleep(100);
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.daemon.EnvironmentPool;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.hasKey;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EnvironmentPoolTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private static final EnvironmentBuilderContext CONTEXT1 = new EnvironmentBuilderContext("host1", false);
+    private static final EnvironmentBuilderContext CONTEXT2 = new EnvironmentBuilderContext("host2", false);
+    private static final EnvironmentBuilderContext CONTEXT3 = new EnvironmentBuilderContext("host3", false);
+
+    @Mock EnvironmentManager mockEnvironmentManager;
+
+    private EnvironmentPool testee;
+
+    @Before
+    public void setUp() {
+        testee = new EnvironmentPool(mockEnvironmentManager, 2048, 1024);
+    }
+
+    @After
+    public void tearDown() {
+        testee.close();
+    }
+
+    @Test
+    public void shouldSetUpEnvironmentWhenFirstLeased() {
+        when(mockEnvironmentManager.getFingerprint(CONTEXT1)).thenReturn("abc");
+
+        testee.lease(CONTEXT1, "abc", TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        verify(mockEnvironmentManager).tearDown(CONTEXT1);
+        verify(mockEnvironmentManager).setUp(CONTEXT1);
+        assertThat("State", testee.getStates().get(CONTEXT1), is(EnvironmentPool.State.LEASED));
+    }
+
+    @Test
+    public void shouldSetUpEnvironmentAgainWhenReleased() {
+        String leaseId = testee.lease(CONTEXT1, null, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        assertThat("Released", testee.release(leaseId), is(true));
+        testee.lease(CONTEXT1, null, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        verify(mockEnvironmentManager, times(2)).setUp(CONTEXT1);
+        assertThat("Released again", testee.release(leaseId), is(false));
+    }
+
+    @Test
+    public void shouldSetUpEnvironmentAgainWhenItHasChanged() {
+        when(mockEnvironmentManager.getFingerprint(CONTEXT1)).thenReturn("abc", "def");
+
+        testee.prepare(CONTEXT1);
+        awaitReady(CONTEXT1);
+        testee.lease(CONTEXT1, "def", TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        verify(mockEnvironmentManager, times(2)).setUp(CONTEXT1);
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldRefuseToLeaseADifferentEnvironment() {
+        when(mockEnvironmentManager.getFingerprint(CONTEXT1)).thenReturn("abc");
+
+        testee.lease(CONTEXT1, "def", TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldTimeOutWaitingForALeasedEnvironment() {
+        testee.lease(CONTEXT1, null, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        testee.lease(CONTEXT1, null, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @Test
+    public void shouldReportFailureToSetUp() {
+        doThrow(new EnvironmentBuilderException("Docker is not running")).when(mockEnvironmentManager).setUp(CONTEXT1);
+
+        try {
+            testee.lease(CONTEXT1, null, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            fail("Expected lease to fail");
+        } catch (EnvironmentBuilderException e) {
+            assertThat("Cause", e.getCause().getMessage(), is("Docker is not running"));
+        }
+        assertThat("States", testee.getStates(), not(hasKey(CONTEXT1)));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEnvironmentWhenOverBudget() {
+        testee.prepare(CONTEXT1);
+        awaitReady(CONTEXT1);
+        testee.prepare(CONTEXT2);
+        awaitReady(CONTEXT2);
+
+        testee.prepare(CONTEXT3);
+
+        verify(mockEnvironmentManager, timeout(TIMEOUT_MILLIS).times(2)).tearDown(CONTEXT1);
+        verify(mockEnvironmentManager, timeout(TIMEOUT_MILLIS)).setUp(CONTEXT3);
+        verify(mockEnvironmentManager, times(1)).tearDown(CONTEXT2);
+    }
+
+    @Test(expected = EnvironmentBuilderException.class)
+    public void shouldNotEvictLeasedEnvironments() {
+        testee.lease(CONTEXT1, null, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        testee.lease(CONTEXT2, null, TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+
+        testee.prepare(CONTEXT3);
+    }
+
+    private void awaitReady(EnvironmentBuilderContext context) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+        while (testee.getStates().get(context) != EnvironmentPool.State.READY) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Environment not ready: " + testee.getStates());
+            }
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.Namespace;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+import org.slinkyframework.environment.builder.example.AnotherBuildDefinition;
+import org.slinkyframework.environment.builder.example.ExampleBuildDefinition;
+import org.slinkyframework.environment.builder.state.EnvironmentState;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertThat;
+
+public class EnvironmentStateTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private EnvironmentBuilderContext localContext = new EnvironmentBuilderContext("localhost", false);
+    private EnvironmentBuilderContext dockerContext = new EnvironmentBuilderContext("localhost", true);
+    private EnvironmentBuilderContext namespacedContext = EnvironmentBuilderContext.builder("localhost", false).namespace(Namespace.of("build-42")).build();
+
+    @Test
+    public void shouldSaveAndLoadFingerprintsForContext() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        ExampleBuildDefinition definition = new ExampleBuildDefinition(BuildPriority.HIGH, "Build1");
+
+        EnvironmentState state = EnvironmentState.load(directory, localContext);
+        state.record(definition, "abc123");
+        state.save();
+
+        assertThat("Fingerprint", EnvironmentState.load(directory, localContext).getFingerprint(definition), equalTo(Optional.of("abc123")));
+        assertThat("Other context", EnvironmentState.load(directory, dockerContext).isEmpty(), is(true));
+        assertThat("Other namespace", EnvironmentState.load(directory, namespacedContext).isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldSaveAndLoadDefinitionsSoTheyCanBeTornDownOnceRemoved() throws IOException {
+        File directory = temporaryFolder.newFolder();
+        AnotherBuildDefinition definition = new AnotherBuildDefinition(BuildPriority.LOW, "Data", "Config");
+
+        EnvironmentState state = EnvironmentState.load(directory, localContext);
+        state.record(definition, "abc123");
+        state.save();
+
+        assertThat("Definition", EnvironmentState.load(directory, localContext).getDefinition(EnvironmentState.key(definition)),
+                equalTo(Optional.of(definition)));
+        assertThat("Unknown definition", EnvironmentState.load(directory, localContext).getDefinition("Unknown"), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldChangeFingerprintWhenFieldsChange() {
+        AnotherBuildDefinition definition = new AnotherBuildDefinition(BuildPriority.NORMAL, "Build", "Config");
+        AnotherBuildDefinition same = new AnotherBuildDefinition(BuildPriority.NORMAL, "Build", "Config");
+        AnotherBuildDefinition changed = new AnotherBuildDefinition(BuildPriority.NORMAL, "Build", "Changed config");
+
+        assertThat("Fingerprint", same.getFingerprint(), equalTo(definition.getFingerprint()));
+        assertThat("Fingerprint", changed.getFingerprint(), not(equalTo(definition.getFingerprint())));
+    }
+}
@@ -0,0 +1,167 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.slinkyframework.environment.builder.EnvironmentBuilder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderContext;
+import org.slinkyframework.environment.builder.EnvironmentManager;
+import org.slinkyframework.environment.builder.EnvironmentManagerImpl;
+import org.slinkyframework.environment.builder.definition.BuildDefinition;
+import org.slinkyframework.environment.builder.definition.BuildDefinitionCollector;
+import org.slinkyframework.environment.builder.definition.BuildPriority;
+import org.slinkyframework.environment.builder.example.AnotherBuildDefinition;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactory;
+import org.slinkyframework.environment.builder.factory.EnvironmentBuilderFactoryCollector;
+import org.slinkyframework.environment.builder.scheduler.BuildScheduler;
+import org.slinkyframework.environment.builder.state.EnvironmentStateStore;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class IncrementalSetUpTest {
+
+    @Mock private BuildDefinitionCollector mockBuildDefinitionCollector;
+    @Mock private EnvironmentBuilderFactoryCollector mockEnvironmentBuilderFactoryCollector;
+    @Mock private EnvironmentBuilderFactory mockEnvironmentBuilderFactory;
+    @Mock private EnvironmentBuilder mockEnvironmentBuilder;
+
+    private EnvironmentBuilderContext context = new EnvironmentBuilderContext("localhost", false);
+    private EnvironmentStateStore environmentStateStore = EnvironmentStateStore.inMemory();
+
+    private BuildDefinition users = new AnotherBuildDefinition(BuildPriority.HIGH, "Users", "v1");
+    private BuildDefinition schema = new AnotherBuildDefinition(BuildPriority.NORMAL, "Schema", "v1");
+    private BuildDefinition data = new AnotherBuildDefinition(BuildPriority.LOW, "Data", "v1");
+
+    @Before
+    public void setUp() {
+        when(mockEnvironmentBuilderFactory.forClass(AnotherBuildDefinition.class)).thenReturn(true);
+        when(mockEnvironmentBuilderFactory.getInstance(context)).thenReturn(mockEnvironmentBuilder);
+        when(mockEnvironmentBuilderFactoryCollector.findEnvironmentBuilderFactories()).thenReturn(Collections.singletonList(mockEnvironmentBuilderFactory));
+        when(mockEnvironmentBuilder.isHealthy(anySet())).thenReturn(true);
+    }
+
+    @Test
+    public void shouldSetUpEverythingTheFirstTime() {
+        createManager(users, schema, data).setUpIncrementally(context);
+
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(users));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(schema));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(data));
+    }
+
+    @Test
+    public void shouldSetUpNothingWhenNothingHasChanged() {
+        createManager(users, schema, data).setUp(context);
+        clearInvocations(mockEnvironmentBuilder);
+
+        createManager(users, schema, data).setUpIncrementally(context);
+
+        verify(mockEnvironmentBuilder, never()).setUp(any());
+        verify(mockEnvironmentBuilder, never()).tearDown(any());
+    }
+
+    @Test
+    public void shouldSetUpChangedDefinitionAndEverythingAfterIt() {
+        createManager(users, schema, data).setUp(context);
+        clearInvocations(mockEnvironmentBuilder);
+
+        BuildDefinition changedSchema = new AnotherBuildDefinition(BuildPriority.NORMAL, "Schema", "v2");
+        createManager(users, changedSchema, data).setUpIncrementally(context);
+
+        verify(mockEnvironmentBuilder, never()).setUp(Collections.singleton(users));
+        verify(mockEnvironmentBuilder).tearDown(Collections.singleton(changedSchema));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(changedSchema));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(data));
+    }
+
+    @Test
+    public void shouldSetUpAddedDefinition() {
+        createManager(users, schema).setUp(context);
+        clearInvocations(mockEnvironmentBuilder);
+
+        createManager(users, schema, data).setUpIncrementally(context);
+
+        verify(mockEnvironmentBuilder, never()).setUp(Collections.singleton(users));
+        verify(mockEnvironmentBuilder, never()).setUp(Collections.singleton(schema));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(data));
+    }
+
+    @Test
+    public void shouldSetUpUnhealthyDefinitionsAgain() {
+        createManager(users, schema, data).setUp(context);
+        clearInvocations(mockEnvironmentBuilder);
+        when(mockEnvironmentBuilder.isHealthy(anySet())).thenReturn(false);
+
+        createManager(users, schema, data).setUpIncrementally(context);
+
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(users));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(schema));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(data));
+    }
+
+    @Test
+    public void shouldSetUpEverythingWhenDefinitionRemoved() {
+        createManager(users, schema, data).setUp(context);
+        clearInvocations(mockEnvironmentBuilder);
+
+        createManager(users, schema).setUpIncrementally(context);
+
+        verify(mockEnvironmentBuilder).tearDown(Collections.singleton(users));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(users));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(schema));
+    }
+
+    @Test
+    public void shouldTearDownRemovedDefinitionBeforeSettingUpAgain() {
+        createManager(users, schema, data).setUp(context);
+        clearInvocations(mockEnvironmentBuilder);
+
+        createManager(users, schema).setUpIncrementally(context);
+
+        InOrder inOrder = inOrder(mockEnvironmentBuilder);
+        inOrder.verify(mockEnvironmentBuilder).tearDown(Collections.singleton(data));
+        inOrder.verify(mockEnvironmentBuilder).setUp(Collections.singleton(users));
+    }
+
+    @Test
+    public void shouldSetUpEverythingAfterTearDown() {
+        EnvironmentManager manager = createManager(users, schema, data);
+        manager.setUp(context);
+        manager.tearDown(context);
+        clearInvocations(mockEnvironmentBuilder);
+
+        manager.setUpIncrementally(context);
+
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(users));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(schema));
+        verify(mockEnvironmentBuilder).setUp(Collections.singleton(data));
+    }
+
+    private EnvironmentManager createManager(BuildDefinition... definitions) {
+        Set<BuildDefinition> anotherDefinitions = new TreeSet<>(Arrays.asList(definitions));
+        Map<Class, Set<BuildDefinition>> buildDefinitions = new HashMap<>();
+        buildDefinitions.put(AnotherBuildDefinition.class, anotherDefinitions);
+
+        when(mockBuildDefinitionCollector.findBuildDefinitions()).thenReturn(buildDefinitions);
+
+        return new EnvironmentManagerImpl(mockBuildDefinitionCollector, mockEnvironmentBuilderFactoryCollector,
+                new BuildScheduler(), environmentStateStore);
+    }
+}
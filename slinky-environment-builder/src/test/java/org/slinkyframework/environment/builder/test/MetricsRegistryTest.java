@@ -0,0 +1,90 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.slinkyframework.environment.builder.metrics.Histogram;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.Timer;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class MetricsRegistryTest {
+
+    private MetricsRegistry testee;
+
+    @Before
+    public void setUp() {
+        testee = new MetricsRegistry();
+    }
+
+    @Test
+    public void shouldIdentifyMetricsByNameAndTags() {
+        MetricTags build1 = MetricTags.of(MetricTags.DEFINITION, "Build1");
+        MetricTags build2 = MetricTags.of(MetricTags.DEFINITION, "Build2");
+
+        assertThat("Same timer", testee.timer("docker.image.pull", build1), sameInstance(testee.timer("docker.image.pull", build1)));
+        assertThat("Different tags", testee.timer("docker.image.pull", build1), not(sameInstance(testee.timer("docker.image.pull", build2))));
+    }
+
+    @Test
+    public void shouldUseTheCurrentTagsOfTheThread() {
+        MetricTags tags = MetricTags.of(MetricTags.DEFINITION, "Build1").and(MetricTags.BUILDER, "ExampleEnvironmentBuilder");
+
+        tags.runWith(() -> testee.counter("database.statement.doesNotExist").increment());
+
+        assertThat("Current tags", MetricTags.current(), equalTo(MetricTags.NONE));
+        assertThat("Count", testee.counter("database.statement.doesNotExist", tags).getCount(), is(1L));
+    }
+
+    @Test
+    public void shouldTimePhases() {
+        Timer timer = testee.timer("liquibase.update", MetricTags.NONE);
+
+        timer.record(20, TimeUnit.MILLISECONDS);
+        timer.record(10, TimeUnit.MILLISECONDS);
+        try (Timer.Context context = timer.start()) {
+            context.stop();
+        }
+
+        Histogram.Snapshot snapshot = timer.getSnapshot();
+        assertThat("Count", snapshot.getCount(), is(3L));
+        assertThat("Max", snapshot.getMax(), is(TimeUnit.MILLISECONDS.toNanos(20)));
+    }
+
+    @Test
+    public void shouldCalculatePercentiles() {
+        Histogram histogram = testee.histogram("liquibase.changeSets", MetricTags.NONE);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        Histogram.Snapshot snapshot = histogram.getSnapshot();
+        assertThat("Mean", snapshot.getMean(), is(50.5));
+        assertThat("Median", snapshot.getPercentile(0.5), is(50L));
+        assertThat("95th percentile", snapshot.getPercentile(0.95), is(95L));
+        assertThat("Min", snapshot.getMin(), is(1L));
+    }
+
+    @Test
+    public void shouldWriteMetricsAsJson() throws IOException {
+        MetricTags tags = MetricTags.of(MetricTags.DEFINITION, "Movie \"Users\"");
+        testee.timer("docker.image.pull", tags).record(1500, TimeUnit.MICROSECONDS);
+        testee.counter("database.statement.doesNotExist", tags).increment(2);
+
+        StringBuilder json = new StringBuilder();
+        testee.writeJson(json);
+
+        assertThat("JSON", json.toString(), containsString("{\"name\": \"docker.image.pull\", \"tags\": {\"definition\": \"Movie \\\"Users\\\"\"}, \"count\": 1, \"totalMillis\": 1.500"));
+        assertThat("JSON", json.toString(), containsString("{\"name\": \"database.statement.doesNotExist\", \"tags\": {\"definition\": \"Movie \\\"Users\\\"\"}, \"count\": 2}"));
+        assertThat("JSON", json.toString(), containsString("\"histograms\": []"));
+    }
+}
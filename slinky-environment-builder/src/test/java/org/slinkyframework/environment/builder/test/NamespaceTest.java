@@ -0,0 +1,30 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.Namespace;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class NamespaceTest {
+
+    @Test
+    public void shouldQualifyNamesWithNamespace() {
+        assertThat("Container name", Namespace.of("1234").qualify("oracle-xe"), equalTo("oracle-xe_1234"));
+    }
+
+    @Test
+    public void shouldNotQualifyNamesWithoutNamespace() {
+        assertThat("Container name", Namespace.NONE.qualify("oracle-xe"), equalTo("oracle-xe"));
+        assertThat("Blank namespace", Namespace.of(" "), sameInstance(Namespace.NONE));
+        assertThat("No namespace", Namespace.of(null).isNone(), is(true));
+    }
+
+    @Test
+    public void shouldReplaceCharactersNotAllowedInIdentifiers() {
+        assertThat("Namespace", Namespace.of("feature/ci-42").getName(), equalTo("feature_ci_42"));
+        assertThat("Namespace", Namespace.of("feature/ci-42"), equalTo(Namespace.of("feature_ci_42")));
+    }
+}
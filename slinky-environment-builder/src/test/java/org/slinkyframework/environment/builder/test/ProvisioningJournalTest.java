@@ -0,0 +1,147 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slinkyframework.environment.builder.EnvironmentBuilderException;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal;
+import org.slinkyframework.environment.builder.state.ProvisioningJournal.Entry;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ProvisioningJournalTest {
+
+    private static final String USER = "user";
+    private static final String TABLESPACE = "tablespace";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = temporaryFolder.newFolder();
+    }
+
+    @Test
+    public void shouldReadEntriesRecordedByAnEarlierBuild() {
+        ProvisioningJournal journal = ProvisioningJournal.open(directory, "oracle-localhost");
+        journal.record(TABLESPACE, "TS1");
+        journal.record(USER, "USER1");
+        journal.record(USER, "USER1");
+
+        assertThat("Entries", ProvisioningJournal.open(directory, "oracle-localhost").getEntries(),
+                contains(entry(TABLESPACE, "TS1"), entry(USER, "USER1")));
+    }
+
+    @Test
+    public void shouldReplayEntriesInReverseAndEmptyTheJournal() {
+        ProvisioningJournal journal = ProvisioningJournal.open(directory, "oracle-localhost");
+        journal.record(TABLESPACE, "TS1");
+        journal.record(USER, "USER1");
+        journal.record(USER, "USER2");
+
+        List<String> undone = new ArrayList<>();
+        journal.replayInReverse(entry -> undone.add(entry.getTarget()));
+
+        assertThat("Undone", undone, contains("USER2", "USER1", "TS1"));
+        assertThat("Journal", journal.isEmpty(), is(true));
+        assertThat("Journal files", Arrays.asList(directory.list()), contains("oracle-localhost.journal"));
+
+        ProvisioningJournal reopened = ProvisioningJournal.open(directory, "oracle-localhost");
+        assertThat("Started", reopened.isStarted(), is(true));
+        assertThat("Entries", reopened.getEntries(), empty());
+    }
+
+    @Test
+    public void shouldOnlyBeStartedOnceSomethingHasBeenJournaled() {
+        assertThat("Started", ProvisioningJournal.open(directory, "oracle-localhost").isStarted(), is(false));
+
+        ProvisioningJournal.open(directory, "oracle-localhost").start();
+
+        ProvisioningJournal reopened = ProvisioningJournal.open(directory, "oracle-localhost");
+        assertThat("Started", reopened.isStarted(), is(true));
+        assertThat("Entries", reopened.getEntries(), empty());
+    }
+
+    @Test
+    public void shouldNotEmptyAJournalThatIsStartedAgain() {
+        ProvisioningJournal journal = ProvisioningJournal.open(directory, "oracle-localhost");
+        journal.record(USER, "USER1");
+
+        ProvisioningJournal reopened = ProvisioningJournal.open(directory, "oracle-localhost");
+        reopened.start();
+
+        assertThat("Entries", ProvisioningJournal.open(directory, "oracle-localhost").getEntries(), contains(entry(USER, "USER1")));
+    }
+
+    @Test
+    public void shouldKeepEntriesThatWereNotUndone() {
+        ProvisioningJournal journal = ProvisioningJournal.open(directory, "oracle-localhost");
+        journal.record(TABLESPACE, "TS1");
+        journal.record(USER, "USER1");
+        journal.record(USER, "USER2");
+
+        try {
+            journal.replayInReverse(entry -> {
+                if (entry.getTarget().equals("USER1")) {
+                    throw new EnvironmentBuilderException("Unable to drop user");
+                }
+            });
+            fail("Expected replay to fail");
+        } catch (EnvironmentBuilderException e) {
+            // Expected
+        }
+
+        assertThat("Entries", ProvisioningJournal.open(directory, "oracle-localhost").getEntries(),
+                contains(entry(TABLESPACE, "TS1"), entry(USER, "USER1")));
+    }
+
+    @Test
+    public void shouldIgnoreEntryLeftIncompleteByACrash() throws IOException {
+        ProvisioningJournal journal = ProvisioningJournal.open(directory, "oracle-localhost");
+        journal.record(USER, "USER1");
+        Files.write(new File(directory, "oracle-localhost.journal").toPath(), "user\tUSE".getBytes(UTF_8), StandardOpenOption.APPEND);
+
+        ProvisioningJournal reopened = ProvisioningJournal.open(directory, "oracle-localhost");
+        reopened.record(USER, "USER2");
+
+        assertThat("Entries", ProvisioningJournal.open(directory, "oracle-localhost").getEntries(),
+                contains(entry(USER, "USER1"), entry(USER, "USER2")));
+    }
+
+    @Test
+    public void shouldRecordEntriesWithSeveralValues() {
+        ProvisioningJournal journal = ProvisioningJournal.open(directory, "oracle-localhost");
+        journal.record("changeSet", "1", "author", "db/changelog.xml");
+
+        Entry entry = ProvisioningJournal.open(directory, "oracle-localhost").getEntries("changeSet").get(0);
+
+        assertThat("Values", entry.getValues(), contains("1", "author", "db/changelog.xml"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectValuesThatWouldCorruptTheJournal() {
+        ProvisioningJournal.inMemory().record(USER, "USER1\nuser\tUSER2");
+    }
+
+    private Entry entry(String type, String target) {
+        return new Entry(type, Collections.singletonList(target));
+    }
+}
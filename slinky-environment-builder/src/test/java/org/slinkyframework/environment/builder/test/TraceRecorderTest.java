@@ -0,0 +1,59 @@
+package org.slinkyframework.environment.builder.test;
+
+import org.junit.Test;
+import org.slinkyframework.environment.builder.metrics.MetricTags;
+import org.slinkyframework.environment.builder.metrics.MetricsRegistry;
+import org.slinkyframework.environment.builder.metrics.TraceRecorder;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+
+public class TraceRecorderTest {
+
+    @Test
+    public void shouldRecordCompleteEventsForSpans() throws IOException {
+        TraceRecorder testee = new TraceRecorder();
+        testee.start();
+
+        try (TraceRecorder.Span ignored = testee.span("Movie Users", "environment", MetricTags.of(MetricTags.BUILDER, "LocalLiquibaseEnvironmentBuilder"))) {
+            // Building
+        }
+
+        String json = toJson(testee);
+        assertThat("JSON", json, startsWith("{\"displayTimeUnit\": \"ms\", \"traceEvents\": ["));
+        assertThat("JSON", json, containsString("{\"name\": \"Movie Users\", \"cat\": \"environment\", \"ph\": \"X\", \"pid\": 1, \"tid\": 1, \"ts\": "));
+        assertThat("JSON", json, containsString("\"args\": {\"builder\": \"LocalLiquibaseEnvironmentBuilder\"}}"));
+        assertThat("JSON", json, containsString("{\"name\": \"thread_name\", \"ph\": \"M\", \"pid\": 1, \"tid\": 1, \"args\": {\"name\": " + "\"" + Thread.currentThread().getName() + "\"}}"));
+    }
+
+    @Test
+    public void shouldNotRecordUntilStarted() throws IOException {
+        TraceRecorder testee = new TraceRecorder();
+
+        try (TraceRecorder.Span ignored = testee.span("Movie Users", "environment", MetricTags.NONE)) {
+            // Building
+        }
+
+        assertThat("JSON", toJson(testee), not(containsString("\"ph\": \"X\"")));
+    }
+
+    @Test
+    public void shouldRecordTimedPhasesWhileTracing() throws IOException {
+        TraceRecorder.global().start();
+
+        MetricTags tags = MetricTags.of(MetricTags.DEFINITION, "Traced Build");
+        new MetricsRegistry().timer("docker.image.pull", tags).time(() -> { });
+
+        assertThat("JSON", toJson(TraceRecorder.global()), containsString("{\"name\": \"docker.image.pull\", \"cat\": \"docker\", \"ph\": \"X\""));
+    }
+
+    private String toJson(TraceRecorder recorder) throws IOException {
+        StringBuilder json = new StringBuilder();
+        recorder.writeJson(json);
+        return json.toString();
+    }
+}